@@ -0,0 +1,38 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.async.api;
+
+import java.util.List;
+
+/**
+ * An {@link EventHandler} that wants to see every context a stage worker drained in one wakeup at once. Only used by
+ * stages created with a drain batch size greater than one, see
+ * {@link StageManager#createStage(String, EventHandler, int, int, int, int)}.
+ */
+public interface BatchEventHandler extends EventHandler {
+
+  /**
+   * Handle a batch of events in the order they were added to the stage. The batch never contains
+   * {@link SpecializedEventContext}s, those are still executed one at a time by the stage. The list is reused by the
+   * stage once this call returns, so implementations should not hold on to it.
+   * 
+   * @param contexts
+   * @throws EventHandlerException
+   */
+  public void handleEventBatch(List<EventContext> contexts) throws EventHandlerException;
+
+}
@@ -16,6 +16,8 @@
  */
 package com.tc.async.api;
 
+import java.util.Collection;
+
 /**
  * This is used by the internals to manage the process of processing EventContexts in the manner that makes sense for
  * each one. Individual Stages SHOULD NOT HAVE TO EITHER USE OR IMPLEMENT THIS INTERFACE
@@ -26,6 +28,14 @@ public interface Source {
 
   public EventContext poll(long period) throws InterruptedException;
 
+  /**
+   * Waits up to period for the first context, then moves whatever else is immediately available, up to maxElements in
+   * total, into the given collection.
+   * 
+   * @return the number of contexts drained
+   */
+  public int drainTo(Collection<EventContext> batch, int maxElements, long period) throws InterruptedException;
+
   public String getSourceName();
 
 }
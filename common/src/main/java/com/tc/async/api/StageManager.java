@@ -29,6 +29,20 @@ public interface StageManager extends PrettyPrintable, ClearableCallback {
 
   public Stage createStage(String name, EventHandler handler, int threads, int queueRatio, int maxSize);
 
+  /**
+   * Creates a stage whose workers drain up to drainBatchSize contexts per wakeup. Bounded stages with a drain batch
+   * size greater than one are backed by lock-free ring buffer queues, unbounded ones keep their usual queues. Either
+   * way the drained contexts go to {@link BatchEventHandler#handleEventBatch} when the handler supports it.
+   */
+  public Stage createStage(String name, EventHandler handler, int threads, int queueRatio, int maxSize,
+                           int drainBatchSize);
+
+  /**
+   * Creates a stage for {@link MultiThreadedEventContext}s that keeps per key ordering but does not pin keys to a
+   * worker: idle workers steal whole key groups from the run queues of busy workers.
+   */
+  public Stage createWorkStealingStage(String name, EventHandler handler, int threads, int maxSize);
+
   public void startStage(Stage stage, ConfigurationContext context);
 
   public void startAll(ConfigurationContext context, List<PostInit> toInit);
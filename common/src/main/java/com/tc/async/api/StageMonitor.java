@@ -20,6 +20,11 @@ public interface StageMonitor {
   
   public void eventBegin(int queueDepth);
 
+  /**
+   * A worker of a work stealing stage took a whole key group off another worker's run queue.
+   */
+  public void keyGroupStolen(int fromWorker, int toWorker);
+
   public void flush();
 
   public Analysis analyze();
@@ -37,6 +42,8 @@ public interface StageMonitor {
     public Number getMaxQueueDepth();
 
     public Number getAvgQueueDepth();
+
+    public Number getStealCount();
     
   }
 }
@@ -23,4 +23,11 @@ public interface StageQueueStats extends Stats {
   String getName();
 
   int getDepth();
+
+  /**
+   * Number of batches drained by the stage workers, bucketed by batch size. Bucket i counts batches of size 2^i up to
+   * 2^(i+1) - 1, the last bucket also counts everything bigger. Empty if the stage does not drain in batches or stats
+   * are not being collected.
+   */
+  long[] getDrainBatchSizeHistogram();
 }
@@ -29,6 +29,11 @@ public class NullStageMonitor implements StageMonitor {
     return;
   }
 
+  @Override
+  public void keyGroupStolen(int fromWorker, int toWorker) {
+    return;
+  }
+
   @Override
   public void flush() {
     return;
@@ -16,6 +16,7 @@
  */
 package com.tc.async.impl;
 
+import com.tc.async.api.BatchEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventContext;
 import com.tc.async.api.EventHandler;
@@ -34,6 +35,9 @@ import com.tc.text.PrettyPrinter;
 import com.tc.util.concurrent.QueueFactory;
 import com.tc.util.concurrent.ThreadUtil;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The SEDA Stage
  */
@@ -42,12 +46,13 @@ public class StageImpl implements Stage {
                                                 // stage
   private final String         name;
   private final EventHandler   handler;
-  private final StageQueueImpl stageQueue;
+  private final StageQueue     stageQueue;
   private final WorkerThread[] threads;
   private final ThreadGroup    group;
   private final TCLogger       logger;
   private final int            sleepMs;
   private final boolean        pausable;
+  private final int            drainBatchSize;
 
   /**
    * The Constructor.
@@ -67,6 +72,22 @@ public class StageImpl implements Stage {
    */
   public StageImpl(TCLoggerProvider loggerProvider, String name, EventHandler handler, int threadCount,
                    int threadsToQueueRatio, ThreadGroup group, QueueFactory queueFactory, int queueSize) {
+    this(loggerProvider, name, handler, threadCount, threadsToQueueRatio, group, queueFactory, queueSize, 1, false);
+  }
+
+  /**
+   * Same as above, but each worker drains up to drainBatchSize contexts from its queue per wakeup. If the handler is a
+   * {@link BatchEventHandler} the drained contexts are handed to it in one call, otherwise they are handled one by one.
+   * 
+   * When workStealing is set, threadsToQueueRatio and queueFactory are ignored: every worker gets its own run queue of
+   * key groups and idle workers steal key groups from busy ones, see {@link WorkStealingStageQueueImpl}.
+   * 
+   * @param drainBatchSize : Max number of contexts drained per wakeup, 1 to take contexts one at a time
+   * @param workStealing : Let idle workers take over key groups of busy ones while keeping per key ordering
+   */
+  public StageImpl(TCLoggerProvider loggerProvider, String name, EventHandler handler, int threadCount,
+                   int threadsToQueueRatio, ThreadGroup group, QueueFactory queueFactory, int queueSize,
+                   int drainBatchSize, boolean workStealing) {
     this.logger = loggerProvider.getLogger(Stage.class.getName() + ": " + name);
     this.name = name;
     this.handler = handler;
@@ -74,9 +95,14 @@ public class StageImpl implements Stage {
     if (threadsToQueueRatio > threadCount) {
       logger.warn("Thread to Queue Ratio " + threadsToQueueRatio + " > Worker Threads " + threadCount);
     }
-    this.stageQueue = new StageQueueImpl(threadCount, threadsToQueueRatio, queueFactory, loggerProvider, name,
-                                         queueSize);
+    if (workStealing) {
+      this.stageQueue = new WorkStealingStageQueueImpl(threadCount, loggerProvider, name, queueSize);
+    } else {
+      this.stageQueue = new StageQueueImpl(threadCount, threadsToQueueRatio, queueFactory, loggerProvider, name,
+                                           queueSize);
+    }
     this.group = group;
+    this.drainBatchSize = Math.max(1, drainBatchSize);
     this.sleepMs = TCPropertiesImpl.getProperties().getInt("seda." + name + ".sleepMs", 0);
     if (this.sleepMs > 0) {
       logger.warn("Sleep of " + this.sleepMs + "ms enabled for stage " + name);
@@ -112,7 +138,7 @@ public class StageImpl implements Stage {
         threadName = threadName + ")";
       }
       threads[i] = new WorkerThread(threadName, this.stageQueue.getSource(i), handler, group, logger, sleepMs,
-                                    pausable, name);
+                                    pausable, name, drainBatchSize);
       threads[i].start();
     }
   }
@@ -143,9 +169,10 @@ public class StageImpl implements Stage {
     private final int          sleepMs;
     private final boolean      pausable;
     private final String       stageName;
+    private final int          drainBatchSize;
 
     public WorkerThread(String name, Source source, EventHandler handler, ThreadGroup group, TCLogger logger,
-                        int sleepMs, boolean pausable, String stageName) {
+                        int sleepMs, boolean pausable, String stageName, int drainBatchSize) {
       super(group, name);
       tcLogger = logger;
       setDaemon(true);
@@ -154,6 +181,7 @@ public class StageImpl implements Stage {
       this.sleepMs = sleepMs;
       this.pausable = pausable;
       this.stageName = stageName;
+      this.drainBatchSize = drainBatchSize;
     }
 
     public void shutdown() {
@@ -176,40 +204,20 @@ public class StageImpl implements Stage {
 
     @Override
     public void run() {
+      if (drainBatchSize > 1) {
+        runBatched();
+        return;
+      }
       while (!shutdownRequested()) {
         EventContext ctxt = null;
         try {
           ctxt = source.poll(pollTime);
           if (ctxt != null) {
             handleStageDebugPauses();
-            if (ctxt instanceof SpecializedEventContext) {
-              ((SpecializedEventContext) ctxt).execute();
-            } else {
-              handler.handleEvent(ctxt);
-            }
+            handleContext(ctxt);
           }
-        } catch (InterruptedException ie) {
-          if (shutdownRequested()) { return; }
-          throw new TCRuntimeException(ie);
-        } catch (EventHandlerException ie) {
-          if (shutdownRequested()) return;
-          throw new TCRuntimeException(ie);
         } catch (Exception e) {
-          if (isTCNotRunningException(e)) {
-            if (shutdownRequested()) {
-              return;
-            }
-            tcLogger.info("Ignoring " + TCNotRunningException.class.getSimpleName() + " while handling context: "
-                          + ctxt);
-          } else if (isRejoinInProgressException(e)) {
-            if (shutdownRequested()) {
-              return;
-            }
-            tcLogger.info("Ignoring " + PlatformRejoinException.class.getSimpleName() + " while handling context: "
-                          + ctxt, e);
-          } else {
-            throw new TCRuntimeException("Uncaught exception in stage", e);
-          }
+          if (handleException(e, ctxt)) { return; }
         } finally {
           // Aggressively null out the reference before going around the loop again. If you don't do this, the reference
           // to the context will exist until another context comes in. This can potentially keep many objects in memory
@@ -218,6 +226,83 @@ public class StageImpl implements Stage {
         }
       }
     }
+
+    private void runBatched() {
+      final List<EventContext> drained = new ArrayList<EventContext>(drainBatchSize);
+      final List<EventContext> batch = new ArrayList<EventContext>(drainBatchSize);
+      while (!shutdownRequested()) {
+        try {
+          if (source.drainTo(drained, drainBatchSize, pollTime) == 0) {
+            continue;
+          }
+        } catch (InterruptedException ie) {
+          if (handleException(ie, null)) { return; }
+        }
+        try {
+          handleStageDebugPauses();
+          for (EventContext ctxt : drained) {
+            if (handler instanceof BatchEventHandler && !(ctxt instanceof SpecializedEventContext)) {
+              batch.add(ctxt);
+              continue;
+            }
+            // keep ordering : anything batched so far goes before this context
+            if (!batch.isEmpty() && handleBatch(batch)) { return; }
+            try {
+              handleContext(ctxt);
+            } catch (Exception e) {
+              if (handleException(e, ctxt)) { return; }
+            }
+          }
+          if (!batch.isEmpty() && handleBatch(batch)) { return; }
+        } finally {
+          // Same as in run(), don't keep contexts reachable until the next wakeup
+          drained.clear();
+          batch.clear();
+        }
+      }
+    }
+
+    /**
+     * @return true if the worker should exit
+     */
+    private boolean handleBatch(List<EventContext> batch) {
+      try {
+        ((BatchEventHandler) handler).handleEventBatch(batch);
+        return false;
+      } catch (Exception e) {
+        return handleException(e, batch);
+      } finally {
+        batch.clear();
+      }
+    }
+
+    private void handleContext(EventContext ctxt) throws EventHandlerException {
+      if (ctxt instanceof SpecializedEventContext) {
+        ((SpecializedEventContext) ctxt).execute();
+      } else {
+        handler.handleEvent(ctxt);
+      }
+    }
+
+    /**
+     * @return true if the worker should exit
+     */
+    private boolean handleException(Exception e, Object ctxt) {
+      if (e instanceof InterruptedException || e instanceof EventHandlerException) {
+        if (shutdownRequested()) { return true; }
+        throw new TCRuntimeException(e);
+      } else if (isTCNotRunningException(e)) {
+        if (shutdownRequested()) { return true; }
+        tcLogger.info("Ignoring " + TCNotRunningException.class.getSimpleName() + " while handling context: " + ctxt);
+      } else if (isRejoinInProgressException(e)) {
+        if (shutdownRequested()) { return true; }
+        tcLogger.info("Ignoring " + PlatformRejoinException.class.getSimpleName() + " while handling context: " + ctxt,
+                      e);
+      } else {
+        throw new TCRuntimeException("Uncaught exception in stage", e);
+      }
+      return false;
+    }
   }
 
   private static boolean isTCNotRunningException(Throwable e) {
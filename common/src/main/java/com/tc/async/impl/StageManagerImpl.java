@@ -19,6 +19,7 @@ package com.tc.async.impl;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandler;
 import com.tc.async.api.PostInit;
+import com.tc.async.api.ReportingEventHandler;
 import com.tc.async.api.Stage;
 import com.tc.async.api.StageManager;
 import com.tc.async.api.StageMonitor;
@@ -32,8 +33,10 @@ import com.tc.text.PrettyPrinter;
 import com.tc.text.StringFormatter;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.QueueFactory;
+import com.tc.util.concurrent.RingBufferQueueFactory;
 import com.tc.util.concurrent.ThreadUtil;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -49,17 +52,18 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class StageManagerImpl implements StageManager {
 
-  private static final boolean     MONITOR       = TCPropertiesImpl.getProperties()
-                                                     .getBoolean(TCPropertiesConsts.TC_STAGE_MONITOR_ENABLED);
-  private static final long        MONITOR_DELAY = TCPropertiesImpl.getProperties()
-                                                     .getLong(TCPropertiesConsts.TC_STAGE_MONITOR_DELAY);
+  private static final boolean                     MONITOR           = TCPropertiesImpl.getProperties()
+                                                                         .getBoolean(TCPropertiesConsts.TC_STAGE_MONITOR_ENABLED);
+  private static final long                        MONITOR_DELAY     = TCPropertiesImpl.getProperties()
+                                                                         .getLong(TCPropertiesConsts.TC_STAGE_MONITOR_DELAY);
 
-  private final Map<String, Stage> stages        = new ConcurrentHashMap<String, Stage>();
-  private TCLoggerProvider         loggerProvider;
-  private final ThreadGroup        group;
-  private String[]                 stageNames    = new String[] {};
-  private QueueFactory             queueFactory  = null;
-  private volatile boolean         started;
+  private final Map<String, Stage>                 stages            = new ConcurrentHashMap<String, Stage>();
+  private final Map<String, ReportingEventHandler> reportingHandlers = new ConcurrentHashMap<String, ReportingEventHandler>();
+  private TCLoggerProvider                         loggerProvider;
+  private final ThreadGroup                        group;
+  private String[]                                 stageNames        = new String[] {};
+  private QueueFactory                             queueFactory      = null;
+  private volatile boolean                         started;
 
   public StageManagerImpl(ThreadGroup threadGroup, QueueFactory queueFactory) {
     this.loggerProvider = new DefaultLoggerProvider();
@@ -112,14 +116,51 @@ public class StageManagerImpl implements StageManager {
   @Override
   public synchronized Stage createStage(String name, EventHandler handler, int threads, int threadsToQueueRatio,
                                         int maxSize) {
+    // batch draining and work stealing can be turned on for any stage without code changes, e.g.
+    // seda.apply_changes_stage.drainBatchSize or seda.apply_changes_stage.workStealing
+    int drainBatchSize = TCPropertiesImpl.getProperties().getInt("seda." + name + ".drainBatchSize", 1);
+    boolean workStealing = threads > 1 && threadsToQueueRatio == 1
+                           && TCPropertiesImpl.getProperties().getBoolean("seda." + name + ".workStealing", false);
+    return createStage(name, handler, threads, threadsToQueueRatio, maxSize, drainBatchSize, workStealing);
+  }
+
+  @Override
+  public synchronized Stage createStage(String name, EventHandler handler, int threads, int threadsToQueueRatio,
+                                        int maxSize, int drainBatchSize) {
+    return createStage(name, handler, threads, threadsToQueueRatio, maxSize, drainBatchSize, false);
+  }
+
+  @Override
+  public synchronized Stage createWorkStealingStage(String name, EventHandler handler, int threads, int maxSize) {
+    return createStage(name, handler, threads, 1, maxSize, 1, true);
+  }
+
+  private Stage createStage(String name, EventHandler handler, int threads, int threadsToQueueRatio, int maxSize,
+                            int drainBatchSize, boolean workStealing) {
     if (started) {
       throw new IllegalStateException("A new stage cannot be created, because StageManager is already started.");
     }
 
     int capacity = maxSize > 0 ? maxSize : Integer.MAX_VALUE;
-    Stage s = new StageImpl(loggerProvider, name, handler, threads, threadsToQueueRatio, group, this.queueFactory,
-                            capacity);
+    QueueFactory factory = this.queueFactory;
+    if (workStealing) {
+      loggerProvider.getLogger(getClass()).info("Stage " + name + " runs " + threads
+                                                    + " workers that steal key groups from each other");
+    } else if (drainBatchSize > 1 && maxSize > 0) {
+      factory = new RingBufferQueueFactory();
+      loggerProvider.getLogger(getClass()).info("Stage " + name + " drains up to " + drainBatchSize
+                                                    + " contexts per wakeup from ring buffer queues");
+    } else if (drainBatchSize > 1) {
+      // unbounded stages keep their queues, a ring buffer would start blocking producers at its capacity
+      loggerProvider.getLogger(getClass()).info("Stage " + name + " drains up to " + drainBatchSize
+                                                    + " contexts per wakeup");
+    }
+    Stage s = new StageImpl(loggerProvider, name, handler, threads, threadsToQueueRatio, group, factory, capacity,
+                            drainBatchSize, workStealing);
     addStage(name, s);
+    if (handler instanceof ReportingEventHandler) {
+      reportingHandlers.put(name, (ReportingEventHandler) handler);
+    }
     return s;
   }
 
@@ -162,6 +203,7 @@ public class StageManagerImpl implements StageManager {
       s.destroy();
     }
     stages.clear();
+    reportingHandlers.clear();
     started = false;
   }
 
@@ -186,12 +228,17 @@ public class StageManagerImpl implements StageManager {
   @Override
   public synchronized Stats[] getStats() {
     final String[] names = stageNames;
-    final Stats[] stats = new Stats[names.length];
+    final List<Stats> stats = new ArrayList<Stats>(names.length);
 
-    for (int i = 0; i < names.length; i++) {
-      stats[i] = getStage(names[i]).getSink().getStats(MONITOR_DELAY);
+    for (String name : names) {
+      // the stage monitor asks once per interval, stats that accumulate start over for the next one
+      stats.add(getStage(name).getSink().getStatsAndReset(MONITOR_DELAY));
+      ReportingEventHandler reporting = reportingHandlers.get(name);
+      if (reporting != null) {
+        stats.add(reporting.getHandlerStats());
+      }
     }
-    return stats;
+    return stats.toArray(new Stats[stats.size()]);
   }
 
   @Override
@@ -20,6 +20,7 @@ import com.tc.async.api.StageMonitor;
 import com.tc.text.StringFormatter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -30,6 +31,8 @@ class StageMonitorImpl implements StageMonitor {
 
   private final List            snapshots = new ArrayList();
   private long                  begin     = System.currentTimeMillis();
+  private int                   steals    = 0;
+  private int[]                 stolenBy  = new int[0];
 
   StageMonitorImpl(String name, StringFormatter formatter) {
     this.name = formatter.rightPad(30, name);
@@ -41,11 +44,30 @@ class StageMonitorImpl implements StageMonitor {
     snapshots.add(new Snapshot(queueDepth));
   }
 
+  @Override
+  public synchronized void keyGroupStolen(int fromWorker, int toWorker) {
+    steals++;
+    if (toWorker >= stolenBy.length) {
+      int[] grown = new int[toWorker + 1];
+      System.arraycopy(stolenBy, 0, grown, 0, stolenBy.length);
+      stolenBy = grown;
+    }
+    stolenBy[toWorker]++;
+  }
+
   public synchronized String dumpAndFlush() {
+    String rv = dump();
+    flush();
+    return rv;
+  }
+
+  /**
+   * Same output as {@link #dumpAndFlush()}, but the collected snapshots are left in place.
+   */
+  public synchronized String dump() {
     long elapsed = System.currentTimeMillis() - begin;
     StringBuffer rv = new StringBuffer();
     dump(elapsed, rv);
-    flush();
     return rv.toString();
   }
 
@@ -60,6 +82,11 @@ class StageMonitorImpl implements StageMonitor {
     buf.append(", max: ").append(formatter.leftPad(10, an.getMaxQueueDepth()));
     buf.append(", avg: ").append(formatter.leftPad(10, an.getAvgQueueDepth()));
 
+    if (steals > 0) {
+      buf.append("| key group steals: ").append(formatter.leftPad(10, an.getStealCount()));
+      buf.append(", by worker: ").append(Arrays.toString(stolenBy));
+    }
+
     return buf;
   }
 
@@ -86,13 +113,16 @@ class StageMonitorImpl implements StageMonitor {
 
     return new AnalysisImpl(Long.valueOf(elapsed), Integer.valueOf(snapshots.size()), safeDiv(snapshots.size() * 1000,
                                                                                               elapsed),
-                            Integer.valueOf(min), Integer.valueOf(max), safeDiv(sum, snapshots.size()));
+                            Integer.valueOf(min), Integer.valueOf(max), safeDiv(sum, snapshots.size()),
+                            Integer.valueOf(steals));
   }
 
   @Override
   public synchronized void flush() {
     snapshots.clear();
     begin = System.currentTimeMillis();
+    steals = 0;
+    stolenBy = new int[0];
   }
 
   public static class AnalysisImpl implements Analysis {
@@ -102,15 +132,17 @@ class StageMonitorImpl implements StageMonitor {
     private final Number maxQueueDepth;
     private final Number avgQueueDepth;
     private final Number elapsedTime;
+    private final Number stealCount;
 
     private AnalysisImpl(Number elapsedTime, Number eventCount, Number eventsPerSecond, Number minQueueDepth,
-                         Number maxQueueDepth, Number avgQueueDepth) {
+                         Number maxQueueDepth, Number avgQueueDepth, Number stealCount) {
       this.elapsedTime = elapsedTime;
       this.eventCount = eventCount;
       this.eventsPerSecond = eventsPerSecond;
       this.minQueueDepth = minQueueDepth;
       this.maxQueueDepth = maxQueueDepth;
       this.avgQueueDepth = avgQueueDepth;
+      this.stealCount = stealCount;
     }
 
     @Override
@@ -143,6 +175,11 @@ class StageMonitorImpl implements StageMonitor {
       return eventCount;
     }
 
+    @Override
+    public Number getStealCount() {
+      return stealCount;
+    }
+
   }
 
   private static class Snapshot {
@@ -29,17 +29,20 @@ import com.tc.stats.Stats;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.QueueFactory;
 import com.tc.util.concurrent.TCQueue;
+import com.tc.util.concurrent.TCRingBufferQueue;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This StageQueueImpl represents the sink and gives a handle to the source. We are internally justun using a queue
  * since our queues are locally processed. This class can be replaced with a distributed queue to enable processing
  * across process boundaries.
  */
-public class StageQueueImpl implements Sink {
+public class StageQueueImpl implements StageQueue {
 
   private final String            stageName;
   private final TCLogger          logger;
@@ -99,6 +102,7 @@ public class StageQueueImpl implements Sink {
     }
   }
 
+  @Override
   public Source getSource(int index) {
     return this.sourceQueues[index];
   }
@@ -302,6 +306,28 @@ public class StageQueueImpl implements Sink {
       return rv;
     }
 
+    @Override
+    public int drainTo(Collection<EventContext> batch, int maxElements, long timeout) throws InterruptedException {
+      EventContext first = (EventContext) this.queue.poll(timeout);
+      if (first == null) { return 0; }
+      batch.add(first);
+      int drained = 1;
+      if (this.queue instanceof TCRingBufferQueue) {
+        drained += ((TCRingBufferQueue) this.queue).drainTo(batch, maxElements - 1);
+      } else {
+        while (drained < maxElements) {
+          EventContext next = (EventContext) this.queue.poll(0);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+          drained++;
+        }
+      }
+      this.statsCollector.contextsDrained(drained);
+      return drained;
+    }
+
     public void put(Object obj) throws InterruptedException {
       this.queue.put(obj);
       this.statsCollector.contextAdded();
@@ -317,7 +343,7 @@ public class StageQueueImpl implements Sink {
     }
   }
 
-  private static abstract class StageQueueStatsCollector implements StageQueueStats {
+  static abstract class StageQueueStatsCollector implements StageQueueStats {
 
     @Override
     public void logDetails(TCLogger statsLogger) {
@@ -330,6 +356,8 @@ public class StageQueueImpl implements Sink {
 
     public abstract void contextRemoved();
 
+    public abstract void contextsDrained(int batchSize);
+
     protected String makeWidth(String name, int width) {
       final int len = name.length();
       if (len == width) { return name; }
@@ -343,7 +371,7 @@ public class StageQueueImpl implements Sink {
     }
   }
 
-  private static class NullStageQueueStatsCollector extends StageQueueStatsCollector {
+  static class NullStageQueueStatsCollector extends StageQueueStatsCollector {
 
     private final String name;
     private final String trimmedName;
@@ -368,6 +396,11 @@ public class StageQueueImpl implements Sink {
       // NO-OP
     }
 
+    @Override
+    public void contextsDrained(int batchSize) {
+      // NO-OP
+    }
+
     @Override
     public void reset() {
       // NO-OP
@@ -382,13 +415,21 @@ public class StageQueueImpl implements Sink {
     public int getDepth() {
       return -1;
     }
+
+    @Override
+    public long[] getDrainBatchSizeHistogram() {
+      return new long[0];
+    }
   }
 
-  private static class StageQueueStatsCollectorImpl extends StageQueueStatsCollector {
+  static class StageQueueStatsCollectorImpl extends StageQueueStatsCollector {
+
+    private static final int      DRAIN_HISTOGRAM_BUCKETS = 16;
 
-    private final AtomicInteger count = new AtomicInteger(0);
-    private final String        name;
-    private final String        trimmedName;
+    private final AtomicInteger   count                   = new AtomicInteger(0);
+    private final AtomicLongArray drainHistogram          = new AtomicLongArray(DRAIN_HISTOGRAM_BUCKETS);
+    private final String          name;
+    private final String          trimmedName;
 
     public StageQueueStatsCollectorImpl(String stage) {
       this.trimmedName = stage.trim();
@@ -397,6 +438,10 @@ public class StageQueueImpl implements Sink {
 
     @Override
     public String getDetails() {
+      long[] histogram = getDrainBatchSizeHistogram();
+      for (long batches : histogram) {
+        if (batches > 0) { return this.name + " : " + this.count + " drain batches : " + Arrays.toString(histogram); }
+      }
       return this.name + " : " + this.count;
     }
 
@@ -410,9 +455,19 @@ public class StageQueueImpl implements Sink {
       this.count.decrementAndGet();
     }
 
+    @Override
+    public void contextsDrained(int batchSize) {
+      this.count.addAndGet(-batchSize);
+      int bucket = Math.min(31 - Integer.numberOfLeadingZeros(batchSize), DRAIN_HISTOGRAM_BUCKETS - 1);
+      this.drainHistogram.incrementAndGet(bucket);
+    }
+
     @Override
     public void reset() {
       this.count.set(0);
+      for (int i = 0; i < DRAIN_HISTOGRAM_BUCKETS; i++) {
+        this.drainHistogram.set(i, 0);
+      }
     }
 
     @Override
@@ -424,5 +479,14 @@ public class StageQueueImpl implements Sink {
     public int getDepth() {
       return this.count.get();
     }
+
+    @Override
+    public long[] getDrainBatchSizeHistogram() {
+      long[] histogram = new long[DRAIN_HISTOGRAM_BUCKETS];
+      for (int i = 0; i < DRAIN_HISTOGRAM_BUCKETS; i++) {
+        histogram[i] = this.drainHistogram.get(i);
+      }
+      return histogram;
+    }
   }
 }
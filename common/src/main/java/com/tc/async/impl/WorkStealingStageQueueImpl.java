@@ -0,0 +1,493 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.async.impl;
+
+import com.tc.async.api.AddPredicate;
+import com.tc.async.api.EventContext;
+import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.async.api.Sink;
+import com.tc.async.api.Source;
+import com.tc.async.api.StageMonitor;
+import com.tc.async.api.StageQueueStats;
+import com.tc.async.impl.StageQueueImpl.NullStageQueueStatsCollector;
+import com.tc.async.impl.StageQueueImpl.StageQueueStatsCollector;
+import com.tc.async.impl.StageQueueImpl.StageQueueStatsCollectorImpl;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLoggerProvider;
+import com.tc.stats.Stats;
+import com.tc.text.StringFormatter;
+import com.tc.util.Assert;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stage queue for {@link MultiThreadedEventContext}s that keeps per key ordering without pinning a key to one worker.
+ * <p>
+ * Keys are hashed into a fixed number of key groups, several per worker. A key group with pending contexts is scheduled
+ * on exactly one worker's run queue at a time, so contexts of the same key are never handled concurrently and always
+ * in the order they were added. A worker handles a bounded number of contexts from a group before putting it back at
+ * the end of its run queue, and a worker that runs out of groups steals whole groups from the other workers' run
+ * queues. A hot key therefore only keeps one worker busy, the keys that happened to hash next to it move to idle
+ * workers.
+ * <p>
+ * Contexts that are not {@link MultiThreadedEventContext}s all go to the same key group, like they all go to the first
+ * queue in {@link StageQueueImpl}. Steals are recorded in a {@link StageMonitorImpl} when stats collection is enabled.
+ */
+class WorkStealingStageQueueImpl implements StageQueue {
+
+  static final int                  KEY_GROUPS_PER_WORKER = 8;
+  static final int                  KEY_GROUP_BUDGET      = 32;
+
+  private final String              stageName;
+  private final TCLogger            logger;
+  private volatile AddPredicate     predicate             = DefaultAddPredicate.getInstance();
+  private final KeyGroup[]          keyGroups;
+  private final WorkerSource[]      workers;
+  private final Semaphore           capacity;
+  private final AtomicInteger       size                  = new AtomicInteger(0);
+  private final AtomicInteger       idleWorkers           = new AtomicInteger(0);
+  private final Object              idleLock              = new Object();
+  private volatile StageQueueStatsCollector statsCollector;
+  private volatile StageMonitor     monitor               = new NullStageMonitor();
+  private volatile boolean          monitoring            = false;
+
+  /**
+   * @param threadCount : Number of threads working on this stage, each gets its own run queue
+   * @param loggerProvider : logger
+   * @param stageName : The stage name
+   * @param queueSize : Max number of contexts queued in the stage, Integer.MAX_VALUE for no limit
+   */
+  WorkStealingStageQueueImpl(int threadCount, TCLoggerProvider loggerProvider, String stageName, int queueSize) {
+    Assert.eval(threadCount > 0);
+    Assert.eval(queueSize > 0);
+    this.logger = loggerProvider.getLogger(Sink.class.getName() + ": " + stageName);
+    this.stageName = stageName;
+    this.statsCollector = new NullStageQueueStatsCollector(stageName);
+    this.capacity = queueSize == Integer.MAX_VALUE ? null : new Semaphore(queueSize);
+    this.workers = new WorkerSource[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      this.workers[i] = new WorkerSource(i);
+    }
+    this.keyGroups = new KeyGroup[threadCount * KEY_GROUPS_PER_WORKER];
+    for (int i = 0; i < this.keyGroups.length; i++) {
+      this.keyGroups[i] = new KeyGroup(i % threadCount);
+    }
+  }
+
+  @Override
+  public Source getSource(int index) {
+    return this.workers[index];
+  }
+
+  @Override
+  public boolean addLossy(EventContext context) {
+    if (keyGroupFor(context).isEmpty()) {
+      add(context);
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public void addMany(Collection contexts) {
+    if (this.logger.isDebugEnabled()) {
+      this.logger.debug("Added many:" + contexts + " to:" + this.stageName);
+    }
+    for (Iterator i = contexts.iterator(); i.hasNext();) {
+      add((EventContext) i.next());
+    }
+  }
+
+  @Override
+  public void add(EventContext context) {
+    Assert.assertNotNull(context);
+    if (this.logger.isDebugEnabled()) {
+      this.logger.debug("Added:" + context + " to:" + this.stageName);
+    }
+    if (!this.predicate.accept(context)) {
+      if (this.logger.isDebugEnabled()) {
+        this.logger.debug("Predicate caused skip add for:" + context + " to:" + this.stageName);
+      }
+      return;
+    }
+
+    if (this.capacity != null) {
+      this.capacity.acquireUninterruptibly();
+    }
+    KeyGroup group = keyGroupFor(context);
+    group.add(context);
+    this.size.incrementAndGet();
+    this.statsCollector.contextAdded();
+    schedule(group);
+  }
+
+  private KeyGroup keyGroupFor(EventContext context) {
+    if (context instanceof MultiThreadedEventContext) {
+      Object o = ((MultiThreadedEventContext) context).getKey();
+      return this.keyGroups[Math.abs(o.hashCode() % this.keyGroups.length)];
+    }
+    return this.keyGroups[0];
+  }
+
+  private void schedule(KeyGroup group) {
+    if (group.markScheduled()) {
+      this.workers[group.getHome()].enqueue(group);
+    }
+  }
+
+  private void contextRemoved() {
+    this.size.decrementAndGet();
+    if (this.capacity != null) {
+      this.capacity.release();
+    }
+  }
+
+  private void signalIdleWorkers() {
+    // idle workers register before re-checking the run queues under the lock, see WorkerSource.awaitKeyGroup()
+    if (this.idleWorkers.get() > 0) {
+      synchronized (this.idleLock) {
+        this.idleLock.notifyAll();
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.size.get();
+  }
+
+  @Override
+  public void setAddPredicate(AddPredicate predicate) {
+    Assert.eval(predicate != null);
+    this.predicate = predicate;
+  }
+
+  @Override
+  public AddPredicate getPredicate() {
+    return this.predicate;
+  }
+
+  @Override
+  public String toString() {
+    return "WorkStealingStageQueue(" + this.stageName + ")";
+  }
+
+  @Override
+  public void clear() {
+    int clearCount = 0;
+    for (KeyGroup group : this.keyGroups) {
+      while (group.poll() != null) {
+        contextRemoved();
+        this.statsCollector.contextRemoved();
+        clearCount++;
+      }
+    }
+    this.logger.info("Cleared " + clearCount);
+  }
+
+  /*********************************************************************************************************************
+   * Monitorable Interface
+   */
+
+  @Override
+  public void enableStatsCollection(boolean enable) {
+    if (enable) {
+      this.statsCollector = new StageQueueStatsCollectorImpl(this.stageName);
+      this.monitor = new StageMonitorImpl(this.stageName, new StringFormatter());
+      this.monitoring = true;
+    } else {
+      this.monitoring = false;
+      this.statsCollector = new NullStageQueueStatsCollector(this.stageName);
+      this.monitor = new NullStageMonitor();
+    }
+  }
+
+  @Override
+  public Stats getStats(long frequency) {
+    final StageMonitor current = this.monitor;
+    return new WorkStealingStats(this.statsCollector,
+                                 current instanceof StageMonitorImpl ? ((StageMonitorImpl) current).dump() : null);
+  }
+
+  @Override
+  public Stats getStatsAndReset(long frequency) {
+    final StageMonitor current = this.monitor;
+    return new WorkStealingStats(this.statsCollector,
+                                 current instanceof StageMonitorImpl ? ((StageMonitorImpl) current).dumpAndFlush()
+                                     : null);
+  }
+
+  @Override
+  public boolean isStatsCollectionEnabled() {
+    return this.statsCollector instanceof StageQueueStatsCollectorImpl;
+  }
+
+  @Override
+  public void resetStats() {
+    this.statsCollector.reset();
+    this.monitor.flush();
+  }
+
+  private static final class KeyGroup {
+
+    private final Queue<EventContext> contexts  = new ConcurrentLinkedQueue<EventContext>();
+    private final AtomicBoolean       scheduled = new AtomicBoolean(false);
+    private volatile int              home;
+
+    private KeyGroup(int home) {
+      this.home = home;
+    }
+
+    void add(EventContext context) {
+      this.contexts.add(context);
+    }
+
+    EventContext poll() {
+      return this.contexts.poll();
+    }
+
+    boolean isEmpty() {
+      return this.contexts.isEmpty();
+    }
+
+    int getHome() {
+      return this.home;
+    }
+
+    void setHome(int home) {
+      this.home = home;
+    }
+
+    boolean markScheduled() {
+      return this.scheduled.compareAndSet(false, true);
+    }
+
+    void markUnscheduled() {
+      this.scheduled.set(false);
+    }
+  }
+
+  private final class WorkerSource implements Source {
+
+    private final int                             index;
+    private final ConcurrentLinkedDeque<KeyGroup> runQueue     = new ConcurrentLinkedDeque<KeyGroup>();
+    private final AtomicInteger                   queuedGroups = new AtomicInteger(0);
+    // only touched by the worker thread polling this source
+    private KeyGroup                              current;
+    private int                                   budget;
+
+    private WorkerSource(int index) {
+      this.index = index;
+    }
+
+    void enqueue(KeyGroup group) {
+      this.queuedGroups.incrementAndGet();
+      this.runQueue.addLast(group);
+      signalIdleWorkers();
+    }
+
+    private KeyGroup dequeue() {
+      KeyGroup group = this.runQueue.pollFirst();
+      if (group != null) {
+        this.queuedGroups.decrementAndGet();
+      }
+      return group;
+    }
+
+    @Override
+    public EventContext poll(long timeout) throws InterruptedException {
+      EventContext context = nextContext(timeout);
+      if (context != null) {
+        statsCollector.contextRemoved();
+      }
+      return context;
+    }
+
+    @Override
+    public int drainTo(Collection<EventContext> batch, int maxElements, long timeout) throws InterruptedException {
+      EventContext context = nextContext(timeout);
+      if (context == null) { return 0; }
+      batch.add(context);
+      int drained = 1;
+      // only drain from the current key group, the rest of the batch has to go through nextContext() again so the
+      // group is released in between
+      while (drained < maxElements && this.budget > 0) {
+        context = this.current.poll();
+        if (context == null) {
+          break;
+        }
+        this.budget--;
+        contextRemoved();
+        if (monitoring) {
+          monitor.eventBegin(size());
+        }
+        batch.add(context);
+        drained++;
+      }
+      statsCollector.contextsDrained(drained);
+      return drained;
+    }
+
+    private EventContext nextContext(long timeout) throws InterruptedException {
+      EventContext context = nextFromCurrent();
+      while (context == null) {
+        KeyGroup group = nextKeyGroup();
+        if (group == null) {
+          group = awaitKeyGroup(timeout);
+        }
+        if (group == null) { return null; }
+        this.current = group;
+        this.budget = KEY_GROUP_BUDGET;
+        context = nextFromCurrent();
+      }
+      contextRemoved();
+      if (monitoring) {
+        monitor.eventBegin(size());
+      }
+      return context;
+    }
+
+    /**
+     * Called once the previous context of the current group has been handled, so the group can safely move to another
+     * worker once it is released.
+     */
+    private EventContext nextFromCurrent() {
+      KeyGroup group = this.current;
+      if (group == null) { return null; }
+      if (this.budget > 0) {
+        EventContext context = group.poll();
+        if (context != null) {
+          this.budget--;
+          return context;
+        }
+      }
+      this.current = null;
+      release(group);
+      return null;
+    }
+
+    private void release(KeyGroup group) {
+      group.setHome(this.index);
+      if (!group.isEmpty()) {
+        // still scheduled, go to the back of the line so other groups on this worker get their turn
+        enqueue(group);
+        return;
+      }
+      group.markUnscheduled();
+      // a producer might have added to the group after the isEmpty() check but before the unscheduling
+      if (!group.isEmpty() && group.markScheduled()) {
+        enqueue(group);
+      }
+    }
+
+    private KeyGroup nextKeyGroup() {
+      KeyGroup group = dequeue();
+      if (group != null) { return group; }
+      return steal();
+    }
+
+    private KeyGroup steal() {
+      WorkerSource victim = null;
+      int mostQueued = 0;
+      for (WorkerSource worker : workers) {
+        int queued = worker.queuedGroups.get();
+        if (worker != this && queued > mostQueued) {
+          victim = worker;
+          mostQueued = queued;
+        }
+      }
+      if (victim == null) { return null; }
+      KeyGroup group = victim.dequeue();
+      if (group != null) {
+        monitor.keyGroupStolen(victim.index, this.index);
+      }
+      return group;
+    }
+
+    private KeyGroup awaitKeyGroup(long timeout) throws InterruptedException {
+      if (timeout <= 0) { return null; }
+      long deadline = System.currentTimeMillis() + timeout;
+      idleWorkers.incrementAndGet();
+      try {
+        synchronized (idleLock) {
+          while (true) {
+            KeyGroup group = nextKeyGroup();
+            if (group != null) { return group; }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) { return null; }
+            idleLock.wait(remaining);
+          }
+        }
+      } finally {
+        idleWorkers.decrementAndGet();
+      }
+    }
+
+    @Override
+    public String getSourceName() {
+      return String.valueOf(this.index);
+    }
+  }
+
+  private static final class WorkStealingStats implements StageQueueStats {
+
+    private final StageQueueStatsCollector collector;
+    private final String                   monitorDetails;
+
+    private WorkStealingStats(StageQueueStatsCollector collector, String monitorDetails) {
+      this.collector = collector;
+      this.monitorDetails = monitorDetails;
+    }
+
+    @Override
+    public String getDetails() {
+      String details = this.collector.getDetails();
+      if (this.monitorDetails != null) {
+        details += " | " + this.monitorDetails;
+      }
+      return details;
+    }
+
+    @Override
+    public void logDetails(TCLogger statsLogger) {
+      statsLogger.info(getDetails());
+    }
+
+    @Override
+    public String getName() {
+      return this.collector.getName();
+    }
+
+    @Override
+    public int getDepth() {
+      return this.collector.getDepth();
+    }
+
+    @Override
+    public long[] getDrainBatchSizeHistogram() {
+      return this.collector.getDrainBatchSizeHistogram();
+    }
+  }
+}
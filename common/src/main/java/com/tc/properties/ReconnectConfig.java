@@ -27,5 +27,16 @@ public interface ReconnectConfig {
   public int getMaxDelayAcks();
   
   public int getSendWindow();
+
+  /**
+   * Max bytes of unacknowledged messages, replacing the message count send window when greater than 0.
+   */
+  public int getSendWindowBytes();
+
+  /**
+   * Max milliseconds an ack may be held back to coalesce it with the following ones, 0 to only ack every
+   * {@link #getMaxDelayAcks()} messages.
+   */
+  public int getAckDelayMillis();
   
 }
@@ -84,6 +84,7 @@ public interface TCPropertiesConsts {
    * criticalLowerbound      : the lowerbound bytes available above the threshold levels
    * vital offheap stoppage      : the lowerbound bytes available above the threshold levels
    * criticalLowerbound      : the lowerbound bytes available above the threshold levels
+   * emergency.parallelism   : number of maps evicted from concurrently during emergency eviction
    * </code>
    ********************************************************************************************************************/
 
@@ -92,6 +93,7 @@ public interface TCPropertiesConsts {
   public static final String L2_EVICTION_HALTTHRESHOLD                                      = "l2.eviction.haltThreshold";
   public static final String L2_EVICTION_OFFHEAP_STOPPAGE                                   = "l2.eviction.offheap.stoppage";
   public static final String L2_EVICTION_STORAGE_STOPPAGE                                   = "l2.eviction.storage.stoppage";
+  public static final String L2_EVICTION_EMERGENCY_PARALLELISM                              = "l2.eviction.emergency.parallelism";
 
   /*********************************************************************************************************************
    * <code>
@@ -148,6 +150,9 @@ public interface TCPropertiesConsts {
    * dgc.inline.intervalInSeconds   - Interval in seconds at which to delete objects selected by inline dgc.
    * dgc.inline.maxObjects          - Maximum inline dgc batch size
    * dgc.inline.cleanup.delaySeconds - Seconds to delay the start of inline dgc cleanup after a server becomes active
+   * dgc.incremental.enabled        - Run full dgc as an incremental mark in time slices with a write barrier
+   * dgc.incremental.sliceTimeInMillis - Longest stretch the incremental mark walks the object graph in one go
+   * dgc.incremental.pauseBetweenSlicesInMillis - Time the incremental mark leaves to transactions between slices
    * l2.objectmanager.invalidate.strong.cache.enabled - Enable/disable invalidations for strong cache
    * </code>
    ********************************************************************************************************************/
@@ -158,16 +163,22 @@ public interface TCPropertiesConsts {
   public static final String L2_OBJECTMANAGER_REQUEST_LOGGING_ENABLED                       = "l2.objectmanager.request.logging.enabled";
   public static final String L2_OBJECTMANAGER_REQUEST_PREFETCH_ENABLED                      = "l2.objectmanager.request.prefetch.enabled";
   public static final String L2_OBJECTMANAGER_PERSISTOR_LOGGING_ENABLED                     = "l2.objectmanager.persistor.logging.enabled";
+  public static final String L2_OBJECTMANAGER_PERSISTOR_GROUP_COMMIT_MAX_TXNS                = "l2.objectmanager.persistor.groupCommit.maxTransactions";
+  public static final String L2_OBJECTMANAGER_PERSISTOR_GROUP_COMMIT_MAX_DELAY               = "l2.objectmanager.persistor.groupCommit.maxDelayInMillis";
   public static final String L2_OBJECTMANAGER_PASSIVE_SYNC_BATCH_SIZE                       = "l2.objectmanager.passive.sync.batch.size";
   public static final String L2_OBJECTMANAGER_PASSIVE_SYNC_MESSAGE_MAXSIZE_MB               = "l2.objectmanager.passive.sync.message.maxSizeInMegaBytes";
   public static final String L2_OBJECTMANAGER_PASSIVE_SYNC_THROTTLE_TIME                    = "l2.objectmanager.passive.sync.throttle.timeInMillis";
   public static final String L2_OBJECTMANAGER_PASSIVE_SYNC_THROTTLE_PENDING_MSGS            = "l2.objectmanager.passive.sync.throttle.maxPendingMessages";
+  public static final String L2_OBJECTMANAGER_PASSIVE_SYNC_STREAMS                          = "l2.objectmanager.passive.sync.streams";
   public static final String L2_OBJECTMANAGER_DGC_THROTTLE_TIME                             = "l2.objectmanager.dgc.throttle.timeInMillis";
   public static final String L2_OBJECTMANAGER_DGC_REQUEST_PER_THROTTLE                      = "l2.objectmanager.dgc.throttle.requestsPerThrottle";
   public static final String L2_OBJECTMANAGER_DGC_INLINE_ENABLED                            = "l2.objectmanager.dgc.inline.enabled";
   public static final String L2_OBJECTMANAGER_DGC_INLINE_INTERVAL_SECONDS                   = "l2.objectmanager.dgc.inline.intervalInSeconds";
   public static final String L2_OBJECTMANAGER_DGC_INLINE_MAX_OBJECTS                        = "l2.objectmanager.dgc.inline.maxObjects";
   public static final String L2_OBJECTMANAGER_DGC_INLINE_CLEANUP_DELAY_SECONDS              = "l2.objectmanager.dgc.inline.cleanup.delaySeconds";
+  public static final String L2_OBJECTMANAGER_DGC_INCREMENTAL_ENABLED                       = "l2.objectmanager.dgc.incremental.enabled";
+  public static final String L2_OBJECTMANAGER_DGC_INCREMENTAL_SLICE_TIME                    = "l2.objectmanager.dgc.incremental.sliceTimeInMillis";
+  public static final String L2_OBJECTMANAGER_DGC_INCREMENTAL_PAUSE_TIME                    = "l2.objectmanager.dgc.incremental.pauseBetweenSlicesInMillis";
   public static final String L2_OBJECTMANAGER_INVALIDATE_STRONG_CACHE_ENABLED               = "l2.objectmanager.invalidateStrongCache.enabled";
   public static final String L2_OBJECTMANAGER_OIDSET_TYPE                                   = "l2.objectmanager.oidset.type";
   public static final String L2_OBJECTMANAGER_CLIENT_STATE_VERBOSE_THRESHOLD                = "l2.objectmanager.client.state.verbose.threshold";
@@ -218,6 +229,7 @@ public interface TCPropertiesConsts {
   public static final String L2_SEDA_STAGE_SINK_CAPACITY                                    = "l2.seda.stage.sink.capacity";
   public static final String L2_SEDA_EVICTION_PROCESSORSTAGE_SINK_SIZE                      = "l2.seda.evictionprocessorstage.sink.capacity";
   public static final String L2_SEDA_SEARCH_THREADS                                         = "l2.seda.search.threads";
+  public static final String L2_SEDA_SEARCH_DRAIN_BATCH_SIZE                                = "l2.seda.search.drainBatchSize";
   public static final String L2_SEDA_QUERY_THREADS                                          = "l2.seda.query.threads";
   public static final String L2_SEDA_SERVER_MAP_CAPACITY_EVICTION_STAGE_THREADS             = "l2.seda.server.map.capacity.eviction.stage.threads";
   public static final String L2_LOCAL_CACHE_TXN_COMPLETE_THREADS                            = "l2.seda.local.cache.transaction.complete.threads";
@@ -247,6 +259,8 @@ public interface TCPropertiesConsts {
    * tcgroupcomm.reconnect.sendqueue.cap  - Sendqueue capacity, 0 for Integer.MAX_VALUE
    * tcgroupcomm.reconnect.maxDelayedAcks - At least one ack per maxDelayedAcks messages received
    * tcgroupcomm.reconnect.sendWindow     - Max outstanding messages before ack received
+   * tcgroupcomm.reconnect.sendWindowBytes - Max outstanding bytes before ack received, replaces sendWindow if > 0
+   * tcgroupcomm.reconnect.ackDelayMillis - Max milliseconds an ack may be delayed to coalesce it, 0 to disable
    * tcgroupcomm.reconnect.enabled        - Enable L2-L2 reconnect
    * send.timeout.millis                  - Number of milliseconds to retry sending a message
    * dirtydb.backup.enabled               - Creates BackUp of DirtyDB only If it is set to true.
@@ -258,6 +272,8 @@ public interface TCPropertiesConsts {
   public static final String L2_NHA_TCGROUPCOMM_RECONNECT_SENDQUEUE_CAP                     = "l2.nha.tcgroupcomm.reconnect.sendqueue.cap";
   public static final String L2_NHA_TCGROUPCOMM_RECONNECT_MAX_DELAYEDACKS                   = "l2.nha.tcgroupcomm.reconnect.maxDelayedAcks";
   public static final String L2_NHA_TCGROUPCOMM_RECONNECT_SEND_WINDOW                       = "l2.nha.tcgroupcomm.reconnect.sendWindow";
+  public static final String L2_NHA_TCGROUPCOMM_RECONNECT_SEND_WINDOW_BYTES                 = "l2.nha.tcgroupcomm.reconnect.sendWindowBytes";
+  public static final String L2_NHA_TCGROUPCOMM_RECONNECT_ACK_DELAY_MILLIS                  = "l2.nha.tcgroupcomm.reconnect.ackDelayMillis";
   public static final String L2_NHA_TCGROUPCOMM_DISCOVERY_INTERVAL                          = "l2.nha.tcgroupcomm.discovery.interval";
   // a hidden tc.properties only used for l2 proxy testing purpose
   public static final String L2_NHA_TCGROUPCOMM_RECONNECT_L2PROXY_TO_PORT                   = "l2.nha.tcgroupcomm.l2proxytoport";
@@ -409,6 +425,8 @@ public interface TCPropertiesConsts {
    *                  reconnect to L2 that has not crashed
    * maxDelayedAcks - Max number of messages received for which ack may not be sent
    * sendWindow     - Max number of messages that can be sent without getting an ack back
+   * sendWindowBytes - Max number of bytes that can be sent without getting an ack back, replaces sendWindow if > 0
+   * ackDelayMillis - Max number of milliseconds an ack may be delayed to coalesce it with others, 0 to disable
    * rejoin.sleep.millis - Number of milliseconds to sleep before retry rejoin, if rejoin attempt was unsuccessful for some reason
    * </code>
    ********************************************************************************************************************/
@@ -417,6 +435,8 @@ public interface TCPropertiesConsts {
   public static final String L2_L1RECONNECT_SENDQUEUE_CAP                                   = "l2.l1reconnect.sendqueue.cap";
   public static final String L2_L1RECONNECT_MAX_DELAYEDACKS                                 = "l2.l1reconnect.maxDelayedAcks";
   public static final String L2_L1RECONNECT_SEND_WINDOW                                     = "l2.l1reconnect.sendWindow";
+  public static final String L2_L1RECONNECT_SEND_WINDOW_BYTES                               = "l2.l1reconnect.sendWindowBytes";
+  public static final String L2_L1RECONNECT_ACK_DELAY_MILLIS                                = "l2.l1reconnect.ackDelayMillis";
   public static final String L2_L1REJOIN_SLEEP_MILLIS                                       = "l2.l1rejoin.sleep.millis";
 
   /*********************************************************************************************************************
@@ -463,6 +483,17 @@ public interface TCPropertiesConsts {
   public static final String L1_SERVERMAPMANAGER_REMOTE_BATCH_LOOKUP_TIME_PERIOD            = "l1.servermapmanager.remote.batchLookupTimePeriod";
   public static final String L1_SERVERMAPMANAGER_FAULT_INVALIDATED_PINNED_ENTRIES           = "l1.servermapmanager.faultInvalidatedPinnedEntries";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section : L1 ServerMap Local Cache Properties
+   * Description : This section contains the defaults for the local cache of ServerMaps on the L1
+   * offheap.builtin.enabled : If enabled caches that overflow to offheap use the built-in off-heap store
+   * offheap.segments        : Number of lock segments of the built-in off-heap store
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L1_SERVERMAP_LOCALCACHE_OFFHEAP_BUILTIN_ENABLED                = "l1.servermap.localcache.offheap.builtin.enabled";
+  public static final String L1_SERVERMAP_LOCALCACHE_OFFHEAP_SEGMENTS                       = "l1.servermap.localcache.offheap.segments";
+
   /*********************************************************************************************************************
    * <code>
    * Section : L2 ServerMap Properties
@@ -499,6 +530,8 @@ public interface TCPropertiesConsts {
    * bytebuffer.pooling.enabled           : Enable/disable tc byte buffer pooling
    * bytebuffer.common.pool.maxcount      : Max size of pool for tc byte buffer
    * bytebuffer.threadlocal.pool.maxcount : Thread pool size
+   * messages.gatheringwrite.enabled      : Write clear text messages to the socket with gathering writes instead of
+   *                                        copying them into the send buffer first
    * </code>
    ********************************************************************************************************************/
   public static final String TC_STAGE_MONITOR_ENABLED                                       = "tc.stage.monitor.enabled";
@@ -509,6 +542,7 @@ public interface TCPropertiesConsts {
   public static final String TC_MESSAGE_GROUPING_ENABLED                                    = "tc.messages.grouping.enabled";
   public static final String TC_MESSAGE_GROUPING_MAXSIZE_KB                                 = "tc.messages.grouping.maxSizeKiloBytes";
   public static final String TC_MESSAGE_PACKUP_ENABLED                                      = "tc.messages.packup.enabled";
+  public static final String TC_MESSAGE_GATHERING_WRITE_ENABLED                             = "tc.messages.gatheringwrite.enabled";
 
   /*********************************************************************************************************************
    * <code>
@@ -587,6 +621,12 @@ public interface TCPropertiesConsts {
    *                            : The maximum time in millis after which incoherent cached items will be discarded from the local cache.
    *  storageStrategy.dcv2.eviction.overshoot
    *                            : % overshoot required to trigger capacity eviction
+   *  storageStrategy.dcv2.eviction.frequencySketch.caches
+   *                            : Comma separated names of caches whose server side eviction prefers rarely read entries,
+   *                              tracked with a per map frequency sketch. "*" enables it for every cache.
+   *  storageStrategy.dcv2.expiration.timerWheel.enabled
+   *                            : Index entry expiry deadlines in an on-heap timing wheel per map so that periodic
+   *                              expiration only visits expired entries instead of sampling the whole map.
    *  clustered.config.override.mode
    *                            : Configures the level of configuration override. Choices are:
    *                                NONE - Override no local configuration with cluster configurations
@@ -612,6 +652,8 @@ public interface TCPropertiesConsts {
   public static final String EHCACHE_STORAGESTRATEGY_DCV2_EVICT_UNEXPIRED_ENTRIES_ENABLED   = "ehcache.storageStrategy.dcv2.evictUnexpiredEntries.enabled";
   public static final String EHCACHE_STORAGESTRATEGY_DCV2_PERIODICEVICTION_ENABLED          = "ehcache.storageStrategy.dcv2.periodicEviction.enabled";
   public static final String EHCACHE_STORAGESTRATEGY_DCV2_EVICTION_OVERSHOOT                = "ehcache.storageStrategy.dcv2.eviction.overshoot";
+  public static final String EHCACHE_STORAGESTRATEGY_DCV2_EVICTION_FREQUENCY_SKETCH_CACHES  = "ehcache.storageStrategy.dcv2.eviction.frequencySketch.caches";
+  public static final String EHCACHE_STORAGESTRATEGY_DCV2_EXPIRATION_TIMER_WHEEL_ENABLED    = "ehcache.storageStrategy.dcv2.expiration.timerWheel.enabled";
   public static final String EHCACHE_CLUSTERED_CONFIG_OVERRIDE_MODE                         = "ehcache.clustered.config.override.mode";
   /*********************************************************************************************************************
    * <code>
@@ -643,21 +685,44 @@ public interface TCPropertiesConsts {
    * enabled            : Enable/disable greedy locks grant from L2
    * leaseTimeInMillis  : Time for which greedy locks are given to L1 if more than one of them
    *                      are contending for them
+   * readLease.enabled  : Enable/disable adaptive leases for greedy read holders recalled by a writer
+   * readLease.maxLeaseTimeInMillis : Upper bound on a read lease, the actual lease shrinks as the
+   *                      write rate on the lock grows
    * </code>
    ********************************************************************************************************************/
   public static final String L2_LOCKMANAGER_GREEDY_LOCKS_ENABLED                            = "l2.lockmanager.greedy.locks.enabled";
   public static final String L2_LOCKMANAGER_GREEDY_LEASE_ENABLED                            = "l2.lockmanager.greedy.lease.enabled";
   public static final String L2_LOCKMANAGER_GREEDY_LEASE_LEASETIME_INMILLS                  = "l2.lockmanager.greedy.lease.leaseTimeInMillis";
+  public static final String L2_LOCKMANAGER_GREEDY_READ_LEASE_ENABLED                       = "l2.lockmanager.greedy.readLease.enabled";
+  public static final String L2_LOCKMANAGER_GREEDY_READ_LEASE_MAX_LEASETIME_INMILLS         = "l2.lockmanager.greedy.readLease.maxLeaseTimeInMillis";
 
   /*********************************************************************************************************************
    * <code>
    * Section : TCP Settings
    * tcpnodelay : Enable/disable tcp packet batching
    * keepalive  : Enable/disable tcp probe for running/broken connections
+   * bufferpool.enabled         : Enable/disable pooled direct buffers for the connection send and receive buffers
+   * bufferpool.maxMegaBytes    : Max direct memory reserved by the network buffer pool
+   * bufferpool.slabSizeKiloBytes : Size of the direct slabs the pooled buffers are carved from
+   * bufferpool.threadCacheSize : Max buffers of each size class cached by a thread
+   * bufferpool.leakDetection   : Log (and reclaim) pooled buffers that are never released, for debugging
+   * balancer.enabled           : Enable/disable migrating busy connections between the worker comm threads
+   * balancer.intervalMillis    : How often the traffic of the worker comm threads is sampled
+   * balancer.imbalanceRatio    : Busiest to idlest worker comm traffic ratio above which a connection is migrated
+   * balancer.minBytesPerSecond : Traffic of the busiest worker comm below which connections are never migrated
    * </code>
    ********************************************************************************************************************/
   public static final String NET_CORE_KEEPALIVE                                             = "net.core.keepalive";
   public static final String NET_CORE_TCP_NO_DELAY                                          = "net.core.tcpnodelay";
+  public static final String NET_CORE_BUFFERPOOL_ENABLED                                    = "net.core.bufferpool.enabled";
+  public static final String NET_CORE_BUFFERPOOL_MAX_MB                                     = "net.core.bufferpool.maxMegaBytes";
+  public static final String NET_CORE_BUFFERPOOL_SLAB_SIZE_KB                               = "net.core.bufferpool.slabSizeKiloBytes";
+  public static final String NET_CORE_BUFFERPOOL_THREAD_CACHE_SIZE                          = "net.core.bufferpool.threadCacheSize";
+  public static final String NET_CORE_BUFFERPOOL_LEAK_DETECTION                             = "net.core.bufferpool.leakDetection";
+  public static final String NET_CORE_BALANCER_ENABLED                                      = "net.core.balancer.enabled";
+  public static final String NET_CORE_BALANCER_INTERVAL_MILLIS                              = "net.core.balancer.intervalMillis";
+  public static final String NET_CORE_BALANCER_IMBALANCE_RATIO                              = "net.core.balancer.imbalanceRatio";
+  public static final String NET_CORE_BALANCER_MIN_BYTES_PER_SECOND                         = "net.core.balancer.minBytesPerSecond";
 
   /*********************************************************************************************************************
    * <code>
@@ -726,6 +791,28 @@ public interface TCPropertiesConsts {
   public static final String TCM_MONITOR_ENABLED                                            = "tcm.monitor.enabled";
   public static final String TCM_MONITOR_DELAY                                              = "tcm.monitor.delay";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section : TCMessage wire compression
+   * tcm.compression.enabled       - If enabled, large messages of the configured types are compressed before being
+   *                                 sent. Used only if the other end supports it, which is agreed on at handshake.
+   *                                 Servers without compression support refuse the handshake of a client that has it
+   *                                 enabled
+   * tcm.compression.codec         - lzf (fast) or deflate (smaller), or the class name of a MessageCompressor
+   * tcm.compression.threshold     - Messages smaller than this (in bytes) are never compressed
+   * tcm.compression.messageTypes  - Comma separated message types to compress, all types if empty
+   * tcm.compression.deflate.level - Compression level (1-9) of the deflate codec
+   * tcm.compression.maxMessageMegaBytes - Compressed messages claiming to be larger than this once decompressed are
+   *                                 rejected
+   * </code>
+   ********************************************************************************************************************/
+  public static final String TCM_COMPRESSION_ENABLED                                        = "tcm.compression.enabled";
+  public static final String TCM_COMPRESSION_CODEC                                          = "tcm.compression.codec";
+  public static final String TCM_COMPRESSION_THRESHOLD                                      = "tcm.compression.threshold";
+  public static final String TCM_COMPRESSION_MESSAGE_TYPES                                  = "tcm.compression.messageTypes";
+  public static final String TCM_COMPRESSION_DEFLATE_LEVEL                                  = "tcm.compression.deflate.level";
+  public static final String TCM_COMPRESSION_MAX_MESSAGE_MEGABYTES                          = "tcm.compression.maxMessageMegaBytes";
+
   /*********************************************************************************************************************
    * <code>
    * Section : HTTP
@@ -862,6 +949,8 @@ public interface TCPropertiesConsts {
   public static final String SEARCH_LUCENE_MAX_MERGE_DOCS                                   = "search.lucene.maxMergeDocs";
   public static final String SEARCH_LUCENE_INDEXES_PER_CACHE                                = "search.lucene.indexes.per.cache";
   public static final String SEARCH_LUCENE_DISABLE_FIELD_COMPRESSION                        = "search.lucene.disableStoredFieldCompression";
+  public static final String SEARCH_EMBEDDED_ENABLED                                        = "search.embedded.enabled";
+  public static final String SEARCH_EMBEDDED_QUERY_THREADS                                  = "search.embedded.query.threads";
 
   public static final String APP_GROUPS_DEBUG                                               = "appgroups.debug";
 
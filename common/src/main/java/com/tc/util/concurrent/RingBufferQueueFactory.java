@@ -0,0 +1,38 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+/**
+ * Creates {@link TCRingBufferQueue}s. Ring buffers are always bounded, so requests for an unbounded queue get
+ * {@link #DEFAULT_CAPACITY} slots instead.
+ */
+public class RingBufferQueueFactory extends QueueFactory {
+
+  public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+  @Override
+  public TCQueue createInstance() {
+    return new TCRingBufferQueue(DEFAULT_CAPACITY);
+  }
+
+  @Override
+  public TCQueue createInstance(int capacity) {
+    if (capacity <= 0) { throw new IllegalArgumentException("capacity must be positive : " + capacity); }
+    return new TCRingBufferQueue(capacity == Integer.MAX_VALUE ? DEFAULT_CAPACITY : capacity);
+  }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free ring buffer implementation of {@link TCQueue}. Producers claim slots with a single CAS and never
+ * contend on a lock with each other or with the consumer. Consumers claim slots the same way, so the ring stays correct
+ * when several stage workers share one queue, although it is tuned for the one-consumer-per-ring case.
+ * <p>
+ * Threads only fall back to a monitor when they actually have to wait (empty ring on poll, full ring on put), and
+ * producers only touch that monitor when somebody is known to be waiting.
+ * <p>
+ * The ring holds at most the requested capacity, the slot array behind it is rounded up to a power of two so slots can
+ * be found with a mask. Null elements are not permitted.
+ */
+public class TCRingBufferQueue implements TCQueue {
+
+  private final Object[]        buffer;
+  private final AtomicLongArray sequences;
+  private final int             mask;
+  private final int             capacity;
+  private final AtomicLong      head    = new AtomicLong(0);
+  private final AtomicLong      tail    = new AtomicLong(0);
+  private final AtomicInteger   waiters = new AtomicInteger(0);
+  private final Object          waitLock = new Object();
+
+  public TCRingBufferQueue(int capacity) {
+    if (capacity <= 0) { throw new IllegalArgumentException("capacity must be positive : " + capacity); }
+    int size = roundToPowerOfTwo(capacity);
+    this.buffer = new Object[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      this.sequences.set(i, i);
+    }
+    this.mask = size - 1;
+    this.capacity = Math.min(capacity, size);
+  }
+
+  static int roundToPowerOfTwo(int capacity) {
+    if (capacity > (1 << 30)) { return 1 << 30; }
+    int size = Integer.highestOneBit(capacity);
+    return size == capacity ? size : size << 1;
+  }
+
+  public int capacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Non blocking add.
+   * 
+   * @return false if the ring is full
+   */
+  public boolean offer(Object obj) {
+    if (obj == null) { throw new NullPointerException(); }
+    long pos = this.tail.get();
+    while (true) {
+      int index = (int) (pos & this.mask);
+      long diff = this.sequences.get(index) - pos;
+      if (diff == 0) {
+        // head only moves forward, so a stale read can only make the ring look fuller than it is
+        if (pos - this.head.get() >= this.capacity) { return false; }
+        if (this.tail.compareAndSet(pos, pos + 1)) {
+          this.buffer[index] = obj;
+          this.sequences.set(index, pos + 1);
+          signalWaiters();
+          return true;
+        }
+        pos = this.tail.get();
+      } else if (diff < 0) {
+        return false;
+      } else {
+        pos = this.tail.get();
+      }
+    }
+  }
+
+  /**
+   * Non blocking remove.
+   * 
+   * @return the head of the queue or null if the ring is empty
+   */
+  public Object poll() {
+    long pos = this.head.get();
+    while (true) {
+      int index = (int) (pos & this.mask);
+      long diff = this.sequences.get(index) - (pos + 1);
+      if (diff == 0) {
+        if (this.head.compareAndSet(pos, pos + 1)) {
+          Object rv = this.buffer[index];
+          this.buffer[index] = null;
+          this.sequences.set(index, pos + this.mask + 1);
+          signalWaiters();
+          return rv;
+        }
+        pos = this.head.get();
+      } else if (diff < 0) {
+        return null;
+      } else {
+        pos = this.head.get();
+      }
+    }
+  }
+
+  /**
+   * Moves up to maxElements available elements to the given collection without blocking.
+   * 
+   * @return the number of elements moved
+   */
+  public int drainTo(Collection c, int maxElements) {
+    int drained = 0;
+    while (drained < maxElements) {
+      Object o = poll();
+      if (o == null) {
+        break;
+      }
+      c.add(o);
+      drained++;
+    }
+    return drained;
+  }
+
+  @Override
+  public void put(Object obj) throws InterruptedException {
+    offer(obj, Long.MAX_VALUE);
+  }
+
+  @Override
+  public boolean offer(Object obj, long timeout) throws InterruptedException {
+    if (offer(obj)) { return true; }
+    if (timeout <= 0) { return false; }
+    long deadline = deadline(timeout);
+    this.waiters.incrementAndGet();
+    try {
+      synchronized (this.waitLock) {
+        while (true) {
+          if (offer(obj)) { return true; }
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) { return false; }
+          this.waitLock.wait(remaining);
+        }
+      }
+    } finally {
+      this.waiters.decrementAndGet();
+    }
+  }
+
+  @Override
+  public Object take() throws InterruptedException {
+    return poll(Long.MAX_VALUE);
+  }
+
+  @Override
+  public Object poll(long timeout) throws InterruptedException {
+    Object rv = poll();
+    if (rv != null || timeout <= 0) { return rv; }
+    long deadline = deadline(timeout);
+    this.waiters.incrementAndGet();
+    try {
+      synchronized (this.waitLock) {
+        while (true) {
+          rv = poll();
+          if (rv != null) { return rv; }
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) { return null; }
+          this.waitLock.wait(remaining);
+        }
+      }
+    } finally {
+      this.waiters.decrementAndGet();
+    }
+  }
+
+  @Override
+  public Object peek() {
+    long pos = this.head.get();
+    int index = (int) (pos & this.mask);
+    if (this.sequences.get(index) != pos + 1) { return null; }
+    return this.buffer[index];
+  }
+
+  @Override
+  public int size() {
+    long size = this.tail.get() - this.head.get();
+    if (size < 0) { return 0; }
+    return (int) Math.min(size, this.capacity);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  private void signalWaiters() {
+    // Waiters register before re-checking the ring under the lock, so a waiter we miss here will see our update.
+    if (this.waiters.get() > 0) {
+      synchronized (this.waitLock) {
+        this.waitLock.notifyAll();
+      }
+    }
+  }
+
+  private static long deadline(long timeout) {
+    long now = System.currentTimeMillis();
+    long deadline = now + timeout;
+    return deadline < now ? Long.MAX_VALUE : deadline;
+  }
+}
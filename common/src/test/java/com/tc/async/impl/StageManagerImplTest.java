@@ -18,15 +18,25 @@ package com.tc.async.impl;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import com.tc.async.api.BatchEventHandler;
 import com.tc.async.api.EventContext;
 import com.tc.async.api.MultiThreadedEventContext;
 import com.tc.async.api.Stage;
+import com.tc.async.api.StageQueueStats;
 import com.tc.lang.TCThreadGroup;
 import com.tc.lang.ThrowableHandlerImpl;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.util.concurrent.QueueFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import junit.framework.TestCase;
 
 /**
@@ -166,6 +176,98 @@ public class StageManagerImplTest extends TestCase {
     stageManager.stopAll();
   }
 
+  public void testBatchDrainingStage() throws Exception {
+    BatchTestEventHandler batchHandler = new BatchTestEventHandler();
+    stageManager.createStage("testBatchStage", batchHandler, 1, 1, 100, 16);
+    Stage s = stageManager.getStage("testBatchStage");
+    s.getSink().enableStatsCollection(true);
+    List<EventContext> added = new ArrayList<EventContext>();
+    for (int i = 0; i < 40; i++) {
+      EventContext context = new TestEventContext();
+      added.add(context);
+      s.getSink().add(context);
+    }
+    assertEquals(40, s.getSink().size());
+
+    s.start(new ConfigurationContextImpl(null));
+    batchHandler.waitForEventContextCount(40, 60, SECONDS);
+    assertEquals(added, batchHandler.getContexts());
+    for (Integer batchSize : batchHandler.getBatchSizes()) {
+      assertTrue(batchSize.intValue() <= 16);
+    }
+
+    long[] histogram = ((StageQueueStats) s.getSink().getStats(0)).getDrainBatchSizeHistogram();
+    long batches = 0;
+    for (long count : histogram) {
+      batches += count;
+    }
+    assertEquals(batchHandler.getBatchSizes().size(), batches);
+    stageManager.stopAll();
+  }
+
+  public void testWorkStealingStage() throws Exception {
+    final String hotKey = "hot-key";
+    final CountDownLatch release = new CountDownLatch(1);
+    TestEventHandler blockingHandler = new TestEventHandler() {
+      @Override
+      public void handleEvent(EventContext context) {
+        if (hotKey.equals(((SequencedEventContext) context).getKey())) {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+        super.handleEvent(context);
+      }
+    };
+    int threads = 3;
+    stageManager.createWorkStealingStage("testStealingStage", blockingHandler, threads, 0);
+    Stage s = stageManager.getStage("testStealingStage");
+    s.getSink().enableStatsCollection(true);
+    s.start(new ConfigurationContextImpl(null));
+
+    // block one worker on the hot key, everything else must still get done by the other workers
+    s.getSink().add(new SequencedEventContext(hotKey, 0));
+    int keyGroups = threads * WorkStealingStageQueueImpl.KEY_GROUPS_PER_WORKER;
+    int hotGroup = Math.abs(hotKey.hashCode() % keyGroups);
+    int added = 0;
+    for (int seq = 0; seq < 10; seq++) {
+      for (int key = 0; key < keyGroups; key++) {
+        if (key != hotGroup) {
+          s.getSink().add(new SequencedEventContext(Integer.valueOf(key), seq));
+          added++;
+        }
+      }
+    }
+    blockingHandler.waitForEventContextCount(added, 60, SECONDS);
+    assertEquals(added, blockingHandler.getContexts().size());
+
+    release.countDown();
+    blockingHandler.waitForEventContextCount(added + 1, 60, SECONDS);
+    assertEquals(0, s.getSink().size());
+
+    // per key ordering
+    Map<Object, Integer> lastSeen = new HashMap<Object, Integer>();
+    for (EventContext context : blockingHandler.getContexts()) {
+      SequencedEventContext sequenced = (SequencedEventContext) context;
+      Integer last = lastSeen.put(sequenced.getKey(), Integer.valueOf(sequenced.getSequence()));
+      assertEquals(last == null ? 0 : last.intValue() + 1, sequenced.getSequence());
+    }
+
+    // reading the stats leaves the monitor alone, reading them with a reset starts a new period
+    assertEquals(added + 1, eventCount(s.getSink().getStats(0).getDetails()));
+    assertEquals(added + 1, eventCount(s.getSink().getStatsAndReset(0).getDetails()));
+    assertEquals(0, eventCount(s.getSink().getStats(0).getDetails()));
+    stageManager.stopAll();
+  }
+
+  private static int eventCount(String details) {
+    Matcher matcher = Pattern.compile("events:\\s*(\\d+)").matcher(details);
+    assertTrue(details, matcher.find());
+    return Integer.parseInt(matcher.group(1));
+  }
+
   /*
    * @see TestCase#tearDown()
    */
@@ -174,6 +276,41 @@ public class StageManagerImplTest extends TestCase {
     super.tearDown();
   }
 
+  private static class BatchTestEventHandler extends TestEventHandler implements BatchEventHandler {
+    private final List<Integer> batchSizes = new ArrayList<Integer>();
+
+    @Override
+    public synchronized void handleEventBatch(List<EventContext> contexts) {
+      batchSizes.add(contexts.size());
+      for (EventContext context : contexts) {
+        handleEvent(context);
+      }
+    }
+
+    public synchronized List<Integer> getBatchSizes() {
+      return new ArrayList<Integer>(batchSizes);
+    }
+  }
+
+  private static class SequencedEventContext implements MultiThreadedEventContext {
+    private final Object key;
+    private final int    sequence;
+
+    public SequencedEventContext(Object key, int sequence) {
+      this.key = key;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public Object getKey() {
+      return key;
+    }
+
+    public int getSequence() {
+      return sequence;
+    }
+  }
+
   private static class TestEventContext implements EventContext {
     public TestEventContext() {
       //
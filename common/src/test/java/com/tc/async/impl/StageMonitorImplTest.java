@@ -71,6 +71,16 @@ public class StageMonitorImplTest extends TestCase {
                  an.getEventsPerSecond());
     assertEquals(Integer.valueOf(10), an.getMinQueueDepth());
     assertEquals(Integer.valueOf(20), an.getMaxQueueDepth());
+    assertEquals(Integer.valueOf(0), an.getStealCount());
+
+    sm.keyGroupStolen(0, 2);
+    sm.keyGroupStolen(1, 2);
+    assertEquals(Integer.valueOf(2), sm.analyze().getStealCount());
+    assertTrue(sm.dump().contains("key group steals"));
+    assertEquals(Integer.valueOf(2), sm.analyze().getStealCount());
+    assertEquals(Integer.valueOf(2), sm.analyze().getEventCount());
+    assertTrue(sm.dumpAndFlush().contains("key group steals"));
+    assertEquals(Integer.valueOf(0), sm.analyze().getStealCount());
 
   }
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import com.tc.test.TCTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class TCRingBufferQueueTest extends TCTestCase {
+
+  public void testRequestedCapacityIsKept() throws Exception {
+    assertEquals(1, new TCRingBufferQueue(1).capacity());
+    assertEquals(16, new TCRingBufferQueue(16).capacity());
+
+    TCRingBufferQueue queue = new TCRingBufferQueue(5);
+    assertEquals(5, queue.capacity());
+    for (int i = 0; i < 5; i++) {
+      assertTrue(queue.offer(Integer.valueOf(i)));
+    }
+    assertFalse(queue.offer(Integer.valueOf(5)));
+    assertEquals(5, queue.size());
+    assertEquals(Integer.valueOf(0), queue.poll());
+    assertTrue(queue.offer(Integer.valueOf(5)));
+    assertFalse(queue.offer(Integer.valueOf(6)));
+  }
+
+  public void testFactory() {
+    QueueFactory factory = new RingBufferQueueFactory();
+    TCQueue queue = factory.createInstance(Integer.MAX_VALUE);
+    assertTrue(queue instanceof TCRingBufferQueue);
+    assertEquals(RingBufferQueueFactory.DEFAULT_CAPACITY, ((TCRingBufferQueue) queue).capacity());
+    assertEquals(100, ((TCRingBufferQueue) factory.createInstance(100)).capacity());
+  }
+
+  public void testFifoAndBounds() throws Exception {
+    TCRingBufferQueue queue = new TCRingBufferQueue(4);
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll(0));
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(Integer.valueOf(i)));
+    }
+    assertFalse(queue.offer(Integer.valueOf(4)));
+    assertFalse(queue.offer(Integer.valueOf(4), 10));
+    assertEquals(4, queue.size());
+    assertEquals(Integer.valueOf(0), queue.peek());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(Integer.valueOf(i), queue.take());
+    }
+    assertNull(queue.poll(10));
+    assertTrue(queue.isEmpty());
+  }
+
+  public void testDrainTo() {
+    TCRingBufferQueue queue = new TCRingBufferQueue(16);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(Integer.valueOf(i));
+    }
+    List drained = new ArrayList();
+    assertEquals(4, queue.drainTo(drained, 4));
+    assertEquals(6, queue.drainTo(drained, 100));
+    assertEquals(0, queue.drainTo(drained, 100));
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Integer.valueOf(i), drained.get(i));
+    }
+  }
+
+  public void testManyProducersBlockingOnFullRing() throws Exception {
+    final TCRingBufferQueue queue = new TCRingBufferQueue(8);
+    final int producers = 4;
+    final int perProducer = 10000;
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[producers];
+    for (int p = 0; p < producers; p++) {
+      final int base = p * perProducer;
+      threads[p] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < perProducer; i++) {
+              queue.put(Integer.valueOf(base + i));
+            }
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+      };
+      threads[p].start();
+    }
+    start.countDown();
+
+    int[] lastSeen = new int[producers];
+    for (int p = 0; p < producers; p++) {
+      lastSeen[p] = -1;
+    }
+    for (int i = 0; i < producers * perProducer; i++) {
+      Integer value = (Integer) queue.poll(60000);
+      assertNotNull(value);
+      int producer = value.intValue() / perProducer;
+      int seq = value.intValue() % perProducer;
+      // each producer's elements come out in the order they were put
+      assertEquals(lastSeen[producer] + 1, seq);
+      lastSeen[producer] = seq;
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertTrue(queue.isEmpty());
+  }
+}
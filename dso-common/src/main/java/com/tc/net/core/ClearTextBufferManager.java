@@ -25,20 +25,30 @@ import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Ludovic Orban
  */
-class ClearTextBufferManager implements BufferManager {
-  private static final TCLogger logger         = TCLogging.getLogger(ClearTextBufferManager.class);
-  private static final String   BUFFER_SIZE    = "clear.text.buffer.size";
-  private static final int      BUFFER_SIZE_KB = Integer.getInteger(BUFFER_SIZE, 16) * 1024;
-  private final SocketChannel   channel;
-  private final ByteBuffer      sendBuffer     = ByteBuffer.allocate(BUFFER_SIZE_KB);
-  private final ByteBuffer      recvBuffer     = ByteBuffer.allocate(BUFFER_SIZE_KB);
+class ClearTextBufferManager implements GatheringBufferManager {
+  private static final TCLogger  logger         = TCLogging.getLogger(ClearTextBufferManager.class);
+  private static final String    BUFFER_SIZE    = "clear.text.buffer.size";
+  private static final int       BUFFER_SIZE_KB = Integer.getInteger(BUFFER_SIZE, 16) * 1024;
+  private final SocketChannel    channel;
+  private final DirectBufferPool bufferPool;
+  private final ByteBuffer       sendBuffer;
+  private final ByteBuffer       recvBuffer;
+  private final AtomicBoolean    closed         = new AtomicBoolean();
 
   ClearTextBufferManager(SocketChannel channel) {
+    this(channel, DirectBufferPool.getDefault());
+  }
+
+  ClearTextBufferManager(SocketChannel channel, DirectBufferPool bufferPool) {
     this.channel = channel;
+    this.bufferPool = bufferPool;
+    this.sendBuffer = bufferPool.allocate(BUFFER_SIZE_KB);
+    this.recvBuffer = bufferPool.allocate(BUFFER_SIZE_KB);
     if (logger.isDebugEnabled()) {
       logger.debug("ClearTextBufferManager " + BUFFER_SIZE + " " + BUFFER_SIZE_KB);
     }
@@ -63,6 +73,17 @@ class ClearTextBufferManager implements BufferManager {
     return written;
   }
 
+  @Override
+  public long sendGathered(ByteBuffer[] srcs, int offset, int length) throws IOException {
+    if (remainingToSend()) {
+      sendFromBuffer();
+      if (remainingToSend()) { return 0; }
+    }
+    long written = this.channel.write(srcs, offset, length);
+    if (written == -1) { throw new EOFException(); }
+    return written;
+  }
+
   @Override
   public int recvToBuffer() throws IOException {
     int read = this.channel.read(recvBuffer);
@@ -72,7 +93,11 @@ class ClearTextBufferManager implements BufferManager {
 
   @Override
   public void close() {
-    //
+    // the buffers go back to the pool, so this must only be called once the comm threads are done with the channel
+    if (closed.compareAndSet(false, true)) {
+      bufferPool.release(sendBuffer);
+      bufferPool.release(recvBuffer);
+    }
   }
 
   @Override
@@ -52,6 +52,7 @@ import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -106,6 +107,30 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
     writerComm.cleanupChannel(channel, callback);
   }
 
+  /**
+   * Same as {@link #cleanupChannel(SocketChannel, Runnable)}, additionally running <code>detachedCallback</code> once
+   * after both the reader and the writer comm threads have let go of the channel.
+   */
+  public void cleanupChannel(SocketChannel channel, final Runnable callback, final Runnable detachedCallback) {
+    final AtomicInteger pendingThreads = new AtomicInteger(2);
+    Runnable countingCallback = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (callback != null) {
+            callback.run();
+          }
+        } finally {
+          if (pendingThreads.decrementAndGet() == 0) {
+            detachedCallback.run();
+          }
+        }
+      }
+    };
+    readerComm.cleanupChannel(channel, countingCallback);
+    writerComm.cleanupChannel(channel, countingCallback);
+  }
+
   @Override
   public void closeEvent(TCListenerEvent event) {
     listenerRemoved(event.getSource());
@@ -212,6 +237,54 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
     workerComm.requestReadWriteInterest(connection, channel);
   }
 
+  /**
+   * Moves a connection managed by this worker comm, along with its weight, to another worker comm. The reader and
+   * writer threads hand the channel over on their own, each cancelling its key and adding the interest ops it had to
+   * the matching thread of the new owner, so the caller never waits for a selector. Interest requests already queued
+   * for this worker comm's threads are forwarded to the new owner, and the per connection reader and writer locks keep
+   * the two sets of comm threads from working on the connection at the same time while the switch is in progress.
+   * Detached connections are never moved.
+   *
+   * @return false if the connection is no longer managed by this worker comm or is detached
+   */
+  boolean migrateConnection(final TCConnectionImpl connection, final CoreNIOServices target) {
+    Assert.eval(target != this);
+    if (connection.isDetached()) { return false; }
+    final int weight;
+    synchronized (managedConnectionsMap) {
+      Integer connectionWeight = managedConnectionsMap.remove(connection);
+      if (connectionWeight == null) { return false; }
+      weight = connectionWeight;
+      this.clientWeights -= weight;
+      connection.removeListener(this);
+    }
+
+    target.addConnection(connection, weight);
+    connection.setCommWorker(target);
+    if (connection.isClosed()) {
+      // the close event may have been fired while the connection was in between worker comms
+      target.removeConnection(connection);
+    }
+
+    final SocketChannel channel = connection.getChannel();
+    readerComm.handOver(connection, channel, target.readerComm);
+    writerComm.handOver(connection, channel, target.writerComm);
+    return true;
+  }
+
+  /**
+   * Connections currently managed by this worker comm.
+   */
+  List<TCConnectionImpl> getManagedConnections() {
+    synchronized (managedConnectionsMap) {
+      List<TCConnectionImpl> connections = new ArrayList<TCConnectionImpl>(managedConnectionsMap.size());
+      for (TCConnection connection : managedConnectionsMap.keySet()) {
+        connections.add((TCConnectionImpl) connection);
+      }
+      return connections;
+    }
+  }
+
   private void addConnection(TCConnectionImpl connection, int initialWeight) {
     synchronized (managedConnectionsMap) {
       Assert.eval(!managedConnectionsMap.containsKey(connection));
@@ -223,12 +296,17 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
 
   @Override
   public void closeEvent(TCConnectionEvent event) {
+    removeConnection(event.getSource());
+  }
+
+  private void removeConnection(TCConnection connection) {
     synchronized (managedConnectionsMap) {
-      Assert.eval(managedConnectionsMap.containsKey(event.getSource()));
-      int closedCientWeight = managedConnectionsMap.get(event.getSource());
+      // a connection migrated to another worker comm stops listening to this one, but an event already being fired
+      // can still reach us
+      Integer closedCientWeight = managedConnectionsMap.remove(connection);
+      if (closedCientWeight == null) { return; }
       this.clientWeights -= closedCientWeight;
-      managedConnectionsMap.remove(event.getSource());
-      event.getSource().removeListener(this);
+      connection.removeListener(this);
     }
   }
 
@@ -764,9 +842,39 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
       return stopRequested.isSet();
     }
 
+    /**
+     * Cancels this thread's key of a migrated connection's channel and adds the interest ops it had to the given
+     * thread of the new owner. Runs on this thread, after whatever interest requests are already queued here.
+     */
+    void handOver(final TCConnectionImpl connection, final SelectableChannel channel, final CommThread target) {
+      addSelectorTask(new Runnable() {
+        @Override
+        public void run() {
+          SelectionKey key = channel.keyFor(selector);
+          if (key == null || !key.isValid()) { return; }
+          int ops = key.interestOps();
+          key.cancel();
+          key.attach(null);
+          if (ops != 0) {
+            target.handleRequest(InterestRequest.createAddInterestRequest(channel, connection, ops, target));
+          }
+        }
+      });
+    }
+
     private void modifyInterest(InterestRequest request) {
       Assert.eval(Thread.currentThread() == this);
 
+      if (request.attachment instanceof TCConnectionImpl) {
+        // the connection may have moved to another worker comm after this request was queued
+        CoreNIOServices owner = ((TCConnectionImpl) request.attachment).getCommWorker();
+        if (owner != null && owner != CoreNIOServices.this) {
+          CommThread ownerThread = isReader() ? owner.readerComm : owner.writerComm;
+          ownerThread.handleRequest(request.forCommThread(ownerThread));
+          return;
+        }
+      }
+
       Selector localSelector = null;
       localSelector = selector;
 
@@ -879,6 +987,10 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
       return commNIOServiceThread;
     }
 
+    InterestRequest forCommThread(CommThread nioServiceThread) {
+      return new InterestRequest(channel, attachment, interestOps, set, add, remove, nioServiceThread);
+    }
+
     @Override
     public String toString() {
       StringBuffer buf = new StringBuffer();
@@ -0,0 +1,408 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.core;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct byte buffers shared by all the comm threads. Buffers are carved out of fixed size direct slabs into
+ * power of two size classes, so network buffers are neither allocated on the java heap nor collected with every closed
+ * connection. Each thread keeps a small cache per size class in front of the shared free lists. The caches of threads
+ * that have exited are emptied into the shared free lists before the pool reserves another slab.
+ * <p>
+ * A leased buffer has the capacity of its size class and its limit set to the requested size. Requests bigger than
+ * the largest size class, or made once the pool has reserved its maximum number of bytes, are served by plain heap
+ * buffers and counted as misses. When leak detection is enabled, buffers that become unreachable without being
+ * released are logged together with their allocation site and put back into the pool.
+ */
+public class DirectBufferPool {
+  private static final TCLogger                      logger          = TCLogging.getLogger(DirectBufferPool.class);
+
+  static final int                                   MIN_CLASS_SHIFT = 12;
+
+  private final int                                  slabSize;
+  private final long                                 maxBytes;
+  private final int                                  threadCacheSize;
+  private final boolean                              leakDetection;
+  private final SizeClass[]                          sizeClasses;
+  private final ThreadLocal<ThreadCache>             threadCaches;
+  private final ConcurrentLinkedQueue<ThreadCache>   allThreadCaches = new ConcurrentLinkedQueue<ThreadCache>();
+
+  private final AtomicLong                           reservedBytes   = new AtomicLong();
+  private final AtomicLong                           inUseBytes      = new AtomicLong();
+  private final AtomicLong                           allocations     = new AtomicLong();
+  private final AtomicLong                           threadCacheHits = new AtomicLong();
+  private final AtomicLong                           sharedHits      = new AtomicLong();
+  private final AtomicLong                           misses          = new AtomicLong();
+  private final AtomicLong                           releases        = new AtomicLong();
+  private final AtomicLong                           leaks           = new AtomicLong();
+
+  private final ReferenceQueue<ByteBuffer>           leakQueue       = new ReferenceQueue<ByteBuffer>();
+  private final Map<Integer, Lease>                  leases          = new HashMap<Integer, Lease>();
+
+  private static class DefaultPoolHolder {
+    private static final DirectBufferPool INSTANCE = createDefault();
+  }
+
+  public static DirectBufferPool getDefault() {
+    return DefaultPoolHolder.INSTANCE;
+  }
+
+  private static DirectBufferPool createDefault() {
+    TCProperties props = TCPropertiesImpl.getProperties();
+    boolean enabled = props.getBoolean(TCPropertiesConsts.NET_CORE_BUFFERPOOL_ENABLED, true);
+    long maxBytes = enabled ? props.getLong(TCPropertiesConsts.NET_CORE_BUFFERPOOL_MAX_MB, 128) * 1024 * 1024 : 0;
+    int slabSize = props.getInt(TCPropertiesConsts.NET_CORE_BUFFERPOOL_SLAB_SIZE_KB, 1024) * 1024;
+    int threadCacheSize = props.getInt(TCPropertiesConsts.NET_CORE_BUFFERPOOL_THREAD_CACHE_SIZE, 8);
+    boolean leakDetection = props.getBoolean(TCPropertiesConsts.NET_CORE_BUFFERPOOL_LEAK_DETECTION, false);
+    DirectBufferPool pool = new DirectBufferPool(slabSize, maxBytes, threadCacheSize, leakDetection);
+    logger.info("Network buffer pool " + (enabled ? "enabled" : "disabled") + " : maxBytes = " + maxBytes
+                + ", slabSize = " + pool.slabSize + ", threadCacheSize = " + threadCacheSize + ", leakDetection = "
+                + leakDetection);
+    return pool;
+  }
+
+  public DirectBufferPool(int slabSize, long maxBytes, int threadCacheSize, boolean leakDetection) {
+    if (slabSize < (1 << MIN_CLASS_SHIFT)) { throw new IllegalArgumentException("slab size too small: " + slabSize); }
+    if (maxBytes < 0) { throw new IllegalArgumentException("max bytes cannot be negative: " + maxBytes); }
+    this.slabSize = Integer.highestOneBit(slabSize);
+    this.maxBytes = maxBytes;
+    this.threadCacheSize = threadCacheSize;
+    this.leakDetection = leakDetection;
+
+    int classCount = Integer.numberOfTrailingZeros(this.slabSize) - MIN_CLASS_SHIFT + 1;
+    this.sizeClasses = new SizeClass[classCount];
+    for (int i = 0; i < classCount; i++) {
+      this.sizeClasses[i] = new SizeClass(1 << (MIN_CLASS_SHIFT + i));
+    }
+    this.threadCaches = new ThreadLocal<ThreadCache>() {
+      @Override
+      protected ThreadCache initialValue() {
+        ThreadCache cache = new ThreadCache(Thread.currentThread(), DirectBufferPool.this.sizeClasses.length);
+        DirectBufferPool.this.allThreadCaches.add(cache);
+        return cache;
+      }
+    };
+  }
+
+  /**
+   * Returns a buffer whose limit is <code>size</code>, cleared otherwise. The buffer must be handed back with
+   * {@link #release(ByteBuffer)} exactly once when it is no longer used.
+   */
+  public ByteBuffer allocate(int size) {
+    this.allocations.incrementAndGet();
+    if (this.leakDetection) {
+      reclaimLeaks();
+    }
+
+    int index = sizeClassIndex(size);
+    if (index < 0) { return miss(size); }
+
+    ByteBuffer buf = this.threadCaches.get().poll(index);
+    if (buf != null) {
+      this.threadCacheHits.incrementAndGet();
+    } else {
+      buf = pollShared(index);
+      if (buf == null) {
+        buf = carveSlab(this.sizeClasses[index]);
+        if (buf == null) { return miss(size); }
+      }
+    }
+
+    this.inUseBytes.addAndGet(buf.capacity());
+    buf.clear();
+    buf.limit(size);
+    if (this.leakDetection) {
+      track(buf);
+    }
+    return buf;
+  }
+
+  /**
+   * Hands a buffer obtained from {@link #allocate(int)} back to the pool. Heap buffers given out on a miss are simply
+   * dropped.
+   */
+  public void release(ByteBuffer buf) {
+    if (!buf.isDirect()) { return; }
+    int index = sizeClassIndex(buf.capacity());
+    if (index < 0 || this.sizeClasses[index].size != buf.capacity()) { return; }
+    if (this.leakDetection && !untrack(buf)) {
+      logger.warn("Ignoring release of a buffer that is not leased from the pool", new Throwable());
+      return;
+    }
+
+    this.releases.incrementAndGet();
+    this.inUseBytes.addAndGet(-buf.capacity());
+    buf.clear();
+    if (!this.threadCaches.get().offer(index, buf, this.threadCacheSize)) {
+      this.sizeClasses[index].free.offer(buf);
+    }
+  }
+
+  private ByteBuffer pollShared(int index) {
+    ByteBuffer buf = this.sizeClasses[index].free.poll();
+    if (buf == null && reclaimDeadThreadCaches()) {
+      buf = this.sizeClasses[index].free.poll();
+    }
+    if (buf != null) {
+      this.sharedHits.incrementAndGet();
+    }
+    return buf;
+  }
+
+  /**
+   * Empties the caches of threads that have exited into the shared free lists, they would otherwise hold on to their
+   * buffers for good. Seeing the owner dead makes its last writes to the cache visible here.
+   *
+   * @return true if any buffer was put back
+   */
+  private boolean reclaimDeadThreadCaches() {
+    boolean reclaimed = false;
+    for (ThreadCache cache : this.allThreadCaches) {
+      if (!cache.isOwnerAlive() && this.allThreadCaches.remove(cache)) {
+        for (int i = 0; i < this.sizeClasses.length; i++) {
+          ByteBuffer buf;
+          while ((buf = cache.poll(i)) != null) {
+            this.sizeClasses[i].free.offer(buf);
+            reclaimed = true;
+          }
+        }
+      }
+    }
+    return reclaimed;
+  }
+
+  private ByteBuffer miss(int size) {
+    this.misses.incrementAndGet();
+    return ByteBuffer.allocate(size);
+  }
+
+  private int sizeClassIndex(int size) {
+    if (size <= 0 || size > this.slabSize) { return -1; }
+    int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+    return Math.max(shift, MIN_CLASS_SHIFT) - MIN_CLASS_SHIFT;
+  }
+
+  /**
+   * Reserves a new slab for the given size class, keeps the first chunk for the caller and puts the others on the
+   * shared free list. Returns null when the pool is already at its maximum size.
+   */
+  private ByteBuffer carveSlab(SizeClass sizeClass) {
+    while (true) {
+      long reserved = this.reservedBytes.get();
+      if (reserved + this.slabSize > this.maxBytes) { return null; }
+      if (this.reservedBytes.compareAndSet(reserved, reserved + this.slabSize)) {
+        break;
+      }
+    }
+
+    ByteBuffer slab = ByteBuffer.allocateDirect(this.slabSize);
+    ByteBuffer first = null;
+    for (int offset = 0; offset < this.slabSize; offset += sizeClass.size) {
+      slab.limit(offset + sizeClass.size).position(offset);
+      ByteBuffer chunk = slab.slice();
+      if (first == null) {
+        first = chunk;
+      } else {
+        sizeClass.free.offer(chunk);
+      }
+    }
+    return first;
+  }
+
+  private void track(ByteBuffer buf) {
+    Lease lease = new Lease(buf, this.leakQueue);
+    synchronized (this.leases) {
+      lease.next = this.leases.put(lease.identity, lease);
+    }
+  }
+
+  private boolean untrack(ByteBuffer buf) {
+    Integer identity = Integer.valueOf(System.identityHashCode(buf));
+    synchronized (this.leases) {
+      Lease previous = null;
+      for (Lease lease = this.leases.get(identity); lease != null; previous = lease, lease = lease.next) {
+        if (lease.get() == buf) {
+          unlink(identity, previous, lease);
+          lease.clear();
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void unlink(Integer identity, Lease previous, Lease lease) {
+    if (previous != null) {
+      previous.next = lease.next;
+    } else if (lease.next != null) {
+      this.leases.put(identity, lease.next);
+    } else {
+      this.leases.remove(identity);
+    }
+  }
+
+  private void reclaimLeaks() {
+    Lease leaked;
+    while ((leaked = (Lease) this.leakQueue.poll()) != null) {
+      synchronized (this.leases) {
+        Lease previous = null;
+        Lease lease = this.leases.get(leaked.identity);
+        while (lease != null && lease != leaked) {
+          previous = lease;
+          lease = lease.next;
+        }
+        if (lease == null) {
+          continue;
+        }
+        unlink(leaked.identity, previous, leaked);
+      }
+
+      this.leaks.incrementAndGet();
+      this.inUseBytes.addAndGet(-leaked.memory.capacity());
+      logger.warn("Network buffer of " + leaked.memory.capacity() + " bytes was not released, allocated at",
+                  leaked.allocationSite);
+      leaked.memory.clear();
+      this.sizeClasses[sizeClassIndex(leaked.memory.capacity())].free.offer(leaked.memory);
+    }
+  }
+
+  public long getReservedBytes() {
+    return this.reservedBytes.get();
+  }
+
+  public long getInUseBytes() {
+    return this.inUseBytes.get();
+  }
+
+  public long getAllocationCount() {
+    return this.allocations.get();
+  }
+
+  public long getThreadCacheHitCount() {
+    return this.threadCacheHits.get();
+  }
+
+  public long getSharedHitCount() {
+    return this.sharedHits.get();
+  }
+
+  public long getMissCount() {
+    return this.misses.get();
+  }
+
+  public long getReleaseCount() {
+    return this.releases.get();
+  }
+
+  public long getLeakCount() {
+    return this.leaks.get();
+  }
+
+  /**
+   * Percentage of the reserved slab memory currently leased out.
+   */
+  public int getOccupancyPercent() {
+    long reserved = this.reservedBytes.get();
+    return reserved == 0 ? 0 : (int) (this.inUseBytes.get() * 100 / reserved);
+  }
+
+  /**
+   * Percentage of allocations that could not be served by the pool.
+   */
+  public int getMissPercent() {
+    long allocated = this.allocations.get();
+    return allocated == 0 ? 0 : (int) (this.misses.get() * 100 / allocated);
+  }
+
+  @Override
+  public String toString() {
+    return "DirectBufferPool[reserved=" + getReservedBytes() + ", inUse=" + getInUseBytes() + ", occupancy="
+           + getOccupancyPercent() + "%, allocations=" + getAllocationCount() + ", threadCacheHits="
+           + getThreadCacheHitCount() + ", sharedHits=" + getSharedHitCount() + ", misses=" + getMissCount() + " ("
+           + getMissPercent() + "%), leaks=" + getLeakCount() + "]";
+  }
+
+  private static final class SizeClass {
+    private final int                              size;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    SizeClass(int size) {
+      this.size = size;
+    }
+  }
+
+  private static final class ThreadCache {
+    private final WeakReference<Thread>    owner;
+    private final ArrayDeque<ByteBuffer>[] buffers;
+
+    @SuppressWarnings("unchecked")
+    ThreadCache(Thread owner, int sizeClassCount) {
+      this.owner = new WeakReference<Thread>(owner);
+      this.buffers = new ArrayDeque[sizeClassCount];
+      for (int i = 0; i < sizeClassCount; i++) {
+        this.buffers[i] = new ArrayDeque<ByteBuffer>();
+      }
+    }
+
+    boolean isOwnerAlive() {
+      Thread thread = this.owner.get();
+      return thread != null && thread.isAlive();
+    }
+
+    ByteBuffer poll(int index) {
+      return this.buffers[index].pollFirst();
+    }
+
+    boolean offer(int index, ByteBuffer buf, int maxSize) {
+      if (this.buffers[index].size() >= maxSize) { return false; }
+      this.buffers[index].addFirst(buf);
+      return true;
+    }
+  }
+
+  /**
+   * Weak reference to a leased buffer, keeping a duplicate of it so the memory can be recycled if the buffer is never
+   * released.
+   */
+  private static final class Lease extends WeakReference<ByteBuffer> {
+    private final Integer    identity;
+    private final ByteBuffer memory;
+    private final Throwable  allocationSite;
+    private Lease            next;
+
+    Lease(ByteBuffer buf, ReferenceQueue<ByteBuffer> queue) {
+      super(buf, queue);
+      this.identity = Integer.valueOf(System.identityHashCode(buf));
+      this.memory = buf.duplicate();
+      this.allocationSite = new Throwable("buffer allocation site");
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link BufferManager} that can also write straight from the callers buffers to the socket, without first copying
+ * them into its own send buffer. Only makes sense for buffer managers that don't transform the stream.
+ */
+public interface GatheringBufferManager extends BufferManager {
+
+  /**
+   * Flushes whatever is left in the send buffer, then writes the given buffers to the channel with a single gathering
+   * write. Nothing is gathered as long as the send buffer could not be flushed completely, so the stream stays in
+   * order.
+   *
+   * @return the number of bytes written from the given buffers
+   */
+  long sendGathered(ByteBuffer[] srcs, int offset, int length) throws IOException;
+}
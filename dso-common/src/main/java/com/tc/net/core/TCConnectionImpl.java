@@ -52,6 +52,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -99,6 +100,8 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   private final SocketParams                 socketParams;
   private final AtomicLong                   totalRead                   = new AtomicLong(0);
   private final AtomicLong                   totalWrite                  = new AtomicLong(0);
+  private final AtomicLong                   totalBytesCopied            = new AtomicLong(0);
+  private final AtomicLong                   totalBytesGathered          = new AtomicLong(0);
   private final ArrayList<WriteContext>      writeContexts               = new ArrayList<WriteContext>();
   private final Object                       pipeSocketWriteInterestLock = new Object();
   private boolean                            hasPipeSocketWriteInterest  = false;
@@ -115,13 +118,23 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
       .getProperties()
       .getBoolean(TCPropertiesConsts.TC_MESSAGE_PACKUP_ENABLED,
           true);
+  private static final boolean               GATHERING_WRITE_ENABLED     = TCPropertiesImpl
+      .getProperties()
+      .getBoolean(TCPropertiesConsts.TC_MESSAGE_GATHERING_WRITE_ENABLED,
+          true);
+  // most OSes won't take more than 1024 buffers in a single writev()
+  private static final int                   MAX_GATHER_BUFFERS          = 1024;
   private final Object                       readerLock                  = new Object();
   private final Object                       writerLock                  = new Object();
 
   static {
     logger.info("Comms Message Batching " + (MSG_GROUPING_ENABLED ? "enabled" : "disabled"));
+    logger.info("Comms Gathering Write " + (GATHERING_WRITE_ENABLED ? "enabled" : "disabled"));
   }
 
+  // only touched under the writerLock
+  private ByteBuffer[]                       gatherBuffers               = new ByteBuffer[16];
+
   // having this variable at instance level helps reducing memory pressure at VM;
   private final ArrayList<TCNetworkMessage>  messagesToBatch             = new ArrayList<TCNetworkMessage>();
 
@@ -174,6 +187,21 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     this.commWorker = worker;
   }
 
+  CoreNIOServices getCommWorker() {
+    return this.commWorker;
+  }
+
+  SocketChannel getChannel() {
+    return this.channel;
+  }
+
+  /**
+   * A detached connection is driven through its pipe socket and has to stay on the worker comm it was detached on.
+   */
+  boolean isDetached() {
+    return this.pipeSocket != null;
+  }
+
   private void closeImpl(final Runnable callback) {
     Assert.assertTrue(this.closed.isSet());
 
@@ -187,7 +215,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     this.transportEstablished.set(false);
     try {
       if (this.channel != null) {
-        this.commWorker.cleanupChannel(this.channel, callback);
+        this.commWorker.cleanupChannel(this.channel, callback, createBufferManagerCloser());
       } else {
         callback.run();
       }
@@ -208,6 +236,22 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     }
   }
 
+  private Runnable createBufferManagerCloser() {
+    return new Runnable() {
+      @Override
+      public void run() {
+        BufferManager bm = TCConnectionImpl.this.bufferManager;
+        if (bm != null) {
+          try {
+            bm.close();
+          } catch (IOException ioe) {
+            logger.warn("error closing buffer manager", ioe);
+          }
+        }
+      }
+    };
+  }
+
   protected void finishConnect() throws IOException {
     Assert.assertNotNull("channel", this.channel);
     recordSocketAddress(this.channel.socket());
@@ -352,6 +396,18 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   }
 
   private int doWriteInternal() throws IOException {
+    if (useGatheringWrite()) {
+      int gathered;
+      try {
+        gathered = doGatheringWrite((GatheringBufferManager) bufferManager);
+      } catch (IOException ioe) {
+        closeWriteOnException(ioe);
+        return 0;
+      }
+      this.totalWrite.addAndGet(gathered);
+      return gathered;
+    }
+
     int written;
     try {
       written = doWriteToBuffer();
@@ -418,20 +474,20 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
       // we don't want to group already constructed Transport Handshake WireProtocolMessages
       if (msg instanceof WireProtocolMessage) {
         final TCNetworkMessage ms = finalizeWireProtocolMessage((WireProtocolMessage) msg, 1);
-        this.writeContexts.add(new WriteContext(ms));
+        this.writeContexts.add(newWriteContext(ms));
         continue;
       }
 
       // GenericNetwork messages are used for testing
       if (WireProtocolHeader.PROTOCOL_UNKNOWN == WireProtocolHeader.getProtocolForMessageClass(msg)) {
-        this.writeContexts.add(new WriteContext(msg));
+        this.writeContexts.add(newWriteContext(msg));
         continue;
       }
 
       if (MSG_GROUPING_ENABLED) {
         if (!canBatch(msg, batchSize, batchMsgCount)) {
           if (batchMsgCount > 0) {
-            this.writeContexts.add(new WriteContext(buildWireProtocolMessageGroup(this.messagesToBatch)));
+            this.writeContexts.add(newWriteContext(buildWireProtocolMessageGroup(this.messagesToBatch)));
             batchSize = 0;
             batchMsgCount = 0;
             this.messagesToBatch.clear();
@@ -443,20 +499,29 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
         batchMsgCount++;
         this.messagesToBatch.add(msg);
       } else {
-        this.writeContexts.add(new WriteContext(buildWireProtocolMessage(msg)));
+        this.writeContexts.add(newWriteContext(buildWireProtocolMessage(msg)));
       }
       msg = null;
     }
 
     if (MSG_GROUPING_ENABLED && batchMsgCount > 0) {
       final TCNetworkMessage ms = buildWireProtocolMessageGroup(this.messagesToBatch);
-      this.writeContexts.add(new WriteContext(ms));
+      this.writeContexts.add(newWriteContext(ms));
     }
 
     messagesToWrite = null;
     this.messagesToBatch.clear();
   }
 
+  private WriteContext newWriteContext(final TCNetworkMessage message) {
+    // no point packing up messages we are going to hand to the socket as they are
+    return new WriteContext(message, MESSSAGE_PACKUP && !useGatheringWrite());
+  }
+
+  private boolean useGatheringWrite() {
+    return GATHERING_WRITE_ENABLED && pipeSocket == null && bufferManager instanceof GatheringBufferManager;
+  }
+
   private boolean canBatch(final TCNetworkMessage newMessage, final int currentBatchSize, final int currentBatchMsgCount) {
     if ((currentBatchSize + getRealMessgeSize(newMessage.getTotalLength())) <= MSG_GROUPING_MAX_SIZE_BYTES
         && (currentBatchMsgCount + 1 <= WireProtocolHeader.MAX_MESSAGE_COUNT)) { return true; }
@@ -540,6 +605,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
         logger.debug("Wrote " + bytesWritten + " bytes on connection " + this.channel.toString());
       }
       totalBytesWritten += bytesWritten;
+      this.totalBytesCopied.addAndGet(bytesWritten);
 
       if (context.done()) {
         if (debug) {
@@ -565,6 +631,115 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     return totalBytesWritten;
   }
 
+  /**
+   * Writes the message buffers straight to the socket with gathering writes instead of copying them into the
+   * buffer manager's send buffer first. A single write covers as many write contexts as the message grouping limits
+   * (see {@link #canBatch}) allow.
+   */
+  private int doGatheringWrite(final GatheringBufferManager gatheringManager) throws IOException {
+    final boolean debug = logger.isDebugEnabled();
+    int totalBytesWritten = 0;
+
+    if (this.writeContexts.size() <= 0) {
+      buildWriteContextsFromMessages();
+    }
+    try {
+      while (this.writeContexts.size() > 0) {
+        final int count = collectGatherBuffers();
+        final long written = gatheringManager.sendGathered(this.gatherBuffers, 0, count);
+        totalBytesWritten += written;
+        this.totalBytesGathered.addAndGet(written);
+
+        if (debug) {
+          logger.debug("Gathered " + written + " bytes from " + count + " buffers on connection "
+                       + this.channel.toString());
+        }
+
+        final int completed = completeGatheredWriteContexts();
+        if (completed == 0 || (this.writeContexts.size() > 0 && written == 0)) {
+          // socket buffer is full, wait for the next write interest
+          break;
+        }
+      }
+    } finally {
+      Arrays.fill(this.gatherBuffers, null);
+    }
+
+    synchronized (this.writeMessages) {
+      if (this.closed.isSet()) { return totalBytesWritten; }
+
+      if (this.writeMessages.isEmpty() && this.writeContexts.isEmpty()) {
+        this.commWorker.removeWriteInterest(this, this.channel);
+      }
+    }
+    return totalBytesWritten;
+  }
+
+  private int collectGatherBuffers() {
+    int count = 0;
+    int bytes = 0;
+    int contexts = 0;
+    for (final WriteContext context : this.writeContexts) {
+      if (contexts > 0
+          && (bytes + context.remaining() > MSG_GROUPING_MAX_SIZE_BYTES || contexts + 1 > WireProtocolHeader.MAX_MESSAGE_COUNT)) {
+        break;
+      }
+      final TCByteBuffer[] buffers = context.entireMessageData;
+      for (int i = context.index; i < buffers.length && count < MAX_GATHER_BUFFERS; i++) {
+        if (count == this.gatherBuffers.length) {
+          this.gatherBuffers = Arrays.copyOf(this.gatherBuffers, Math.min(count * 2, MAX_GATHER_BUFFERS));
+        }
+        final ByteBuffer buf = extractNioBuffer(buffers[i]);
+        bytes += buf.remaining();
+        this.gatherBuffers[count++] = buf;
+      }
+      contexts++;
+      if (count == MAX_GATHER_BUFFERS) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  private int completeGatheredWriteContexts() {
+    int completed = 0;
+    for (final WriteContext context : this.writeContexts) {
+      final TCByteBuffer[] buffers = context.entireMessageData;
+      while (context.index < buffers.length && !buffers[context.index].hasRemaining()) {
+        context.incrementIndexAndCleanOld();
+      }
+      if (!context.done()) {
+        break;
+      }
+      context.writeComplete();
+      completed++;
+    }
+    this.writeContexts.subList(0, completed).clear();
+    return completed;
+  }
+
+  public long getTotalBytesRead() {
+    return this.totalRead.get();
+  }
+
+  public long getTotalBytesWritten() {
+    return this.totalWrite.get();
+  }
+
+  /**
+   * Bytes this connection copied into the buffer manager's send buffer before writing them out.
+   */
+  public long getTotalBytesCopied() {
+    return this.totalBytesCopied.get();
+  }
+
+  /**
+   * Bytes this connection wrote straight from the message buffers with gathering writes.
+   */
+  public long getTotalBytesGathered() {
+    return this.totalBytesGathered.get();
+  }
+
   static private ByteBuffer extractNioBuffer(final TCByteBuffer buffer) {
     return buffer.getNioBuffer();
   }
@@ -708,7 +883,9 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
 
     buf.append(" idle=").append(getIdleTime()).append("ms");
 
-    buf.append(" [").append(this.totalRead.get()).append(" read, ").append(this.totalWrite.get()).append(" write]");
+    buf.append(" [").append(this.totalRead.get()).append(" read, ").append(this.totalWrite.get()).append(" write (")
+        .append(this.totalBytesCopied.get()).append(" copied, ").append(this.totalBytesGathered.get())
+        .append(" gathered)]");
 
     return buf.toString();
   }
@@ -964,12 +1141,18 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     private final TCNetworkMessage message;
     private int                    index = 0;
     private final TCByteBuffer[]   entireMessageData;
+    private final boolean          packedUp;
 
     WriteContext(final TCNetworkMessage message) {
+      this(message, MESSSAGE_PACKUP);
+    }
+
+    WriteContext(final TCNetworkMessage message, final boolean packUp) {
       // either WireProtocolMessage or WireProtocolMessageGroup
       this.message = message;
+      this.packedUp = packUp;
 
-      if (MESSSAGE_PACKUP) {
+      if (packUp) {
         this.entireMessageData = getPackedUpMessage(message.getEntireMessageData());
       } else {
         this.entireMessageData = getClonedMessage(message.getEntireMessageData());
@@ -977,6 +1160,14 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
 
     }
 
+    int remaining() {
+      int remaining = 0;
+      for (int i = index, n = entireMessageData.length; i < n; i++) {
+        remaining += entireMessageData[i].remaining();
+      }
+      return remaining;
+    }
+
     boolean done() {
       for (int i = index, n = entireMessageData.length; i < n; i++) {
         if (entireMessageData[i].hasRemaining()) { return false; }
@@ -986,7 +1177,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     }
 
     void incrementIndexAndCleanOld() {
-      if (MESSSAGE_PACKUP) {
+      if (packedUp) {
         // we created these new messages. lets recycle it.
         entireMessageData[index].recycle();
       }
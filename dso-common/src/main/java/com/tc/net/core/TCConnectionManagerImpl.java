@@ -124,6 +124,32 @@ public class TCConnectionManagerImpl implements TCConnectionManager {
     }
   }
 
+  /**
+   * Bytes the open connections copied into their send buffers before writing them to the socket.
+   */
+  public long getTotalBytesCopied() {
+    long total = 0;
+    for (TCConnection conn : getAllConnections()) {
+      if (conn instanceof TCConnectionImpl) {
+        total += ((TCConnectionImpl) conn).getTotalBytesCopied();
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Bytes the open connections wrote straight from the message buffers with gathering writes.
+   */
+  public long getTotalBytesGathered() {
+    long total = 0;
+    for (TCConnection conn : getAllConnections()) {
+      if (conn instanceof TCConnectionImpl) {
+        total += ((TCConnectionImpl) conn).getTotalBytesGathered();
+      }
+    }
+    return total;
+  }
+
   /**
    * Connection is active if and only if it is Transport Established and the idle time is less than the HC max idle
    * time.
@@ -20,12 +20,19 @@ import com.tc.logging.LossyTCLogger;
 import com.tc.logging.LossyTCLogger.LossyTCLoggerType;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.SetOnceFlag;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -34,27 +41,49 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @author Manoj G
  */
 public class TCWorkerCommManager {
-  private static final TCLogger   logger             = TCLogging.getLogger(TCWorkerCommManager.class);
-  private static final TCLogger   lossyLogger        = new LossyTCLogger(logger, 10, LossyTCLoggerType.COUNT_BASED,
-                                                                         false);
+  private static final TCLogger             logger              = TCLogging.getLogger(TCWorkerCommManager.class);
+  private static final TCLogger             lossyLogger         = new LossyTCLogger(logger, 10,
+                                                                                  LossyTCLoggerType.COUNT_BASED, false);
 
-  private static final String     WORKER_NAME_PREFIX = "TCWorkerComm # ";
+  private static final String               WORKER_NAME_PREFIX  = "TCWorkerComm # ";
 
-  private final int               totalWorkerComm;
-  private final CoreNIOServices[] workerCommThreads;
-  private final SetOnceFlag       started            = new SetOnceFlag();
-  private final SetOnceFlag       stopped            = new SetOnceFlag();
+  private final String                      name;
+  private final int                         totalWorkerComm;
+  private final CoreNIOServices[]           workerCommThreads;
+  private final SetOnceFlag                 started             = new SetOnceFlag();
+  private final SetOnceFlag                 stopped             = new SetOnceFlag();
 
-  private final AtomicInteger     nextWorkerCommId   = new AtomicInteger();
+  private final AtomicInteger               nextWorkerCommId    = new AtomicInteger();
+
+  private final long                        balancerInterval;
+  private final float                       balancerImbalanceRatio;
+  private final long                        balancerMinRate;
+  private Timer                             balancerTimer;
+
+  // only used by the balancer timer thread
+  private final long[]                      lastWorkerBytes;
+  private final long[]                      workerByteRates;
+  private long                              lastSampleTime;
+  private Map<TCConnectionImpl, Long>       lastConnectionBytes = new HashMap<TCConnectionImpl, Long>();
 
   TCWorkerCommManager(String name, int workerCommCount, SocketParams socketParams) {
     if (workerCommCount <= 0) { throw new IllegalArgumentException("invalid worker count: " + workerCommCount); }
     logger.info("Creating " + workerCommCount + " worker comm threads for " + name);
+    this.name = name;
     this.totalWorkerComm = workerCommCount;
     this.workerCommThreads = new CoreNIOServices[workerCommCount];
     for (int i = 0; i < this.workerCommThreads.length; i++) {
       this.workerCommThreads[i] = new CoreNIOServices(name + ":" + WORKER_NAME_PREFIX + i, this, socketParams);
     }
+
+    TCProperties props = TCPropertiesImpl.getProperties();
+    boolean balancerEnabled = props.getBoolean(TCPropertiesConsts.NET_CORE_BALANCER_ENABLED, false);
+    this.balancerInterval = balancerEnabled && workerCommCount > 1 ? props
+        .getLong(TCPropertiesConsts.NET_CORE_BALANCER_INTERVAL_MILLIS, 5000) : 0;
+    this.balancerImbalanceRatio = props.getFloat(TCPropertiesConsts.NET_CORE_BALANCER_IMBALANCE_RATIO);
+    this.balancerMinRate = props.getLong(TCPropertiesConsts.NET_CORE_BALANCER_MIN_BYTES_PER_SECOND, 1024 * 1024);
+    this.lastWorkerBytes = new long[workerCommCount];
+    this.workerByteRates = new long[workerCommCount];
   }
 
   public CoreNIOServices getNextWorkerComm() {
@@ -98,6 +127,20 @@ public class TCWorkerCommManager {
       for (CoreNIOServices workerCommThread : this.workerCommThreads) {
         workerCommThread.start();
       }
+      if (this.balancerInterval > 0) {
+        logger.info("Balancing connections of " + this.name + " by traffic every " + this.balancerInterval + "ms");
+        this.balancerTimer = new Timer(this.name + ":TCWorkerComm balancer", true);
+        this.balancerTimer.schedule(new TimerTask() {
+          @Override
+          public void run() {
+            try {
+              balance();
+            } catch (Throwable t) {
+              logger.error("Error balancing worker comm connections", t);
+            }
+          }
+        }, this.balancerInterval, this.balancerInterval);
+      }
     } else {
       throw new IllegalStateException("already started");
     }
@@ -107,12 +150,104 @@ public class TCWorkerCommManager {
     if (!this.started.isSet()) { return; }
 
     if (this.stopped.attemptSet()) {
+      if (this.balancerTimer != null) {
+        this.balancerTimer.cancel();
+      }
       for (int i = 0; i < this.totalWorkerComm; i++) {
         this.workerCommThreads[i].requestStop();
       }
     }
   }
 
+  /**
+   * Samples the traffic of every worker comm since the previous call and, if the busiest one moves more than
+   * <code>imbalanceRatio</code> times the bytes of the idlest one, migrates the connection of the busiest worker comm
+   * whose own traffic best evens the two out. Connections are placed by weight when they are created, and only this
+   * moves them afterwards, one per sample so the effect of a move is measured before the next one.
+   */
+  void balance() {
+    long now = System.nanoTime();
+    long elapsedMillis = (now - this.lastSampleTime) / 1000000;
+    boolean firstSample = this.lastSampleTime == 0;
+    this.lastSampleTime = now;
+
+    Map<TCConnectionImpl, Long> connectionBytes = new HashMap<TCConnectionImpl, Long>();
+    Map<TCConnectionImpl, Long> connectionRates = new HashMap<TCConnectionImpl, Long>();
+    List<List<TCConnectionImpl>> workerConnections = new ArrayList<List<TCConnectionImpl>>(this.totalWorkerComm);
+    for (int i = 0; i < this.totalWorkerComm; i++) {
+      CoreNIOServices workerComm = this.workerCommThreads[i];
+      long bytes = workerComm.getTotalBytesRead() + workerComm.getTotalBytesWritten();
+      this.workerByteRates[i] = elapsedMillis > 0 ? (bytes - this.lastWorkerBytes[i]) * 1000 / elapsedMillis : 0;
+      this.lastWorkerBytes[i] = bytes;
+
+      List<TCConnectionImpl> connections = workerComm.getManagedConnections();
+      for (TCConnectionImpl connection : connections) {
+        // detached connections are driven through their pipe socket and stay where they are
+        if (connection.isDetached()) {
+          continue;
+        }
+        long total = connection.getTotalBytesRead() + connection.getTotalBytesWritten();
+        Long last = this.lastConnectionBytes.get(connection);
+        connectionBytes.put(connection, total);
+        // a connection seen for the first time has no rate yet
+        connectionRates.put(connection, last == null || elapsedMillis <= 0 ? 0 : (total - last) * 1000
+                                                                                 / elapsedMillis);
+      }
+      workerConnections.add(connections);
+    }
+    this.lastConnectionBytes = connectionBytes;
+    if (firstSample) { return; }
+
+    int busiest = 0;
+    int idlest = 0;
+    for (int i = 1; i < this.totalWorkerComm; i++) {
+      if (this.workerByteRates[i] > this.workerByteRates[busiest]) {
+        busiest = i;
+      }
+      if (this.workerByteRates[i] < this.workerByteRates[idlest]) {
+        idlest = i;
+      }
+    }
+    long busiestRate = this.workerByteRates[busiest];
+    long idlestRate = this.workerByteRates[idlest];
+    if (busiestRate < this.balancerMinRate || busiestRate <= idlestRate * this.balancerImbalanceRatio) { return; }
+
+    TCConnectionImpl candidate = chooseMigrationCandidate(workerConnections.get(busiest), connectionRates,
+                                                          busiestRate - idlestRate);
+    if (candidate == null) { return; }
+
+    CoreNIOServices from = this.workerCommThreads[busiest];
+    CoreNIOServices to = this.workerCommThreads[idlest];
+    if (from.migrateConnection(candidate, to)) {
+      logger.info("Migrated " + candidate + " (" + connectionRates.get(candidate) + " bytes/s) from " + from + " ("
+                  + busiestRate + " bytes/s) to " + to + " (" + idlestRate + " bytes/s)");
+    }
+  }
+
+  /**
+   * Picks the connection whose rate comes closest to half the gap between the busiest and the idlest worker comm.
+   * Moving a connection only helps if it leaves the idlest worker comm below what the busiest one had, so connections
+   * as busy as the whole gap are never picked, and neither are idle ones.
+   *
+   * @return null if no connection qualifies
+   */
+  static <T> T chooseMigrationCandidate(List<T> connections, Map<T, Long> connectionRates, long imbalance) {
+    T candidate = null;
+    long candidateDistance = Long.MAX_VALUE;
+    for (T connection : connections) {
+      Long rate = connectionRates.get(connection);
+      if (rate == null || rate <= 0 || rate >= imbalance) {
+        continue;
+      }
+      long distance = Math.abs(imbalance / 2 - rate);
+      if (distance < candidateDistance) {
+        candidate = connection;
+        candidateDistance = distance;
+      }
+    }
+    return candidate;
+  }
+
   protected CoreNIOServices getWorkerComm(int workerCommId) {
     return this.workerCommThreads[workerCommId];
   }
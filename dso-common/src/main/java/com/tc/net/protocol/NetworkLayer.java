@@ -38,6 +38,11 @@ public interface NetworkLayer {
   public static final short  TYPE_TRANSPORT_LAYER              = 1;                                                                         // 0000000000000001
   public static final short  TYPE_OOO_LAYER                    = 2;                                                                         // 0000000000000010
   public static final short  TYPE_CHANNEL_LAYER                = 4;                                                                         // 0000000000000100
+  /**
+   * Not a layer: set by a client channel able to compress messages, see MessageCompression. Both ends don't need to
+   * agree on it for the handshake to succeed.
+   */
+  public static final short  TYPE_COMPRESSION_CAPABLE          = 8;                                                                         // 0000000000001000
   public static final short  TYPE_TEST_MESSAGE                 = -1;                                                                        // This
                                                                                                                                              // is
                                                                                                                                              // for
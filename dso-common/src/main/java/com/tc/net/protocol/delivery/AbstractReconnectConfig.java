@@ -29,16 +29,27 @@ public class AbstractReconnectConfig implements ReconnectConfig {
   private final int             reconnectSendQueueCap;
   private final int             reconnectMaxDelayedAcks;
   private final int             reconnectSendWindow;
+  private final int             reconnectSendWindowBytes;
+  private final int             reconnectAckDelayMillis;
   private static final TCLogger logger = TCLogging.getLogger(AbstractReconnectConfig.class);
 
   public AbstractReconnectConfig(boolean reconnectEnabled, int reconnectTimeout, int reconnectSendQueueCap,
                                  int reconnectMaxDelayedAcks, int reconnectSendWindow, String name) {
+    this(reconnectEnabled, reconnectTimeout, reconnectSendQueueCap, reconnectMaxDelayedAcks, reconnectSendWindow, 0, 0,
+         name);
+  }
+
+  public AbstractReconnectConfig(boolean reconnectEnabled, int reconnectTimeout, int reconnectSendQueueCap,
+                                 int reconnectMaxDelayedAcks, int reconnectSendWindow, int reconnectSendWindowBytes,
+                                 int reconnectAckDelayMillis, String name) {
     this.name = name;
     this.reconnectEnabled = reconnectEnabled;
     this.reconnectTimeout = reconnectTimeout;
     this.reconnectSendQueueCap = reconnectSendQueueCap;
     this.reconnectMaxDelayedAcks = reconnectMaxDelayedAcks;
     this.reconnectSendWindow = (reconnectSendWindow > 0 ? reconnectSendWindow : 0);
+    this.reconnectSendWindowBytes = (reconnectSendWindowBytes > 0 ? reconnectSendWindowBytes : 0);
+    this.reconnectAckDelayMillis = (reconnectAckDelayMillis > 0 ? reconnectAckDelayMillis : 0);
     validateConfig();
   }
 
@@ -82,4 +93,14 @@ public class AbstractReconnectConfig implements ReconnectConfig {
     return reconnectSendWindow;
   }
 
+  @Override
+  public int getSendWindowBytes() {
+    return reconnectSendWindowBytes;
+  }
+
+  @Override
+  public int getAckDelayMillis() {
+    return reconnectAckDelayMillis;
+  }
+
 }
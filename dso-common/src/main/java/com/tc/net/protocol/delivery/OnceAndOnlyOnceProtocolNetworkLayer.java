@@ -37,4 +37,14 @@ public interface OnceAndOnlyOnceProtocolNetworkLayer extends NetworkLayer, Messa
 
   boolean isClosed();
 
+  /**
+   * Number of times sending had to wait for an ack from the other end because the send window was full.
+   */
+  long getSendWindowStallCount();
+
+  /**
+   * Total time spent waiting for acks with a full send window, including an ongoing stall.
+   */
+  long getSendWindowStallMillis();
+
 }
@@ -309,10 +309,33 @@ public class OnceAndOnlyOnceProtocolNetworkLayerImpl extends AbstractMessageTran
       sendMessage(opm);
     }
     sendLayer.close();
+    logSendWindowStalls();
     // Also reset delivery on close() to clear out the send queue.
     delivery.reset();
   }
 
+  /**
+   * Reports how long sending waited on a full send window over the life of the connection, a sign the window is too
+   * small for the traffic it carries.
+   */
+  private void logSendWindowStalls() {
+    final long stalls = getSendWindowStallCount();
+    if (stalls > 0) {
+      logger.info("Send window was full " + stalls + " times for a total of " + getSendWindowStallMillis() + "ms on "
+                  + sendLayer.getConnectionId());
+    }
+  }
+
+  @Override
+  public long getSendWindowStallCount() {
+    return delivery.getSender().getSendWindowStallCount();
+  }
+
+  @Override
+  public long getSendWindowStallMillis() {
+    return delivery.getSender().getSendWindowStallMillis();
+  }
+
   @Override
   public void initConnectionID(ConnectionID cid) {
     Assert.assertNotNull(sendLayer);
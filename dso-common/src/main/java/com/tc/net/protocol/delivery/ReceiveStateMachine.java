@@ -16,26 +16,43 @@
  */
 package com.tc.net.protocol.delivery;
 
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
 import com.tc.properties.ReconnectConfig;
 import com.tc.util.Assert;
 import com.tc.util.DebugUtil;
 import com.tc.util.UUID;
 
+import java.util.Timer;
+import java.util.TimerTask;
+
 /**
  * State Machine handling message receive for OOO
  */
 public class ReceiveStateMachine extends AbstractStateMachine {
+  private static final TCLogger            logger             = TCLogging.getLogger(ReceiveStateMachine.class);
   private final State                      MESSAGE_WAIT_STATE = new MessageWaitState();
   private final int                        maxDelayedAcks;
+  private final int                        ackDelayMillis;
+  private final int                        ackBytes;
   private final String                     debugId;
   private final OOOProtocolMessageDelivery delivery;
   private static final boolean             debug              = false;
 
   private volatile long                    received           = -1;
   private volatile long                    lastAcked          = -1;
+  private long                             unackedBytes       = 0;
+  private TimerTask                        delayedAck;
+
+  private static class AckTimerHolder {
+    private static final Timer TIMER = new Timer("OOO delayed ack timer", true);
+  }
 
   public ReceiveStateMachine(OOOProtocolMessageDelivery delivery, ReconnectConfig reconnectConfig, boolean isClient) {
     maxDelayedAcks = reconnectConfig.getMaxDelayAcks();
+    ackDelayMillis = reconnectConfig.getAckDelayMillis();
+    // in sliding window mode, ack before half of the sender's window is used up
+    ackBytes = reconnectConfig.getSendWindowBytes() / 2;
     this.debugId = (isClient) ? "CLIENT" : "SERVER";
     this.delivery = delivery;
   }
@@ -85,6 +102,9 @@ public class ReceiveStateMachine extends AbstractStateMachine {
         sendAck(received);
       } else {
         Assert.inv(r == (received + 1));
+        if (ackBytes > 0) {
+          unackedBytes += msg.getTotalLength();
+        }
         putMessage(msg);
         ackIfNeeded(received = r);
       }
@@ -96,10 +116,35 @@ public class ReceiveStateMachine extends AbstractStateMachine {
   }
 
   private void ackIfNeeded(long next) {
-    if (next - lastAcked >= maxDelayedAcks) {
+    if ((next - lastAcked >= maxDelayedAcks) || (ackBytes > 0 && unackedBytes >= ackBytes)) {
       if (!sendAck(next)) {
         debugLog("Failed to send ack:" + next);
       }
+    } else if (ackDelayMillis > 0 && delayedAck == null) {
+      // coalesce with the acks of the messages received until the timer fires
+      delayedAck = new TimerTask() {
+        @Override
+        public void run() {
+          // the timer thread is shared by all connections, it must not die with the failure of one of them
+          try {
+            sendDelayedAck(this);
+          } catch (Throwable t) {
+            logger.warn("Failed to send delayed ack on " + delivery.getConnectionId(), t);
+          }
+        }
+      };
+      AckTimerHolder.TIMER.schedule(delayedAck, ackDelayMillis);
+    }
+  }
+
+  private synchronized void sendDelayedAck(TimerTask task) {
+    if (delayedAck != task) { return; }
+    delayedAck = null;
+    // the ack may have been sent already, either on its own or piggybacked on a sent message
+    if (!isPaused() && received > lastAcked) {
+      if (!sendAck(received)) {
+        debugLog("Failed to send delayed ack:" + received);
+      }
     }
   }
 
@@ -108,6 +153,7 @@ public class ReceiveStateMachine extends AbstractStateMachine {
     Assert.inv(!opm.getSessionId().equals(UUID.NULL_ID));
     if (delivery.sendMessage(opm)) {
       lastAcked = seq;
+      unackedBytes = 0;
       return true;
     } else {
       return false;
@@ -125,6 +171,11 @@ public class ReceiveStateMachine extends AbstractStateMachine {
   public synchronized void reset() {
     received = -1;
     lastAcked = -1;
+    unackedBytes = 0;
+    if (delayedAck != null) {
+      delayedAck.cancel();
+      delayedAck = null;
+    }
   }
 
   private void debugLog(String msg) {
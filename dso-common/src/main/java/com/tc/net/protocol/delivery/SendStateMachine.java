@@ -41,7 +41,10 @@ public class SendStateMachine extends AbstractStateMachine {
 
   private final OOOProtocolMessageDelivery delivery;
   private final LinkedList<OOOProtocolMessage> outstandingMsgs       = new LinkedList<OOOProtocolMessage>();
+  private final LinkedList<Integer>        outstandingSizes      = new LinkedList<Integer>();
   private final int                        sendWindow;
+  private final int                        sendWindowBytes;
+  private final int                        maxDelayedAcks;
   private final boolean                    isClient;
   private final String                     debugId;
 
@@ -51,12 +54,19 @@ public class SendStateMachine extends AbstractStateMachine {
   private long                             sent                  = -1;
   private long                             acked                 = -1;
   private int                              outstandingCnt        = 0;
+  private long                             outstandingBytes      = 0;
+  private long                             windowStalls          = 0;
+  private long                             windowStallNanos      = 0;
+  private long                             windowStallStart;
   private LinkedBlockingQueue<TCNetworkMessage> sendQueue;
 
   public SendStateMachine(OOOProtocolMessageDelivery delivery, ReconnectConfig reconnectConfig, boolean isClient) {
     this.delivery = delivery;
     // set sendWindow from tc.properties if exist. 0 to disable window send.
     sendWindow = reconnectConfig.getSendWindow();
+    // sliding window mode if a window in bytes is configured
+    sendWindowBytes = reconnectConfig.getSendWindowBytes();
+    maxDelayedAcks = reconnectConfig.getMaxDelayAcks();
     int queueCap = reconnectConfig.getSendQueueCapacity();
     this.sendQueueCap = (queueCap == 0) ? Integer.MAX_VALUE : queueCap;
     this.sendQueue = new LinkedBlockingQueue<TCNetworkMessage>(this.sendQueueCap);
@@ -87,16 +97,46 @@ public class SendStateMachine extends AbstractStateMachine {
 
   @Override
   public String toString() {
-    return "CurrentState: " + getCurrentState() + "; OutStandingMsgsCount: " + outstandingCnt + "; Sent: " + sent
-           + "; Acked: " + acked + "; " + super.toString();
+    return "CurrentState: " + getCurrentState() + "; OutStandingMsgsCount: " + outstandingCnt
+           + "; OutStandingBytes: " + outstandingBytes + "; Sent: " + sent + "; Acked: " + acked + "; WindowStalls: "
+           + windowStalls + " (" + getSendWindowStallMillis() + "ms); " + super.toString();
   }
 
   @Override
   protected synchronized void switchToState(State state) {
     if (debug) debugLog("switching state: " + getCurrentState() + " ==> " + state);
+    State previous = getCurrentState();
+    if (state == SENDWINDOW_FULL_STATE && previous != SENDWINDOW_FULL_STATE) {
+      windowStalls++;
+      windowStallStart = System.nanoTime();
+    } else if (previous == SENDWINDOW_FULL_STATE && state != SENDWINDOW_FULL_STATE) {
+      windowStallNanos += System.nanoTime() - windowStallStart;
+    }
     super.switchToState(state);
   }
 
+  /**
+   * Number of times sending had to wait for an ack because the send window was full.
+   */
+  public synchronized long getSendWindowStallCount() {
+    return windowStalls;
+  }
+
+  /**
+   * Total time spent waiting for acks with a full send window, including an ongoing stall.
+   */
+  public synchronized long getSendWindowStallMillis() {
+    long nanos = windowStallNanos;
+    if (getCurrentState() == SENDWINDOW_FULL_STATE) {
+      nanos += System.nanoTime() - windowStallStart;
+    }
+    return nanos / 1000000;
+  }
+
+  public synchronized long getOutstandingBytes() {
+    return outstandingBytes;
+  }
+
   /**
    * Need to handhshake with the other end before proceeding any sending/receiving messages.
    */
@@ -138,7 +178,7 @@ public class SendStateMachine extends AbstractStateMachine {
       if (outstandingCnt > 0) {
         // resend those not acked
         resendOutstandings();
-        if (outstandingCnt >= sendWindow) {
+        if (isSendWindowFull()) {
           switchToState(SENDWINDOW_FULL_STATE);
         } else {
           switchToState(MESSAGE_WAIT_STATE);
@@ -172,7 +212,7 @@ public class SendStateMachine extends AbstractStateMachine {
         getCurrentState().execute(protocolMessage);
       } else {
         sendMoreIfAvailable();
-        if ((sendWindow > 0) && (outstandingCnt >= sendWindow)) {
+        if (isSendWindowFull()) {
           switchToState(SENDWINDOW_FULL_STATE);
         }
       }
@@ -208,7 +248,7 @@ public class SendStateMachine extends AbstractStateMachine {
         removeMessage();
       }
 
-      if (outstandingCnt < sendWindow) {
+      if (!isSendWindowFull()) {
         switchToState(MESSAGE_WAIT_STATE);
       } else {
         switchToState(SENDWINDOW_FULL_STATE);
@@ -253,18 +293,33 @@ public class SendStateMachine extends AbstractStateMachine {
     }
   }
 
+  private boolean isSendWindowFull() {
+    if (sendWindowBytes > 0) {
+      // Never hold back the messages the receiver has to get before it acks on its own, otherwise a few big messages
+      // could fill the window without ever triggering an ack.
+      return (outstandingBytes >= sendWindowBytes) && (outstandingCnt >= maxDelayedAcks);
+    }
+    return (sendWindow > 0) && (outstandingCnt >= sendWindow);
+  }
+
   // send all or till the window
   private void sendMoreIfAvailable() {
-    while (((sendWindow <= 0) || (outstandingCnt < sendWindow)) && !sendQueue.isEmpty()) {
+    while (!isSendWindowFull() && !sendQueue.isEmpty()) {
       delivery.sendMessage(createProtocolMessage(++sent));
     }
   }
 
   private OOOProtocolMessage createProtocolMessage(long count) {
-    final OOOProtocolMessage opm = delivery.createProtocolMessage(count, dequeue(sendQueue));
+    final TCNetworkMessage msg = dequeue(sendQueue);
+    final OOOProtocolMessage opm = delivery.createProtocolMessage(count, msg);
     Assert.eval(opm != null);
     outstandingCnt++;
     outstandingMsgs.add(opm);
+    if (sendWindowBytes > 0) {
+      int size = msg.getTotalLength();
+      outstandingBytes += size;
+      outstandingSizes.add(size);
+    }
     return (opm);
   }
 
@@ -281,6 +336,9 @@ public class SendStateMachine extends AbstractStateMachine {
     msg.reallyDoRecycleOnWrite();
     outstandingCnt--;
     Assert.eval(outstandingCnt >= 0);
+    if (sendWindowBytes > 0) {
+      outstandingBytes -= outstandingSizes.removeFirst();
+    }
   }
 
   @Override
@@ -292,6 +350,8 @@ public class SendStateMachine extends AbstractStateMachine {
     // purge out outstanding sends
     outstandingCnt = 0;
     outstandingMsgs.clear();
+    outstandingBytes = 0;
+    outstandingSizes.clear();
 
     LinkedBlockingQueue<TCNetworkMessage> tmpQ = sendQueue;
     sendQueue = new LinkedBlockingQueue<TCNetworkMessage>(sendQueueCap);
@@ -47,7 +47,9 @@ abstract class AbstractMessageChannel implements MessageChannel, MessageChannelI
   private final TCMessageParser   parser;
   private final TCLogger          logger;
   private final NodeID            remoteNodeID;
+  private final MessageCompression compression;
   private volatile NodeID         localNodeID;
+  private volatile boolean        compressionNegotiated;
 
   protected volatile NetworkLayer sendLayer;
 
@@ -59,6 +61,7 @@ abstract class AbstractMessageChannel implements MessageChannel, MessageChannelI
     this.productId = productId;
     this.parser = new TCMessageParser(this.msgFactory);
     this.remoteNodeID = remoteNodeID;
+    this.compression = MessageCompression.getDefault();
     // This is set after hand shake for the clients
     this.localNodeID = ClientID.NULL_ID;
   }
@@ -129,6 +132,15 @@ abstract class AbstractMessageChannel implements MessageChannel, MessageChannelI
     fireEvent(new ChannelEventImpl(ChannelEventType.CHANNEL_CLOSED_EVENT, AbstractMessageChannel.this));
   }
 
+  protected MessageCompression getCompression() {
+    return compression;
+  }
+
+  @Override
+  public void setCompressionNegotiated(boolean negotiated) {
+    this.compressionNegotiated = negotiated;
+  }
+
   public void addClassMapping(final TCMessageType type, final Class msgClass) {
     this.msgFactory.addClassMapping(type, msgClass);
   }
@@ -161,6 +173,13 @@ abstract class AbstractMessageChannel implements MessageChannel, MessageChannelI
     this.sendLayer = layer;
   }
 
+  /**
+   * The layer right below this channel in the stack, the once and only once layer when the stack has one.
+   */
+  public NetworkLayer getSendLayer() {
+    return this.sendLayer;
+  }
+
   @Override
   public final void setReceiveLayer(NetworkLayer layer) {
     throw new UnsupportedOperationException();
@@ -205,11 +224,18 @@ abstract class AbstractMessageChannel implements MessageChannel, MessageChannelI
       message.setSentCallback(newCallback);
     }
 
-    this.sendLayer.send(message);
+    if (this.compressionNegotiated) {
+      this.sendLayer.send(this.compression.encode(message, this.msgFactory.getMessageMonitor()));
+    } else {
+      this.sendLayer.send(message);
+    }
   }
 
   @Override
   public final void receive(TCByteBuffer[] msgData) {
+    if (this.compressionNegotiated) {
+      msgData = this.compression.decode(msgData);
+    }
     this.router.putMessage(parser.parseMessage(this, msgData));
   }
 
@@ -279,8 +305,8 @@ abstract class AbstractMessageChannel implements MessageChannel, MessageChannelI
    */
   @Override
   public short getStackLayerFlag() {
-    // this is the channel layer
-    return TYPE_CHANNEL_LAYER;
+    // this is the channel layer, tell the other end if it can compress
+    return compression.isEnabled() ? (short) (TYPE_CHANNEL_LAYER | TYPE_COMPRESSION_CAPABLE) : TYPE_CHANNEL_LAYER;
   }
 
   /**
@@ -100,6 +100,8 @@ public class ClientMessageChannelImpl extends AbstractMessageChannel implements
       final ConnectionID cid = new ConnectionID(JvmIDUtil.getJvmID(), (((ClientID) getLocalNodeID()).toLong()),
                                                 username, pw, getProductId());
       ((MessageTransport) this.sendLayer).initConnectionID(cid);
+      // we advertise compression at handshake, the server frames its messages once it accepts that
+      setCompressionNegotiated(getCompression().isEnabled());
       final NetworkStackID id = this.sendLayer.open();
       this.channelID = new ChannelID(id.toLong());
       setLocalNodeID(new ClientID(id.toLong()));
@@ -232,6 +232,9 @@ public class CommunicationsManagerImpl implements CommunicationsManager {
     if (null == connMgr) {
       this.connectionManager = new TCConnectionManagerImpl(commsMgrName, workerCommCount, healthCheckerConfig,
                                                            securityManager,bufferManagerFactoryProvider);
+      if (monitor instanceof MessageMonitorImpl) {
+        ((MessageMonitorImpl) monitor).addConnectionManager((TCConnectionManagerImpl) this.connectionManager);
+      }
     } else {
       this.connectionManager = connMgr;
     }
@@ -262,6 +265,9 @@ public class CommunicationsManagerImpl implements CommunicationsManager {
       connectionHealthChecker.stop();
       if (privateConnMgr) {
         connectionManager.shutdown();
+        if (monitor instanceof MessageMonitorImpl) {
+          ((MessageMonitorImpl) monitor).removeConnectionManager((TCConnectionManagerImpl) connectionManager);
+        }
       }
     } else {
       logger.warn("shutdown already started");
@@ -0,0 +1,100 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.protocol.tcm;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate, slower than {@link LZFMessageCompressor} but smaller output. Worth it on links where bandwidth is
+ * scarcer than CPU.
+ */
+public class DeflateMessageCompressor implements MessageCompressor {
+
+  public static final byte ID = 2;
+
+  private final int         level;
+
+  public DeflateMessageCompressor() {
+    this(Deflater.BEST_SPEED);
+  }
+
+  public DeflateMessageCompressor(int level) {
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid deflate level: " + level);
+    }
+    this.level = level;
+  }
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public String getName() {
+    return "deflate";
+  }
+
+  @Override
+  public int maxCompressedLength(int length) {
+    // same bound as zlib's compressBound()
+    return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13;
+  }
+
+  @Override
+  public int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset) {
+    final Deflater deflater = new Deflater(this.level, true);
+    try {
+      deflater.setInput(src, srcOffset, srcLength);
+      deflater.finish();
+      int op = dstOffset;
+      while (!deflater.finished()) {
+        if (op == dst.length) { return -1; }
+        op += deflater.deflate(dst, op, dst.length - op);
+      }
+      return op - dstOffset;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  @Override
+  public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+    final Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(src, srcOffset, srcLength);
+      int op = dstOffset;
+      final int dstEnd = dstOffset + dstLength;
+      while (op < dstEnd) {
+        final int n = inflater.inflate(dst, op, dstEnd - op);
+        if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        op += n;
+      }
+      if (op != dstEnd) { throw new IllegalArgumentException("Expected " + dstLength + " bytes, inflated "
+                                                             + (op - dstOffset)); }
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Corrupt deflate data", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+}
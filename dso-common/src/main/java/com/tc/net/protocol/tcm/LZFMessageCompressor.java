@@ -0,0 +1,148 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.protocol.tcm;
+
+/**
+ * A fast LZ77 codec using the LZF block format: a control byte below 32 is followed by that many plus one literal
+ * bytes, anything else is a back reference of up to 264 bytes within the previous 8K of output.
+ */
+public class LZFMessageCompressor implements MessageCompressor {
+
+  public static final byte ID          = 1;
+
+  private static final int HASH_BITS   = 14;
+  private static final int MAX_LITERAL = 1 << 5;
+  private static final int MAX_OFFSET  = 1 << 13;
+  private static final int MAX_MATCH   = 7 + 255 + 2;
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public String getName() {
+    return "lzf";
+  }
+
+  @Override
+  public int maxCompressedLength(int length) {
+    return length + (length + MAX_LITERAL - 1) / MAX_LITERAL;
+  }
+
+  @Override
+  public int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset) {
+    final int end = srcOffset + srcLength;
+    // last position (plus one) each 3 byte sequence was seen at, 0 for none
+    final int[] table = new int[1 << HASH_BITS];
+    int ip = srcOffset;
+    int literal = srcOffset;
+    int op = dstOffset;
+
+    while (ip < end - 2) {
+      final int h = hash(src, ip);
+      final int ref = table[h] - 1;
+      table[h] = ip + 1;
+      final int distance = ip - ref - 1;
+      if (ref >= srcOffset && distance < MAX_OFFSET && src[ref] == src[ip] && src[ref + 1] == src[ip + 1]
+          && src[ref + 2] == src[ip + 2]) {
+        final int max = Math.min(MAX_MATCH, end - ip);
+        int length = 3;
+        while (length < max && src[ref + length] == src[ip + length]) {
+          length++;
+        }
+
+        op = writeLiterals(src, literal, ip, dst, op);
+        if (op < 0 || op + 3 > dst.length) { return -1; }
+        final int code = length - 2;
+        if (code < 7) {
+          dst[op++] = (byte) ((code << 5) | (distance >>> 8));
+        } else {
+          dst[op++] = (byte) ((7 << 5) | (distance >>> 8));
+          dst[op++] = (byte) (code - 7);
+        }
+        dst[op++] = (byte) distance;
+
+        ip += length;
+        literal = ip;
+      } else {
+        ip++;
+      }
+    }
+
+    op = writeLiterals(src, literal, end, dst, op);
+    return op < 0 ? -1 : op - dstOffset;
+  }
+
+  @Override
+  public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+    final int end = srcOffset + srcLength;
+    final int dstEnd = dstOffset + dstLength;
+    int ip = srcOffset;
+    int op = dstOffset;
+
+    while (ip < end) {
+      final int ctrl = src[ip++] & 0xff;
+      if (ctrl < MAX_LITERAL) {
+        final int run = ctrl + 1;
+        if (ip + run > end || op + run > dstEnd) { throw corrupt(ip); }
+        System.arraycopy(src, ip, dst, op, run);
+        ip += run;
+        op += run;
+      } else {
+        int length = ctrl >>> 5;
+        if (length == 7) {
+          if (ip >= end) { throw corrupt(ip); }
+          length += src[ip++] & 0xff;
+        }
+        if (ip >= end) { throw corrupt(ip); }
+        final int ref = op - (((ctrl & 0x1f) << 8) | (src[ip++] & 0xff)) - 1;
+        length += 2;
+        if (ref < dstOffset || op + length > dstEnd) { throw corrupt(ip); }
+        // byte by byte, the reference can overlap the bytes being written
+        for (int i = 0; i < length; i++) {
+          dst[op++] = dst[ref + i];
+        }
+      }
+    }
+
+    if (op != dstEnd) { throw new IllegalArgumentException("Expected " + dstLength + " bytes, decompressed "
+                                                           + (op - dstOffset)); }
+  }
+
+  private static int writeLiterals(byte[] src, int from, int to, byte[] dst, int op) {
+    while (from < to) {
+      final int run = Math.min(MAX_LITERAL, to - from);
+      if (op + 1 + run > dst.length) { return -1; }
+      dst[op++] = (byte) (run - 1);
+      System.arraycopy(src, from, dst, op, run);
+      op += run;
+      from += run;
+    }
+    return op;
+  }
+
+  private static int hash(byte[] src, int i) {
+    final int v = ((src[i] & 0xff) << 16) | ((src[i + 1] & 0xff) << 8) | (src[i + 2] & 0xff);
+    return (v * 0x9E3779B1) >>> (32 - HASH_BITS);
+  }
+
+  private static IllegalArgumentException corrupt(int position) {
+    return new IllegalArgumentException("Corrupt LZF data at " + position);
+  }
+
+}
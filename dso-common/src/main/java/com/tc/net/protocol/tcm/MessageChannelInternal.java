@@ -27,5 +27,10 @@ import com.tc.net.protocol.transport.MessageTransportListener;
  * @author teck
  */
 public interface MessageChannelInternal extends NetworkLayer, MessageChannel, MessageTransportListener {
-  //
+
+  /**
+   * Whether both ends agreed at handshake to frame messages for compression, see {@link MessageCompression}.
+   */
+  void setCompressionNegotiated(boolean negotiated);
+
 }
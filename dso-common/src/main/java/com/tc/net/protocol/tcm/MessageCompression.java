@@ -0,0 +1,347 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.protocol.tcm;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.protocol.TCNetworkHeader;
+import com.tc.net.protocol.TCNetworkMessage;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compression of TC messages on the wire. Once both ends of a channel agreed on it at handshake, every message sent on
+ * the channel is framed: a codec id byte, then either the message as is (id 0) or the uncompressed length followed by
+ * the compressed message. Only messages of the configured types and above the size threshold get compressed, and only
+ * if that actually makes them smaller.
+ * <p>
+ * A client with compression enabled announces it in its stack layer flags. Servers without compression support see a
+ * stack mismatch and refuse the handshake, so only enable it once every server of the cluster supports it.
+ */
+public class MessageCompression {
+
+  private static final TCLogger                 logger       = TCLogging.getLogger(MessageCompression.class);
+
+  static final byte                             NONE         = 0;
+  static final int                              FRAME_LENGTH = 1 + 4;
+  static final int                              DEFAULT_MAX_MESSAGE_SIZE = 256 * 1024 * 1024;
+
+  private final boolean                         enabled;
+  private final MessageCompressor               compressor;
+  private final int                             threshold;
+  private final int                             maxMessageSize;
+  private final Set<String>                     messageTypes;
+  private final Map<Byte, MessageCompressor>    decoders     = new HashMap<Byte, MessageCompressor>();
+
+  private static class DefaultHolder {
+    private static final MessageCompression INSTANCE = createFromProperties(TCPropertiesImpl.getProperties());
+  }
+
+  public static MessageCompression getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  static MessageCompression createFromProperties(TCProperties props) {
+    final boolean enabled = props.getBoolean(TCPropertiesConsts.TCM_COMPRESSION_ENABLED, false);
+    final int threshold = props.getInt(TCPropertiesConsts.TCM_COMPRESSION_THRESHOLD, 8192);
+    final int maxMessageSize = props.getInt(TCPropertiesConsts.TCM_COMPRESSION_MAX_MESSAGE_MEGABYTES,
+                                            DEFAULT_MAX_MESSAGE_SIZE >>> 20) << 20;
+    final Set<String> types = new HashSet<String>();
+    final String typeNames = props.getProperty(TCPropertiesConsts.TCM_COMPRESSION_MESSAGE_TYPES, true);
+    if (typeNames != null) {
+      for (String type : typeNames.split(",")) {
+        if (type.trim().length() > 0) {
+          types.add(type.trim());
+        }
+      }
+    }
+
+    final MessageCompressor compressor = createCompressor(props);
+    if (enabled) {
+      logger.info("Compressing " + (types.isEmpty() ? "all messages" : types) + " of " + threshold
+                  + " bytes or more with " + compressor.getName());
+    }
+    return new MessageCompression(enabled, compressor, threshold, types, maxMessageSize);
+  }
+
+  private static MessageCompressor createCompressor(TCProperties props) {
+    final String codec = props.getProperty(TCPropertiesConsts.TCM_COMPRESSION_CODEC, true);
+    if (codec == null || codec.equalsIgnoreCase("lzf")) { return new LZFMessageCompressor(); }
+    if (codec.equalsIgnoreCase("deflate")) {
+      return new DeflateMessageCompressor(props.getInt(TCPropertiesConsts.TCM_COMPRESSION_DEFLATE_LEVEL, 1));
+    }
+    try {
+      return (MessageCompressor) Class.forName(codec).newInstance();
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Invalid " + TCPropertiesConsts.TCM_COMPRESSION_CODEC + ": " + codec, e);
+    }
+  }
+
+  public MessageCompression(boolean enabled, MessageCompressor compressor, int threshold, Set<String> messageTypes) {
+    this(enabled, compressor, threshold, messageTypes, DEFAULT_MAX_MESSAGE_SIZE);
+  }
+
+  public MessageCompression(boolean enabled, MessageCompressor compressor, int threshold, Set<String> messageTypes,
+                            int maxMessageSize) {
+    if (maxMessageSize <= 0) { throw new IllegalArgumentException("Invalid max message size: " + maxMessageSize); }
+    this.enabled = enabled;
+    this.compressor = compressor;
+    this.threshold = threshold;
+    this.maxMessageSize = maxMessageSize;
+    this.messageTypes = Collections.unmodifiableSet(new HashSet<String>(messageTypes));
+    // whatever we send with, we can read anything the built in codecs produce
+    addDecoder(new LZFMessageCompressor());
+    addDecoder(new DeflateMessageCompressor());
+    addDecoder(compressor);
+  }
+
+  private void addDecoder(MessageCompressor decoder) {
+    if (decoder.getId() == NONE) { throw new IllegalArgumentException("Codec id 0 is reserved: " + decoder.getName()); }
+    this.decoders.put(decoder.getId(), decoder);
+  }
+
+  /**
+   * Whether messages are compressed when sent. Receiving compressed messages is always supported.
+   */
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public MessageCompressor getCompressor() {
+    return this.compressor;
+  }
+
+  /**
+   * Frames the message for a channel that negotiated compression, compressing it if it's worth it.
+   */
+  public TCNetworkMessage encode(TCNetworkMessage message, MessageMonitor monitor) {
+    if (!message.isSealed()) {
+      message.seal();
+    }
+    if (!shouldCompress(message)) { return new FramedMessage(message, null); }
+
+    final long start = System.nanoTime();
+    final int rawLength = message.getTotalLength();
+    final byte[] raw = copy(message.getEntireMessageData(), rawLength);
+    final byte[] frame = new byte[FRAME_LENGTH + this.compressor.maxCompressedLength(rawLength)];
+    final int compressed = this.compressor.compress(raw, 0, rawLength, frame, FRAME_LENGTH);
+    final boolean smaller = compressed >= 0 && FRAME_LENGTH + compressed < rawLength;
+    final long nanos = System.nanoTime() - start;
+
+    if (monitor instanceof MessageMonitorImpl) {
+      ((MessageMonitorImpl) monitor).newCompressedMessage(((TCMessage) message).getMessageType(), rawLength,
+                                                          smaller ? FRAME_LENGTH + compressed : rawLength, nanos);
+    }
+    if (!smaller) { return new FramedMessage(message, null); }
+
+    frame[0] = this.compressor.getId();
+    frame[1] = (byte) (rawLength >>> 24);
+    frame[2] = (byte) (rawLength >>> 16);
+    frame[3] = (byte) (rawLength >>> 8);
+    frame[4] = (byte) rawLength;
+    return new FramedMessage(message, TCByteBufferFactory.wrap(frame).limit(FRAME_LENGTH + compressed));
+  }
+
+  private boolean shouldCompress(TCNetworkMessage message) {
+    if (!this.enabled || !(message instanceof TCMessage)) { return false; }
+    if (message.getTotalLength() < this.threshold) { return false; }
+    return this.messageTypes.isEmpty()
+           || this.messageTypes.contains(((TCMessage) message).getMessageType().getTypeName());
+  }
+
+  /**
+   * Strips the frame off a received message, decompressing it if needed.
+   */
+  public TCByteBuffer[] decode(TCByteBuffer[] data) {
+    final byte id = data[0].duplicate().position(0).get();
+    if (id == NONE) { return unframe(data); }
+
+    final MessageCompressor decoder = this.decoders.get(id);
+    if (decoder == null) { throw new RuntimeException("Unknown compression codec: " + id); }
+
+    final byte[] frame = copy(data, length(data));
+    final int rawLength = ((frame[1] & 0xff) << 24) | ((frame[2] & 0xff) << 16) | ((frame[3] & 0xff) << 8)
+                          | (frame[4] & 0xff);
+    // the length comes off the wire, don't let a corrupt or hostile frame make us allocate whatever it says
+    if (rawLength < 0 || rawLength > this.maxMessageSize) {
+      throw new RuntimeException("Invalid uncompressed message length: " + rawLength + ", max is "
+                                 + this.maxMessageSize);
+    }
+    final byte[] raw = new byte[rawLength];
+    decoder.decompress(frame, FRAME_LENGTH, frame.length - FRAME_LENGTH, raw, 0, rawLength);
+    return new TCByteBuffer[] { TCByteBufferFactory.wrap(raw) };
+  }
+
+  private static TCByteBuffer[] unframe(TCByteBuffer[] data) {
+    final TCByteBuffer[] rv;
+    if (data[0].limit() > 1) {
+      rv = data.clone();
+      rv[0] = data[0].duplicate().position(1).slice();
+    } else {
+      rv = Arrays.copyOfRange(data, 1, data.length);
+    }
+    // the message parser wants the whole message header in the first buffer
+    if (rv.length > 1 && rv[0].limit() < TCMessageHeader.HEADER_LENGTH) {
+      return new TCByteBuffer[] { TCByteBufferFactory.wrap(copy(rv, length(rv))) };
+    }
+    return rv;
+  }
+
+  private static int length(TCByteBuffer[] data) {
+    int length = 0;
+    for (TCByteBuffer buffer : data) {
+      length += buffer.limit();
+    }
+    return length;
+  }
+
+  private static byte[] copy(TCByteBuffer[] data, int length) {
+    final byte[] rv = new byte[length];
+    int offset = 0;
+    for (TCByteBuffer buffer : data) {
+      final int n = buffer.limit();
+      buffer.duplicate().position(0).get(rv, offset, n);
+      offset += n;
+    }
+    return rv;
+  }
+
+  /**
+   * The message as sent on a channel using compression. Everything about the message other than its bytes is the
+   * original's, so sent callbacks and recycling still happen on it.
+   */
+  private static class FramedMessage implements TCNetworkMessage {
+    private static final TCNetworkHeader EMPTY_HEADER = new EmptyHeader();
+
+    private final TCNetworkMessage       message;
+    private final TCByteBuffer           compressed;
+
+    FramedMessage(TCNetworkMessage message, TCByteBuffer compressed) {
+      this.message = message;
+      this.compressed = compressed;
+    }
+
+    @Override
+    public TCNetworkHeader getHeader() {
+      return EMPTY_HEADER;
+    }
+
+    @Override
+    public TCNetworkMessage getMessagePayload() {
+      return null;
+    }
+
+    @Override
+    public TCByteBuffer[] getPayload() {
+      return getEntireMessageData();
+    }
+
+    @Override
+    public TCByteBuffer[] getEntireMessageData() {
+      if (this.compressed != null) { return new TCByteBuffer[] { this.compressed.duplicate() }; }
+      final TCByteBuffer[] data = this.message.getEntireMessageData();
+      final TCByteBuffer[] rv = new TCByteBuffer[data.length + 1];
+      rv[0] = TCByteBufferFactory.wrap(new byte[] { NONE });
+      System.arraycopy(data, 0, rv, 1, data.length);
+      return rv;
+    }
+
+    @Override
+    public boolean isSealed() {
+      return true;
+    }
+
+    @Override
+    public void seal() {
+      return;
+    }
+
+    @Override
+    public int getDataLength() {
+      return getTotalLength();
+    }
+
+    @Override
+    public int getHeaderLength() {
+      return 0;
+    }
+
+    @Override
+    public int getTotalLength() {
+      return this.compressed != null ? this.compressed.limit() : this.message.getTotalLength() + 1;
+    }
+
+    @Override
+    public void wasSent() {
+      this.message.wasSent();
+    }
+
+    @Override
+    public void setSentCallback(Runnable callback) {
+      this.message.setSentCallback(callback);
+    }
+
+    @Override
+    public Runnable getSentCallback() {
+      return this.message.getSentCallback();
+    }
+
+    @Override
+    public void recycle() {
+      this.message.recycle();
+    }
+
+    @Override
+    public String toString() {
+      return (this.compressed != null ? "Compressed" : "Framed") + "[" + this.message + "]";
+    }
+  }
+
+  private static class EmptyHeader implements TCNetworkHeader {
+
+    @Override
+    public int getHeaderByteLength() {
+      return 0;
+    }
+
+    @Override
+    public TCByteBuffer getDataBuffer() {
+      return TCByteBufferFactory.getInstance(false, 0);
+    }
+
+    @Override
+    public void validate() {
+      return;
+    }
+
+    @Override
+    public void recycle() {
+      return;
+    }
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.protocol.tcm;
+
+/**
+ * A codec used to compress TC messages on the wire, see {@link MessageCompression}. Implementations must be thread
+ * safe and have a public no-arg constructor to be usable through <code>tcm.compression.codec</code>.
+ */
+public interface MessageCompressor {
+
+  /**
+   * Identifies the codec in the frame of a compressed message. Ids below 16 are reserved for the built in codecs.
+   */
+  byte getId();
+
+  String getName();
+
+  /**
+   * The largest size <code>length</code> bytes of input can compress to.
+   */
+  int maxCompressedLength(int length);
+
+  /**
+   * @return the number of bytes written to <code>dst</code>, -1 if the compressed data didn't fit
+   */
+  int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset);
+
+  /**
+   * Decompresses exactly <code>dstLength</code> bytes, failing if the input doesn't decode to that.
+   */
+  void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength);
+
+}
@@ -17,6 +17,8 @@
 package com.tc.net.protocol.tcm;
 
 import com.tc.logging.TCLogger;
+import com.tc.net.core.DirectBufferPool;
+import com.tc.net.core.TCConnectionManagerImpl;
 import com.tc.properties.TCProperties;
 import com.tc.properties.TCPropertiesConsts;
 import com.tc.text.StringFormatter;
@@ -24,10 +26,12 @@ import com.tc.text.StringFormatter;
 import java.io.Serializable;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class MessageMonitorImpl implements MessageMonitor {
@@ -37,6 +41,8 @@ public class MessageMonitorImpl implements MessageMonitor {
   private final Timer           timer;
   private int                   maxTypeWidth = 0;
 
+  private final List<TCConnectionManagerImpl> connectionManagers = new CopyOnWriteArrayList<TCConnectionManagerImpl>();
+
   public static MessageMonitor createMonitor(TCProperties tcProps, TCLogger logger) {
     final MessageMonitor mm;
     if (tcProps.getBoolean(TCPropertiesConsts.TCM_MONITOR_ENABLED, false)) {
@@ -75,6 +81,24 @@ public class MessageMonitorImpl implements MessageMonitor {
     getOrCreateMessageCounter(message.getMessageType()).newOutgoingMessage(message);
   }
 
+  /**
+   * Records an attempt to compress an outgoing message, <code>sentLength</code> is the size it went out with.
+   */
+  public void newCompressedMessage(TCMessageType type, int rawLength, int sentLength, long nanos) {
+    getOrCreateMessageCounter(type).newCompressedMessage(rawLength, sentLength, nanos);
+  }
+
+  /**
+   * Includes the copied and gathered write bytes of the connections of <code>connectionManager</code> in the log.
+   */
+  public void addConnectionManager(TCConnectionManagerImpl connectionManager) {
+    connectionManagers.add(connectionManager);
+  }
+
+  public void removeConnectionManager(TCConnectionManagerImpl connectionManager) {
+    connectionManagers.remove(connectionManager);
+  }
+
   private MessageCounter getOrCreateMessageCounter(TCMessageType type) {
     synchronized (counters) {
       MessageCounter rv = (MessageCounter) counters.get(type);
@@ -102,16 +126,32 @@ public class MessageMonitorImpl implements MessageMonitor {
         rv.append(counter.toString(maxTypeWidth)).append(nl);
       }
     }
+    if (!connectionManagers.isEmpty()) {
+      long copied = 0;
+      long gathered = 0;
+      for (TCConnectionManagerImpl connectionManager : connectionManagers) {
+        copied += connectionManager.getTotalBytesCopied();
+        gathered += connectionManager.getTotalBytesGathered();
+      }
+      rv.append("Connection writes | COPIED: ").append(formatter.leftPad(30, copied)).append(" bytes | GATHERED: ")
+          .append(formatter.leftPad(30, gathered)).append(" bytes").append(nl);
+    }
+    rv.append(DirectBufferPool.getDefault()).append(nl);
 
     return rv.toString();
   }
 
   public static class MessageCounter {
-    private final AtomicLong      incomingCount = new AtomicLong(0);
-    private final AtomicLong      incomingData  = new AtomicLong(0);
+    private final AtomicLong      incomingCount     = new AtomicLong(0);
+    private final AtomicLong      incomingData      = new AtomicLong(0);
 
-    private final AtomicLong      outgoingCount = new AtomicLong(0);
-    private final AtomicLong      outgoingData  = new AtomicLong(0);
+    private final AtomicLong      outgoingCount     = new AtomicLong(0);
+    private final AtomicLong      outgoingData      = new AtomicLong(0);
+
+    private final AtomicLong      compressedCount   = new AtomicLong(0);
+    private final AtomicLong      compressedRawData = new AtomicLong(0);
+    private final AtomicLong      compressedData    = new AtomicLong(0);
+    private final AtomicLong      compressionNanos  = new AtomicLong(0);
     private final StringFormatter formatter;
     private final String          name;
 
@@ -130,11 +170,31 @@ public class MessageMonitorImpl implements MessageMonitor {
       outgoingData.addAndGet(message.getTotalLength());
     }
 
+    private void newCompressedMessage(int rawLength, int sentLength, long nanos) {
+      compressedCount.incrementAndGet();
+      compressedRawData.addAndGet(rawLength);
+      compressedData.addAndGet(sentLength);
+      compressionNanos.addAndGet(nanos);
+    }
+
     public String toString(int nameWidth) {
-      return formatter.rightPad(nameWidth, name) + " | IN: " + formatter.leftPad(15, incomingCount) + ", "
-             + formatter.leftPad(30, incomingData) + " bytes " + "| OUT: " + formatter.leftPad(15, outgoingCount)
-             + ", " + formatter.leftPad(30, outgoingData) + " bytes";
+      String rv = formatter.rightPad(nameWidth, name) + " | IN: " + formatter.leftPad(15, incomingCount) + ", "
+                  + formatter.leftPad(30, incomingData) + " bytes " + "| OUT: " + formatter.leftPad(15, outgoingCount)
+                  + ", " + formatter.leftPad(30, outgoingData) + " bytes";
+      if (compressedCount.get() > 0) {
+        rv += " | COMPRESSED: " + formatter.leftPad(15, compressedCount) + ", ratio "
+              + String.format("%.2f", getCompressionRatio()) + ", "
+              + formatter.leftPad(10, compressionNanos.get() / 1000000) + " ms";
+      }
+      return rv;
+    }
 
+    /**
+     * Uncompressed over sent size of the messages compression was tried on, 1 if none.
+     */
+    public double getCompressionRatio() {
+      final long sent = compressedData.get();
+      return sent == 0 ? 1.0 : (double) compressedRawData.get() / sent;
     }
 
     public AtomicLong getIncomingCount() {
@@ -153,6 +213,22 @@ public class MessageMonitorImpl implements MessageMonitor {
       return outgoingData;
     }
 
+    public AtomicLong getCompressedCount() {
+      return compressedCount;
+    }
+
+    public AtomicLong getCompressedRawData() {
+      return compressedRawData;
+    }
+
+    public AtomicLong getCompressedData() {
+      return compressedData;
+    }
+
+    public AtomicLong getCompressionNanos() {
+      return compressionNanos;
+    }
+
     public String getName() {
       return name;
     }
@@ -28,4 +28,6 @@ public interface TCMessageFactory {
 
   public void addClassMapping(TCMessageType type, GeneratedMessageFactory messageFactory);
 
+  public MessageMonitor getMessageMonitor();
+
 }
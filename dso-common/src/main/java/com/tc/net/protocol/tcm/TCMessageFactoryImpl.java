@@ -75,6 +75,11 @@ public class TCMessageFactoryImpl implements TCMessageFactory {
     }
   }
 
+  @Override
+  public MessageMonitor getMessageMonitor() {
+    return this.monitor;
+  }
+
   private GeneratedMessageFactory lookupFactory(final TCMessageType type) {
     final GeneratedMessageFactory factory = this.factories.get(type);
     if (factory == null) { throw new RuntimeException("No factory for type " + type); }
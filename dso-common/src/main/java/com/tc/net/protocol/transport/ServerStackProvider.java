@@ -30,6 +30,7 @@ import com.tc.net.protocol.ProtocolAdaptorFactory;
 import com.tc.net.protocol.RejectReconnectionException;
 import com.tc.net.protocol.TCProtocolAdaptor;
 import com.tc.net.protocol.tcm.CommunicationsManager;
+import com.tc.net.protocol.tcm.MessageChannelInternal;
 import com.tc.net.protocol.tcm.ServerMessageChannelFactory;
 import com.tc.net.protocol.tcm.msgs.CommsMessageFactory;
 import com.tc.util.Assert;
@@ -346,7 +347,10 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
 
       // compare the two and send an error if there is a mismatch
       // send the layers present at the server side in the error message
-      if ((!isMaxConnectionReached) && (clientStackLayerFlags != serverStackLayerFlags)) {
+      // compression is a capability of the client rather than a layer, it doesn't have to match
+      final short capabilities = NetworkLayer.TYPE_COMPRESSION_CAPABLE;
+      if ((!isMaxConnectionReached)
+          && ((clientStackLayerFlags & ~capabilities) != (serverStackLayerFlags & ~capabilities))) {
         String layersPresentInServer = "Layers Present in Server side communication stack: ";
         layersPresentInServer += this.transport.getCommunicationStackNames(this.transport);
         sendSynAck(connectionId, new TransportHandshakeErrorContext(layersPresentInServer,
@@ -374,9 +378,21 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
       }
       logger.info("User " + principal + " successfully authenticated");
       // todo store principal ?
+      setCompressionNegotiated((clientStackLayerFlags & NetworkLayer.TYPE_COMPRESSION_CAPABLE) != 0);
       sendSynAck(connectionId, syn.getSource(), isMaxConnectionReached);
     }
 
+    /**
+     * A client able to compress frames all its messages, let the channel on our side know before it sees any.
+     */
+    private void setCompressionNegotiated(boolean negotiated) {
+      for (NetworkLayer layer = this.transport.getReceiveLayer(); layer != null; layer = layer.getReceiveLayer()) {
+        if (layer instanceof MessageChannelInternal) {
+          ((MessageChannelInternal) layer).setCompressionNegotiated(negotiated);
+        }
+      }
+    }
+
     private boolean verifySyn(WireProtocolMessage message) {
       return message instanceof TransportHandshakeMessage && (((TransportHandshakeMessage) message).isSyn());
     }
@@ -27,7 +27,9 @@ public class L1ReconnectConfigImpl extends AbstractReconnectConfig {
         .getProperties().getInt(TCPropertiesConsts.L2_L1RECONNECT_TIMEOUT_MILLS), TCPropertiesImpl.getProperties()
         .getInt(TCPropertiesConsts.L2_L1RECONNECT_SENDQUEUE_CAP), TCPropertiesImpl.getProperties()
         .getInt(TCPropertiesConsts.L2_L1RECONNECT_MAX_DELAYEDACKS), TCPropertiesImpl.getProperties()
-        .getInt(TCPropertiesConsts.L2_L1RECONNECT_SEND_WINDOW), NAME);
+        .getInt(TCPropertiesConsts.L2_L1RECONNECT_SEND_WINDOW), TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_L1RECONNECT_SEND_WINDOW_BYTES, 0), TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_L1RECONNECT_ACK_DELAY_MILLIS, 0), NAME);
   }
 
   public L1ReconnectConfigImpl(boolean l1ReconnectEnabled, int l1ReconnectTimeout, int l1ReconnectSendQueueCap,
@@ -36,4 +38,11 @@ public class L1ReconnectConfigImpl extends AbstractReconnectConfig {
           l1ReconnectSendWindow, NAME);
   }
 
+  public L1ReconnectConfigImpl(boolean l1ReconnectEnabled, int l1ReconnectTimeout, int l1ReconnectSendQueueCap,
+                               int l1ReconnectMaxDelayedAcks, int l1ReconnectSendWindow, int l1ReconnectSendWindowBytes,
+                               int l1ReconnectAckDelayMillis) {
+    super(l1ReconnectEnabled, l1ReconnectTimeout, l1ReconnectSendQueueCap, l1ReconnectMaxDelayedAcks,
+          l1ReconnectSendWindow, l1ReconnectSendWindowBytes, l1ReconnectAckDelayMillis, NAME);
+  }
+
 }
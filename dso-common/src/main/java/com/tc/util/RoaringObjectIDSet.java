@@ -0,0 +1,806 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util;
+
+import com.tc.object.ObjectID;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Roaring bitmap style set: ids are split on their high bits into blocks of 65536, each block is held in a container
+ * that is a sorted array while sparse and an off-heap bitmap once dense.
+ * <p>
+ * A dense block costs 8KB of direct memory regardless of how many ids it holds, a sparse one two bytes per id on heap.
+ * Union, difference and intersection with another <code>RoaringObjectIDSet</code> work container by container without
+ * going through individual ids.
+ */
+public class RoaringObjectIDSet extends ObjectIDSet {
+
+  private static final int CONTAINER_BITS      = 16;
+  private static final int CONTAINER_SIZE      = 1 << CONTAINER_BITS;
+  private static final int LOW_MASK            = CONTAINER_SIZE - 1;
+  private static final int BITMAP_LONGS        = CONTAINER_SIZE / Long.SIZE;
+
+  /**
+   * An array container turns into a bitmap past this many ids, the point where the array outgrows the bitmap. It
+   * only turns back at half of it so that adds and removes around the limit don't keep converting.
+   */
+  static final int         ARRAY_CONTAINER_MAX = 4096;
+
+  /**
+   * Array containers are handed out as ranges of this many longs, the alignment both other set types can read back.
+   */
+  private static final int RANGE_LONGS         = 16;
+
+  private long[]           keys                = new long[4];
+  private Container[]      containers          = new Container[4];
+  private int              containerCount      = 0;
+  private int              size                = 0;
+  private volatile int     modCount            = 0;
+
+  public RoaringObjectIDSet() {
+    super();
+  }
+
+  public RoaringObjectIDSet(final Collection c) {
+    if (c instanceof RoaringObjectIDSet) {
+      final RoaringObjectIDSet other = (RoaringObjectIDSet) c;
+      this.keys = Arrays.copyOf(other.keys, Math.max(4, other.containerCount));
+      this.containers = new Container[this.keys.length];
+      for (int i = 0; i < other.containerCount; i++) {
+        this.containers[i] = other.containers[i].copy();
+      }
+      this.containerCount = other.containerCount;
+      this.size = other.size;
+    } else if (c instanceof ObjectIDSet) {
+      for (Range range : ((ObjectIDSet) c).ranges()) {
+        insertRange(range);
+      }
+    } else {
+      addAll(c);
+    }
+  }
+
+  @Override
+  /**
+   * ignore find bug warning for non thread safe increment of a volatile variable
+   * The volatile varibale is being used only for validation of no concurrent modification while iterating the set
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  public boolean add(final ObjectID id) {
+    final long lid = id.toLong();
+    final long key = key(lid);
+    final int index = indexOf(key);
+    if (index >= 0) {
+      final Container current = this.containers[index];
+      final int before = current.cardinality();
+      this.containers[index] = current.add(low(lid));
+      if (this.containers[index].cardinality() == before) { return false; }
+    } else {
+      insertContainer(-index - 1, key, new ArrayContainer().add(low(lid)));
+    }
+    this.size++;
+    this.modCount++;
+    return true;
+  }
+
+  /**
+   * ignore find bug warning for non thread safe increment of a volatile variable The volatile varibale is being used
+   * only for validation of no concurrent modification while iterating the set
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  @Override
+  public boolean remove(final Object o) {
+    if (!(o instanceof ObjectID)) { return false; }
+    final long lid = ((ObjectID) o).toLong();
+    final int index = indexOf(key(lid));
+    if (index < 0) { return false; }
+
+    final Container current = this.containers[index];
+    final int before = current.cardinality();
+    final Container removed = current.remove(low(lid));
+    if (removed.cardinality() == before) { return false; }
+    if (removed.cardinality() == 0) {
+      removeContainer(index);
+    } else {
+      this.containers[index] = removed;
+    }
+    this.size--;
+    this.modCount++;
+    return true;
+  }
+
+  @Override
+  public boolean contains(final Object o) {
+    if (!(o instanceof ObjectID)) { return false; }
+    final long lid = ((ObjectID) o).toLong();
+    final int index = indexOf(key(lid));
+    return index >= 0 && this.containers[index].contains(low(lid));
+  }
+
+  @Override
+  public boolean addAll(final Collection<? extends ObjectID> c) {
+    if (!(c instanceof RoaringObjectIDSet)) { return super.addAll(c); }
+    final RoaringObjectIDSet other = (RoaringObjectIDSet) c;
+    if (other.containerCount == 0) { return false; }
+
+    final int oldSize = this.size;
+    final long[] mergedKeys = new long[this.containerCount + other.containerCount];
+    final Container[] merged = new Container[mergedKeys.length];
+    int mine = 0, theirs = 0, count = 0;
+    this.size = 0;
+    while (mine < this.containerCount || theirs < other.containerCount) {
+      Container container;
+      if (theirs == other.containerCount
+          || (mine < this.containerCount && this.keys[mine] < other.keys[theirs])) {
+        mergedKeys[count] = this.keys[mine];
+        container = this.containers[mine++];
+      } else if (mine == this.containerCount || other.keys[theirs] < this.keys[mine]) {
+        mergedKeys[count] = other.keys[theirs];
+        container = other.containers[theirs++].copy();
+      } else {
+        mergedKeys[count] = this.keys[mine];
+        container = this.containers[mine++].or(other.containers[theirs++]);
+      }
+      merged[count++] = container;
+      this.size += container.cardinality();
+    }
+    replaceContainers(mergedKeys, merged, count);
+    return this.size != oldSize;
+  }
+
+  @Override
+  public boolean removeAll(final Collection<?> c) {
+    if (!(c instanceof RoaringObjectIDSet)) { return super.removeAll(c); }
+    final RoaringObjectIDSet other = (RoaringObjectIDSet) c;
+
+    final int oldSize = this.size;
+    int theirs = 0, count = 0;
+    this.size = 0;
+    for (int mine = 0; mine < this.containerCount; mine++) {
+      while (theirs < other.containerCount && other.keys[theirs] < this.keys[mine]) {
+        theirs++;
+      }
+      Container container = this.containers[mine];
+      if (theirs < other.containerCount && other.keys[theirs] == this.keys[mine]) {
+        container = container.andNot(other.containers[theirs]);
+      }
+      count = keep(count, this.keys[mine], container);
+    }
+    clearTail(count);
+    return this.size != oldSize;
+  }
+
+  @Override
+  public boolean retainAll(final Collection<?> c) {
+    if (!(c instanceof RoaringObjectIDSet)) { return super.retainAll(c); }
+    final RoaringObjectIDSet other = (RoaringObjectIDSet) c;
+
+    final int oldSize = this.size;
+    int theirs = 0, count = 0;
+    this.size = 0;
+    for (int mine = 0; mine < this.containerCount; mine++) {
+      while (theirs < other.containerCount && other.keys[theirs] < this.keys[mine]) {
+        theirs++;
+      }
+      if (theirs < other.containerCount && other.keys[theirs] == this.keys[mine]) {
+        count = keep(count, this.keys[mine], this.containers[mine].and(other.containers[theirs]));
+      }
+    }
+    clearTail(count);
+    return this.size != oldSize;
+  }
+
+  @Override
+  public Iterator<ObjectID> iterator() {
+    return new RoaringObjectIDSetIterator();
+  }
+
+  @Override
+  public ObjectID first() {
+    if (this.size == 0) { throw new NoSuchElementException(); }
+    return new ObjectID(id(this.keys[0], this.containers[0].next(0)));
+  }
+
+  @Override
+  public ObjectID last() {
+    if (this.size == 0) { throw new NoSuchElementException(); }
+    return new ObjectID(id(this.keys[this.containerCount - 1], this.containers[this.containerCount - 1].last()));
+  }
+
+  @Override
+  public void clear() {
+    this.keys = new long[4];
+    this.containers = new Container[4];
+    this.containerCount = 0;
+    this.size = 0;
+    this.modCount++;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  protected void insertRange(final Range range) {
+    long start = range.getStart();
+    for (long word : range.getBitmap()) {
+      while (word != 0) {
+        add(new ObjectID(start + Long.numberOfTrailingZeros(word)));
+        word &= word - 1;
+      }
+      start += Long.SIZE;
+    }
+  }
+
+  @Override
+  protected Collection<? extends Range> ranges() {
+    final List<Range> ranges = new ArrayList<Range>();
+    for (int i = 0; i < this.containerCount; i++) {
+      this.containers[i].addRangesTo(id(this.keys[i], 0), ranges);
+    }
+    return ranges;
+  }
+
+  /**
+   * Bytes of direct memory held by the bitmap containers of this set.
+   */
+  public long getOffHeapSizeInBytes() {
+    long bytes = 0;
+    for (int i = 0; i < this.containerCount; i++) {
+      if (this.containers[i] instanceof BitmapContainer) {
+        bytes += BITMAP_LONGS * (Long.SIZE / Byte.SIZE);
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("RoaringObjectIDSet{");
+    sb.append("size=").append(this.size);
+    sb.append(", containers=").append(this.containerCount);
+    sb.append(", offHeapBytes=").append(getOffHeapSizeInBytes());
+    sb.append(", modCount=").append(this.modCount);
+    sb.append('}');
+    return sb.toString();
+  }
+
+  private static long key(final long lid) {
+    return lid >> CONTAINER_BITS;
+  }
+
+  private static int low(final long lid) {
+    return (int) (lid & LOW_MASK);
+  }
+
+  private static long id(final long key, final int low) {
+    return (key << CONTAINER_BITS) | low;
+  }
+
+  private int indexOf(final long key) {
+    int lo = 0;
+    int hi = this.containerCount - 1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      final long midKey = this.keys[mid];
+      if (midKey < key) {
+        lo = mid + 1;
+      } else if (midKey > key) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(lo + 1);
+  }
+
+  private void insertContainer(final int index, final long key, final Container container) {
+    if (this.containerCount == this.keys.length) {
+      this.keys = Arrays.copyOf(this.keys, this.containerCount * 2);
+      this.containers = Arrays.copyOf(this.containers, this.containerCount * 2);
+    }
+    System.arraycopy(this.keys, index, this.keys, index + 1, this.containerCount - index);
+    System.arraycopy(this.containers, index, this.containers, index + 1, this.containerCount - index);
+    this.keys[index] = key;
+    this.containers[index] = container;
+    this.containerCount++;
+  }
+
+  private void removeContainer(final int index) {
+    System.arraycopy(this.keys, index + 1, this.keys, index, this.containerCount - index - 1);
+    System.arraycopy(this.containers, index + 1, this.containers, index, this.containerCount - index - 1);
+    this.containers[--this.containerCount] = null;
+  }
+
+  /**
+   * ignore find bug warning for non thread safe increment of a volatile variable The volatile varibale is being used
+   * only for validation of no concurrent modification while iterating the set
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  private void replaceContainers(final long[] newKeys, final Container[] newContainers, final int count) {
+    this.keys = newKeys;
+    this.containers = newContainers;
+    this.containerCount = count;
+    this.modCount++;
+  }
+
+  /**
+   * Compacts a container produced by an in place bulk operation into slot <code>count</code>, dropping it if empty.
+   */
+  private int keep(final int count, final long key, final Container container) {
+    if (container.cardinality() == 0) { return count; }
+    this.keys[count] = key;
+    this.containers[count] = container;
+    this.size += container.cardinality();
+    return count + 1;
+  }
+
+  /**
+   * ignore find bug warning for non thread safe increment of a volatile variable The volatile varibale is being used
+   * only for validation of no concurrent modification while iterating the set
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  private void clearTail(final int count) {
+    Arrays.fill(this.containers, count, this.containerCount, null);
+    this.containerCount = count;
+    this.modCount++;
+  }
+
+  private class RoaringObjectIDSetIterator implements Iterator<ObjectID> {
+
+    private int      index;
+    private int      nextLow;
+    private ObjectID lastReturned;
+    private int      expectedModCount;
+
+    public RoaringObjectIDSetIterator() {
+      this.expectedModCount = RoaringObjectIDSet.this.modCount;
+      this.index = 0;
+      this.nextLow = containerCount > 0 ? containers[0].next(0) : -1;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.nextLow >= 0;
+    }
+
+    @Override
+    public ObjectID next() {
+      if (this.expectedModCount != RoaringObjectIDSet.this.modCount) { throw new ConcurrentModificationException(); }
+      if (this.nextLow < 0) { throw new NoSuchElementException(); }
+      this.lastReturned = new ObjectID(id(keys[this.index], this.nextLow));
+      advance(this.nextLow + 1);
+      return this.lastReturned;
+    }
+
+    @Override
+    public void remove() {
+      if (this.lastReturned == null) { throw new IllegalStateException(); }
+      if (this.expectedModCount != RoaringObjectIDSet.this.modCount) { throw new ConcurrentModificationException(); }
+
+      RoaringObjectIDSet.this.remove(this.lastReturned);
+      // the container may have been converted or dropped, find the next id again
+      final long from = this.lastReturned.toLong() + 1;
+      final int found = indexOf(key(from));
+      if (found >= 0) {
+        this.index = found;
+        this.nextLow = containers[found].next(low(from));
+        if (this.nextLow < 0) {
+          moveToContainer(found + 1);
+        }
+      } else {
+        moveToContainer(-found - 1);
+      }
+
+      this.expectedModCount = RoaringObjectIDSet.this.modCount;
+      this.lastReturned = null;
+    }
+
+    private void advance(final int from) {
+      if (from < CONTAINER_SIZE) {
+        this.nextLow = containers[this.index].next(from);
+        if (this.nextLow >= 0) { return; }
+      }
+      moveToContainer(this.index + 1);
+    }
+
+    private void moveToContainer(final int newIndex) {
+      this.index = newIndex;
+      this.nextLow = newIndex < containerCount ? containers[newIndex].next(0) : -1;
+    }
+  }
+
+  private static final class SimpleRange implements Range {
+    private final long   start;
+    private final long[] bitmap;
+
+    SimpleRange(final long start, final long[] bitmap) {
+      this.start = start;
+      this.bitmap = bitmap;
+    }
+
+    @Override
+    public long getStart() {
+      return this.start;
+    }
+
+    @Override
+    public long[] getBitmap() {
+      return this.bitmap;
+    }
+  }
+
+  /**
+   * The ids of one block, addressed by their low 16 bits. Mutating operations may change this container and return
+   * either it or a replacement of the other kind, they never change their argument.
+   */
+  private static abstract class Container {
+
+    abstract int cardinality();
+
+    abstract boolean contains(int low);
+
+    abstract Container add(int low);
+
+    abstract Container remove(int low);
+
+    /**
+     * @return the lowest id at or after <code>low</code>, -1 if there is none
+     */
+    abstract int next(int low);
+
+    abstract int last();
+
+    abstract Container or(Container other);
+
+    abstract Container andNot(Container other);
+
+    abstract Container and(Container other);
+
+    abstract Container copy();
+
+    abstract void addRangesTo(long start, List<Range> ranges);
+  }
+
+  private static final class ArrayContainer extends Container {
+    private char[] content;
+    private int    cardinality;
+
+    ArrayContainer() {
+      this(new char[4], 0);
+    }
+
+    ArrayContainer(final char[] content, final int cardinality) {
+      this.content = content;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+      return this.cardinality;
+    }
+
+    @Override
+    boolean contains(final int low) {
+      return Arrays.binarySearch(this.content, 0, this.cardinality, (char) low) >= 0;
+    }
+
+    @Override
+    Container add(final int low) {
+      final int pos = Arrays.binarySearch(this.content, 0, this.cardinality, (char) low);
+      if (pos >= 0) { return this; }
+      if (this.cardinality == ARRAY_CONTAINER_MAX) { return toBitmap().add(low); }
+
+      final int insert = -pos - 1;
+      if (this.cardinality == this.content.length) {
+        this.content = Arrays.copyOf(this.content, Math.min(ARRAY_CONTAINER_MAX, this.cardinality * 2));
+      }
+      System.arraycopy(this.content, insert, this.content, insert + 1, this.cardinality - insert);
+      this.content[insert] = (char) low;
+      this.cardinality++;
+      return this;
+    }
+
+    @Override
+    Container remove(final int low) {
+      final int pos = Arrays.binarySearch(this.content, 0, this.cardinality, (char) low);
+      if (pos < 0) { return this; }
+      System.arraycopy(this.content, pos + 1, this.content, pos, this.cardinality - pos - 1);
+      this.cardinality--;
+      return this;
+    }
+
+    @Override
+    int next(final int low) {
+      final int pos = Arrays.binarySearch(this.content, 0, this.cardinality, (char) low);
+      if (pos >= 0) { return this.content[pos]; }
+      final int insert = -pos - 1;
+      return insert < this.cardinality ? this.content[insert] : -1;
+    }
+
+    @Override
+    int last() {
+      return this.content[this.cardinality - 1];
+    }
+
+    @Override
+    Container or(final Container other) {
+      if (other instanceof BitmapContainer) { return other.copy().or(this); }
+
+      final ArrayContainer theirs = (ArrayContainer) other;
+      final char[] merged = new char[this.cardinality + theirs.cardinality];
+      int i = 0, j = 0, count = 0;
+      while (i < this.cardinality && j < theirs.cardinality) {
+        final char a = this.content[i];
+        final char b = theirs.content[j];
+        if (a < b) {
+          merged[count++] = a;
+          i++;
+        } else if (b < a) {
+          merged[count++] = b;
+          j++;
+        } else {
+          merged[count++] = a;
+          i++;
+          j++;
+        }
+      }
+      while (i < this.cardinality) {
+        merged[count++] = this.content[i++];
+      }
+      while (j < theirs.cardinality) {
+        merged[count++] = theirs.content[j++];
+      }
+      final ArrayContainer result = new ArrayContainer(merged, count);
+      return count > ARRAY_CONTAINER_MAX ? result.toBitmap() : result;
+    }
+
+    @Override
+    Container andNot(final Container other) {
+      int count = 0;
+      for (int i = 0; i < this.cardinality; i++) {
+        if (!other.contains(this.content[i])) {
+          this.content[count++] = this.content[i];
+        }
+      }
+      this.cardinality = count;
+      return this;
+    }
+
+    @Override
+    Container and(final Container other) {
+      int count = 0;
+      for (int i = 0; i < this.cardinality; i++) {
+        if (other.contains(this.content[i])) {
+          this.content[count++] = this.content[i];
+        }
+      }
+      this.cardinality = count;
+      return this;
+    }
+
+    @Override
+    Container copy() {
+      return new ArrayContainer(Arrays.copyOf(this.content, Math.max(1, this.cardinality)), this.cardinality);
+    }
+
+    @Override
+    void addRangesTo(final long start, final List<Range> ranges) {
+      final int windowBits = RANGE_LONGS * Long.SIZE;
+      long[] bitmap = null;
+      int window = -1;
+      for (int i = 0; i < this.cardinality; i++) {
+        final int low = this.content[i];
+        if (low / windowBits != window) {
+          window = low / windowBits;
+          bitmap = new long[RANGE_LONGS];
+          ranges.add(new SimpleRange(start + window * windowBits, bitmap));
+        }
+        final int offset = low % windowBits;
+        bitmap[offset / Long.SIZE] |= 1L << offset;
+      }
+    }
+
+    BitmapContainer toBitmap() {
+      final BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < this.cardinality; i++) {
+        bitmap.add(this.content[i]);
+      }
+      return bitmap;
+    }
+  }
+
+  private static final class BitmapContainer extends Container {
+    private final ByteBuffer bits;
+    private int              cardinality;
+
+    BitmapContainer() {
+      this(ByteBuffer.allocateDirect(BITMAP_LONGS * (Long.SIZE / Byte.SIZE)).order(ByteOrder.nativeOrder()), 0);
+    }
+
+    private BitmapContainer(final ByteBuffer bits, final int cardinality) {
+      this.bits = bits;
+      this.cardinality = cardinality;
+    }
+
+    private long word(final int index) {
+      return this.bits.getLong(index << 3);
+    }
+
+    private void setWord(final int index, final long word) {
+      this.bits.putLong(index << 3, word);
+    }
+
+    @Override
+    int cardinality() {
+      return this.cardinality;
+    }
+
+    @Override
+    boolean contains(final int low) {
+      return (word(low >>> 6) & (1L << low)) != 0;
+    }
+
+    @Override
+    Container add(final int low) {
+      final int index = low >>> 6;
+      final long before = word(index);
+      final long after = before | (1L << low);
+      if (before != after) {
+        setWord(index, after);
+        this.cardinality++;
+      }
+      return this;
+    }
+
+    @Override
+    Container remove(final int low) {
+      final int index = low >>> 6;
+      final long before = word(index);
+      final long after = before & ~(1L << low);
+      if (before != after) {
+        setWord(index, after);
+        this.cardinality--;
+      }
+      return shrinkIfSparse();
+    }
+
+    @Override
+    int next(final int low) {
+      int index = low >>> 6;
+      long word = word(index) & (-1L << low);
+      while (word == 0) {
+        if (++index == BITMAP_LONGS) { return -1; }
+        word = word(index);
+      }
+      return index * Long.SIZE + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    int last() {
+      for (int index = BITMAP_LONGS - 1; index >= 0; index--) {
+        final long word = word(index);
+        if (word != 0) { return index * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(word); }
+      }
+      return -1;
+    }
+
+    @Override
+    Container or(final Container other) {
+      if (other instanceof ArrayContainer) {
+        final ArrayContainer theirs = (ArrayContainer) other;
+        for (int i = 0; i < theirs.cardinality; i++) {
+          add(theirs.content[i]);
+        }
+        return this;
+      }
+
+      final BitmapContainer theirs = (BitmapContainer) other;
+      int count = 0;
+      for (int index = 0; index < BITMAP_LONGS; index++) {
+        final long word = word(index) | theirs.word(index);
+        setWord(index, word);
+        count += Long.bitCount(word);
+      }
+      this.cardinality = count;
+      return this;
+    }
+
+    @Override
+    Container andNot(final Container other) {
+      if (other instanceof ArrayContainer) {
+        final ArrayContainer theirs = (ArrayContainer) other;
+        for (int i = 0; i < theirs.cardinality; i++) {
+          final int low = theirs.content[i];
+          final int index = low >>> 6;
+          final long before = word(index);
+          final long after = before & ~(1L << low);
+          if (before != after) {
+            setWord(index, after);
+            this.cardinality--;
+          }
+        }
+        return shrinkIfSparse();
+      }
+
+      final BitmapContainer theirs = (BitmapContainer) other;
+      int count = 0;
+      for (int index = 0; index < BITMAP_LONGS; index++) {
+        final long word = word(index) & ~theirs.word(index);
+        setWord(index, word);
+        count += Long.bitCount(word);
+      }
+      this.cardinality = count;
+      return shrinkIfSparse();
+    }
+
+    @Override
+    Container and(final Container other) {
+      if (other instanceof ArrayContainer) { return other.copy().and(this); }
+
+      final BitmapContainer theirs = (BitmapContainer) other;
+      int count = 0;
+      for (int index = 0; index < BITMAP_LONGS; index++) {
+        final long word = word(index) & theirs.word(index);
+        setWord(index, word);
+        count += Long.bitCount(word);
+      }
+      this.cardinality = count;
+      return shrinkIfSparse();
+    }
+
+    @Override
+    Container copy() {
+      final BitmapContainer copy = new BitmapContainer();
+      final ByteBuffer source = this.bits.duplicate();
+      source.clear();
+      copy.bits.put(source);
+      copy.bits.clear();
+      copy.cardinality = this.cardinality;
+      return copy;
+    }
+
+    @Override
+    void addRangesTo(final long start, final List<Range> ranges) {
+      final long[] bitmap = new long[BITMAP_LONGS];
+      for (int index = 0; index < BITMAP_LONGS; index++) {
+        bitmap[index] = word(index);
+      }
+      ranges.add(new SimpleRange(start, bitmap));
+    }
+
+    private Container shrinkIfSparse() {
+      if (this.cardinality > ARRAY_CONTAINER_MAX / 2) { return this; }
+      final char[] content = new char[Math.max(1, this.cardinality)];
+      int count = 0;
+      for (int low = next(0); low >= 0; low = low + 1 < CONTAINER_SIZE ? next(low + 1) : -1) {
+        content[count++] = (char) low;
+      }
+      return new ArrayContainer(content, count);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.core;
+
+import com.tc.test.TCTestCase;
+
+import java.io.DataInputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+public class ClearTextBufferManagerTest extends TCTestCase {
+
+  public void testGatheredWriteKeepsStreamOrder() throws Exception {
+    ServerSocketChannel server = ServerSocketChannel.open();
+    server.socket().bind(new InetSocketAddress("localhost", 0));
+    SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", server.socket().getLocalPort()));
+    SocketChannel accepted = server.accept();
+    try {
+      ClearTextBufferManager bufferManager = new ClearTextBufferManager(client);
+
+      // something is still sitting in the send buffer from the copying path
+      ByteBuffer copied = ByteBuffer.wrap(new byte[] { 1, 2, 3 });
+      assertEquals(3, bufferManager.forwardToWriteBuffer(copied));
+      assertTrue(bufferManager.remainingToSend());
+
+      ByteBuffer[] gathered = new ByteBuffer[] { ByteBuffer.wrap(new byte[] { 4, 5 }), ByteBuffer.allocate(0),
+          ByteBuffer.wrap(new byte[] { 6, 7, 8 }) };
+      assertEquals(5, bufferManager.sendGathered(gathered, 0, gathered.length));
+      assertFalse(bufferManager.remainingToSend());
+      for (ByteBuffer buf : gathered) {
+        assertFalse(buf.hasRemaining());
+      }
+
+      byte[] received = new byte[8];
+      new DataInputStream(accepted.socket().getInputStream()).readFully(received);
+      for (int i = 0; i < received.length; i++) {
+        assertEquals(i + 1, received[i]);
+      }
+    } finally {
+      client.close();
+      accepted.close();
+      server.close();
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.core;
+
+import com.tc.test.TCTestCase;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DirectBufferPoolTest extends TCTestCase {
+
+  public void testSizeClasses() {
+    DirectBufferPool pool = new DirectBufferPool(64 * 1024, 1024 * 1024, 4, false);
+
+    ByteBuffer small = pool.allocate(100);
+    assertTrue(small.isDirect());
+    assertEquals(4096, small.capacity());
+    assertEquals(100, small.limit());
+    assertEquals(0, small.position());
+
+    ByteBuffer medium = pool.allocate(16 * 1024 + 1);
+    assertEquals(32 * 1024, medium.capacity());
+
+    ByteBuffer exact = pool.allocate(64 * 1024);
+    assertEquals(64 * 1024, exact.capacity());
+
+    ByteBuffer tooBig = pool.allocate(64 * 1024 + 1);
+    assertFalse(tooBig.isDirect());
+    assertEquals(1, pool.getMissCount());
+
+    // one slab per size class that was used
+    assertEquals(3 * 64 * 1024, pool.getReservedBytes());
+    assertEquals(4096 + 32 * 1024 + 64 * 1024, pool.getInUseBytes());
+  }
+
+  public void testReleasedBuffersAreReused() {
+    DirectBufferPool pool = new DirectBufferPool(64 * 1024, 1024 * 1024, 4, false);
+
+    ByteBuffer buf = pool.allocate(8192);
+    buf.putInt(42);
+    pool.release(buf);
+    assertEquals(0, pool.getInUseBytes());
+
+    ByteBuffer again = pool.allocate(8000);
+    assertSame(buf, again);
+    assertEquals(0, again.position());
+    assertEquals(8000, again.limit());
+    assertEquals(1, pool.getThreadCacheHitCount());
+  }
+
+  public void testThreadCacheOverflowsToSharedPool() throws Exception {
+    final DirectBufferPool pool = new DirectBufferPool(64 * 1024, 1024 * 1024, 2, false);
+
+    final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+    for (int i = 0; i < 4; i++) {
+      buffers.add(pool.allocate(16 * 1024));
+    }
+    for (ByteBuffer buf : buffers) {
+      pool.release(buf);
+    }
+    final long sharedHits = pool.getSharedHitCount();
+
+    // only the overflow of this thread's cache is visible to other threads
+    Thread other = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 2; i++) {
+          assertTrue(buffers.contains(pool.allocate(16 * 1024)));
+        }
+      }
+    };
+    other.start();
+    other.join();
+    assertEquals(sharedHits + 2, pool.getSharedHitCount());
+    assertEquals(64 * 1024, pool.getReservedBytes());
+  }
+
+  public void testDeadThreadCachesAreReclaimed() throws Exception {
+    final DirectBufferPool pool = new DirectBufferPool(16 * 1024, 16 * 1024, 4, false);
+
+    // a thread that exits with the pool's only buffer in its cache
+    final List<ByteBuffer> cached = new ArrayList<ByteBuffer>();
+    Thread exiting = new Thread() {
+      @Override
+      public void run() {
+        ByteBuffer buf = pool.allocate(16 * 1024);
+        cached.add(buf);
+        pool.release(buf);
+      }
+    };
+    exiting.start();
+    exiting.join();
+
+    ByteBuffer buf = pool.allocate(16 * 1024);
+    assertTrue(buf.isDirect());
+    assertSame(cached.get(0), buf);
+    assertEquals(1, pool.getSharedHitCount());
+    assertEquals(0, pool.getMissCount());
+    assertEquals(16 * 1024, pool.getReservedBytes());
+  }
+
+  public void testMaxBytes() {
+    DirectBufferPool pool = new DirectBufferPool(16 * 1024, 32 * 1024, 4, false);
+    for (int i = 0; i < 2; i++) {
+      assertTrue(pool.allocate(16 * 1024).isDirect());
+    }
+    assertFalse(pool.allocate(16 * 1024).isDirect());
+    assertEquals(3, pool.getAllocationCount());
+    assertEquals(33, pool.getMissPercent());
+    assertEquals(100, pool.getOccupancyPercent());
+
+    DirectBufferPool disabled = new DirectBufferPool(16 * 1024, 0, 4, false);
+    ByteBuffer buf = disabled.allocate(1024);
+    assertFalse(buf.isDirect());
+    disabled.release(buf);
+    assertEquals(0, disabled.getReleaseCount());
+  }
+
+  public void testLeakDetection() throws Exception {
+    DirectBufferPool pool = new DirectBufferPool(16 * 1024, 16 * 1024, 4, true);
+
+    ByteBuffer kept = pool.allocate(16 * 1024);
+    pool.release(kept);
+    pool.release(kept);
+    assertEquals(1, pool.getReleaseCount());
+    kept = null;
+
+    pool.allocate(16 * 1024);
+    assertFalse(pool.allocate(16 * 1024).isDirect());
+
+    for (int i = 0; i < 50 && pool.getLeakCount() == 0; i++) {
+      System.gc();
+      Thread.sleep(100);
+      // the leaked memory comes back to the pool
+      ByteBuffer buf = pool.allocate(16 * 1024);
+      if (buf.isDirect()) {
+        pool.release(buf);
+      }
+    }
+    assertEquals(1, pool.getLeakCount());
+    assertEquals(0, pool.getInUseBytes());
+  }
+}
@@ -31,7 +31,12 @@ import com.tc.net.protocol.tcm.CommunicationsManager;
 import com.tc.net.protocol.tcm.CommunicationsManagerImpl;
 import com.tc.net.protocol.tcm.NetworkListener;
 import com.tc.net.protocol.tcm.NullMessageMonitor;
+import com.tc.net.protocol.tcm.TCMessage;
 import com.tc.net.protocol.tcm.TCMessageRouterImpl;
+import com.tc.net.protocol.tcm.TCMessageSink;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.net.protocol.tcm.UnsupportedMessageTypeException;
+import com.tc.net.protocol.tcm.msgs.PingMessage;
 import com.tc.net.protocol.transport.ClientConnectionEstablisher;
 import com.tc.net.protocol.transport.ClientMessageTransport;
 import com.tc.net.protocol.transport.DefaultConnectionIdFactory;
@@ -57,8 +62,13 @@ import com.tc.util.PortChooser;
 import com.tc.util.concurrent.ThreadUtil;
 
 import java.net.InetAddress;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TCWorkerCommManagerTest extends TCTestCase {
   private static final int L1_RECONNECT_TIMEOUT = 15000;
@@ -285,6 +295,25 @@ public class TCWorkerCommManagerTest extends TCTestCase {
     return clientMsgCh;
   }
 
+  private ClientMessageChannel createPingingClientMsgCh(int port, final AtomicInteger pongs) {
+    CommunicationsManager clientComms = new CommunicationsManagerImpl("Client-TestCommsMgr", new NullMessageMonitor(),
+                                                                      getNetworkStackHarnessFactory(false),
+                                                                      new NullConnectionPolicy());
+    clientComms.addClassMapping(TCMessageType.PING_MESSAGE, PingMessage.class);
+    ((CommunicationsManagerImpl) clientComms).getMessageRouter().routeMessageType(TCMessageType.PING_MESSAGE,
+                                                                                  new TCMessageSink() {
+      @Override
+      public void putMessage(TCMessage message) {
+        pongs.incrementAndGet();
+      }
+    });
+    return clientComms.createClientChannel(new NullSessionManager(), -1, "localhost", port, 1000,
+                                           new ConnectionAddressProvider(
+                                                                         new ConnectionInfo[] { new ConnectionInfo(
+                                                                                                                   "localhost",
+                                                                                                                   port) }));
+  }
+
   public void testWorkerCommDistributionAfterReconnect() throws Exception {
     // comms manager with 3 worker comms
     CommunicationsManager commsMgr = new CommunicationsManagerImpl("TestCommsMgr", new NullMessageMonitor(),
@@ -387,6 +416,138 @@ public class TCWorkerCommManagerTest extends TCTestCase {
     listener.stop(5000);
   }
 
+  public void testConnectionMigration() throws Exception {
+    // comms manager with 2 worker comms
+    CommunicationsManager commsMgr = new CommunicationsManagerImpl("Server-TestCommsMgr", new NullMessageMonitor(),
+                                                                   getNetworkStackHarnessFactory(false),
+                                                                   new NullConnectionPolicy(), 2);
+    NetworkListener listener = commsMgr.createListener(new NullSessionManager(), new TCSocketAddress(0), true,
+                                                       new DefaultConnectionIdFactory());
+    listener.start(Collections.EMPTY_SET);
+    int port = listener.getBindPort();
+
+    ClientMessageChannel client1 = createClientMsgCh(port, false);
+    ClientMessageChannel client2 = createClientMsgCh(port, false);
+
+    client1.open();
+    client2.open();
+
+    waitForConnected(client1, client2);
+
+    waitForWeight(commsMgr, 0, 1);
+    waitForWeight(commsMgr, 1, 1);
+
+    TCCommImpl tcComm = (TCCommImpl) commsMgr.getConnectionManager().getTcComm();
+    CoreNIOServices worker0 = tcComm.getWorkerComm(0);
+    CoreNIOServices worker1 = tcComm.getWorkerComm(1);
+    TCConnectionImpl connection = worker0.getManagedConnections().get(0);
+
+    Assert.assertTrue(worker0.migrateConnection(connection, worker1));
+    Assert.assertFalse(worker0.migrateConnection(connection, worker1));
+    Assert.assertSame(worker1, connection.getCommWorker());
+    Assert.assertEquals(0, tcComm.getWeightForWorkerComm(0));
+    Assert.assertEquals(2, tcComm.getWeightForWorkerComm(1));
+    Assert.assertTrue(worker1.getManagedConnections().contains(connection));
+
+    // the weight goes away from the new worker comm when the connection closes
+    commsMgr.getConnectionManager().closeAllConnections(1000);
+
+    waitForWeight(commsMgr, 0, 0);
+    waitForWeight(commsMgr, 1, 0);
+
+    listener.stop(5000);
+  }
+
+  public void testMigratedConnectionKeepsReadingAndWriting() throws Exception {
+    // comms manager with 2 worker comms, answering every ping with a pong
+    CommunicationsManager commsMgr = new CommunicationsManagerImpl("Server-TestCommsMgr", new NullMessageMonitor(),
+                                                                   getNetworkStackHarnessFactory(false),
+                                                                   new NullConnectionPolicy(), 2);
+    commsMgr.addClassMapping(TCMessageType.PING_MESSAGE, PingMessage.class);
+    ((CommunicationsManagerImpl) commsMgr).getMessageRouter().routeMessageType(TCMessageType.PING_MESSAGE,
+                                                                               new TCMessageSink() {
+      @Override
+      public void putMessage(TCMessage message) throws UnsupportedMessageTypeException {
+        try {
+          message.hydrate();
+        } catch (Exception e) {
+          throw new AssertionError(e);
+        }
+        ((PingMessage) message).createResponse().send();
+      }
+    });
+    NetworkListener listener = commsMgr.createListener(new NullSessionManager(), new TCSocketAddress(0), true,
+                                                       new DefaultConnectionIdFactory());
+    listener.start(Collections.EMPTY_SET);
+    int port = listener.getBindPort();
+
+    AtomicInteger pongs = new AtomicInteger();
+    ClientMessageChannel client1 = createPingingClientMsgCh(port, pongs);
+    ClientMessageChannel client2 = createPingingClientMsgCh(port, pongs);
+
+    client1.open();
+    client2.open();
+
+    waitForConnected(client1, client2);
+
+    waitForWeight(commsMgr, 0, 1);
+    waitForWeight(commsMgr, 1, 1);
+
+    TCCommImpl tcComm = (TCCommImpl) commsMgr.getConnectionManager().getTcComm();
+    CoreNIOServices worker0 = tcComm.getWorkerComm(0);
+    CoreNIOServices worker1 = tcComm.getWorkerComm(1);
+    TCConnectionImpl connection = worker0.getManagedConnections().get(0);
+
+    Assert.assertTrue(worker0.migrateConnection(connection, worker1));
+    Assert.assertSame(worker1, connection.getCommWorker());
+
+    final long worker0Read = worker0.getTotalBytesRead();
+    final long worker0Written = worker0.getTotalBytesWritten();
+    final long worker1Read = worker1.getTotalBytesRead();
+    final long worker1Written = worker1.getTotalBytesWritten();
+
+    // both connections, the migrated one included, still get their pings through and their pongs back
+    int sent = 0;
+    for (int i = 0; i < 10; i++) {
+      for (ClientMessageChannel client : Arrays.asList(client1, client2)) {
+        PingMessage ping = (PingMessage) client.createMessage(TCMessageType.PING_MESSAGE);
+        ping.initialize(sent++);
+        ping.send();
+      }
+    }
+    waitForCount(pongs, sent);
+
+    // and all of that traffic went through the new owner's comm threads
+    Assert.assertEquals(worker0Read, worker0.getTotalBytesRead());
+    Assert.assertEquals(worker0Written, worker0.getTotalBytesWritten());
+    Assert.assertTrue(worker1.getTotalBytesRead() > worker1Read);
+    Assert.assertTrue(worker1.getTotalBytesWritten() > worker1Written);
+
+    commsMgr.getConnectionManager().closeAllConnections(1000);
+
+    waitForWeight(commsMgr, 0, 0);
+    waitForWeight(commsMgr, 1, 0);
+
+    listener.stop(5000);
+  }
+
+  public void testMigrationCandidateSelection() {
+    Map<String, Long> rates = new HashMap<String, Long>();
+    rates.put("idle", 0L);
+    rates.put("small", 100L);
+    rates.put("half", 480L);
+    rates.put("gap", 1000L);
+    rates.put("huge", 5000L);
+    List<String> connections = Arrays.asList("idle", "small", "half", "gap", "huge", "unsampled");
+
+    // the connection closest to half the gap wins
+    assertEquals("half", TCWorkerCommManager.chooseMigrationCandidate(connections, rates, 1000));
+    // connections as busy as the gap would only move the hot spot, idle ones would not change anything
+    assertEquals("small", TCWorkerCommManager.chooseMigrationCandidate(connections, rates, 400));
+    assertNull(TCWorkerCommManager.chooseMigrationCandidate(connections, rates, 100));
+    assertNull(TCWorkerCommManager.chooseMigrationCandidate(Arrays.asList("idle", "unsampled"), rates, 1000));
+  }
+
   private static void waitForConnected(final ClientMessageChannel... channels) throws Exception {
     CallableWaiter.waitOnCallable(new Callable<Boolean>() {
       @Override
@@ -439,6 +600,15 @@ public class TCWorkerCommManagerTest extends TCTestCase {
     });
   }
 
+  private static void waitForCount(final AtomicInteger count, final int expected) throws Exception {
+    CallableWaiter.waitOnCallable(new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        return count.get() == expected;
+      }
+    });
+  }
+
   private static void waitForRead(final CoreNIOServices commThread) throws Exception {
     CallableWaiter.waitOnCallable(new Callable<Boolean>() {
       @Override
@@ -56,4 +56,83 @@ public class ReceiveStateMachineTest extends TCTestCase {
     assertEquals(received, delivery.receivedMessageCount);
     assertTrue(receiveQueue.poll() == null);
   }
+
+  public void testDelayedAck() throws Exception {
+    TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+    ReceiveStateMachine rsm = new ReceiveStateMachine(delivery, new L1ReconnectConfigImpl(true, 5000, 5000, 16, 32, 0,
+                                                                                          50), true);
+    rsm.start();
+    rsm.resume();
+
+    rsm.execute(createSendMessage(0, -1));
+    rsm.execute(createSendMessage(1, -1));
+    // not enough messages for an immediate ack
+    assertFalse(delivery.sentAck);
+
+    long end = System.currentTimeMillis() + 30000;
+    while (!delivery.sentAck && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    // a single ack for both messages
+    assertTrue(delivery.sentAck);
+    assertEquals(1, delivery.ackCount);
+  }
+
+  public void testDelayedAckFailureDoesNotStopTheTimer() throws Exception {
+    TestProtocolMessageDelivery failing = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>()) {
+      @Override
+      public boolean sendMessage(OOOProtocolMessage pmsg) {
+        throw new IllegalStateException("channel closing");
+      }
+    };
+    ReceiveStateMachine broken = new ReceiveStateMachine(failing, new L1ReconnectConfigImpl(true, 5000, 5000, 16, 32, 0,
+                                                                                            50), true);
+    broken.start();
+    broken.resume();
+    broken.execute(createSendMessage(0, -1));
+    waitForAck(failing);
+
+    // other connections still get their delayed acks from the shared timer
+    TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+    ReceiveStateMachine rsm = new ReceiveStateMachine(delivery, new L1ReconnectConfigImpl(true, 5000, 5000, 16, 32, 0,
+                                                                                          50), true);
+    rsm.start();
+    rsm.resume();
+    rsm.execute(createSendMessage(0, -1));
+    waitForAck(delivery);
+    assertTrue(delivery.sentAck);
+  }
+
+  private static void waitForAck(TestProtocolMessageDelivery delivery) throws InterruptedException {
+    long end = System.currentTimeMillis() + 30000;
+    while (!delivery.sentAck && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+  }
+
+  public void testAckOnBytes() throws Exception {
+    TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+    // the sender's window is 1000 bytes, ack every 500
+    ReceiveStateMachine rsm = new ReceiveStateMachine(delivery, new L1ReconnectConfigImpl(true, 5000, 5000, 16, 32,
+                                                                                          1000, 0), true);
+    rsm.start();
+    rsm.resume();
+
+    rsm.execute(createSendMessage(0, 300));
+    assertFalse(delivery.sentAck);
+    rsm.execute(createSendMessage(1, 300));
+    assertTrue(delivery.sentAck);
+    assertEquals(1, delivery.ackCount);
+
+    delivery.clear();
+    rsm.execute(createSendMessage(2, 300));
+    assertFalse(delivery.sentAck);
+  }
+
+  private static TestProtocolMessage createSendMessage(long sent, int totalLength) {
+    TestProtocolMessage tpm = new TestProtocolMessage(new PingMessage(new NullMessageMonitor()), sent, -1);
+    tpm.isSend = true;
+    tpm.totalLength = totalLength;
+    return tpm;
+  }
 }
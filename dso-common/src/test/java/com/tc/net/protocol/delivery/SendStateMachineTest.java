@@ -101,4 +101,59 @@ public class SendStateMachineTest extends TCTestCase {
     assertEquals(4, delivery.msg.getSent());
 
   }
+
+  public void testSendWindowBytes() throws Exception {
+    TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+    final UUID sessionId = UUID.getUUID();
+    // ack every 2 messages, 1000 bytes window
+    final ReconnectConfig reconnectConfig = new L1ReconnectConfigImpl(true, 5000, 100, 2, 32, 1000, 0);
+    SendStateMachine ssm = new SendStateMachine(delivery, reconnectConfig, true);
+    ssm.start();
+    ssm.resume();
+
+    TestProtocolMessage msg = new TestProtocolMessage(null, 0, -1);
+    msg.isHandshakeReplyOk = true;
+    msg.setSessionId(sessionId);
+    ssm.execute(msg);
+
+    for (int i = 0; i < 5; i++) {
+      ssm.put(createPayload(400));
+    }
+    ssm.execute(null);
+    // the third message fills the window
+    assertEquals(2, delivery.msg.getSent());
+    assertEquals(1200, ssm.getOutstandingBytes());
+    assertTrue(ssm.getCurrentState() == ssm.SENDWINDOW_FULL_STATE);
+    assertEquals(1, ssm.getSendWindowStallCount());
+
+    TestProtocolMessage ack = new TestProtocolMessage(null, 0, 1);
+    ack.setSessionId(sessionId);
+    ack.isAck = true;
+    ssm.execute(ack); // ack 1
+    assertEquals(4, delivery.msg.getSent());
+    assertEquals(1200, ssm.getOutstandingBytes());
+    assertEquals(2, ssm.getSendWindowStallCount());
+
+    ack = new TestProtocolMessage(null, 0, 4);
+    ack.setSessionId(sessionId);
+    ack.isAck = true;
+    ssm.execute(ack); // ack 4
+    assertEquals(0, ssm.getOutstandingBytes());
+    assertTrue(ssm.getCurrentState() == ssm.MESSAGE_WAIT_STATE);
+
+    // messages bigger than the window still go out until the receiver is due to ack them
+    ssm.put(createPayload(5000));
+    ssm.put(createPayload(5000));
+    ssm.put(createPayload(5000));
+    ssm.execute(null);
+    assertEquals(6, delivery.msg.getSent());
+    assertEquals(10000, ssm.getOutstandingBytes());
+    assertTrue(ssm.getCurrentState() == ssm.SENDWINDOW_FULL_STATE);
+  }
+
+  private static TCNetworkMessage createPayload(int size) {
+    TestProtocolMessage payload = new TestProtocolMessage();
+    payload.totalLength = size;
+    return payload;
+  }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.net.protocol.tcm;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.net.protocol.TCNetworkHeader;
+import com.tc.net.protocol.TCNetworkMessage;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MessageCompressionTest extends TestCase {
+
+  public void testLZFRoundTrip() throws Exception {
+    assertRoundTrip(new LZFMessageCompressor());
+  }
+
+  public void testDeflateRoundTrip() throws Exception {
+    assertRoundTrip(new DeflateMessageCompressor());
+    assertRoundTrip(new DeflateMessageCompressor(9));
+  }
+
+  public void testLZFCorruptData() throws Exception {
+    MessageCompressor lzf = new LZFMessageCompressor();
+    byte[] raw = compressible(1000);
+    byte[] compressed = new byte[lzf.maxCompressedLength(raw.length)];
+    int length = lzf.compress(raw, 0, raw.length, compressed, 0);
+    try {
+      lzf.decompress(compressed, 0, length - 1, new byte[raw.length], 0, raw.length);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testCompressedMessage() throws Exception {
+    MessageMonitorImpl monitor = new MessageMonitorImpl();
+    MessageCompression compression = new MessageCompression(true, new LZFMessageCompressor(), 1024,
+                                                            Collections.singleton(TCMessageType.PING_MESSAGE
+                                                                .getTypeName()));
+    byte[] raw = compressible(64 * 1024);
+    TCNetworkMessage framed = compression.encode(new TestNetworkMessage(raw), monitor);
+    assertTrue(framed.getTotalLength() < raw.length / 2);
+    assertEquals(raw, compression.decode(split(framed.getEntireMessageData())));
+
+    MessageMonitorImpl.MessageCounter counter = (MessageMonitorImpl.MessageCounter) monitor.getCounters()
+        .get(TCMessageType.PING_MESSAGE);
+    assertEquals(1, counter.getCompressedCount().get());
+    assertEquals(raw.length, counter.getCompressedRawData().get());
+    assertEquals(framed.getTotalLength(), counter.getCompressedData().get());
+    assertTrue(counter.getCompressionRatio() > 2);
+  }
+
+  public void testUncompressedMessages() throws Exception {
+    MessageCompression compression = new MessageCompression(true, new DeflateMessageCompressor(), 1024,
+                                                            Collections.singleton(TCMessageType.PING_MESSAGE
+                                                                .getTypeName()));
+    // too small
+    assertFramed(compression, new TestNetworkMessage(compressible(1000)));
+    // not worth it
+    assertFramed(compression, new TestNetworkMessage(random(10000)));
+    // not a type to compress
+    TestNetworkMessage other = new TestNetworkMessage(compressible(10000));
+    other.type = TCMessageType.REQUEST_MANAGED_OBJECT_MESSAGE;
+    assertFramed(compression, other);
+    // disabled
+    compression = new MessageCompression(false, new LZFMessageCompressor(), 0, Collections.<String> emptySet());
+    assertFramed(compression, new TestNetworkMessage(compressible(10000)));
+  }
+
+  public void testDecodeAnyCodec() throws Exception {
+    MessageCompression lzf = new MessageCompression(true, new LZFMessageCompressor(), 0,
+                                                    Collections.<String> emptySet());
+    MessageCompression deflate = new MessageCompression(false, new DeflateMessageCompressor(), 0,
+                                                        Collections.<String> emptySet());
+    byte[] raw = compressible(20000);
+    assertEquals(raw, deflate.decode(lzf.encode(new TestNetworkMessage(raw), null).getEntireMessageData()));
+  }
+
+  public void testDecodeRejectsBadLength() throws Exception {
+    MessageCompression compression = new MessageCompression(true, new LZFMessageCompressor(), 0,
+                                                             Collections.<String> emptySet(), 1024 * 1024);
+    byte[] raw = compressible(20000);
+    byte[] frame = toBytes(compression.encode(new TestNetworkMessage(raw), null).getEntireMessageData());
+    assertEquals(raw, compression.decode(new TCByteBuffer[] { TCByteBufferFactory.wrap(frame) }));
+
+    assertBadLength(compression, frame, 1024 * 1024 + 1);
+    assertBadLength(compression, frame, Integer.MAX_VALUE);
+    assertBadLength(compression, frame, -1);
+  }
+
+  private static void assertBadLength(MessageCompression compression, byte[] frame, int rawLength) {
+    byte[] corrupt = frame.clone();
+    corrupt[1] = (byte) (rawLength >>> 24);
+    corrupt[2] = (byte) (rawLength >>> 16);
+    corrupt[3] = (byte) (rawLength >>> 8);
+    corrupt[4] = (byte) rawLength;
+    try {
+      compression.decode(new TCByteBuffer[] { TCByteBufferFactory.wrap(corrupt) });
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid uncompressed message length"));
+    }
+  }
+
+  private static void assertFramed(MessageCompression compression, TestNetworkMessage message) {
+    TCNetworkMessage framed = compression.encode(message, null);
+    assertEquals(message.getTotalLength() + 1, framed.getTotalLength());
+    assertEquals(message.data, compression.decode(framed.getEntireMessageData()));
+  }
+
+  private static void assertRoundTrip(MessageCompressor compressor) {
+    assertRoundTrip(compressor, new byte[0]);
+    assertRoundTrip(compressor, new byte[] { 1, 2 });
+    assertRoundTrip(compressor, random(100000));
+    assertRoundTrip(compressor, compressible(100000));
+    // long runs, references overlapping the output they produce
+    byte[] zeros = new byte[100000];
+    assertRoundTrip(compressor, zeros);
+    byte[] raw = compressible(50000);
+    byte[] compressed = new byte[10 + compressor.maxCompressedLength(raw.length)];
+    int length = compressor.compress(raw, 0, raw.length, compressed, 10);
+    assertTrue(length < raw.length / 2);
+    byte[] decompressed = new byte[raw.length + 5];
+    compressor.decompress(compressed, 10, length, decompressed, 5, raw.length);
+    assertTrue(Arrays.equals(raw, Arrays.copyOfRange(decompressed, 5, decompressed.length)));
+  }
+
+  private static void assertRoundTrip(MessageCompressor compressor, byte[] raw) {
+    byte[] compressed = new byte[compressor.maxCompressedLength(raw.length)];
+    int length = compressor.compress(raw, 0, raw.length, compressed, 0);
+    assertTrue(length >= 0);
+    byte[] decompressed = new byte[raw.length];
+    compressor.decompress(compressed, 0, length, decompressed, 0, raw.length);
+    assertTrue(Arrays.equals(raw, decompressed));
+  }
+
+  private static void assertEquals(byte[] expected, TCByteBuffer[] actual) {
+    assertTrue(Arrays.equals(expected, toBytes(actual)));
+  }
+
+  private static byte[] toBytes(TCByteBuffer[] data) {
+    int length = 0;
+    for (TCByteBuffer buffer : data) {
+      length += buffer.limit();
+    }
+    byte[] bytes = new byte[length];
+    int offset = 0;
+    for (TCByteBuffer buffer : data) {
+      buffer.duplicate().position(0).get(bytes, offset, buffer.limit());
+      offset += buffer.limit();
+    }
+    return bytes;
+  }
+
+  // received data doesn't come in the buffers it was sent in
+  private static TCByteBuffer[] split(TCByteBuffer[] data) {
+    assertEquals(1, data.length);
+    int length = data[0].limit();
+    byte[] bytes = new byte[length];
+    data[0].duplicate().position(0).get(bytes, 0, length);
+    int half = length / 2;
+    return new TCByteBuffer[] { TCByteBufferFactory.wrap(Arrays.copyOfRange(bytes, 0, half)),
+        TCByteBufferFactory.wrap(Arrays.copyOfRange(bytes, half, length)) };
+  }
+
+  private static byte[] random(int length) {
+    byte[] rv = new byte[length];
+    new Random(length).nextBytes(rv);
+    return rv;
+  }
+
+  private static byte[] compressible(int length) {
+    Random random = new Random(length);
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() < length) {
+      sb.append("key-").append(random.nextInt(500)).append("=value-").append(random.nextInt(50)).append(';');
+    }
+    return sb.substring(0, length).getBytes();
+  }
+
+  private static class TestNetworkMessage extends TestTCMessage implements TCNetworkMessage {
+    private final byte[] data;
+    private Runnable     callback;
+
+    TestNetworkMessage(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public TCNetworkHeader getHeader() {
+      return null;
+    }
+
+    @Override
+    public TCNetworkMessage getMessagePayload() {
+      return null;
+    }
+
+    @Override
+    public TCByteBuffer[] getPayload() {
+      return getEntireMessageData();
+    }
+
+    @Override
+    public TCByteBuffer[] getEntireMessageData() {
+      int half = data.length / 2;
+      return new TCByteBuffer[] { TCByteBufferFactory.wrap(Arrays.copyOfRange(data, 0, half)),
+          TCByteBufferFactory.wrap(Arrays.copyOfRange(data, half, data.length)) };
+    }
+
+    @Override
+    public boolean isSealed() {
+      return true;
+    }
+
+    @Override
+    public void seal() {
+      return;
+    }
+
+    @Override
+    public int getDataLength() {
+      return data.length;
+    }
+
+    @Override
+    public int getHeaderLength() {
+      return 0;
+    }
+
+    @Override
+    public int getTotalLength() {
+      return data.length;
+    }
+
+    @Override
+    public void wasSent() {
+      return;
+    }
+
+    @Override
+    public void setSentCallback(Runnable callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public Runnable getSentCallback() {
+      return callback;
+    }
+
+    @Override
+    public void recycle() {
+      return;
+    }
+  }
+}
@@ -16,6 +16,7 @@
  */
 package com.tc.net.protocol.tcm;
 
+import com.tc.net.core.TCConnectionManagerImpl;
 
 import junit.framework.TestCase;
 
@@ -27,4 +28,24 @@ public class MessageMonitorImplTest extends TestCase {
     mm.newOutgoingMessage(new TestTCMessage());
     System.out.println(mm);
   }
+
+  public void testReportsBufferPool() throws Exception {
+    MessageMonitorImpl mm = new MessageMonitorImpl();
+    assertTrue(mm.toString().contains("DirectBufferPool[reserved="));
+  }
+
+  public void testReportsConnectionWrites() throws Exception {
+    MessageMonitorImpl mm = new MessageMonitorImpl();
+    assertFalse(mm.toString().contains("Connection writes"));
+
+    TCConnectionManagerImpl connMgr = new TCConnectionManagerImpl();
+    try {
+      mm.addConnectionManager(connMgr);
+      assertTrue(mm.toString().contains("Connection writes | COPIED: "));
+      mm.removeConnectionManager(connMgr);
+      assertFalse(mm.toString().contains("Connection writes"));
+    } finally {
+      connMgr.shutdown();
+    }
+  }
 }
@@ -268,4 +268,9 @@ public class MockMessageChannel implements MessageChannelInternal {
   public ProductID getProductId() {
     return null;
   }
+
+  @Override
+  public void setCompressionNegotiated(boolean negotiated) {
+    //
+  }
 }
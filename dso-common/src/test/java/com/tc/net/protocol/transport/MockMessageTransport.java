@@ -133,7 +133,7 @@ public class MockMessageTransport implements MessageTransport {
 
   @Override
   public NetworkLayer getReceiveLayer() {
-    throw new ImplementMe();
+    return null;
   }
 
   @Override
@@ -0,0 +1,135 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util;
+
+import org.junit.Test;
+
+import com.tc.object.ObjectID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RoaringObjectIDSetTest extends ObjectIDSetTestBase {
+  @Override
+  protected ObjectIDSet create() {
+    return new RoaringObjectIDSet();
+  }
+
+  @Override
+  protected ObjectIDSet create(final Collection<ObjectID> copy) {
+    return new RoaringObjectIDSet(copy);
+  }
+
+  @Test
+  public void testDenseContainerMovesOffHeapAndBack() {
+    RoaringObjectIDSet set = new RoaringObjectIDSet();
+    for (int i = 0; i <= RoaringObjectIDSet.ARRAY_CONTAINER_MAX; i++) {
+      set.add(new ObjectID(i));
+    }
+    assertTrue(set.getOffHeapSizeInBytes() > 0);
+
+    for (int i = 0; i < RoaringObjectIDSet.ARRAY_CONTAINER_MAX / 2 + 1; i++) {
+      assertTrue(set.remove(new ObjectID(i)));
+    }
+    assertEquals(0, set.getOffHeapSizeInBytes());
+    assertEquals(RoaringObjectIDSet.ARRAY_CONTAINER_MAX / 2, set.size());
+    assertEquals(new ObjectID(RoaringObjectIDSet.ARRAY_CONTAINER_MAX / 2 + 1), set.first());
+    assertEquals(new ObjectID(RoaringObjectIDSet.ARRAY_CONTAINER_MAX), set.last());
+  }
+
+  @Test
+  public void testBulkOperationsMatchTreeSet() {
+    RoaringObjectIDSet left = new RoaringObjectIDSet();
+    RoaringObjectIDSet right = new RoaringObjectIDSet();
+    TreeSet<ObjectID> expectedLeft = new TreeSet<ObjectID>();
+    TreeSet<ObjectID> expectedRight = new TreeSet<ObjectID>();
+    // a dense block, a sparse block and one block on each side only
+    for (long i = 0; i < 10000; i++) {
+      add(left, expectedLeft, i);
+      add(right, expectedRight, i * 3);
+    }
+    for (long i = 200000; i < 200100; i++) {
+      add(left, expectedLeft, i * 7);
+    }
+    add(right, expectedRight, 5000000);
+
+    RoaringObjectIDSet union = new RoaringObjectIDSet(left);
+    assertTrue(union.addAll(right));
+    TreeSet<ObjectID> expected = new TreeSet<ObjectID>(expectedLeft);
+    expected.addAll(expectedRight);
+    assertSameElements(expected, union);
+
+    RoaringObjectIDSet difference = new RoaringObjectIDSet(left);
+    assertTrue(difference.removeAll(right));
+    expected = new TreeSet<ObjectID>(expectedLeft);
+    expected.removeAll(expectedRight);
+    assertSameElements(expected, difference);
+
+    RoaringObjectIDSet intersection = new RoaringObjectIDSet(left);
+    assertTrue(intersection.retainAll(right));
+    expected = new TreeSet<ObjectID>(expectedLeft);
+    expected.retainAll(expectedRight);
+    assertSameElements(expected, intersection);
+
+    assertFalse(new RoaringObjectIDSet(left).addAll(new RoaringObjectIDSet(left)));
+  }
+
+  @Test
+  public void testNegativeIDs() {
+    RoaringObjectIDSet set = new RoaringObjectIDSet();
+    set.add(new ObjectID(-1));
+    set.add(new ObjectID(Long.MIN_VALUE));
+    set.add(new ObjectID(Long.MAX_VALUE));
+    set.add(new ObjectID(0));
+
+    assertEquals(new ObjectID(Long.MIN_VALUE), set.first());
+    assertEquals(new ObjectID(Long.MAX_VALUE), set.last());
+    Iterator<ObjectID> i = set.iterator();
+    assertEquals(new ObjectID(Long.MIN_VALUE), i.next());
+    assertEquals(new ObjectID(-1), i.next());
+    assertEquals(new ObjectID(0), i.next());
+    assertEquals(new ObjectID(Long.MAX_VALUE), i.next());
+    assertFalse(i.hasNext());
+  }
+
+  @Test
+  public void testCopyToOtherSetTypes() {
+    RoaringObjectIDSet set = new RoaringObjectIDSet();
+    for (long i = 0; i < 100000; i += (i < 10000 ? 1 : 97)) {
+      set.add(new ObjectID(i));
+    }
+    assertSameElements(new TreeSet<ObjectID>(set), new BitSetObjectIDSet(set));
+    assertSameElements(new TreeSet<ObjectID>(set), new ExpandingBitSetObjectIDSet(set));
+    assertSameElements(new TreeSet<ObjectID>(set), new RoaringObjectIDSet(new ExpandingBitSetObjectIDSet(set)));
+  }
+
+  private static void add(final RoaringObjectIDSet set, final TreeSet<ObjectID> expected, final long id) {
+    set.add(new ObjectID(id));
+    expected.add(new ObjectID(id));
+  }
+
+  private static void assertSameElements(final TreeSet<ObjectID> expected, final ObjectIDSet actual) {
+    assertEquals(expected.size(), actual.size());
+    assertEquals(new ArrayList<ObjectID>(expected), new ArrayList<ObjectID>(actual));
+  }
+}
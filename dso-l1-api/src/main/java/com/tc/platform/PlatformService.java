@@ -42,6 +42,7 @@ import com.tc.util.concurrent.TaskRunner;
 import com.tcclient.cluster.DsoNode;
 import com.terracottatech.search.NVPair;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -65,6 +66,17 @@ public interface PlatformService {
 
   void commitLock(final Object lockID, final LockLevel level) throws AbortedOperationException;
 
+  /**
+   * Takes all the locks for the current thread with one batched acquisition instead of a server round trip per lock. A
+   * transaction is begun for every lock, in the order given.
+   */
+  void beginLocks(Collection<?> lockIDs, LockLevel level) throws AbortedOperationException;
+
+  /**
+   * Commits and releases locks taken by {@link #beginLocks(Collection, LockLevel)}, passed in the same order.
+   */
+  void commitLocks(Collection<?> lockIDs, LockLevel level) throws AbortedOperationException;
+
   boolean tryBeginLock(Object lockID, LockLevel level) throws AbortedOperationException;
 
   public boolean tryBeginLock(final Object lockID, final LockLevel level, final long timeout, TimeUnit timeUnit)
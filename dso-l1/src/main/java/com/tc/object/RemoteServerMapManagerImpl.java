@@ -50,44 +50,53 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Outstanding requests are kept in a concurrent registry and every request is waited for on its own context, so
+ * application threads and the response stage only meet on the manager lock for state changes (pause, unpause, rejoin
+ * and shutdown).
+ */
 public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
 
   // TODO::Make its own property
-  private static final int                                               MAX_OUTSTANDING_REQUESTS_SENT_IMMEDIATELY = TCPropertiesImpl
-                                                                                                                       .getProperties()
-                                                                                                                       .getInt(TCPropertiesConsts.L1_SERVERMAPMANAGER_REMOTE_MAX_REQUEST_SENT_IMMEDIATELY);
-  private static final long                                              BATCH_LOOKUP_TIME_PERIOD                  = TCPropertiesImpl
-                                                                                                                       .getProperties()
-                                                                                                                       .getInt(TCPropertiesConsts.L1_SERVERMAPMANAGER_REMOTE_BATCH_LOOKUP_TIME_PERIOD);
-  private static final long                                              RESULT_WAIT_MAXTIME_MILLIS                = 30 * 1000;
-
-  private static final String                                            SIZE_KEY                                  = "SIZE_KEY";
-  private static final String                                            ALL_KEYS                                  = "ALL-KEYS";
-
-  private final GroupID                                                  groupID;
-  private final ServerMapMessageFactory                                  smmFactory;
-  private final TCLogger                                                 logger;
-  private final SessionManager                                           sessionManager;
-  private final RemoteObjectManager                                      remoteObjectManager;
-  private final Map<ServerMapRequestID, AbstractServerMapRequestContext> outstandingRequests                       = new HashMap<ServerMapRequestID, AbstractServerMapRequestContext>();
-  private final TaskRunner                                               taskRunner;
-  private final AbortableOperationManager                                abortableOperationManager;
-
-  private volatile State                                                 state                                     = State.RUNNING;
-  private long                                                           requestIDCounter                          = 0;
-  private boolean                                                        pendingSendTaskScheduled                  = false;
+  private static final int                                                         MAX_OUTSTANDING_REQUESTS_SENT_IMMEDIATELY = TCPropertiesImpl
+                                                                                                                                 .getProperties()
+                                                                                                                                 .getInt(TCPropertiesConsts.L1_SERVERMAPMANAGER_REMOTE_MAX_REQUEST_SENT_IMMEDIATELY);
+  private static final long                                                        BATCH_LOOKUP_TIME_PERIOD                  = TCPropertiesImpl
+                                                                                                                                 .getProperties()
+                                                                                                                                 .getInt(TCPropertiesConsts.L1_SERVERMAPMANAGER_REMOTE_BATCH_LOOKUP_TIME_PERIOD);
+  private static final long                                                        RESULT_WAIT_MAXTIME_MILLIS                = 30 * 1000;
+
+  private static final String                                                      SIZE_KEY                                  = "SIZE_KEY";
+  private static final String                                                      ALL_KEYS                                  = "ALL-KEYS";
+
+  private final GroupID                                                            groupID;
+  private final ServerMapMessageFactory                                            smmFactory;
+  private final TCLogger                                                           logger;
+  private final SessionManager                                                     sessionManager;
+  private final RemoteObjectManager                                                remoteObjectManager;
+  private final ConcurrentMap<ServerMapRequestID, AbstractServerMapRequestContext> outstandingRequests                       = new ConcurrentHashMap<ServerMapRequestID, AbstractServerMapRequestContext>();
+  private final TaskRunner                                                         taskRunner;
+  private final AbortableOperationManager                                          abortableOperationManager;
+
+  private volatile State                                                           state                                     = State.RUNNING;
+  private final AtomicLong                                                         requestIDCounter                          = new AtomicLong();
+  // guards the pending state of the requests and the scheduling of the batch send task
+  private final Object                                                             pendingLock                               = new Object();
+  private boolean                                                                  pendingSendTaskScheduled                  = false;
 
   // private final Sink ttiTTLEvitionSink;
-  private final L1ServerMapLocalCacheManager                             globalLocalCacheManager;
-  private ReInvalidateHandler                                            reInvalidateHandler;
+  private final L1ServerMapLocalCacheManager                                       globalLocalCacheManager;
+  private volatile ReInvalidateHandler                                             reInvalidateHandler;
 
-  private final Timer                                                    requestsTimer;
+  private final Timer                                                              requestsTimer;
 
   private enum State {
     PAUSED, RUNNING, REJOIN_IN_PROGRESS, STARTING, STOPPED
@@ -114,7 +123,9 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   public synchronized void cleanup() {
     checkAndSetstate();
     outstandingRequests.clear();
-    pendingSendTaskScheduled = false;
+    synchronized (pendingLock) {
+      pendingSendTaskScheduled = false;
+    }
     globalLocalCacheManager.cleanup();
     reInvalidateHandler.shutdown();
     reInvalidateHandler = new ReInvalidateHandler(globalLocalCacheManager, taskRunner);
@@ -124,6 +135,7 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
     throwExceptionIfNecessary(true);
     state = State.REJOIN_IN_PROGRESS;
     globalLocalCacheManager.rejoinInProgress(true);
+    wakeUpWaiters();
     notifyAll();
   }
 
@@ -144,49 +156,51 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
    * @throws AbortedOperationException
    */
   @Override
-  public synchronized Object getMappingForKey(final ObjectID oid, final Object portableKey)
-      throws AbortedOperationException {
+  public Object getMappingForKey(final ObjectID oid, final Object portableKey) throws AbortedOperationException {
     assertSameGroupID(oid);
     waitUntilRunningAbortable();
 
     final AbstractServerMapRequestContext context = createLookupValueRequestContext(oid,
                                                                                     Collections.singleton(portableKey));
-    context.makeLookupRequest();
     sendRequest(context);
     Map<Object, Object> result = waitForResult(context);
     return result.get(portableKey);
   }
 
+  /**
+   * Looks up the keys of all the segments in one go. The lookups for every segment are sent to the server in a single
+   * message and the per segment responses are merged into <code>rv</code> as they stream back, so several bulk gets
+   * can be in flight at the same time.
+   */
   @Override
-  public synchronized void getMappingForAllKeys(final Map<ObjectID, Set<Object>> mapIdToKeysMap, Map<Object, Object> rv)
+  public void getMappingForAllKeys(final Map<ObjectID, Set<Object>> mapIdToKeysMap, Map<Object, Object> rv)
       throws AbortedOperationException {
-    Set<AbstractServerMapRequestContext> contextsToWaitFor = sendRequestForAllKeys(mapIdToKeysMap);
-    waitForResults(contextsToWaitFor, rv);
+    final GetAllValuesRequest request = sendRequestForAllKeys(mapIdToKeysMap, rv);
+    waitForResults(request);
   }
 
-  protected synchronized Set<AbstractServerMapRequestContext> sendRequestForAllKeys(final Map<ObjectID, Set<Object>> mapIdToKeysMap)
-      throws AbortedOperationException {
-    Set<AbstractServerMapRequestContext> contextsToWaitFor = new HashSet<AbstractServerMapRequestContext>();
+  protected GetAllValuesRequest sendRequestForAllKeys(final Map<ObjectID, Set<Object>> mapIdToKeysMap,
+                                                      final Map<Object, Object> rv) throws AbortedOperationException {
     waitUntilRunningAbortable();
+    final GetAllValuesRequest request = new GetAllValuesRequest(rv);
+    final Set<AbstractServerMapRequestContext> contexts = new HashSet<AbstractServerMapRequestContext>();
     for (Entry<ObjectID, Set<Object>> entry : mapIdToKeysMap.entrySet()) {
       ObjectID mapId = entry.getKey();
       Set<Object> keys = entry.getValue();
       assertSameGroupID(mapId);
-      final AbstractServerMapRequestContext context = createLookupValueRequestContext(mapId, keys);
-      context.makeLookupRequest();
-      contextsToWaitFor.add(context);
-      sendRequest(context);
+      final AbstractServerMapRequestContext context = createLookupValueRequestContext(mapId, keys, request);
+      contexts.add(context);
     }
-    return contextsToWaitFor;
+    sendRequests(contexts);
+    return request;
   }
 
   @Override
-  public synchronized Set getAllKeys(ObjectID mapID) throws AbortedOperationException {
+  public Set getAllKeys(ObjectID mapID) throws AbortedOperationException {
     assertSameGroupID(mapID);
     waitUntilRunningAbortable();
 
     final AbstractServerMapRequestContext context = createGetAllKeysRequestContext(mapID);
-    context.makeLookupRequest();
     sendRequestNow(context);
     Map<Object, Object> result = waitForResult(context);
     Assert.assertTrue(result.containsKey(ALL_KEYS));
@@ -200,14 +214,13 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   }
 
   @Override
-  public synchronized long getAllSize(final ObjectID[] mapIDs) throws AbortedOperationException {
+  public long getAllSize(final ObjectID[] mapIDs) throws AbortedOperationException {
     for (ObjectID mapId : mapIDs) {
       assertSameGroupID(mapId);
     }
     waitUntilRunningAbortable();
 
     final AbstractServerMapRequestContext context = createGetAllSizeRequestContext(mapIDs);
-    context.makeLookupRequest();
     sendRequestNow(context);
     Map<Object, Object> result = waitForResult(context);
     Assert.assertTrue(result.containsKey(SIZE_KEY));
@@ -226,7 +239,7 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
         if (isStopped()) { throw new TCNotRunningException(); }
         if (isRejoinInProgress()) { throw new PlatformRejoinException(); }
         try {
-          wait(RESULT_WAIT_MAXTIME_MILLIS);
+          context.waitForResult(RESULT_WAIT_MAXTIME_MILLIS);
         } catch (final InterruptedException e) {
           checkIfAbortedAndRemoveContexts(context);
           isInterrupted = true;
@@ -247,48 +260,33 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   }
 
   /**
-   * Waits in quantums of {@link #RESULT_WAIT_MAXTIME_MILLIS} until results corresponding to contextsToWaitFor are
-   * available from the server.
+   * Waits in quantums of {@link #RESULT_WAIT_MAXTIME_MILLIS} until all the segments of the bulk request are answered
+   * by the server. Results are merged as responses arrive, so this only needs to check the request's own state.
    */
-  protected synchronized void waitForResults(Set<AbstractServerMapRequestContext> contextsToWaitFor,
-                                             Map<Object, Object> rv) throws AbortedOperationException {
+  protected void waitForResults(final GetAllValuesRequest request) throws AbortedOperationException {
     boolean isInterrupted = false;
     try {
-      while (!allRequestsDone(contextsToWaitFor, rv)) {
+      while (!request.isDone()) {
         if (isStopped()) { throw new TCNotRunningException(); }
         if (isRejoinInProgress()) { throw new PlatformRejoinException(); }
         try {
-          wait(RESULT_WAIT_MAXTIME_MILLIS);
+          request.waitForResults(RESULT_WAIT_MAXTIME_MILLIS);
         } catch (final InterruptedException e) {
-          checkIfAbortedAndRemoveContexts(contextsToWaitFor);
+          checkIfAbortedAndRemoveContexts(request);
           isInterrupted = true;
         }
       }
+      final ObjectID missingMapID = request.getMissingMapID();
+      if (missingMapID != null) {
+        // answers for the remaining segments are of no use anymore, treat them as aborted
+        abandonRequest(request);
+        throw new TCObjectNotFoundException(missingMapID.toString());
+      }
     } finally {
       Util.selfInterruptIfNeeded(isInterrupted);
     }
   }
 
-  private boolean allRequestsDone(Set<AbstractServerMapRequestContext> contextsToWaitFor, Map<Object, Object> rv) {
-    for (Iterator<AbstractServerMapRequestContext> iterator = contextsToWaitFor.iterator(); iterator.hasNext();) {
-      AbstractServerMapRequestContext context = iterator.next();
-      if (context.isMissing()) {
-        removeRequestContext(context);
-        iterator.remove();
-        throw new TCObjectNotFoundException(context.getMapID().toString());
-      }
-      Map<Object, Object> result = context.getResult();
-      if (result != null) {
-        removeRequestContext(context);
-        iterator.remove();
-        synchronized (rv) {
-          rv.putAll(result);
-        }
-      }
-    }
-    return contextsToWaitFor.isEmpty();
-  }
-
   private void sendRequest(final AbstractServerMapRequestContext context) {
     final int size = this.outstandingRequests.size();
     if (size % 5000 == 4999) {
@@ -297,7 +295,35 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
     if (size <= MAX_OUTSTANDING_REQUESTS_SENT_IMMEDIATELY) {
       sendRequestNow(context);
     } else {
-      scheduleRequestForLater(context);
+      synchronized (pendingLock) {
+        scheduleRequestForLater(context);
+      }
+    }
+  }
+
+  /**
+   * Sends GET_VALUE_FOR_KEY requests for several segments as one message, or batches them all with the pending
+   * requests if there were already too many requests in flight.
+   */
+  private void sendRequests(final Collection<AbstractServerMapRequestContext> contexts) {
+    if (contexts.isEmpty()) { return; }
+    final int size = this.outstandingRequests.size() - contexts.size();
+    if (size <= MAX_OUTSTANDING_REQUESTS_SENT_IMMEDIATELY) {
+      // requests registered while paused are sent by requestOutstanding() on unpause
+      if (!isRunning()) { return; }
+      final ServerMapRequestMessage msg = this.smmFactory
+          .newServerMapRequestMessage(this.groupID, ServerMapRequestType.GET_VALUE_FOR_KEY);
+      for (final AbstractServerMapRequestContext context : contexts) {
+        context.initializeMessage(msg);
+      }
+      msg.send();
+    } else {
+      this.logger.warn("Too many pending requests in the system : objectLookup states size : " + size);
+      synchronized (pendingLock) {
+        for (final AbstractServerMapRequestContext context : contexts) {
+          scheduleRequestForLater(context);
+        }
+      }
     }
   }
 
@@ -326,14 +352,16 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   /**
    * Only GET_VALUE_FOR_KEY requests are batched, its a little ugly to assume that here. Needs some refactoring.
    */
-  public synchronized void sendPendingRequests() {
+  public void sendPendingRequests() {
     waitUntilRunning();
-    this.pendingSendTaskScheduled = false;
-    final ServerMapRequestMessage msg = this.smmFactory
-        .newServerMapRequestMessage(this.groupID, ServerMapRequestType.GET_VALUE_FOR_KEY);
-    initializeMessageWithPendingRequests(msg);
-    if (msg.getRequestCount() != 0) {
-      msg.send();
+    synchronized (pendingLock) {
+      this.pendingSendTaskScheduled = false;
+      final ServerMapRequestMessage msg = this.smmFactory
+          .newServerMapRequestMessage(this.groupID, ServerMapRequestType.GET_VALUE_FOR_KEY);
+      initializeMessageWithPendingRequests(msg);
+      if (msg.getRequestCount() != 0) {
+        msg.send();
+      }
     }
   }
 
@@ -352,6 +380,8 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   }
 
   private void sendRequestNow(final AbstractServerMapRequestContext context) {
+    // requests registered while paused are sent by requestOutstanding() on unpause
+    if (!isRunning()) { return; }
     final ServerMapRequestMessage msg = this.smmFactory.newServerMapRequestMessage(this.groupID,
                                                                                    context.getRequestType());
     context.initializeMessage(msg);
@@ -362,36 +392,68 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
     final ServerMapRequestID requestID = getNextRequestID();
     final GetAllSizeServerMapRequestContext context = new GetAllSizeServerMapRequestContext(requestID, maps,
                                                                                             this.groupID);
-    this.outstandingRequests.put(requestID, context);
-    return context;
+    return registerRequestContext(context);
   }
 
-  synchronized void requestOutstanding() {
+  void requestOutstanding() {
     logger.info("Sending outstanding servermap requests, num msgs: " + outstandingRequests.size());
-    for (final AbstractServerMapRequestContext context : this.outstandingRequests.values()) {
-      sendRequestNow(context);
+    synchronized (pendingLock) {
+      final ServerMapRequestMessage getValueMsg = this.smmFactory
+          .newServerMapRequestMessage(this.groupID, ServerMapRequestType.GET_VALUE_FOR_KEY);
+      for (final AbstractServerMapRequestContext context : this.outstandingRequests.values()) {
+        if (context.getRequestType() == ServerMapRequestType.GET_VALUE_FOR_KEY) {
+          if (context.isPending()) {
+            context.makeUnPending();
+          }
+          context.initializeMessage(getValueMsg);
+        } else {
+          sendRequestNow(context);
+        }
+      }
+      if (getValueMsg.getRequestCount() != 0) {
+        getValueMsg.send();
+      }
     }
   }
 
   private void removeRequestContext(final AbstractServerMapRequestContext context) {
-    final Object old = this.outstandingRequests.remove(context.getRequestID());
-    if (old != context) { throw new AssertionError("Removed wrong context. context = " + context + " old = " + old); }
+    if (this.outstandingRequests.remove(context.getRequestID(), context)) { return; }
+    // results are waited for outside the monitor, so cleanup() on rejoin may already have cleared the request
+    final Object other = this.outstandingRequests.get(context.getRequestID());
+    if (other != null) { throw new AssertionError("Removed wrong context. context = " + context + " other = " + other); }
   }
 
   private AbstractServerMapRequestContext createLookupValueRequestContext(final ObjectID oid,
                                                                           final Set<Object> portableKeys) {
+    return createLookupValueRequestContext(oid, portableKeys, null);
+  }
+
+  private AbstractServerMapRequestContext createLookupValueRequestContext(final ObjectID oid,
+                                                                          final Set<Object> portableKeys,
+                                                                          final GetAllValuesRequest request) {
     final ServerMapRequestID requestID = getNextRequestID();
     final GetValueServerMapRequestContext context = new GetValueServerMapRequestContext(requestID, oid, portableKeys,
-                                                                                        this.groupID);
-    this.outstandingRequests.put(requestID, context);
-    return context;
+                                                                                        this.groupID, request);
+    if (request != null) {
+      request.add(context);
+    }
+    return registerRequestContext(context);
   }
 
   private AbstractServerMapRequestContext createGetAllKeysRequestContext(final ObjectID mapID) {
     final ServerMapRequestID requestID = getNextRequestID();
     final GetAllKeysServerMapRequestContext context = new GetAllKeysServerMapRequestContext(requestID, mapID,
                                                                                             this.groupID);
-    this.outstandingRequests.put(requestID, context);
+    return registerRequestContext(context);
+  }
+
+  /**
+   * The lookup state is set before the context is published so that the resend and batch send paths never see an
+   * uninitialized request.
+   */
+  private AbstractServerMapRequestContext registerRequestContext(final AbstractServerMapRequestContext context) {
+    context.makeLookupRequest();
+    this.outstandingRequests.put(context.getRequestID(), context);
     return context;
   }
 
@@ -400,9 +462,8 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   }
 
   @Override
-  public synchronized void addResponseForKeyValueMapping(final SessionID sessionID, final ObjectID mapID,
-                                                         final Collection<ServerMapGetValueResponse> responses,
-                                                         final NodeID nodeID) {
+  public void addResponseForKeyValueMapping(final SessionID sessionID, final ObjectID mapID,
+                                            final Collection<ServerMapGetValueResponse> responses, final NodeID nodeID) {
     waitUntilRunning();
     if (!this.sessionManager.isCurrentSession(nodeID, sessionID)) {
       this.logger.warn("Ignoring response for ServerMap :  " + mapID + " ,  responses :" + responses.size()
@@ -410,20 +471,18 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
       return;
     }
     for (final ServerMapGetValueResponse r : responses) {
-      setResultForRequest(sessionID, mapID, r.getRequestID(), r.getValues(), nodeID);
+      // objects have to be in the object manager before the waiting thread can see the result
       addResponseToObjectManager(r.getValues());
-      if (getRequestContext(r.getRequestID()) == null) {
+      if (!setResultForRequest(sessionID, mapID, r.getRequestID(), r.getValues(), nodeID)) {
         // Request was aborted, so we need to clean up.
         cleanupObjectManagerOnAbort(r.getValues());
       }
     }
-    notifyAll();
   }
 
   @Override
-  public synchronized void addResponseForGetAllSize(final SessionID sessionID, final GroupID gID,
-                                                    final ServerMapRequestID requestID, final Long size,
-                                                    final NodeID nodeID) {
+  public void addResponseForGetAllSize(final SessionID sessionID, final GroupID gID,
+                                       final ServerMapRequestID requestID, final Long size, final NodeID nodeID) {
     waitUntilRunning();
     if (!this.sessionManager.isCurrentSession(nodeID, sessionID)) {
       this.logger.warn("Ignoring response for ServerMap :  " + requestID + " , size : " + size
@@ -433,13 +492,11 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
     Map<Object, Object> sizeMap = new HashMap<Object, Object>();
     sizeMap.put(SIZE_KEY, size);
     setResultForRequest(sessionID, ObjectID.NULL_ID, requestID, sizeMap, nodeID);
-    notifyAll();
   }
 
   @Override
-  public synchronized void addResponseForGetAllKeys(final SessionID sessionID, final ObjectID mapID,
-                                                    final ServerMapRequestID requestID, final Set keys,
-                                                    final NodeID nodeID) {
+  public void addResponseForGetAllKeys(final SessionID sessionID, final ObjectID mapID,
+                                       final ServerMapRequestID requestID, final Set keys, final NodeID nodeID) {
     waitUntilRunning();
     if (!this.sessionManager.isCurrentSession(nodeID, sessionID)) {
       this.logger.warn("Ignoring response for ServerMap :  " + mapID + " , " + requestID + " , keys.size : "
@@ -449,12 +506,11 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
     Map<Object, Object> allKeysMap = new HashMap<Object, Object>();
     allKeysMap.put(ALL_KEYS, keys);
     setResultForRequest(sessionID, mapID, requestID, allKeysMap, nodeID);
-    notifyAll();
   }
 
   @Override
-  public synchronized void objectNotFoundFor(final SessionID sessionID, final ObjectID mapID,
-                                             final ServerMapRequestID requestID, final NodeID nodeID) {
+  public void objectNotFoundFor(final SessionID sessionID, final ObjectID mapID, final ServerMapRequestID requestID,
+                                final NodeID nodeID) {
     waitUntilRunning();
     if (!this.sessionManager.isCurrentSession(nodeID, sessionID)) {
       this.logger.warn("Ignoring Missing Object IDs " + mapID + " from a different session: " + sessionID + ", "
@@ -462,21 +518,27 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
       return;
     }
     final AbstractServerMapRequestContext context = this.outstandingRequests.get(requestID);
-    context.makeMissingObject();
-    notifyAll();
+    if (context != null) {
+      context.markMissing();
+    }
   }
 
-  private void setResultForRequest(final SessionID sessionID, final ObjectID mapID, final ServerMapRequestID requestID,
-                                   final Map<Object, Object> rv, final NodeID nodeID) {
+  /**
+   * @return false if there is no one waiting for the result anymore
+   */
+  private boolean setResultForRequest(final SessionID sessionID, final ObjectID mapID,
+                                      final ServerMapRequestID requestID, final Map<Object, Object> rv,
+                                      final NodeID nodeID) {
     final AbstractServerMapRequestContext context = getRequestContext(requestID);
     if (context != null) {
-      context.setResult(mapID, rv);
+      return context.setResult(mapID, rv);
     } else {
       if (logger.isDebugEnabled()) {
         this.logger.debug("Server Map Request Context is null for " + mapID + " request ID : " + requestID
                           + " result : "
                        + rv);
       }
+      return false;
     }
   }
 
@@ -510,20 +572,23 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
    * To be used by methods which are called by the App thread.
    */
   private void waitUntilRunningAbortable() throws AbortedOperationException {
-    boolean isInterrupted = false;
-    try {
-      while (this.state != State.RUNNING) {
-        try {
-          if (isStopped()) { throw new TCNotRunningException(); }
-          if (isRejoinInProgress()) { throw new PlatformRejoinException(); }
-          wait();
-        } catch (final InterruptedException e) {
-          AbortedOperationUtil.throwExceptionIfAborted(abortableOperationManager);
-          isInterrupted = true;
+    if (isRunning()) { return; }
+    synchronized (this) {
+      boolean isInterrupted = false;
+      try {
+        while (this.state != State.RUNNING) {
+          try {
+            if (isStopped()) { throw new TCNotRunningException(); }
+            if (isRejoinInProgress()) { throw new PlatformRejoinException(); }
+            wait();
+          } catch (final InterruptedException e) {
+            AbortedOperationUtil.throwExceptionIfAborted(abortableOperationManager);
+            isInterrupted = true;
+          }
         }
+      } finally {
+        Util.selfInterruptIfNeeded(isInterrupted);
       }
-    } finally {
-      Util.selfInterruptIfNeeded(isInterrupted);
     }
   }
 
@@ -531,19 +596,22 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
    * To be used by methods which are directly called by the Stage thread.
    */
   private void waitUntilRunning() {
-    boolean isInterrupted = false;
-    try {
-      while (this.state != State.RUNNING) {
-        try {
-          if (isStopped()) { throw new TCNotRunningException(); }
-          if (isRejoinInProgress()) { throw new PlatformRejoinException(); }
-          wait();
-        } catch (final InterruptedException e) {
-          isInterrupted = true;
+    if (isRunning()) { return; }
+    synchronized (this) {
+      boolean isInterrupted = false;
+      try {
+        while (this.state != State.RUNNING) {
+          try {
+            if (isStopped()) { throw new TCNotRunningException(); }
+            if (isRejoinInProgress()) { throw new PlatformRejoinException(); }
+            wait();
+          } catch (final InterruptedException e) {
+            isInterrupted = true;
+          }
         }
+      } finally {
+        Util.selfInterruptIfNeeded(isInterrupted);
       }
-    } finally {
-      Util.selfInterruptIfNeeded(isInterrupted);
     }
   }
 
@@ -557,31 +625,44 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
       throws AbortedOperationException {
     if (isAborted()) {
       removeRequestContext(context);
-      cleanupObjectManagerOnAbort(context.getResult());
+      cleanupObjectManagerOnAbort(context.abandon());
       AbortedOperationUtil.throwExceptionIfAborted(abortableOperationManager);
     }
   }
 
   /**
-   * Checks whether the interrupt was due to aborting the operation. Also removes the context from
-   * {@link #outstandingRequests}
+   * Checks whether the interrupt was due to aborting the operation. Also removes the unanswered contexts of the
+   * request from {@link #outstandingRequests}
    * 
    * @throws AbortedOperationException if the interrupt was due to aborting the operation.
    */
-  private void checkIfAbortedAndRemoveContexts(Set<AbstractServerMapRequestContext> contextsToWaitFor)
-      throws AbortedOperationException {
+  private void checkIfAbortedAndRemoveContexts(GetAllValuesRequest request) throws AbortedOperationException {
     if (isAborted()) {
-      for (AbstractServerMapRequestContext context : contextsToWaitFor) {
-        removeRequestContext(context);
-      }
+      abandonRequest(request);
       AbortedOperationUtil.throwExceptionIfAborted(abortableOperationManager);
     }
   }
 
+  private void abandonRequest(GetAllValuesRequest request) {
+    for (AbstractServerMapRequestContext context : request.abandon()) {
+      this.outstandingRequests.remove(context.getRequestID(), context);
+      cleanupObjectManagerOnAbort(context.abandon());
+    }
+  }
+
   private boolean isAborted() {
     return abortableOperationManager.isAborted();
   }
 
+  /**
+   * Wakes up the threads waiting for a result so that they notice the state change.
+   */
+  private void wakeUpWaiters() {
+    for (final AbstractServerMapRequestContext context : this.outstandingRequests.values()) {
+      context.wakeUp();
+    }
+  }
+
   @Override
   public synchronized void pause(final NodeID remote, final int disconnected) {
     if (isStopped()) { return; }
@@ -613,12 +694,17 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   public void shutdown(boolean fromShutdownHook) {
     state = State.STOPPED;
     reInvalidateHandler.shutdown();
+    wakeUpWaiters();
       synchronized (this) {
         requestsTimer.cancel();
         notifyAll();
       }
   }
 
+  private boolean isRunning() {
+    return this.state == State.RUNNING;
+  }
+
   private boolean isStopped() {
     return this.state == State.STOPPED;
   }
@@ -642,9 +728,13 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   }
 
   private ServerMapRequestID getNextRequestID() {
-    return new ServerMapRequestID(this.requestIDCounter++);
+    return new ServerMapRequestID(this.requestIDCounter.getAndIncrement());
   }
 
+  /**
+   * The result and missing state are guarded by the context's monitor, which is also what the requesting thread waits
+   * on. The pending state is only changed under the manager's pending lock.
+   */
   protected static abstract class AbstractServerMapRequestContext extends LookupStateTransitionAdaptor {
 
     // protected final static TCLogger logger = TCLogging.getLogger(AbstractServerMapRequestContext.class);
@@ -654,6 +744,8 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
     protected final ServerMapRequestID   requestID;
     protected final ServerMapRequestType requestType;
     protected Map<Object, Object>        result;
+    private boolean                      abandoned;
+    private boolean                      released;
 
     public AbstractServerMapRequestContext(final ServerMapRequestType requestType, final ServerMapRequestID requestID,
                                            final ObjectID mapID, final GroupID groupID) {
@@ -672,17 +764,55 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
       return this.requestType;
     }
 
-    public void setResult(final ObjectID mapID, final Map<Object, Object> rv) {
+    /**
+     * @return false if the request was abandoned by the requesting thread and the result should be discarded
+     */
+    public synchronized boolean setResult(final ObjectID mapID, final Map<Object, Object> rv) {
       if (!this.oid.equals(mapID)) { throw new AssertionError("Wrong request to response : this map id : " + this.oid
                                                               + " response is for : " + mapID + " type : "
                                                               + getRequestType()); }
+      if (this.abandoned) { return false; }
       this.result = rv;
+      notifyAll();
+      return true;
     }
 
-    public Map<Object, Object> getResult() {
+    public synchronized Map<Object, Object> getResult() {
       return this.result;
     }
 
+    public synchronized void markMissing() {
+      if (this.abandoned) { return; }
+      makeMissingObject();
+      notifyAll();
+    }
+
+    @Override
+    public synchronized boolean isMissing() {
+      return super.isMissing();
+    }
+
+    /**
+     * Marks that no one is waiting for this request anymore.
+     * 
+     * @return the result that arrived before the request was abandoned, if any
+     */
+    public synchronized Map<Object, Object> abandon() {
+      this.abandoned = true;
+      return this.result;
+    }
+
+    public synchronized void waitForResult(final long timeoutMillis) throws InterruptedException {
+      if (this.result == null && !super.isMissing() && !this.released) {
+        wait(timeoutMillis);
+      }
+    }
+
+    public synchronized void wakeUp() {
+      this.released = true;
+      notifyAll();
+    }
+
     @Override
     public int hashCode() {
       return this.requestID.hashCode();
@@ -705,14 +835,109 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
 
   }
 
+  /**
+   * Collects the results of one bulk get across all its segments. The result map is also locked since callers may
+   * share it.
+   */
+  protected static class GetAllValuesRequest {
+
+    private final Map<Object, Object>                  rv;
+    private final Set<AbstractServerMapRequestContext> pendingContexts = new HashSet<AbstractServerMapRequestContext>();
+    private ObjectID                                   missingMapID;
+    private boolean                                    released;
+
+    public GetAllValuesRequest(final Map<Object, Object> rv) {
+      this.rv = rv;
+    }
+
+    synchronized void add(final AbstractServerMapRequestContext context) {
+      this.pendingContexts.add(context);
+    }
+
+    synchronized void resultAvailable(final AbstractServerMapRequestContext context) {
+      if (!this.pendingContexts.remove(context)) { return; }
+      synchronized (this.rv) {
+        this.rv.putAll(context.getResult());
+      }
+      notifyAll();
+    }
+
+    synchronized void objectMissing(final AbstractServerMapRequestContext context) {
+      if (!this.pendingContexts.remove(context)) { return; }
+      if (this.missingMapID == null) {
+        this.missingMapID = context.getMapID();
+      }
+      notifyAll();
+    }
+
+    /**
+     * @return the contexts that were not answered yet, the request is done after this
+     */
+    synchronized Set<AbstractServerMapRequestContext> abandon() {
+      final Set<AbstractServerMapRequestContext> unanswered = new HashSet<AbstractServerMapRequestContext>(
+                                                                                                          this.pendingContexts);
+      this.pendingContexts.clear();
+      return unanswered;
+    }
+
+    synchronized ObjectID getMissingMapID() {
+      return this.missingMapID;
+    }
+
+    synchronized boolean isDone() {
+      return this.pendingContexts.isEmpty() || this.missingMapID != null;
+    }
+
+    synchronized void waitForResults(final long timeoutMillis) throws InterruptedException {
+      if (!isDone() && !this.released) {
+        wait(timeoutMillis);
+      }
+    }
+
+    synchronized void wakeUp() {
+      this.released = true;
+      notifyAll();
+    }
+  }
+
   private class GetValueServerMapRequestContext extends AbstractServerMapRequestContext {
 
-    private final Set<Object> portableKeys;
+    private final Set<Object>         portableKeys;
+    private final GetAllValuesRequest request;
 
     public GetValueServerMapRequestContext(final ServerMapRequestID requestID, final ObjectID mapID,
-                                           final Set<Object> portableKeys, final GroupID groupID) {
+                                           final Set<Object> portableKeys, final GroupID groupID,
+                                           final GetAllValuesRequest request) {
       super(ServerMapRequestType.GET_VALUE_FOR_KEY, requestID, mapID, groupID);
       this.portableKeys = portableKeys;
+      this.request = request;
+    }
+
+    @Override
+    public boolean setResult(final ObjectID mapID, final Map<Object, Object> rv) {
+      if (!super.setResult(mapID, rv)) { return false; }
+      if (this.request != null) {
+        outstandingRequests.remove(this.requestID, this);
+        this.request.resultAvailable(this);
+      }
+      return true;
+    }
+
+    @Override
+    public void markMissing() {
+      super.markMissing();
+      if (this.request != null) {
+        outstandingRequests.remove(this.requestID, this);
+        this.request.objectMissing(this);
+      }
+    }
+
+    @Override
+    public void wakeUp() {
+      super.wakeUp();
+      if (this.request != null) {
+        this.request.wakeUp();
+      }
     }
 
     @Override
@@ -783,7 +1008,7 @@ public class RemoteServerMapManagerImpl implements RemoteServerMapManager {
   }
 
   @Override
-  public synchronized PrettyPrinter prettyPrint(PrettyPrinter out) {
+  public PrettyPrinter prettyPrint(PrettyPrinter out) {
     out.print(this.getClass().getName()).print("Group Id: ").print(groupID).flush();
     out.indent().print("outstandingRequests count: ").print(Integer.valueOf(this.outstandingRequests.size())).flush();
     for (Entry<ServerMapRequestID, AbstractServerMapRequestContext> entry : outstandingRequests.entrySet()) {
@@ -389,8 +389,14 @@ public class StandardDSOClientConfigHelperImpl implements DSOClientConfigHelper
     int l1ReconnectMaxdelayedacks = l1ReconnectPropFromL2.getL1ReconnectProperties().getL1ReconnectMaxDelayedAcks()
         .intValue();
     int l1ReconnectSendwindow = l1ReconnectPropFromL2.getL1ReconnectProperties().getL1ReconnectSendwindow().intValue();
+    // the byte window and the ack delay are not part of the reconnect properties sent by the L2
+    int l1ReconnectSendwindowBytes = TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_L1RECONNECT_SEND_WINDOW_BYTES, 0);
+    int l1ReconnectAckDelayMillis = TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_L1RECONNECT_ACK_DELAY_MILLIS, 0);
     this.l1ReconnectConfig = new L1ReconnectConfigImpl(l1ReconnectEnabled, l1ReconnectTimeout, l1ReconnectSendqueuecap,
-                                                       l1ReconnectMaxdelayedacks, l1ReconnectSendwindow);
+                                                       l1ReconnectMaxdelayedacks, l1ReconnectSendwindow,
+                                                       l1ReconnectSendwindowBytes, l1ReconnectAckDelayMillis);
   }
 
   @Override
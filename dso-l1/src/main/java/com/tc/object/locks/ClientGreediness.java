@@ -224,7 +224,12 @@ enum ClientGreediness {
 
     @Override
     ClientGreediness recalled(final ClientLock clientLock, final int lease, final ServerLockLevel level) {
-      return RECALLED_READ;
+      // a read lease lets local readers carry on until it runs out, the lease task then recalls for real
+      if ((lease > 0) && ((clientLock.pendingCount() > 0) || clientLock.isLocked(LockLevel.READ))) {
+        return GREEDY_READ;
+      } else {
+        return RECALLED_READ;
+      }
     }
 
     @Override
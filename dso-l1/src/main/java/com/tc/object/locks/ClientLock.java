@@ -73,7 +73,45 @@ public interface ClientLock extends ClearableCallback {
   public boolean tryLock(AbortableOperationManager abortableOperationManager, RemoteLockManager remote,
                          ThreadID thread, LockLevel level, long timeout)
       throws InterruptedException, GarbageLockException, AbortedOperationException;
-  
+
+  /**
+   * Start a non-blocking try acquire without waiting for the server response
+   * <p>
+   * This is the first half of {@link #tryLock(AbortableOperationManager, RemoteLockManager, ThreadID, LockLevel)},
+   * split so that the server round trips of many locks can be in flight at once.
+   *
+   * @param remote remote lock manager for delegation
+   * @param thread id of the locking (current) thread
+   * @param level level at which to lock
+   * @return <code>null</code> if locked without involving the server, otherwise the attempt to pass to
+   *         {@link #awaitTryLock} or {@link #cancelTryLock}
+   * @throws TCLockUpgradeNotSupportedError on attempting to read&rarr;write upgrade
+   * @throws GarbageLockException if this state has been marked as garbage
+   */
+  public LockStateNode.PendingTryLockHold beginTryLock(AbortableOperationManager abortableOperationManager,
+                                                       RemoteLockManager remote, ThreadID thread, LockLevel level)
+      throws GarbageLockException, AbortedOperationException;
+
+  /**
+   * Wait for the outcome of an attempt started by {@link #beginTryLock}
+   *
+   * @param remote remote lock manager for delegation
+   * @param attempt the attempt returned by <code>beginTryLock</code>
+   * @return <code>true</code> if locked
+   * @throws GarbageLockException if this state has been marked as garbage
+   */
+  public boolean awaitTryLock(AbortableOperationManager abortableOperationManager, RemoteLockManager remote,
+                              LockStateNode.PendingTryLockHold attempt) throws GarbageLockException,
+      AbortedOperationException;
+
+  /**
+   * Abandon an attempt started by {@link #beginTryLock}, returning the lock to the server if it has been awarded
+   *
+   * @param remote remote lock manager for delegation
+   * @param attempt the attempt returned by <code>beginTryLock</code>
+   */
+  public void cancelTryLock(RemoteLockManager remote, LockStateNode.PendingTryLockHold attempt);
+
   /**
    * Interruptible acquire
    * 
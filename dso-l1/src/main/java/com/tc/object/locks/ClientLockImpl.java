@@ -163,6 +163,131 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
            || acquireQueuedTimeout(abortableOperationManager, remote, thread, level, timeout);
   }
 
+  /*
+   * First half of a pipelined try lock - identical to the first pass of acquireQueuedTimeout with a zero timeout, except
+   * that we return the delegated node instead of parking on it. Known failures are handed back as an unqueued, already
+   * refused node so that awaitTryLock can complete every attempt the same way.
+   */
+  @Override
+  public PendingTryLockHold beginTryLock(final AbortableOperationManager abortableOperationManager,
+                                         final RemoteLockManager remote, final ThreadID thread, final LockLevel level)
+      throws GarbageLockException, AbortedOperationException {
+    markUsed();
+    final LockAcquireResult local = tryAcquireLocally(remote, abortableOperationManager, thread, level);
+    if (local.isSuccess()) { return null; }
+
+    final PendingTryLockHold node = new PendingTryLockHold(thread, level, 0);
+    if (local.isKnownResult()) {
+      node.refused();
+      return node;
+    }
+
+    addLast(node);
+    try {
+      LockAcquireResult result;
+      try {
+        result = tryAcquire(abortableOperationManager, remote, thread, level, 0, node);
+      } catch (AbortedOperationException e) {
+        remove(node);
+        throw e;
+      }
+      if (result.isShared()) {
+        unparkNextQueuedAcquire(node);
+      } else {
+        unparkSubsequentTryLocks(node);
+      }
+      if (result.isSuccess()) {
+        remove(node);
+        return null;
+      } else if (result.isFailure() || node.canDelegate()) {
+        abortAndRemove(remote, node);
+        node.refused();
+      }
+      return node;
+    } catch (final RuntimeException ex) {
+      abortAndRemove(remote, node);
+      unparkFirstQueuedAcquire();
+      throw ex;
+    } catch (final TCLockUpgradeNotSupportedError e) {
+      abortAndRemove(remote, node);
+      unparkFirstQueuedAcquire();
+      throw e;
+    }
+  }
+
+  /*
+   * Second half of a pipelined try lock - the remainder of acquireQueuedTimeout with a zero timeout. Like the
+   * non-timed tryLock an interrupt is saved and reported as a failed attempt.
+   */
+  @Override
+  public boolean awaitTryLock(final AbortableOperationManager abortableOperationManager,
+                              final RemoteLockManager remote, final PendingTryLockHold node)
+      throws GarbageLockException, AbortedOperationException {
+    final ThreadID thread = node.getOwner();
+    final LockLevel level = node.getLockLevel();
+    try {
+      while (!node.isRefused()) {
+        node.park();
+        try {
+          AbortedOperationUtil.throwExceptionIfAborted(abortableOperationManager);
+        } catch (AbortedOperationException e) {
+          abortAndRemove(remote, node);
+          unparkFirstQueuedAcquire();
+          throw e;
+        }
+        if (Thread.interrupted()) {
+          abortAndRemove(remote, node);
+          Thread.currentThread().interrupt();
+          return false;
+        }
+        if (node.isRejoinInProgress()) { throw new PlatformRejoinException(); }
+
+        LockAcquireResult result;
+        try {
+          result = tryAcquire(abortableOperationManager, remote, thread, level, 0, node);
+        } catch (AbortedOperationException e) {
+          remove(node);
+          throw e;
+        }
+        if (result.isShared()) {
+          unparkNextQueuedAcquire(node);
+        } else {
+          unparkSubsequentTryLocks(node);
+        }
+        if (result.isSuccess()) {
+          remove(node);
+          return true;
+        } else if (result.isFailure() || node.canDelegate()) {
+          abortAndRemove(remote, node);
+          return false;
+        }
+      }
+      remove(node);
+      final LockAcquireResult result = tryAcquireLocally(remote, abortableOperationManager, thread, level);
+      if (result.isShared()) {
+        unparkFirstQueuedAcquire();
+      }
+      return result.isSuccess();
+    } catch (final RuntimeException ex) {
+      abortAndRemove(remote, node);
+      unparkFirstQueuedAcquire();
+      throw ex;
+    } catch (final TCLockUpgradeNotSupportedError e) {
+      abortAndRemove(remote, node);
+      unparkFirstQueuedAcquire();
+      throw e;
+    }
+  }
+
+  /*
+   * An award that arrives after the node is gone is returned to the server by award(...) itself.
+   */
+  @Override
+  public void cancelTryLock(final RemoteLockManager remote, final PendingTryLockHold node) {
+    abortAndRemove(remote, node);
+    unparkFirstQueuedAcquire();
+  }
+
   /*
    * Release the lock and unpark an acquire if release tells us that queued acquires may now succeed.
    */
@@ -16,6 +16,7 @@
  */
 package com.tc.object.locks;
 
+import com.tc.abortable.AbortedOperationException;
 import com.tc.net.NodeID;
 import com.tc.object.handshakemanager.ClientHandshakeCallback;
 import com.tc.object.session.SessionID;
@@ -24,6 +25,19 @@ import com.tc.text.PrettyPrintable;
 import java.util.Collection;
 
 public interface ClientLockManager extends TerracottaLocking, ClientHandshakeCallback, PrettyPrintable {
+  /**
+   * Acquires every one of the given locks at the given level for the current thread.
+   * <p>
+   * Uncontended acquires are pipelined so that the whole set costs a single server round trip. Locks that are refused
+   * are then acquired one at a time in a global lock order, so concurrent batches cannot deadlock against each other.
+   */
+  public void lockAll(Collection<LockID> locks, LockLevel level) throws AbortedOperationException;
+
+  /**
+   * Releases locks previously acquired through {@link #lockAll(Collection, LockLevel)}.
+   */
+  public void unlockAll(Collection<LockID> locks, LockLevel level) throws AbortedOperationException;
+
   /**
    * Called by a Terracotta thread to notify the given thread waiting on the lock.
    */
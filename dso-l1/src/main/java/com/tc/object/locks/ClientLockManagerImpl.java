@@ -23,6 +23,7 @@ import com.tc.exception.TCNotRunningException;
 import com.tc.logging.TCLogger;
 import com.tc.net.ClientID;
 import com.tc.net.NodeID;
+import com.tc.object.locks.LockStateNode.PendingTryLockHold;
 import com.tc.object.msg.ClientHandshakeMessage;
 import com.tc.object.session.SessionID;
 import com.tc.object.session.SessionManager;
@@ -37,9 +38,13 @@ import com.tc.util.concurrent.Timer;
 import com.tc.util.runtime.ThreadIDManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -56,6 +61,8 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
                                                                         }
                                                                       };
 
+  private static final Comparator<LockID>         BATCH_LOCK_ORDER    = new BatchLockOrder();
+
   private final ConcurrentMap<LockID, ClientLock> locks;
   private final ReentrantReadWriteLock            stateGuard          = new ReentrantReadWriteLock();
   private final Condition                         runningCondition    = this.stateGuard.writeLock().newCondition();
@@ -225,6 +232,111 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
     lockState.unlock(this.remoteLockManager, this.threadManager.getThreadID(), level);
   }
 
+  @Override
+  public void lockAll(final Collection<LockID> lockIds, final LockLevel level) throws AbortedOperationException {
+    waitUntilRunning();
+
+    final LockID[] ordered = orderForBatch(lockIds);
+    final ThreadID thread = this.threadManager.getThreadID();
+    final boolean[] held = new boolean[ordered.length];
+    boolean acquired = false;
+    try {
+      final int firstRefused = tryLockPipelined(ordered, thread, level, held);
+      if (firstRefused >= 0) {
+        // a refused lock must not be waited for while holding locks that sort after it
+        for (int i = firstRefused + 1; i < ordered.length; i++) {
+          if (held[i]) {
+            unlock(ordered[i], level);
+            held[i] = false;
+          }
+        }
+        for (int i = firstRefused; i < ordered.length; i++) {
+          if (!held[i]) {
+            lock(ordered[i], level);
+            held[i] = true;
+          }
+        }
+      }
+      acquired = true;
+    } finally {
+      if (!acquired) {
+        for (int i = ordered.length - 1; i >= 0; i--) {
+          if (held[i]) {
+            unlock(ordered[i], level);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void unlockAll(final Collection<LockID> lockIds, final LockLevel level) throws AbortedOperationException {
+    final LockID[] ordered = orderForBatch(lockIds);
+    for (int i = ordered.length - 1; i >= 0; i--) {
+      unlock(ordered[i], level);
+    }
+  }
+
+  /*
+   * Starts a try lock on every lock before waiting on any of them so that all the server requests are in flight
+   * together. Returns the index of the first refused lock, or -1 if all of them were acquired.
+   */
+  private int tryLockPipelined(final LockID[] ordered, final ThreadID thread, final LockLevel level,
+                               final boolean[] held) throws AbortedOperationException {
+    final ClientLock[] states = new ClientLock[ordered.length];
+    final PendingTryLockHold[] attempts = new PendingTryLockHold[ordered.length];
+    int started = 0;
+    int awaited = 0;
+    try {
+      for (; started < ordered.length; started++) {
+        while (true) {
+          states[started] = getOrCreateClientLockState(ordered[started]);
+          try {
+            attempts[started] = states[started].beginTryLock(this.abortableOperationManager, this.remoteLockManager,
+                                                             thread, level);
+            held[started] = attempts[started] == null;
+            break;
+          } catch (final GarbageLockException e) {
+            // ignorable - thrown when operating on a garbage collected lock
+            // gc thread should clear this object soon - spin and re-get...
+            this.logger.info("Hitting garbage lock state during lockAll on " + ordered[started]);
+          }
+        }
+      }
+
+      int firstRefused = -1;
+      for (; awaited < ordered.length; awaited++) {
+        if (attempts[awaited] != null) {
+          try {
+            held[awaited] = states[awaited].awaitTryLock(this.abortableOperationManager, this.remoteLockManager,
+                                                         attempts[awaited]);
+          } catch (final GarbageLockException e) {
+            // the blocking fallback will re-get the lock state
+            this.logger.info("Hitting garbage lock state during lockAll on " + ordered[awaited]);
+          }
+        }
+        if (!held[awaited] && firstRefused < 0) {
+          firstRefused = awaited;
+        }
+      }
+      return firstRefused;
+    } finally {
+      for (int i = awaited; i < started; i++) {
+        if (attempts[i] != null) {
+          states[i].cancelTryLock(this.remoteLockManager, attempts[i]);
+        }
+      }
+    }
+  }
+
+  private static LockID[] orderForBatch(final Collection<LockID> lockIds) {
+    // duplicates are dropped on equals(), the order may see distinct locks as equal
+    final Set<LockID> unique = new LinkedHashSet<LockID>(lockIds);
+    final LockID[] ordered = unique.toArray(new LockID[unique.size()]);
+    Arrays.sort(ordered, BATCH_LOCK_ORDER);
+    return ordered;
+  }
+
   @Override
   public Notify notify(final LockID lock, final Object waitObject) throws AbortedOperationException {
     waitUntilRunning();
@@ -1047,4 +1159,21 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
 
   }
 
+  /*
+   * Order in which lockAll falls back to blocking acquires - it only has to be the same on every client, so it only
+   * looks at what every client sees the same way. Distinct locks that agree on all of it compare as equal.
+   */
+  private static class BatchLockOrder implements Comparator<LockID> {
+    @Override
+    public int compare(final LockID a, final LockID b) {
+      int c = a.getClass().getName().compareTo(b.getClass().getName());
+      if (c == 0) {
+        c = a.toString().compareTo(b.toString());
+      }
+      if (c == 0) {
+        c = Integer.compare(a.hashCode(), b.hashCode());
+      }
+      return c;
+    }
+  }
 }
@@ -0,0 +1,293 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object.servermap.localcache.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Slab style allocator for one segment of an {@link OffHeapL1ServerMapLocalCacheStore}. Direct memory is reserved in
+ * pages, and each page is cut into chunks of one power of two size class. Chunks bigger than a page get a direct
+ * buffer of their own. Pages that became empty are handed over to other size classes (or released for big chunks)
+ * once the capacity is reached, so memory follows the entry sizes actually stored.
+ * <p>
+ * Addresses are the page index in the upper and the offset in the lower 32 bits. Not thread safe, the owning segment
+ * serializes all access.
+ */
+final class OffHeapChunkAllocator {
+
+  static final long        NULL_ADDRESS    = -1L;
+
+  private static final int MIN_CHUNK_SHIFT = 5;
+  private static final int NO_CLASS        = -1;
+
+  private final long       capacity;
+  private final int        pageSize;
+  private final int        largeClass;
+  private final LongStack[] freeChunks;
+  private final int[]      liveChunks;
+  private final IntStack   unusedPageSlots = new IntStack();
+
+  private ByteBuffer[]     pages           = new ByteBuffer[16];
+  private int[]            pageClasses     = new int[16];
+  private int[]            pageLiveChunks  = new int[16];
+  private int              pageCount;
+  private long             reservedBytes;
+  private long             usedBytes;
+
+  OffHeapChunkAllocator(final long capacity, final int pageSize) {
+    if (Integer.bitCount(pageSize) != 1 || pageSize < (1 << MIN_CHUNK_SHIFT)) {
+      throw new IllegalArgumentException("Page size has to be a power of two of at least " + (1 << MIN_CHUNK_SHIFT)
+                                         + " : " + pageSize);
+    }
+    this.capacity = capacity;
+    this.pageSize = pageSize;
+    this.largeClass = Integer.numberOfTrailingZeros(pageSize) - MIN_CHUNK_SHIFT + 1;
+    this.freeChunks = new LongStack[this.largeClass];
+    for (int i = 0; i < this.freeChunks.length; i++) {
+      this.freeChunks[i] = new LongStack();
+    }
+    this.liveChunks = new int[this.largeClass + 1];
+  }
+
+  /**
+   * @return the address of a chunk that can hold <code>size</code> bytes, or {@link #NULL_ADDRESS} if the capacity is
+   *         used up
+   */
+  long allocate(final int size) {
+    final int sizeClass = sizeClass(size);
+    if (sizeClass == this.largeClass) { return allocateLarge(size); }
+
+    long address = this.freeChunks[sizeClass].pop();
+    if (address == NULL_ADDRESS) {
+      final int page = claimPage(sizeClass);
+      if (page < 0) { return NULL_ADDRESS; }
+      address = carve(page, sizeClass);
+    }
+    this.pageLiveChunks[page(address)]++;
+    this.liveChunks[sizeClass]++;
+    this.usedBytes += chunkSize(sizeClass);
+    return address;
+  }
+
+  void free(final long address) {
+    final int page = page(address);
+    final int sizeClass = this.pageClasses[page];
+    this.liveChunks[sizeClass]--;
+    if (sizeClass == this.largeClass) {
+      this.usedBytes -= this.pages[page].capacity();
+      releasePage(page);
+      return;
+    }
+    this.usedBytes -= chunkSize(sizeClass);
+    this.pageLiveChunks[page]--;
+    this.freeChunks[sizeClass].push(address);
+  }
+
+  int sizeClass(final int size) {
+    if (size > this.pageSize) { return this.largeClass; }
+    if (size <= (1 << MIN_CHUNK_SHIFT)) { return 0; }
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_CHUNK_SHIFT;
+  }
+
+  int sizeClassOf(final long address) {
+    return this.pageClasses[page(address)];
+  }
+
+  boolean hasLiveChunks(final int sizeClass) {
+    return this.liveChunks[sizeClass] > 0;
+  }
+
+  /**
+   * Positions the returned page buffer at the start of the chunk.
+   */
+  ByteBuffer buffer(final long address) {
+    final ByteBuffer page = this.pages[page(address)];
+    page.clear().position(offset(address));
+    return page;
+  }
+
+  /**
+   * Direct memory held by this allocator.
+   */
+  long getReservedBytes() {
+    return this.reservedBytes;
+  }
+
+  /**
+   * Direct memory held by allocated chunks.
+   */
+  long getUsedBytes() {
+    return this.usedBytes;
+  }
+
+  void clear() {
+    Arrays.fill(this.pages, 0, this.pageCount, null);
+    this.pageCount = 0;
+    this.unusedPageSlots.clear();
+    for (LongStack stack : this.freeChunks) {
+      stack.clear();
+    }
+    Arrays.fill(this.liveChunks, 0);
+    this.reservedBytes = 0;
+    this.usedBytes = 0;
+  }
+
+  private long allocateLarge(final int size) {
+    while (this.reservedBytes + size > this.capacity) {
+      final int page = findEmptyPage(NO_CLASS);
+      if (page < 0) { return NULL_ADDRESS; }
+      reclaimPage(page);
+      releasePage(page);
+    }
+    final int page = addPage(ByteBuffer.allocateDirect(size), this.largeClass);
+    this.pageLiveChunks[page] = 1;
+    this.liveChunks[this.largeClass]++;
+    this.usedBytes += size;
+    return address(page, 0);
+  }
+
+  private int claimPage(final int sizeClass) {
+    if (this.reservedBytes + this.pageSize <= this.capacity) {
+      return addPage(ByteBuffer.allocateDirect(this.pageSize), sizeClass);
+    }
+    final int page = findEmptyPage(sizeClass);
+    if (page < 0) { return -1; }
+    reclaimPage(page);
+    this.pageClasses[page] = sizeClass;
+    return page;
+  }
+
+  /**
+   * Cuts the page into chunks, returns the first one and puts the others on the free list.
+   */
+  private long carve(final int page, final int sizeClass) {
+    final int chunkSize = chunkSize(sizeClass);
+    for (int offset = this.pageSize - chunkSize; offset > 0; offset -= chunkSize) {
+      this.freeChunks[sizeClass].push(address(page, offset));
+    }
+    return address(page, 0);
+  }
+
+  private int findEmptyPage(final int exceptClass) {
+    for (int i = 0; i < this.pageCount; i++) {
+      final int sizeClass = this.pageClasses[i];
+      if (this.pages[i] != null && sizeClass != this.largeClass && sizeClass != exceptClass
+          && this.pageLiveChunks[i] == 0) { return i; }
+    }
+    return -1;
+  }
+
+  /**
+   * Takes the free chunks of an empty page off its size class free list.
+   */
+  private void reclaimPage(final int page) {
+    this.freeChunks[this.pageClasses[page]].removePage(page);
+  }
+
+  private int addPage(final ByteBuffer buffer, final int sizeClass) {
+    int page = this.unusedPageSlots.pop();
+    if (page < 0) {
+      page = this.pageCount++;
+      if (page == this.pages.length) {
+        final int length = this.pages.length * 2;
+        this.pages = Arrays.copyOf(this.pages, length);
+        this.pageClasses = Arrays.copyOf(this.pageClasses, length);
+        this.pageLiveChunks = Arrays.copyOf(this.pageLiveChunks, length);
+      }
+    }
+    this.pages[page] = buffer;
+    this.pageClasses[page] = sizeClass;
+    this.pageLiveChunks[page] = 0;
+    this.reservedBytes += buffer.capacity();
+    return page;
+  }
+
+  private void releasePage(final int page) {
+    this.reservedBytes -= this.pages[page].capacity();
+    this.pages[page] = null;
+    this.pageClasses[page] = NO_CLASS;
+    this.pageLiveChunks[page] = 0;
+    this.unusedPageSlots.push(page);
+  }
+
+  private static int chunkSize(final int sizeClass) {
+    return 1 << (sizeClass + MIN_CHUNK_SHIFT);
+  }
+
+  private static long address(final int page, final int offset) {
+    return ((long) page << 32) | offset;
+  }
+
+  private static int page(final long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int offset(final long address) {
+    return (int) address;
+  }
+
+  private static final class LongStack {
+    private long[] values = new long[16];
+    private int    size;
+
+    void push(final long value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      this.values[this.size++] = value;
+    }
+
+    long pop() {
+      return this.size == 0 ? NULL_ADDRESS : this.values[--this.size];
+    }
+
+    void removePage(final int page) {
+      int kept = 0;
+      for (int i = 0; i < this.size; i++) {
+        if (page(this.values[i]) != page) {
+          this.values[kept++] = this.values[i];
+        }
+      }
+      this.size = kept;
+    }
+
+    void clear() {
+      this.size = 0;
+    }
+  }
+
+  private static final class IntStack {
+    private int[] values = new int[4];
+    private int   size;
+
+    void push(final int value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      this.values[this.size++] = value;
+    }
+
+    int pop() {
+      return this.size == 0 ? -1 : this.values[--this.size];
+    }
+
+    void clear() {
+      this.size = 0;
+    }
+  }
+}
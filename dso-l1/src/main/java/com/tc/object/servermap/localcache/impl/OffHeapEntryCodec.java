@@ -0,0 +1,139 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object.servermap.localcache.impl;
+
+import com.tc.object.ObjectID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Serialized form of the keys and values kept by {@link OffHeapL1ServerMapLocalCacheStore}. The common key types get a
+ * compact tagged encoding, everything else goes through java serialization. Equal keys always encode to the same
+ * bytes, which is what the store compares on lookup.
+ */
+final class OffHeapEntryCodec {
+
+  private static final Charset UTF8       = Charset.forName("UTF-8");
+
+  private static final byte    SERIALIZED = 0;
+  private static final byte    STRING     = 1;
+  private static final byte    LONG       = 2;
+  private static final byte    INTEGER    = 3;
+  private static final byte    OBJECT_ID  = 4;
+
+  private OffHeapEntryCodec() {
+    //
+  }
+
+  static byte[] encode(final Object object) {
+    if (object instanceof String) {
+      final byte[] chars = ((String) object).getBytes(UTF8);
+      final byte[] encoded = new byte[chars.length + 1];
+      encoded[0] = STRING;
+      System.arraycopy(chars, 0, encoded, 1, chars.length);
+      return encoded;
+    } else if (object instanceof Long) {
+      return ByteBuffer.allocate(9).put(LONG).putLong((Long) object).array();
+    } else if (object instanceof Integer) {
+      return ByteBuffer.allocate(5).put(INTEGER).putInt((Integer) object).array();
+    } else if (object instanceof ObjectID) {
+      final ObjectID oid = (ObjectID) object;
+      return ByteBuffer.allocate(13).put(OBJECT_ID).putLong(oid.toLong()).putInt(oid.getGroupID()).array();
+    }
+    return serialize(object);
+  }
+
+  static Object decode(final byte[] encoded) {
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    switch (buffer.get()) {
+      case STRING:
+        return new String(encoded, 1, encoded.length - 1, UTF8);
+      case LONG:
+        return buffer.getLong();
+      case INTEGER:
+        return buffer.getInt();
+      case OBJECT_ID:
+        final long id = buffer.getLong();
+        return new ObjectID(id, buffer.getInt());
+      case SERIALIZED:
+        return deserialize(encoded);
+      default:
+        throw new IllegalArgumentException("Unknown off-heap entry encoding : " + encoded[0]);
+    }
+  }
+
+  private static byte[] serialize(final Object object) {
+    try {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+      bytes.write(SERIALIZED);
+      final ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(object);
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to serialize " + object.getClass().getName()
+                                         + " for the off-heap local cache", e);
+    }
+  }
+
+  private static Object deserialize(final byte[] encoded) {
+    try {
+      final ObjectInputStream in = new ClassLoaderAwareObjectInputStream(new ByteArrayInputStream(encoded, 1,
+                                                                                                  encoded.length - 1));
+      try {
+        return in.readObject();
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Corrupt off-heap local cache entry", e);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Unable to deserialize off-heap local cache entry", e);
+    }
+  }
+
+  /**
+   * Values may hold application types, so those are resolved with the context class loader first.
+   */
+  private static class ClassLoaderAwareObjectInputStream extends ObjectInputStream {
+
+    ClassLoaderAwareObjectInputStream(final InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      if (loader != null) {
+        try {
+          return Class.forName(desc.getName(), false, loader);
+        } catch (ClassNotFoundException e) {
+          // fall back to the default resolution
+        }
+      }
+      return super.resolveClass(desc);
+    }
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object.servermap.localcache.impl;
+
+import com.tc.object.servermap.localcache.L1ServerMapLocalCacheStore;
+import com.tc.object.servermap.localcache.L1ServerMapLocalCacheStoreListener;
+import com.tc.object.servermap.localcache.LocalCacheStoreFullException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local cache store that keeps keys and values serialized in direct memory, so that big local caches do not add to
+ * the heap and GC pauses of the client. Capacity is given in bytes and enforced per segment, entries are evicted with
+ * CLOCK (second chance) and evictions are reported to the listeners like for the other stores, which keeps the meta
+ * (ObjectID to key) mappings of {@link ServerMapLocalCacheImpl} in line.
+ * <p>
+ * Keys are compared on their serialized form. Values are copied in and out on every access, the store never hands out
+ * the instance that was put.
+ */
+public class OffHeapL1ServerMapLocalCacheStore<K, V> implements L1ServerMapLocalCacheStore<K, V> {
+
+  private static final int                                     MIN_PAGE_SIZE     = 4 * 1024;
+  private static final int                                     MAX_PAGE_SIZE     = 1024 * 1024;
+  private static final int                                     PAGES_PER_SEGMENT = 16;
+
+  private final List<L1ServerMapLocalCacheStoreListener<K, V>> listeners         = new CopyOnWriteArrayList<L1ServerMapLocalCacheStoreListener<K, V>>();
+  private final OffHeapStoreSegment[]                          segments;
+  private final long                                           maxBytesOffHeap;
+
+  public OffHeapL1ServerMapLocalCacheStore(long maxBytesOffHeap, int segmentCount) {
+    if (maxBytesOffHeap <= 0) { throw new IllegalArgumentException("Off-heap size has to be positive : "
+                                                                   + maxBytesOffHeap); }
+    int count = Integer.highestOneBit(Math.max(1, segmentCount));
+    while (count > 1 && maxBytesOffHeap / count < MIN_PAGE_SIZE) {
+      count >>= 1;
+    }
+    final long segmentCapacity = maxBytesOffHeap / count;
+    final int pageSize = pageSize(segmentCapacity);
+    this.maxBytesOffHeap = maxBytesOffHeap;
+    this.segments = new OffHeapStoreSegment[count];
+    for (int i = 0; i < count; i++) {
+      this.segments[i] = new OffHeapStoreSegment(segmentCapacity, pageSize);
+    }
+  }
+
+  @Override
+  public V put(K key, V value) throws LocalCacheStoreFullException {
+    final byte[] keyBytes = OffHeapEntryCodec.encode(key);
+    final int hash = hash(keyBytes);
+    final List<byte[][]> evicted = new ArrayList<byte[][]>();
+    final byte[] old;
+    try {
+      old = segmentFor(hash).put(keyBytes, hash, OffHeapEntryCodec.encode(value), evicted);
+    } finally {
+      notifyEvicted(evicted);
+    }
+    return decode(old);
+  }
+
+  @Override
+  public V get(K key) {
+    final byte[] keyBytes = OffHeapEntryCodec.encode(key);
+    final int hash = hash(keyBytes);
+    return decode(segmentFor(hash).get(keyBytes, hash));
+  }
+
+  @Override
+  public V remove(K key) {
+    final byte[] keyBytes = OffHeapEntryCodec.encode(key);
+    final int hash = hash(keyBytes);
+    return decode(segmentFor(hash).remove(keyBytes, hash, null));
+  }
+
+  @Override
+  public Object remove(K key, V value) {
+    final byte[] keyBytes = OffHeapEntryCodec.encode(key);
+    final int hash = hash(keyBytes);
+    return decode(segmentFor(hash).remove(keyBytes, hash, OffHeapEntryCodec.encode(value)));
+  }
+
+  @Override
+  public boolean addListener(L1ServerMapLocalCacheStoreListener<K, V> listener) {
+    return listeners.add(listener);
+  }
+
+  @Override
+  public boolean removeListener(L1ServerMapLocalCacheStoreListener<K, V> listener) {
+    return listeners.remove(listener);
+  }
+
+  @Override
+  public void clear() {
+    for (OffHeapStoreSegment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  @Override
+  public void cleanLocalState() {
+    clear();
+  }
+
+  @Override
+  public List getKeys() {
+    final List<byte[]> encodedKeys = new ArrayList<byte[]>();
+    for (OffHeapStoreSegment segment : segments) {
+      segment.collectKeys(encodedKeys);
+    }
+    final List keys = new ArrayList(encodedKeys.size());
+    for (byte[] encodedKey : encodedKeys) {
+      keys.add(OffHeapEntryCodec.decode(encodedKey));
+    }
+    return keys;
+  }
+
+  @Override
+  public int size() {
+    // every cached entry is stored together with its meta mapping
+    return entryCount() / 2;
+  }
+
+  @Override
+  public long onHeapSizeInBytes() {
+    long size = 0;
+    for (OffHeapStoreSegment segment : segments) {
+      size += segment.getOnHeapSizeInBytes();
+    }
+    return size;
+  }
+
+  @Override
+  public long offHeapSizeInBytes() {
+    long size = 0;
+    for (OffHeapStoreSegment segment : segments) {
+      size += segment.getOffHeapSizeInBytes();
+    }
+    return size;
+  }
+
+  @Override
+  public int onHeapSize() {
+    return 0;
+  }
+
+  @Override
+  public int offHeapSize() {
+    return entryCount() / 2;
+  }
+
+  @Override
+  public int getMaxElementsInMemory() {
+    // only bounded by maxBytesOffHeap
+    return 0;
+  }
+
+  @Override
+  public void dispose() {
+    clear();
+    for (L1ServerMapLocalCacheStoreListener<K, V> listener : listeners) {
+      listener.notifyDisposed(this);
+    }
+  }
+
+  @Override
+  public boolean containsKeyOnHeap(K key) {
+    return false;
+  }
+
+  @Override
+  public boolean containsKeyOffHeap(K key) {
+    final byte[] keyBytes = OffHeapEntryCodec.encode(key);
+    final int hash = hash(keyBytes);
+    return segmentFor(hash).containsKey(keyBytes, hash);
+  }
+
+  @Override
+  public void setMaxEntriesLocalHeap(int maxEntriesLocalHeap) {
+    // Heap limits do not apply, the store is bounded by maxBytesOffHeap only
+  }
+
+  @Override
+  public void setMaxBytesLocalHeap(long maxBytesLocalHeap) {
+    // Nothing is kept on heap apart from the index
+  }
+
+  @Override
+  public void recalculateSize(K key) {
+    // Sizes are known exactly, they are fixed when an entry is put
+  }
+
+  @Override
+  public boolean isPinned() {
+    return false;
+  }
+
+  public long getMaxBytesOffHeap() {
+    return maxBytesOffHeap;
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapL1ServerMapLocalCacheStore [entries=" + entryCount() + ", offHeapBytes=" + offHeapSizeInBytes()
+           + ", maxBytesOffHeap=" + maxBytesOffHeap + ", segments=" + segments.length + "]";
+  }
+
+  private int entryCount() {
+    int count = 0;
+    for (OffHeapStoreSegment segment : segments) {
+      count += segment.size();
+    }
+    return count;
+  }
+
+  private void notifyEvicted(List<byte[][]> evicted) {
+    if (evicted.isEmpty() || listeners.isEmpty()) { return; }
+    final Map<K, V> evictedElements = new HashMap<K, V>();
+    for (byte[][] entry : evicted) {
+      evictedElements.put((K) OffHeapEntryCodec.decode(entry[0]), (V) OffHeapEntryCodec.decode(entry[1]));
+    }
+    for (L1ServerMapLocalCacheStoreListener<K, V> listener : listeners) {
+      listener.notifyElementsEvicted(evictedElements);
+    }
+  }
+
+  private OffHeapStoreSegment segmentFor(int hash) {
+    // the low bits pick the slot inside the segment
+    return segments[(hash >>> 24) & (segments.length - 1)];
+  }
+
+  private V decode(byte[] encoded) {
+    return encoded == null ? null : (V) OffHeapEntryCodec.decode(encoded);
+  }
+
+  private static int hash(byte[] encodedKey) {
+    final int h = Arrays.hashCode(encodedKey) * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int pageSize(long segmentCapacity) {
+    final long target = Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, segmentCapacity / PAGES_PER_SEGMENT));
+    final int pageSize = Integer.highestOneBit((int) target);
+    // a segment has to hold at least one page
+    return pageSize > segmentCapacity ? Integer.highestOneBit((int) Math.max(32, segmentCapacity)) : pageSize;
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object.servermap.localcache.impl;
+
+import com.tc.object.servermap.localcache.LocalCacheStoreFullException;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * One lock stripe of an {@link OffHeapL1ServerMapLocalCacheStore}. Entries live in direct memory as
+ * <code>[int keyLength][int valueLength][key][value]</code>, the on heap part is only an open addressing index of
+ * key hashes and chunk addresses plus a reference bit per slot for CLOCK eviction.
+ */
+final class OffHeapStoreSegment {
+
+  private static final int            ENTRY_HEADER_LENGTH = 8;
+  private static final int            INITIAL_SLOTS       = 16;
+
+  private final OffHeapChunkAllocator allocator;
+  private final long                  capacity;
+
+  private int[]                       hashes;
+  // chunk address + 1, so that 0 marks an empty slot
+  private long[]                      addresses;
+  private boolean[]                   referenced;
+  private int                         size;
+  private int                         hand;
+
+  OffHeapStoreSegment(final long capacity, final int pageSize) {
+    this.capacity = capacity;
+    this.allocator = new OffHeapChunkAllocator(capacity, pageSize);
+    initIndex(INITIAL_SLOTS);
+  }
+
+  synchronized byte[] get(final byte[] key, final int hash) {
+    final int slot = find(key, hash);
+    if (slot < 0) { return null; }
+    this.referenced[slot] = true;
+    return readValue(address(slot));
+  }
+
+  synchronized boolean containsKey(final byte[] key, final int hash) {
+    return find(key, hash) >= 0;
+  }
+
+  /**
+   * Entries evicted to make room are added to <code>evicted</code> as <code>{key, value}</code> pairs, also when the
+   * put fails. A failed put leaves the previous mapping in place, unless it was evicted (and reported) itself.
+   * 
+   * @return the previous value, if any
+   */
+  synchronized byte[] put(final byte[] key, final int hash, final byte[] value, final List<byte[][]> evicted) {
+    final int entrySize = ENTRY_HEADER_LENGTH + key.length + value.length;
+    if (entrySize > this.capacity) { throw new LocalCacheStoreFullException("Entry of " + entrySize
+                                                                            + " bytes is bigger than the segment capacity of "
+                                                                            + this.capacity + " bytes"); }
+    long address;
+    while ((address = this.allocator.allocate(entrySize)) == OffHeapChunkAllocator.NULL_ADDRESS) {
+      if (!evictOne(this.allocator.sizeClass(entrySize), evicted)) { throw new LocalCacheStoreFullException(
+                                                                                                           "No room for an entry of "
+                                                                                                               + entrySize
+                                                                                                               + " bytes"); }
+    }
+
+    // eviction shifts slots around and may have taken the previous mapping, so it is only looked up now
+    byte[] old = null;
+    final int slot = find(key, hash);
+    if (slot >= 0) {
+      old = readValue(address(slot));
+      this.allocator.free(address(slot));
+      deleteSlot(slot);
+    }
+
+    final ByteBuffer buffer = this.allocator.buffer(address);
+    buffer.putInt(key.length).putInt(value.length).put(key).put(value);
+    insert(hash, address);
+    return old;
+  }
+
+  /**
+   * Removes the mapping, if <code>expectedValue</code> is not null only when the stored value has the same bytes.
+   * 
+   * @return the removed value, if any
+   */
+  synchronized byte[] remove(final byte[] key, final int hash, final byte[] expectedValue) {
+    final int slot = find(key, hash);
+    if (slot < 0) { return null; }
+    final long address = address(slot);
+    final byte[] old = readValue(address);
+    if (expectedValue != null && !java.util.Arrays.equals(old, expectedValue)) { return null; }
+    this.allocator.free(address);
+    deleteSlot(slot);
+    return old;
+  }
+
+  synchronized void collectKeys(final List<byte[]> keys) {
+    for (int slot = 0; slot < this.addresses.length; slot++) {
+      if (this.addresses[slot] != 0) {
+        keys.add(readKey(address(slot)));
+      }
+    }
+  }
+
+  synchronized void clear() {
+    this.allocator.clear();
+    initIndex(INITIAL_SLOTS);
+  }
+
+  synchronized int size() {
+    return this.size;
+  }
+
+  synchronized long getOffHeapSizeInBytes() {
+    return this.allocator.getReservedBytes();
+  }
+
+  synchronized long getOnHeapSizeInBytes() {
+    // hash, address and reference bit per slot
+    return this.addresses.length * 13L;
+  }
+
+  /**
+   * Runs the CLOCK hand until it finds an entry that was not referenced since the last pass. When entries of
+   * <code>sizeClass</code> are stored, only those are evicted since anything else would not free a fitting chunk.
+   */
+  private boolean evictOne(final int sizeClass, final List<byte[][]> evicted) {
+    if (this.size == 0) { return false; }
+    final boolean matchClass = sizeClass >= 0 && this.allocator.hasLiveChunks(sizeClass);
+    final int mask = this.addresses.length - 1;
+    int fallback = -1;
+    for (int steps = 2 * this.addresses.length; steps > 0; steps--) {
+      final int slot = this.hand;
+      this.hand = (slot + 1) & mask;
+      if (this.addresses[slot] == 0) {
+        continue;
+      }
+      if (this.referenced[slot]) {
+        this.referenced[slot] = false;
+        continue;
+      }
+      if (!matchClass || this.allocator.sizeClassOf(address(slot)) == sizeClass) {
+        evictSlot(slot, evicted);
+        return true;
+      }
+      if (fallback < 0) {
+        fallback = slot;
+      }
+    }
+    if (fallback < 0) { return false; }
+    evictSlot(fallback, evicted);
+    return true;
+  }
+
+  private void evictSlot(final int slot, final List<byte[][]> evicted) {
+    final long address = address(slot);
+    evicted.add(new byte[][] { readKey(address), readValue(address) });
+    this.allocator.free(address);
+    deleteSlot(slot);
+  }
+
+  private int find(final byte[] key, final int hash) {
+    final int mask = this.addresses.length - 1;
+    for (int slot = hash & mask; this.addresses[slot] != 0; slot = (slot + 1) & mask) {
+      if (this.hashes[slot] == hash && keyEquals(address(slot), key)) { return slot; }
+    }
+    return -1;
+  }
+
+  private void insert(final int hash, final long address) {
+    if (this.size >= (this.addresses.length >> 2) * 3) {
+      resize();
+    }
+    final int mask = this.addresses.length - 1;
+    int slot = hash & mask;
+    while (this.addresses[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    this.hashes[slot] = hash;
+    this.addresses[slot] = address + 1;
+    // new entries survive the first pass of the hand
+    this.referenced[slot] = true;
+    this.size++;
+  }
+
+  /**
+   * Backward shift deletion, keeps the probe sequences intact without tombstones.
+   */
+  private void deleteSlot(final int slot) {
+    final int mask = this.addresses.length - 1;
+    int hole = slot;
+    for (int i = (slot + 1) & mask; this.addresses[i] != 0; i = (i + 1) & mask) {
+      final int home = this.hashes[i] & mask;
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        this.hashes[hole] = this.hashes[i];
+        this.addresses[hole] = this.addresses[i];
+        this.referenced[hole] = this.referenced[i];
+        hole = i;
+      }
+    }
+    this.hashes[hole] = 0;
+    this.addresses[hole] = 0;
+    this.referenced[hole] = false;
+    this.size--;
+  }
+
+  private void resize() {
+    final int[] oldHashes = this.hashes;
+    final long[] oldAddresses = this.addresses;
+    final boolean[] oldReferenced = this.referenced;
+    initIndex(oldAddresses.length * 2);
+    final int mask = this.addresses.length - 1;
+    for (int i = 0; i < oldAddresses.length; i++) {
+      if (oldAddresses[i] != 0) {
+        int slot = oldHashes[i] & mask;
+        while (this.addresses[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        this.hashes[slot] = oldHashes[i];
+        this.addresses[slot] = oldAddresses[i];
+        this.referenced[slot] = oldReferenced[i];
+        this.size++;
+      }
+    }
+  }
+
+  private void initIndex(final int slots) {
+    this.hashes = new int[slots];
+    this.addresses = new long[slots];
+    this.referenced = new boolean[slots];
+    this.size = 0;
+    this.hand = 0;
+  }
+
+  private long address(final int slot) {
+    return this.addresses[slot] - 1;
+  }
+
+  private boolean keyEquals(final long address, final byte[] key) {
+    final ByteBuffer buffer = this.allocator.buffer(address);
+    if (buffer.getInt() != key.length) { return false; }
+    final int start = buffer.position() + 4;
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(start + i) != key[i]) { return false; }
+    }
+    return true;
+  }
+
+  private byte[] readKey(final long address) {
+    final ByteBuffer buffer = this.allocator.buffer(address);
+    final byte[] key = new byte[buffer.getInt()];
+    buffer.getInt();
+    buffer.get(key);
+    return key;
+  }
+
+  private byte[] readValue(final long address) {
+    final ByteBuffer buffer = this.allocator.buffer(address);
+    final int keyLength = buffer.getInt();
+    final byte[] value = new byte[buffer.getInt()];
+    buffer.position(buffer.position() + keyLength);
+    buffer.get(value);
+    return value;
+  }
+}
@@ -73,10 +73,15 @@ import com.tcclient.cluster.DsoNode;
 import com.terracottatech.search.NVPair;
 import com.terracottatech.search.SearchBuilder.Search;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -313,6 +318,61 @@ public class PlatformServiceImpl implements PlatformService {
     }
   }
 
+  @Override
+  public void beginLocks(final Collection<?> lockIDs, final LockLevel level) throws AbortedOperationException {
+    final Map<Object, LockID> locks = new LinkedHashMap<Object, LockID>();
+    final Set<LockID> clustered = new HashSet<LockID>();
+    for (Object lockID : lockIDs) {
+      if (locks.containsKey(lockID)) {
+        continue;
+      }
+      LockID lock = generateLockIdentifier(lockID);
+      locks.put(lockID, lock);
+      if (clusteredLockingEnabled(lock)) {
+        clustered.add(lock);
+      }
+    }
+    this.lockManager.lockAll(clustered, level);
+
+    final List<Object> begun = new ArrayList<Object>(locks.size());
+    Object failed = null;
+    try {
+      for (Map.Entry<Object, LockID> entry : locks.entrySet()) {
+        failed = entry.getKey();
+        if (clustered.contains(entry.getValue())) {
+          txManagerBeginUnlockOnException(entry.getValue(), level, false);
+        }
+        addContext(new LockInfo(entry.getKey(), level));
+        begun.add(entry.getKey());
+      }
+      failed = null;
+    } finally {
+      if (failed != null) {
+        // the lock whose transaction failed is already released, the ones after it never got a transaction
+        boolean after = false;
+        for (Map.Entry<Object, LockID> entry : locks.entrySet()) {
+          if (after && clustered.contains(entry.getValue())) {
+            this.lockManager.unlock(entry.getValue(), level);
+          }
+          after |= entry.getKey() == failed;
+        }
+        Collections.reverse(begun);
+        for (Object lockID : begun) {
+          commitLock(lockID, level);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void commitLocks(final Collection<?> lockIDs, final LockLevel level) throws AbortedOperationException {
+    final List<Object> ordered = new ArrayList<Object>(new LinkedHashSet<Object>(lockIDs));
+    Collections.reverse(ordered);
+    for (Object lockID : ordered) {
+      commitLock(lockID, level);
+    }
+  }
+
   @Override
   public void lockIDWait(Object lockID, long timeout, TimeUnit timeUnit) throws InterruptedException,
       AbortedOperationException {
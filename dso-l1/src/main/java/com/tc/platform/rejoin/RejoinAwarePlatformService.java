@@ -46,6 +46,7 @@ import com.tc.util.concurrent.TaskRunner;
 import com.tcclient.cluster.DsoNode;
 import com.terracottatech.search.NVPair;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -291,6 +292,34 @@ public class RejoinAwarePlatformService implements PlatformService {
     }
   }
 
+  @Override
+  public void beginLocks(Collection<?> lockIDs, LockLevel level) throws AbortedOperationException {
+    assertRejoinNotInProgress();
+    try {
+      assertNotLockedBeforeRejoin();
+      resetRejoinCountIfNecessary();
+      delegate.beginLocks(lockIDs, level);
+    } catch (PlatformRejoinException e) {
+      throw new RejoinException(e);
+    }
+  }
+
+  @Override
+  public void commitLocks(Collection<?> lockIDs, LockLevel level) throws AbortedOperationException {
+    boolean isLockedBeforeRejoin = false;
+    for (Object lockID : lockIDs) {
+      isLockedBeforeRejoin |= isLockedBeforeRejoin(lockID, level);
+    }
+    try {
+      delegate.commitLocks(lockIDs, level);
+    } catch (PlatformRejoinException e) {
+      throw new RejoinException(e);
+    } catch (IllegalMonitorStateException e) {
+      if (isLockedBeforeRejoin) { throw new RejoinException(e); }
+      throw e;
+    }
+  }
+
   @Override
   public void lockIDWait(Object lockID, long timeout, TimeUnit timeUnit) throws InterruptedException,
       AbortedOperationException {
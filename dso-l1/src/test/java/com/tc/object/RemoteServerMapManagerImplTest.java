@@ -0,0 +1,286 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.tc.abortable.AbortableOperationManager;
+import com.tc.exception.PlatformRejoinException;
+import com.tc.exception.TCObjectNotFoundException;
+import com.tc.logging.TCLogging;
+import com.tc.net.GroupID;
+import com.tc.net.NodeID;
+import com.tc.object.msg.ClientHandshakeMessage;
+import com.tc.object.msg.GetValueServerMapRequestMessage;
+import com.tc.object.msg.ServerMapMessageFactory;
+import com.tc.object.servermap.localcache.L1ServerMapLocalCacheManager;
+import com.tc.object.session.SessionID;
+import com.tc.object.session.SessionManager;
+import com.tc.util.concurrent.TaskRunner;
+import com.tc.util.concurrent.Timer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RemoteServerMapManagerImplTest {
+
+  private static final GroupID            GROUP_ID = new GroupID(0);
+  private static final SessionID          SESSION  = new SessionID(0);
+
+  private ServerMapMessageFactory         smmFactory;
+  private GetValueServerMapRequestMessage requestMessage;
+  private RemoteServerMapManagerImpl      manager;
+
+  @Before
+  public void setUp() throws Exception {
+    TaskRunner taskRunner = mock(TaskRunner.class);
+    when(taskRunner.newTimer(anyString())).thenReturn(mock(Timer.class));
+    SessionManager sessionManager = mock(SessionManager.class);
+    when(sessionManager.isCurrentSession(any(NodeID.class), any(SessionID.class))).thenReturn(true);
+    smmFactory = mock(ServerMapMessageFactory.class);
+    requestMessage = mock(GetValueServerMapRequestMessage.class);
+    when(smmFactory.newServerMapRequestMessage(GROUP_ID, ServerMapRequestType.GET_VALUE_FOR_KEY))
+        .thenReturn(requestMessage);
+    manager = new RemoteServerMapManagerImpl(GROUP_ID, TCLogging.getLogger(RemoteServerMapManagerImplTest.class),
+                                             mock(RemoteObjectManager.class), smmFactory, sessionManager,
+                                             mock(L1ServerMapLocalCacheManager.class),
+                                             mock(AbortableOperationManager.class), taskRunner);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    manager.shutdown(false);
+  }
+
+  @Test
+  public void testBulkGetSendsOneMessageAndStreamsResults() throws Exception {
+    Map<ObjectID, Set<Object>> keys = new HashMap<ObjectID, Set<Object>>();
+    keys.put(new ObjectID(1), Collections.<Object> singleton("k1"));
+    keys.put(new ObjectID(2), Collections.<Object> singleton("k2"));
+    keys.put(new ObjectID(3), Collections.<Object> singleton("k3"));
+
+    Map<Object, Object> rv = new HashMap<Object, Object>();
+    BulkGet get = new BulkGet(keys, rv);
+    get.start();
+
+    verify(requestMessage, timeout(5000)).send();
+    verify(smmFactory, times(1)).newServerMapRequestMessage(GROUP_ID, ServerMapRequestType.GET_VALUE_FOR_KEY);
+    Map<ObjectID, ServerMapRequestID> requests = capturedRequests(3);
+
+    respond(new ObjectID(1), requests.get(new ObjectID(1)), "k1", "v1");
+    respond(new ObjectID(3), requests.get(new ObjectID(3)), "k3", "v3");
+    get.join(500);
+    assertTrue(get.isAlive());
+    synchronized (rv) {
+      assertEquals(2, rv.size());
+    }
+
+    respond(new ObjectID(2), requests.get(new ObjectID(2)), "k2", "v2");
+    get.join(5000);
+    assertFalse(get.isAlive());
+    assertNull(get.error.get());
+    assertEquals("v1", rv.get("k1"));
+    assertEquals("v2", rv.get("k2"));
+    assertEquals("v3", rv.get("k3"));
+  }
+
+  @Test
+  public void testConcurrentBulkGets() throws Exception {
+    Map<Object, Object> rv1 = new HashMap<Object, Object>();
+    BulkGet get1 = new BulkGet(Collections.singletonMap(new ObjectID(1), Collections.<Object> singleton("k1")), rv1);
+    get1.start();
+    verify(requestMessage, timeout(5000).times(1)).send();
+
+    Map<Object, Object> rv2 = new HashMap<Object, Object>();
+    BulkGet get2 = new BulkGet(Collections.singletonMap(new ObjectID(2), Collections.<Object> singleton("k2")), rv2);
+    get2.start();
+    verify(requestMessage, timeout(5000).times(2)).send();
+
+    Map<ObjectID, ServerMapRequestID> requests = capturedRequests(2);
+    respond(new ObjectID(2), requests.get(new ObjectID(2)), "k2", "v2");
+    get2.join(5000);
+    assertFalse(get2.isAlive());
+    assertEquals("v2", rv2.get("k2"));
+    assertTrue(get1.isAlive());
+
+    respond(new ObjectID(1), requests.get(new ObjectID(1)), "k1", "v1");
+    get1.join(5000);
+    assertFalse(get1.isAlive());
+    assertEquals("v1", rv1.get("k1"));
+  }
+
+  @Test
+  public void testMissingSegment() throws Exception {
+    Map<ObjectID, Set<Object>> keys = new HashMap<ObjectID, Set<Object>>();
+    keys.put(new ObjectID(1), Collections.<Object> singleton("k1"));
+    keys.put(new ObjectID(2), Collections.<Object> singleton("k2"));
+
+    BulkGet get = new BulkGet(keys, new HashMap<Object, Object>());
+    get.start();
+    verify(requestMessage, timeout(5000)).send();
+    Map<ObjectID, ServerMapRequestID> requests = capturedRequests(2);
+
+    manager.objectNotFoundFor(SESSION, new ObjectID(1), requests.get(new ObjectID(1)), GROUP_ID);
+    get.join(5000);
+    assertFalse(get.isAlive());
+    assertTrue(get.error.get() instanceof TCObjectNotFoundException);
+
+    // a late answer for the abandoned segment is dropped
+    respond(new ObjectID(2), requests.get(new ObjectID(2)), "k2", "v2");
+  }
+
+  @Test
+  public void testSingleGetsAreAnsweredOutOfOrder() throws Exception {
+    SingleGet get1 = new SingleGet(new ObjectID(1), "k1");
+    get1.start();
+    verify(requestMessage, timeout(5000).times(1)).send();
+    SingleGet get2 = new SingleGet(new ObjectID(2), "k2");
+    get2.start();
+    verify(requestMessage, timeout(5000).times(2)).send();
+
+    Map<ObjectID, ServerMapRequestID> requests = capturedRequests(2);
+    respond(new ObjectID(2), requests.get(new ObjectID(2)), "k2", "v2");
+    get2.join(5000);
+    assertFalse(get2.isAlive());
+    assertEquals("v2", get2.result.get());
+    assertTrue(get1.isAlive());
+
+    respond(new ObjectID(1), requests.get(new ObjectID(1)), "k1", "v1");
+    get1.join(5000);
+    assertFalse(get1.isAlive());
+    assertEquals("v1", get1.result.get());
+  }
+
+  @Test
+  public void testRequestsAreResentOnUnpause() throws Exception {
+    SingleGet get = new SingleGet(new ObjectID(1), "k1");
+    get.start();
+    verify(requestMessage, timeout(5000).times(1)).send();
+    ServerMapRequestID requestID = capturedRequests(1).get(new ObjectID(1));
+
+    // the request is still outstanding when the connection goes away
+    when(requestMessage.getRequestCount()).thenReturn(1);
+    manager.pause(GROUP_ID, 0);
+    manager.initializeHandshake(GROUP_ID, GROUP_ID, mock(ClientHandshakeMessage.class));
+    manager.unpause(GROUP_ID, 0);
+
+    verify(requestMessage, timeout(5000).times(2)).send();
+    ArgumentCaptor<ServerMapRequestID> requestIDs = ArgumentCaptor.forClass(ServerMapRequestID.class);
+    verify(requestMessage, times(2)).addGetValueRequestTo(requestIDs.capture(), any(ObjectID.class), any(Set.class));
+    assertEquals(requestID, requestIDs.getAllValues().get(1));
+    assertTrue(get.isAlive());
+
+    respond(new ObjectID(1), requestID, "k1", "v1");
+    get.join(5000);
+    assertFalse(get.isAlive());
+    assertEquals("v1", get.result.get());
+  }
+
+  @Test
+  public void testRejoinReleasesWaitingThreads() throws Exception {
+    SingleGet get = new SingleGet(new ObjectID(1), "k1");
+    get.start();
+    verify(requestMessage, timeout(5000)).send();
+
+    manager.pause(GROUP_ID, 0);
+    manager.cleanup();
+    get.join(5000);
+    assertFalse(get.isAlive());
+    assertTrue(get.result.get() instanceof PlatformRejoinException);
+  }
+
+  private Map<ObjectID, ServerMapRequestID> capturedRequests(int count) {
+    ArgumentCaptor<ServerMapRequestID> requestIDs = ArgumentCaptor.forClass(ServerMapRequestID.class);
+    ArgumentCaptor<ObjectID> mapIDs = ArgumentCaptor.forClass(ObjectID.class);
+    verify(requestMessage, times(count)).addGetValueRequestTo(requestIDs.capture(), mapIDs.capture(), any(Set.class));
+    Map<ObjectID, ServerMapRequestID> requests = new HashMap<ObjectID, ServerMapRequestID>();
+    List<ObjectID> maps = mapIDs.getAllValues();
+    for (int i = 0; i < maps.size(); i++) {
+      requests.put(maps.get(i), requestIDs.getAllValues().get(i));
+    }
+    assertEquals(count, new HashSet<ObjectID>(maps).size());
+    return requests;
+  }
+
+  private void respond(ObjectID mapID, ServerMapRequestID requestID, Object key, Object value) {
+    ServerMapGetValueResponse response = new ServerMapGetValueResponse(requestID);
+    response.put(key, value);
+    manager.addResponseForKeyValueMapping(SESSION, mapID, Collections.singleton(response), GROUP_ID);
+  }
+
+  private class SingleGet extends Thread {
+    private final ObjectID                mapID;
+    private final Object                  key;
+    private final AtomicReference<Object> result = new AtomicReference<Object>();
+
+    SingleGet(ObjectID mapID, Object key) {
+      this.mapID = mapID;
+      this.key = key;
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        result.set(manager.getMappingForKey(mapID, key));
+      } catch (Throwable t) {
+        result.set(t);
+      }
+    }
+  }
+
+  private class BulkGet extends Thread {
+    private final Map<ObjectID, Set<Object>>   keys;
+    private final Map<Object, Object>          rv;
+    private final AtomicReference<Throwable>   error = new AtomicReference<Throwable>();
+
+    BulkGet(Map<ObjectID, Set<Object>> keys, Map<Object, Object> rv) {
+      this.keys = keys;
+      this.rv = rv;
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        manager.getMappingForAllKeys(keys, rv);
+      } catch (Throwable t) {
+        error.set(t);
+      }
+    }
+  }
+}
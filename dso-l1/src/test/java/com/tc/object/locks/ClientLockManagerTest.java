@@ -60,7 +60,9 @@ import com.tc.util.runtime.ThreadIDMap;
 import com.tc.util.runtime.ThreadIDMapImpl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -1279,6 +1281,106 @@ public class ClientLockManagerTest extends TCTestCase {
     assertEquals(1, rmtLockManager.getUnlockRequestCount());
   }
 
+  public void testLockAllSendsEveryRequestBeforeWaiting() throws Exception {
+    final LockID lidA = new StringLockID("a");
+    final LockID lidB = new StringLockID("b");
+    final LockID lidC = new StringLockID("c");
+    final List<LockID> requested = Collections.synchronizedList(new ArrayList<LockID>());
+    final CountDownLatch allRequested = new CountDownLatch(3);
+    final AtomicBoolean awardedEarly = new AtomicBoolean(false);
+
+    rmtLockManager = new TestRemoteLockManager(sessionManager) {
+      @Override
+      public void tryLock(final LockID lockID, final ThreadID threadID, final ServerLockLevel level, final long timeout) {
+        requested.add(lockID);
+        allRequested.countDown();
+        new Thread() {
+          @Override
+          public void run() {
+            try {
+              // a lockAll that waited on each lock in turn would never get here in time
+              if (!allRequested.await(30, TimeUnit.SECONDS)) {
+                awardedEarly.set(true);
+              }
+            } catch (InterruptedException e) {
+              throw new TCRuntimeException(e);
+            }
+            lockManager.award(gid, sessionManager.getSessionID(gid), lockID, threadID, level);
+          }
+        }.start();
+      }
+    };
+    lockManager = new ClientLockManagerImpl(new NullTCLogger(), sessionManager, rmtLockManager, threadManager,
+                                            new NullClientLockManagerConfig(), ABORTABLE_OPERATION_MANAGER, taskRunner);
+    rmtLockManager.setClientLockManager(lockManager);
+
+    threadManager.setThreadID(new ThreadID(1));
+    lockManager.lockAll(Arrays.asList(lidC, lidA, lidB, lidA), LockLevel.WRITE);
+
+    assertFalse(awardedEarly.get());
+    assertEquals(Arrays.asList(lidA, lidB, lidC), requested);
+    assertEquals(0, rmtLockManager.getLockRequestCount());
+    for (LockID lid : Arrays.asList(lidA, lidB, lidC)) {
+      assertTrue(lockManager.isLockedByCurrentThread(lid, LockLevel.WRITE));
+    }
+
+    lockManager.unlockAll(Arrays.asList(lidA, lidB, lidC), LockLevel.WRITE);
+    assertEquals(3, rmtLockManager.getUnlockRequestCount());
+    for (LockID lid : Arrays.asList(lidA, lidB, lidC)) {
+      assertFalse(lockManager.isLockedByCurrentThread(lid, LockLevel.WRITE));
+    }
+  }
+
+  public void testLockAllFallsBackToLockOrderWhenRefused() throws Exception {
+    final LockID lidA = new StringLockID("a");
+    final LockID lidB = new StringLockID("b");
+    final LockID lidC = new StringLockID("c");
+    final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+    rmtLockManager = new TestRemoteLockManager(sessionManager) {
+      @Override
+      public void tryLock(final LockID lockID, final ThreadID threadID, final ServerLockLevel level, final long timeout) {
+        requests.add("tryLock " + lockID);
+        new Thread() {
+          @Override
+          public void run() {
+            if (lidB.equals(lockID)) {
+              lockManager.refuse(gid, sessionManager.getSessionID(gid), lockID, threadID, level);
+            } else {
+              lockManager.award(gid, sessionManager.getSessionID(gid), lockID, threadID, level);
+            }
+          }
+        }.start();
+      }
+
+      @Override
+      public synchronized void lock(final LockID lockID, final ThreadID threadID, final ServerLockLevel level) {
+        requests.add("lock " + lockID);
+        super.lock(lockID, threadID, level);
+      }
+
+      @Override
+      public synchronized void unlock(final LockID lockID, final ThreadID threadID, final ServerLockLevel level) {
+        requests.add("unlock " + lockID);
+        super.unlock(lockID, threadID, level);
+      }
+    };
+    lockManager = new ClientLockManagerImpl(new NullTCLogger(), sessionManager, rmtLockManager, threadManager,
+                                            new NullClientLockManagerConfig(), ABORTABLE_OPERATION_MANAGER, taskRunner);
+    rmtLockManager.setClientLockManager(lockManager);
+
+    threadManager.setThreadID(new ThreadID(1));
+    lockManager.lockAll(Arrays.asList(lidC, lidB, lidA), LockLevel.WRITE);
+
+    // c was granted out of order, so it is handed back before blocking on b
+    assertEquals(Arrays.asList("tryLock " + lidA, "tryLock " + lidB, "tryLock " + lidC, "unlock " + lidC,
+                               "lock " + lidB, "lock " + lidC), requests);
+    for (LockID lid : Arrays.asList(lidA, lidB, lidC)) {
+      assertTrue(lockManager.isLockedByCurrentThread(lid, LockLevel.WRITE));
+    }
+    lockManager.unlockAll(Arrays.asList(lidA, lidB, lidC), LockLevel.WRITE);
+  }
+
   public void testTryLockIfServerTakesTime() throws Exception {
     assertEquals(0, rmtLockManager.getLockRequestCount());
     assertEquals(0, rmtLockManager.getUnlockRequestCount());
@@ -551,6 +551,59 @@ public class ClientLockTest extends TestCase {
     }
   }
 
+  public void testGreedyReadHonorsLeaseWhileReadersAreActive() throws Exception {
+    ClientLock lock = getFreshClientLock();
+
+    try {
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock, RemoteOperation.LOCK),
+                new ThreadID(1), LockLevel.READ);
+      checkLockQueryMethods(lock, 0, 0, hold(new ThreadID(1), LockLevel.READ));
+
+      assertTrue(lock.recall(new AssertingGreedyRemoteLockManager(lock), ServerLockLevel.WRITE, 100, false));
+
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock), new ThreadID(2),
+                LockLevel.READ);
+      checkLockQueryMethods(lock, 0, 0, hold(new ThreadID(1), LockLevel.READ), hold(new ThreadID(2), LockLevel.READ));
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(2), LockLevel.READ);
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.READ);
+      checkLockQueryMethods(lock, 0, 0);
+
+      // lease expiry
+      assertFalse(lock.recall(new AssertingGreedyRemoteLockManager(lock, RemoteOperation.TXN_FLUSHED,
+                                                                   RemoteOperation.RECALL_COMMIT),
+                              ServerLockLevel.WRITE, -1, false));
+
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock, RemoteOperation.LOCK),
+                new ThreadID(1), LockLevel.READ);
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.READ);
+      checkLockQueryMethods(lock, 0, 0);
+    } catch (GarbageLockException e) {
+      Assert.failure("Unexpected Exception ", e);
+    }
+  }
+
+  public void testIdleGreedyReadIgnoresLease() throws Exception {
+    ClientLock lock = getFreshClientLock();
+
+    try {
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock, RemoteOperation.LOCK),
+                new ThreadID(1), LockLevel.READ);
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.READ);
+      checkLockQueryMethods(lock, 0, 0);
+
+      assertFalse(lock.recall(new AssertingGreedyRemoteLockManager(lock, RemoteOperation.TXN_FLUSHED,
+                                                                   RemoteOperation.RECALL_COMMIT),
+                              ServerLockLevel.WRITE, 100, false));
+
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock, RemoteOperation.LOCK),
+                new ThreadID(1), LockLevel.READ);
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.READ);
+      checkLockQueryMethods(lock, 0, 0);
+    } catch (GarbageLockException e) {
+      Assert.failure("Unexpected Exception ", e);
+    }
+  }
+
   public void testGreedyWriteFunctionality() throws Exception {
     ClientLock lock = getFreshClientLock();
 
@@ -142,6 +142,18 @@ public class MockClientLockManager implements ClientLockManager {
     this.begins.add(new Begin(lock, level));
   }
 
+  @Override
+  public void lockAll(Collection<LockID> locks, LockLevel level) {
+    for (LockID lock : locks) {
+      lock(lock, level);
+    }
+  }
+
+  @Override
+  public void unlockAll(Collection<LockID> locks, LockLevel level) {
+    this.unlockCount += locks.size();
+  }
+
   @Override
   public void lockInterruptibly(LockID lock, LockLevel level) {
     throw new ImplementMe();
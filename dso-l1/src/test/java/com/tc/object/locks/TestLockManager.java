@@ -64,6 +64,20 @@ public class TestLockManager implements ClientLockManager {
     this.locks.add(new Object[] { id, level });
   }
 
+  @Override
+  public void lockAll(final Collection<LockID> ids, final LockLevel level) {
+    for (LockID id : ids) {
+      lock(id, level);
+    }
+  }
+
+  @Override
+  public void unlockAll(final Collection<LockID> ids, final LockLevel level) {
+    for (LockID id : ids) {
+      unlock(id, level);
+    }
+  }
+
   @Override
   public void wait(final LockID lockID, Object waitObject) {
     this.waitCalls.add(new Object[] { lockID, null });
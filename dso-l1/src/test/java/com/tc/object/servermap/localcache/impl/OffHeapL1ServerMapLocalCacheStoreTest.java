@@ -0,0 +1,186 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object.servermap.localcache.impl;
+
+import com.tc.object.ObjectID;
+import com.tc.object.servermap.localcache.L1ServerMapLocalCacheStore;
+import com.tc.object.servermap.localcache.L1ServerMapLocalCacheStoreListener;
+import com.tc.object.servermap.localcache.LocalCacheStoreFullException;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class OffHeapL1ServerMapLocalCacheStoreTest extends TestCase {
+
+  public void testRoundTrip() {
+    OffHeapL1ServerMapLocalCacheStore<Object, Object> store = new OffHeapL1ServerMapLocalCacheStore<Object, Object>(
+                                                                                                                   1024 * 1024,
+                                                                                                                   4);
+    assertNull(store.put("key", "value"));
+    assertNull(store.put(new ObjectID(42), "key"));
+    assertNull(store.put(Long.valueOf(7), new Integer[] { 1, 2, 3 }));
+
+    assertEquals("value", store.get("key"));
+    assertEquals("key", store.get(new ObjectID(42)));
+    assertEquals(3, ((Integer[]) store.get(Long.valueOf(7))).length);
+    assertTrue(store.containsKeyOffHeap("key"));
+    assertFalse(store.containsKeyOnHeap("key"));
+    assertNull(store.get("missing"));
+
+    assertEquals("value", store.put("key", "other"));
+    assertEquals("other", store.get("key"));
+    assertEquals(3, store.getKeys().size());
+    assertEquals(1, store.size());
+
+    assertEquals("other", store.remove("key"));
+    assertNull(store.get("key"));
+
+    store.clear();
+    assertEquals(0, store.getKeys().size());
+    assertEquals(0, store.offHeapSizeInBytes());
+  }
+
+  public void testConditionalRemove() {
+    OffHeapL1ServerMapLocalCacheStore<Object, Object> store = new OffHeapL1ServerMapLocalCacheStore<Object, Object>(
+                                                                                                                   64 * 1024,
+                                                                                                                   1);
+    store.put("key", "value");
+    assertNull(store.remove("key", "other"));
+    assertEquals("value", store.get("key"));
+    assertEquals("value", store.remove("key", "value"));
+    assertNull(store.get("key"));
+  }
+
+  public void testCapacityEvictionNotifiesListeners() {
+    final long capacity = 256 * 1024;
+    OffHeapL1ServerMapLocalCacheStore<Object, Object> store = new OffHeapL1ServerMapLocalCacheStore<Object, Object>(
+                                                                                                                   capacity,
+                                                                                                                   4);
+    EvictionRecorder recorder = new EvictionRecorder();
+    store.addListener(recorder);
+
+    final int count = 10000;
+    for (int i = 0; i < count; i++) {
+      store.put("key-" + i, new byte[100]);
+      assertTrue(store.offHeapSizeInBytes() <= capacity);
+    }
+
+    Set<Object> present = new HashSet<Object>(store.getKeys());
+    assertFalse(recorder.evicted.isEmpty());
+    assertEquals(count, present.size() + recorder.evicted.size());
+    for (Object key : recorder.evicted.keySet()) {
+      assertFalse(present.contains(key));
+      assertNull(store.get(key));
+      assertEquals(100, ((byte[]) recorder.evicted.get(key)).length);
+    }
+    assertTrue(store.offHeapSizeInBytes() > 0);
+    assertTrue(store.onHeapSizeInBytes() > 0);
+  }
+
+  public void testRecentlyReadEntriesSurviveEviction() {
+    OffHeapL1ServerMapLocalCacheStore<Object, Object> store = new OffHeapL1ServerMapLocalCacheStore<Object, Object>(
+                                                                                                                   64 * 1024,
+                                                                                                                   1);
+    store.put("hot", new byte[100]);
+    for (int i = 0; i < 5000; i++) {
+      store.put("cold-" + i, new byte[100]);
+      assertNotNull(store.get("hot"));
+    }
+  }
+
+  public void testHeapLimitsDoNotCapOffHeap() {
+    OffHeapL1ServerMapLocalCacheStore<Object, Object> store = new OffHeapL1ServerMapLocalCacheStore<Object, Object>(
+                                                                                                                   1024 * 1024,
+                                                                                                                   1);
+    EvictionRecorder recorder = new EvictionRecorder();
+    store.addListener(recorder);
+    store.setMaxEntriesLocalHeap(100);
+    store.setMaxBytesLocalHeap(1024);
+    assertEquals(0, store.getMaxElementsInMemory());
+
+    for (int i = 0; i < 1000; i++) {
+      store.put("key-" + i, "value-" + i);
+    }
+    assertEquals(1000, store.getKeys().size());
+    assertTrue(recorder.evicted.isEmpty());
+  }
+
+  public void testFailedPutKeepsPreviousValue() {
+    OffHeapL1ServerMapLocalCacheStore<Object, Object> store = new OffHeapL1ServerMapLocalCacheStore<Object, Object>(
+                                                                                                                   64 * 1024,
+                                                                                                                   1);
+    store.put("key", "value");
+    try {
+      store.put("key", new byte[128 * 1024]);
+      fail();
+    } catch (LocalCacheStoreFullException e) {
+      // expected
+    }
+    assertEquals("value", store.get("key"));
+    assertEquals("value", store.put("key", "other"));
+  }
+
+  public void testLargeEntries() {
+    OffHeapL1ServerMapLocalCacheStore<Object, Object> store = new OffHeapL1ServerMapLocalCacheStore<Object, Object>(
+                                                                                                                   64 * 1024,
+                                                                                                                   1);
+    for (int i = 0; i < 100; i++) {
+      store.put("small-" + i, "value-" + i);
+    }
+    for (int i = 0; i < 20; i++) {
+      store.put("large-" + i, new byte[10 * 1024]);
+      assertTrue(store.offHeapSizeInBytes() <= 64 * 1024);
+    }
+    assertEquals(10 * 1024, ((byte[]) store.get("large-19")).length);
+
+    try {
+      store.put("too-large", new byte[128 * 1024]);
+      fail();
+    } catch (LocalCacheStoreFullException e) {
+      // expected
+    }
+    assertNotNull(store.get("large-19"));
+  }
+
+  private static class EvictionRecorder implements L1ServerMapLocalCacheStoreListener<Object, Object> {
+    private final Map<Object, Object> evicted = new HashMap<Object, Object>();
+
+    @Override
+    public void notifyElementEvicted(Object key, Object value) {
+      evicted.put(key, value);
+    }
+
+    @Override
+    public void notifyElementsEvicted(Map<Object, Object> evictedElements) {
+      evicted.putAll(evictedElements);
+    }
+
+    @Override
+    public void notifyElementExpired(Object key, Object value) {
+      //
+    }
+
+    @Override
+    public void notifyDisposed(L1ServerMapLocalCacheStore store) {
+      //
+    }
+  }
+}
@@ -16,19 +16,34 @@
  */
 package com.tc.l2.context;
 
-import com.tc.async.api.EventContext;
+import com.tc.async.api.MultiThreadedEventContext;
 import com.tc.net.NodeID;
 
-public class SyncObjectsRequest implements EventContext {
+/**
+ * Asks for the next batch of objects to sync to a passive. Requests are keyed by sync stream, so the requests of
+ * different streams are dehydrated on different threads of the object sync request stage.
+ */
+public class SyncObjectsRequest implements MultiThreadedEventContext {
 
   private final NodeID nodeID;
+  private final int    streamIndex;
 
-  public SyncObjectsRequest(NodeID nodeID) {
+  public SyncObjectsRequest(NodeID nodeID, int streamIndex) {
     this.nodeID = nodeID;
+    this.streamIndex = streamIndex;
   }
   
   public NodeID getNodeID() {
     return nodeID;
   }
 
+  public int getStreamIndex() {
+    return streamIndex;
+  }
+
+  @Override
+  public Object getKey() {
+    return streamIndex;
+  }
+
 }
@@ -194,9 +194,11 @@ public class L2HACoordinator implements L2Coordinator, GroupEventsListener, Sequ
                              MAX_STAGE_SIZE).getSink();
 
     final L2ObjectSyncAckManager objectSyncAckManager = new L2ObjectSyncAckManagerImpl(transactionManager, groupManager);
+    // every passive sync stream dehydrates its batches on its own thread
     final Sink objectsSyncRequestSink = stageManager.createStage(ServerConfigurationContext.OBJECTS_SYNC_REQUEST_STAGE,
                                                                  new L2ObjectSyncRequestHandler(this.sequenceGenerator,
-                                                                                                objectStateManager), 1,
+                                                                                                objectStateManager),
+                                                                 objectStateManager.getSyncStreams(),
                                                                  MAX_STAGE_SIZE).getSink();
     final Sink objectsSyncSink = stageManager.createStage(ServerConfigurationContext.OBJECTS_SYNC_STAGE,
                                                           new L2ObjectSyncHandler(serverTransactionFactory,
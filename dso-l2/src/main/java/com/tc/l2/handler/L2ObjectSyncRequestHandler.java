@@ -102,6 +102,9 @@ public class L2ObjectSyncRequestHandler extends AbstractEventHandler {
     ManagedObjectSyncContext mosc = l2ObjectStateMgr.getSomeObjectsToSyncContext(nodeID, L2_OBJECT_SYNC_BATCH_SIZE);
     if (mosc != null) {
       doSyncObjectsDehydrate(mosc);
+    } else {
+      // no idle stream with objects left, hand the unused slot of the sync window back
+      l2ObjectStateMgr.ackSync(nodeID);
     }
   }
 
@@ -192,7 +192,7 @@ public class L2ObjectSyncSendHandler extends AbstractEventHandler {
     replicatedTransactionManager = l2Coordinator.getReplicatedTransactionManager();
   }
 
-  private static class SyncLogger {
+  private class SyncLogger {
 
     public void logSynced(final ManagedObjectSyncContext mosc) {
       final int last = mosc.getTotalObjectsSynced();
@@ -202,9 +202,11 @@ public class L2ObjectSyncSendHandler extends AbstractEventHandler {
       final int currentPercent = (int) ((current * 100L) / totalObjectsToSync);
 
       if (currentPercent > lastPercent) {
+        final long remaining = objectStateManager.getEstimatedTimeToSyncCompletion(mosc.getNodeID());
         logger.info("Sent " + current + " (" + currentPercent + "%) objects out of " + mosc.getTotalObjectsToSync()
                     + " to " + mosc.getNodeID()
-                    + (mosc.getRootsMap().size() == 0 ? "" : " roots = " + mosc.getRootsMap().size()));
+                    + (mosc.getRootsMap().size() == 0 ? "" : " roots = " + mosc.getRootsMap().size())
+                    + (remaining < 0 ? "" : ", about " + (remaining / 1000) + " secs remaining"));
       }
     }
   }
@@ -42,10 +42,21 @@ public interface L2ObjectStateManager {
 
   public void registerForL2ObjectStateChangeEvents(L2ObjectStateListener listener);
 
+  /**
+   * @return the number of streams each passive is synced over, at least 1
+   */
+  public int getSyncStreams();
+
   public void initiateSync(NodeID nodeID, Runnable syncRunnable);
 
   public void syncMore(NodeID nodeID);
 
   public void ackSync(NodeID nodeID);
 
+  /**
+   * @return the estimated time in milliseconds until all objects are synced to the given passive, based on the rate so
+   *         far. 0 once synced, -1 if the passive is not known or no batch has completed yet.
+   */
+  public long getEstimatedTimeToSyncCompletion(NodeID nodeID);
+
 }
\ No newline at end of file
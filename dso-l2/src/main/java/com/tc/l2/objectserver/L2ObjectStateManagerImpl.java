@@ -26,7 +26,6 @@ import com.tc.objectserver.tx.ServerTransactionManager;
 import com.tc.objectserver.tx.TxnsInSystemCompletionListener;
 import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
-import com.tc.util.Assert;
 import com.tc.util.BitSetObjectIDSet;
 import com.tc.util.ObjectIDSet;
 import com.tc.util.State;
@@ -49,9 +48,16 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
   private final ServerTransactionManager transactionManager;
   private final CopyOnWriteSequentialMap<NodeID, SyncExecutorContext> syncExecutorContextMap = new CopyOnWriteSequentialMap<NodeID, SyncExecutorContext>();
   private final int                      syncMaxPendingMsgs;
+  private final int                      syncStreams;
   private long                           currentSessionId       = 0;
 
   public L2ObjectStateManagerImpl(final ObjectManager objectManager, final ServerTransactionManager transactionManager) {
+    this(objectManager, transactionManager, TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_OBJECTMANAGER_PASSIVE_SYNC_STREAMS));
+  }
+
+  public L2ObjectStateManagerImpl(final ObjectManager objectManager, final ServerTransactionManager transactionManager,
+                                  final int syncStreams) {
     this.objectManager = objectManager;
     this.transactionManager = transactionManager;
     int maxSyncPendingMsgs = TCPropertiesImpl.getProperties()
@@ -62,6 +68,10 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
                   + ")");
     }
     this.syncMaxPendingMsgs = (maxSyncPendingMsgs <= 0) ? Integer.MAX_VALUE : maxSyncPendingMsgs;
+    if (syncStreams <= 0) {
+      logger.warn("Passive Object Sync streams set to " + syncStreams + ", using a single stream");
+    }
+    this.syncStreams = Math.max(1, syncStreams);
   }
 
   @Override
@@ -150,6 +160,11 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
     return this.nodes.values();
   }
 
+  @Override
+  public int getSyncStreams() {
+    return this.syncStreams;
+  }
+
   @Override
   public void initiateSync(NodeID nodeID, Runnable syncRunnable) {
     ThrottledTaskExecutor throttledTaskExecutor = new ThrottledTaskExecutor(syncMaxPendingMsgs);
@@ -158,7 +173,10 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
     if (o != null) {
       logger.warn("initiateSync: Passive Sync Context already available for " + nodeID);
     }
-    syncPassive(throttledTaskExecutor, syncRunnable);
+    // one request per stream, each closed batch asks for the next one through syncMore()
+    for (int i = 0; i < this.syncStreams; i++) {
+      syncPassive(throttledTaskExecutor, syncRunnable);
+    }
   }
 
   @Override
@@ -185,6 +203,12 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
     }
   }
 
+  @Override
+  public long getEstimatedTimeToSyncCompletion(final NodeID nodeID) {
+    final L2ObjectStateImpl l2State = this.nodes.get(nodeID);
+    return l2State != null ? l2State.getEstimatedTimeToSyncCompletion() : -1;
+  }
+
   @Override
   public String toString() {
     StringBuilder strBuilder = new StringBuilder();
@@ -222,15 +246,15 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
 
     private final NodeID             nodeID;
 
-    private ObjectIDSet              missingOids;
+    private SyncStream[]             streams;
     private Map                      missingRoots;
 
     private volatile State           state          = START;
 
-    private ManagedObjectSyncContext syncingContext = null;
-
     private int                      totalObjectsToSync;
     private int                      totalObjectsSynced;
+    private long                     syncStartTime;
+    private int                      nextStream;
     private final long               sessionId;
 
     public L2ObjectStateImpl(final NodeID nodeID, final long currentSessionId) {
@@ -238,19 +262,19 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
       this.sessionId = currentSessionId;
     }
 
-    private void close(final ManagedObjectSyncContext mosc) {
+    private synchronized void close(final ManagedObjectSyncContext mosc) {
       if (this.sessionId != mosc.getSessionId()) {
         logger.warn("An old request for object sync for " + this.nodeID + " is being ignored");
         return;
       }
-      if (mosc != this.syncingContext) { throw new AssertionError("expected: " + this.syncingContext + " actual: "
-                                                                  + mosc); }
-      this.syncingContext = null;
+      final SyncStream stream = getStreamSyncing(mosc);
+      if (stream == null) { throw new AssertionError("No sync stream for " + this.nodeID + " is syncing " + mosc); }
+      stream.syncingContext = null;
       // NotSynchedOids are picked up first as its a stored set and thus prefetching that happened is not a waste.
-      missingOids.addAll(mosc.getNotSynchedOids());
+      stream.missingOids.addAll(mosc.getNotSynchedOids());
       totalObjectsSynced += mosc.getSynchedOids().size();
       totalObjectsSynced += mosc.getDeletedOids().size();
-      if (this.missingOids.isEmpty()) {
+      if (this.state == SYNC_STARTED && !isAnyStreamSyncing() && !hasMissingObjects()) {
         this.state = IN_SYNC_PENDING_NOTIFY;
         L2ObjectStateManagerImpl.this.transactionManager
             .callBackOnTxnsInSystemCompletion(new TxnsInSystemCompletionListener() {
@@ -262,57 +286,123 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
       }
     }
 
-    private ManagedObjectSyncContext getSomeObjectsToSyncContext(final int count) {
-      Assert.assertTrue(this.state == SYNC_STARTED);
-      Assert.assertNull(this.syncingContext);
+    private synchronized ManagedObjectSyncContext getSomeObjectsToSyncContext(final int count) {
+      // with several streams a request can still be on its way when the last batch closed
+      if (this.state != SYNC_STARTED) { return null; }
       if (isRootsMissing()) { return getMissingRootsSynccontext(); }
+      final SyncStream stream = nextStreamToSync();
+      if (stream == null) { return null; }
       final ObjectIDSet oids = new BitSetObjectIDSet();
-      addSomeMissingObjectIDsTo(oids, count);
-      this.syncingContext = new ManagedObjectSyncContext(this.nodeID, oids, !this.missingOids.isEmpty(),
-                                                         this.totalObjectsToSync, this.totalObjectsSynced,
-                                                         this.sessionId);
-      return this.syncingContext;
+      addSomeMissingObjectIDsTo(stream, oids, count);
+      stream.syncingContext = new ManagedObjectSyncContext(this.nodeID, oids, hasMissingObjects(),
+                                                           this.totalObjectsToSync, this.totalObjectsSynced,
+                                                           this.sessionId);
+      return stream.syncingContext;
     }
 
-    private void addSomeMissingObjectIDsTo(final ObjectIDSet oids, int count) {
-      for (final Iterator<ObjectID> i = this.missingOids.iterator(); i.hasNext() && --count >= 0;) {
+    private void addSomeMissingObjectIDsTo(final SyncStream stream, final ObjectIDSet oids, int count) {
+      for (final Iterator<ObjectID> i = stream.missingOids.iterator(); i.hasNext() && --count >= 0;) {
         oids.add(i.next());
         i.remove();
       }
     }
 
     private ManagedObjectSyncContext getMissingRootsSynccontext() {
+      final SyncStream stream = this.streams[0];
+      if (stream.syncingContext != null) { return null; }
       final ObjectIDSet oids = new BitSetObjectIDSet();
       // NOTE:: some root IDs might not be present in this mirror group in AA config
       for (final Iterator i = this.missingRoots.values().iterator(); i.hasNext();) {
         final ObjectID rootID = (ObjectID) i.next();
-        if (this.missingOids.remove(rootID)) {
-          oids.add(rootID);
+        for (SyncStream s : this.streams) {
+          if (s.missingOids.remove(rootID)) {
+            oids.add(rootID);
+            break;
+          }
         }
       }
       if (oids.isEmpty()) {
         // Get some objects anyways
-        addSomeMissingObjectIDsTo(oids, this.missingRoots.size());
+        addSomeMissingObjectIDsTo(stream, oids, this.missingRoots.size());
       }
-      this.syncingContext = new ManagedObjectSyncContext(this.nodeID, new HashMap<String, ObjectID>(this.missingRoots), oids,
-                                                         !this.missingOids.isEmpty(), this.totalObjectsToSync,
-                                                         this.totalObjectsSynced, this.sessionId);
+      stream.syncingContext = new ManagedObjectSyncContext(this.nodeID,
+                                                           new HashMap<String, ObjectID>(this.missingRoots), oids,
+                                                           hasMissingObjects(), this.totalObjectsToSync,
+                                                           this.totalObjectsSynced, this.sessionId);
       this.missingRoots.clear();
-      return this.syncingContext;
+      return stream.syncingContext;
+    }
+
+    /**
+     * Picks the next idle stream that has objects left, in turn. An idle stream that has run dry takes over the upper
+     * half of the largest busy stream, so that all streams keep going until the very end of the sync.
+     */
+    private SyncStream nextStreamToSync() {
+      SyncStream largestBusy = null;
+      SyncStream idle = null;
+      for (int i = 0; i < this.streams.length; i++) {
+        final SyncStream stream = this.streams[(this.nextStream + i) % this.streams.length];
+        if (stream.syncingContext != null) {
+          if (largestBusy == null || stream.missingOids.size() > largestBusy.missingOids.size()) {
+            largestBusy = stream;
+          }
+        } else if (!stream.missingOids.isEmpty()) {
+          this.nextStream = stream.id + 1;
+          return stream;
+        } else if (idle == null) {
+          idle = stream;
+        }
+      }
+      if (idle == null || largestBusy == null || largestBusy.missingOids.size() < 2) { return null; }
+      moveUpperHalf(largestBusy.missingOids, idle.missingOids);
+      this.nextStream = idle.id + 1;
+      return idle;
     }
 
     private boolean isRootsMissing() {
       return !this.missingRoots.isEmpty();
     }
 
-    private int computeDiff() {
-      this.missingOids = L2ObjectStateManagerImpl.this.objectManager.getAllObjectIDs();
+    private boolean hasMissingObjects() {
+      for (SyncStream stream : this.streams) {
+        if (!stream.missingOids.isEmpty()) { return true; }
+      }
+      return false;
+    }
+
+    private boolean isAnyStreamSyncing() {
+      for (SyncStream stream : this.streams) {
+        if (stream.syncingContext != null) { return true; }
+      }
+      return false;
+    }
+
+    private SyncStream getStreamSyncing(final ManagedObjectSyncContext mosc) {
+      for (SyncStream stream : this.streams) {
+        if (stream.syncingContext == mosc) { return stream; }
+      }
+      return null;
+    }
+
+    private int getMissingCount() {
+      int missing = 0;
+      for (SyncStream stream : this.streams) {
+        missing += stream.missingOids.size();
+      }
+      return missing;
+    }
+
+    private synchronized int computeDiff() {
+      final ObjectIDSet allOids = L2ObjectStateManagerImpl.this.objectManager.getAllObjectIDs();
       this.missingRoots = L2ObjectStateManagerImpl.this.objectManager.getRootNamesToIDsMap();
-      final int objectCount = this.missingOids.size();
-      this.totalObjectsToSync = this.missingOids.size();
-      logger.info(this.nodeID + " : is missing " + this.missingOids.size() + " out of " + objectCount
-                  + " objects of which missing roots = " + this.missingRoots.size());
-      final int missingCount = this.missingOids.size();
+      this.streams = partition(allOids, L2ObjectStateManagerImpl.this.syncStreams);
+      final int objectCount = allOids.size();
+      this.totalObjectsToSync = objectCount;
+      this.syncStartTime = System.currentTimeMillis();
+      final int missingCount = getMissingCount();
+      logger.info(this.nodeID + " : is missing " + missingCount + " out of " + objectCount
+                  + " objects of which missing roots = " + this.missingRoots.size() + ", syncing over "
+                  + this.streams.length + " streams");
       if (missingCount == 0) {
         this.state = IN_SYNC;
       } else {
@@ -321,15 +411,23 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
       return missingCount;
     }
 
+    private synchronized long getEstimatedTimeToSyncCompletion() {
+      if (this.state == IN_SYNC || this.state == IN_SYNC_PENDING_NOTIFY) { return 0; }
+      if (this.state != SYNC_STARTED || this.totalObjectsSynced == 0) { return -1; }
+      final long elapsed = System.currentTimeMillis() - this.syncStartTime;
+      final long remaining = Math.max(0, this.totalObjectsToSync - this.totalObjectsSynced);
+      return remaining * elapsed / this.totalObjectsSynced;
+    }
+
     @Override
     public NodeID getNodeID() {
       return this.nodeID;
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
       return "L2StateObjectImpl [ " + this.nodeID + " ] : "
-             + (this.missingOids != null ? "missing = " + this.missingOids.size() : "") + " state = " + this.state;
+             + (this.streams != null ? "missing = " + getMissingCount() : "") + " state = " + this.state;
     }
 
     private void moveToReadyToSyncState() {
@@ -343,4 +441,52 @@ public class L2ObjectStateManagerImpl implements L2ObjectStateManager {
       fireObjectSyncCompleteEvent(this.nodeID);
     }
   }
+
+  /**
+   * Splits the ids into contiguous partitions of about the same size, one per stream, so that each stream walks its own
+   * part of the object store in order.
+   */
+  static SyncStream[] partition(final ObjectIDSet oids, final int count) {
+    final SyncStream[] streams = new SyncStream[count];
+    if (count == 1) {
+      streams[0] = new SyncStream(0, oids);
+      return streams;
+    }
+    final int perStream = (oids.size() + count - 1) / count;
+    final Iterator<ObjectID> i = oids.iterator();
+    for (int s = 0; s < count; s++) {
+      final ObjectIDSet part = new BitSetObjectIDSet();
+      for (int n = 0; n < perStream && i.hasNext(); n++) {
+        part.add(i.next());
+      }
+      streams[s] = new SyncStream(s, part);
+    }
+    return streams;
+  }
+
+  static void moveUpperHalf(final ObjectIDSet from, final ObjectIDSet to) {
+    int skip = from.size() / 2;
+    for (final Iterator<ObjectID> i = from.iterator(); i.hasNext();) {
+      final ObjectID oid = i.next();
+      if (--skip < 0) {
+        to.add(oid);
+        i.remove();
+      }
+    }
+  }
+
+  /**
+   * One of the parallel pipelines syncing objects to a passive. Each stream has at most one batch being dehydrated and
+   * sent at a time, the streams of a passive share its window of unacknowledged sync messages.
+   */
+  static final class SyncStream {
+    private final int                id;
+    private final ObjectIDSet        missingOids;
+    private ManagedObjectSyncContext syncingContext;
+
+    SyncStream(final int id, final ObjectIDSet missingOids) {
+      this.id = id;
+      this.missingOids = missingOids;
+    }
+  }
 }
@@ -35,4 +35,10 @@ public interface L2PassiveSyncStateManager extends StateSyncManager {
 
   public boolean addL2(NodeID nodeID, State l2State);
 
+  /**
+   * @return the estimated time in milliseconds until the object sync to the given passive completes, 0 once it has
+   *         completed and -1 if there is no estimate yet.
+   */
+  public long getEstimatedTimeToObjectSyncCompletion(NodeID nodeID);
+
 }
\ No newline at end of file
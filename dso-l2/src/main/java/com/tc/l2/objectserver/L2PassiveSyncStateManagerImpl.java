@@ -77,6 +77,11 @@ public class L2PassiveSyncStateManagerImpl implements L2PassiveSyncStateManager
     this.stateSyncManager.indexSyncComplete(nodeID);
   }
 
+  @Override
+  public long getEstimatedTimeToObjectSyncCompletion(NodeID nodeID) {
+    return this.objectStateManager.getEstimatedTimeToSyncCompletion(nodeID);
+  }
+
   @Override
   public boolean isSyncComplete(NodeID nodeID) {
     return this.stateSyncManager.isSyncComplete(nodeID);
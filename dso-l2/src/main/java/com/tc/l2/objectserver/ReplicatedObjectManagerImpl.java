@@ -63,6 +63,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ReplicatedObjectManagerImpl implements ReplicatedObjectManager, GroupMessageListener,
     L2ObjectStateListener, L2IndexStateListener {
@@ -314,10 +315,15 @@ public class ReplicatedObjectManagerImpl implements ReplicatedObjectManager, Gro
       this.passiveSyncStateManager.objectSyncComplete(nodeID);
       moveNodeToPassiveStandByIfPossible(nodeID);
     } else {
+      final int syncStreams = this.l2ObjectStateManager.getSyncStreams();
       final Runnable syncRunnable = new Runnable() {
+        private final AtomicInteger requests = new AtomicInteger();
+
         @Override
         public void run() {
-          objectsSyncRequestSink.add(new SyncObjectsRequest(nodeID));
+          // spread the requests over the streams so that each one is dehydrated on its own stage thread
+          final int stream = (requests.getAndIncrement() & Integer.MAX_VALUE) % syncStreams;
+          objectsSyncRequestSink.add(new SyncObjectsRequest(nodeID, stream));
         }
       };
       this.l2ObjectStateManager.initiateSync(nodeID, syncRunnable);
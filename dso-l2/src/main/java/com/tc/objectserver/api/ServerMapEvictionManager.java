@@ -36,6 +36,12 @@ public interface ServerMapEvictionManager extends PostInit, PrettyPrintable {
   public void evict(ObjectID oid, Map<Object, EvictableEntry> samples, String className, String cacheName);
   
   public SampledCounter getExpirationStatistics();
+
+  /**
+   * @return milliseconds spent on expiration only eviction passes, alongside the expired entry counts of
+   *         {@link #getExpirationStatistics()}
+   */
+  public SampledCounter getExpirationTimeStatistics();
   
   public SampledCounter getEvictionStatistics();
 
@@ -31,6 +31,8 @@ public interface DSOGlobalServerStats {
 
   SampledCounter getExpirationRateCounter();
 
+  SampledCounter getExpirationTimeCounter();
+
   ObjectManagerStats getObjectManagerStats();
 
   SampledCounter getBroadcastCounter();
@@ -36,6 +36,7 @@ public class DSOGlobalServerStatsImpl implements DSOGlobalServerStats {
   private final SampledRateCounter       changesPerBroadcast;
   private final SampledRateCounter       transactionSizeCounter;
   private SampledCounter                 operationCounter;
+  private SampledCounter                 expirationTimeCounter;
 
   private SampledCumulativeCounter serverMapGetSizeRequestsCounter;
   private SampledCumulativeCounter serverMapGetValueRequestsCounter;
@@ -70,6 +71,11 @@ public class DSOGlobalServerStatsImpl implements DSOGlobalServerStats {
     this.operationCounter = operationCounter;
   }
 
+  public DSOGlobalServerStatsImpl expirationTimeCounter(final SampledCounter counter) {
+    this.expirationTimeCounter = counter;
+    return this;
+  }
+
   public DSOGlobalServerStatsImpl serverMapGetSizeRequestsCounter(final SampledCumulativeCounter counter) {
     this.serverMapGetSizeRequestsCounter = counter;
     return this;
@@ -152,4 +158,9 @@ public class DSOGlobalServerStatsImpl implements DSOGlobalServerStats {
   public SampledCounter getExpirationRateCounter() {
     return expirationRateCounter;
   }
+
+  @Override
+  public SampledCounter getExpirationTimeCounter() {
+    return expirationTimeCounter;
+  }
 }
@@ -30,6 +30,8 @@ public interface GarbageCollectionInfoPublisher {
 
   public void fireGCMarkResultsEvent(GarbageCollectionInfo info);
 
+  public void fireGCMarkSliceEvent(GarbageCollectionInfo info, long sliceMillis, long objectsMarked);
+
   public void fireGCRescue1CompleteEvent(GarbageCollectionInfo info);
 
   public void fireGCPausingEvent(GarbageCollectionInfo info);
@@ -25,7 +25,7 @@ import com.tc.util.concurrent.LifeCycleState;
 public interface GarbageCollector extends PrettyPrintable {
 
   public static enum GCType {
-    FULL_GC, INLINE_CLEANUP_GC
+    FULL_GC, INLINE_CLEANUP_GC, INCREMENTAL_GC
   }
 
   public static final State GC_DISABLED = new State("GC_DISABLED");
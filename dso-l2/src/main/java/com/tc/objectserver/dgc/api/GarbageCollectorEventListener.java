@@ -26,6 +26,8 @@ public interface GarbageCollectorEventListener {
 
   public void garbageCollectorMarkResults(GarbageCollectionInfo info);
 
+  public void garbageCollectorMarkSlice(GarbageCollectionInfo info, long sliceMillis, long objectsMarked);
+
   public void garbageCollectorRescue1Complete(GarbageCollectionInfo info);
 
   public void garbageCollectorPausing(GarbageCollectionInfo info);
@@ -16,9 +16,12 @@
  */
 package com.tc.objectserver.dgc.impl;
 
+import com.tc.object.ObjectID;
 import com.tc.objectserver.api.ObjectManager;
 import com.tc.objectserver.l1.api.ClientStateManager;
 
+import java.util.Set;
+
 public abstract class AbstractGCHook extends DGCRequestThrottler implements GCHook {
   protected final MarkAndSweepGarbageCollector collector;
   protected final ClientStateManager           stateManager;
@@ -42,6 +45,11 @@ public abstract class AbstractGCHook extends DGCRequestThrottler implements GCHo
     this.collector.stopMonitoringReferenceChanges();
   }
 
+  @Override
+  public void drainNewReferencesTo(Set<ObjectID> ids) {
+    this.collector.drainNewReferencesTo(ids);
+  }
+
   @Override
   public void waitUntilReadyToGC() {
     this.objectManager.waitUntilReadyToGC();
@@ -26,4 +26,10 @@ public interface ChangeCollector extends ManagedObjectChangeListener {
   public final ChangeCollector NULL_CHANGE_COLLECTOR = new NullChangeCollector();
 
   public Set<ObjectID> addNewReferencesTo(Set<ObjectID> set);
+
+  /**
+   * Like {@link #addNewReferencesTo(Set)} but forgets the references handed over, so each new reference is only
+   * reported once.
+   */
+  public Set<ObjectID> drainNewReferencesTo(Set<ObjectID> set);
 }
\ No newline at end of file
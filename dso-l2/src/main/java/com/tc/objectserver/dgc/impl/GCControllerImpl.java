@@ -19,13 +19,30 @@ package com.tc.objectserver.dgc.impl;
 import com.tc.management.beans.object.ObjectManagementMonitor.GCController;
 import com.tc.objectserver.dgc.api.GarbageCollector;
 import com.tc.objectserver.dgc.api.GarbageCollector.GCType;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 
 public class GCControllerImpl implements GCController {
 
   private final GarbageCollector collector;
+  private final GCType           type;
 
   public GCControllerImpl(GarbageCollector collector) {
+    this(collector, configuredFullGCType());
+  }
+
+  public GCControllerImpl(GarbageCollector collector, GCType type) {
     this.collector = collector;
+    this.type = type;
+  }
+
+  /**
+   * The kind of full collection to run, the incremental mark is opt-in through
+   * {@link TCPropertiesConsts#L2_OBJECTMANAGER_DGC_INCREMENTAL_ENABLED}.
+   */
+  public static GCType configuredFullGCType() {
+    return TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_OBJECTMANAGER_DGC_INCREMENTAL_ENABLED) ? GCType.INCREMENTAL_GC
+        : GCType.FULL_GC;
   }
 
   @Override
@@ -40,7 +57,7 @@ public class GCControllerImpl implements GCController {
 
   @Override
   public void startGC() {
-    this.collector.doGC(GCType.FULL_GC);
+    this.collector.doGC(this.type);
   }
 
 }
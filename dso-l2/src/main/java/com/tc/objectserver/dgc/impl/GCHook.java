@@ -48,4 +48,9 @@ public interface GCHook {
 
   public ObjectIDSet getRescueIDs();
 
+  /**
+   * Hands over the references created since the last call, the write barrier of an incremental mark.
+   */
+  public void drainNewReferencesTo(Set<ObjectID> ids);
+
 }
\ No newline at end of file
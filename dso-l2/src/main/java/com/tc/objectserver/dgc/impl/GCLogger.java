@@ -50,6 +50,10 @@ public class GCLogger {
     if (verboseGC()) logGC(id, "pre-rescue DGC results: " + size);
   }
 
+  public void log_markSlice(GarbageCollectionID id, long sliceMillis, long count) {
+    if (verboseGC()) logGC(id, "incremental mark slice: " + count + " objects in " + sliceMillis + " ms.");
+  }
+
   public void log_quiescing(GarbageCollectionID id) {
     if (verboseGC()) logGC(id, "quiescing...");
   }
@@ -45,6 +45,12 @@ public class GCLoggerEventPublisher extends GarbageCollectorEventListenerAdapter
     gcLogger.log_markResults(info.getGarbageCollectionID(), info.getPreRescueCount());
   }
 
+  @Override
+  public void garbageCollectorMarkSlice(GarbageCollectionInfo info, long sliceMillis, long objectsMarked) {
+    if (info.isInlineDGC()) { return; }
+    gcLogger.log_markSlice(info.getGarbageCollectionID(), sliceMillis, objectsMarked);
+  }
+
   @Override
   public void garbageCollectorRescue1Complete(GarbageCollectionInfo info) {
     if (info.isInlineDGC()) { return; }
@@ -80,6 +80,14 @@ public class GarbageCollectionInfoPublisherImpl implements GarbageCollectionInfo
     }
   }
 
+  @Override
+  public void fireGCMarkSliceEvent(GarbageCollectionInfo info, long sliceMillis, long objectsMarked) {
+    for (Iterator iter = this.garbageCollectionEventListeners.iterator(); iter.hasNext();) {
+      GarbageCollectorEventListener listener = (GarbageCollectorEventListener) iter.next();
+      listener.garbageCollectorMarkSlice(info, sliceMillis, objectsMarked);
+    }
+  }
+
   @Override
   public void fireGCRescue1CompleteEvent(GarbageCollectionInfo info) {
     for (Iterator iter = this.garbageCollectionEventListeners.iterator(); iter.hasNext();) {
@@ -49,6 +49,11 @@ public abstract class GarbageCollectorEventListenerAdapter implements GarbageCol
     //
   }
 
+  @Override
+  public void garbageCollectorMarkSlice(GarbageCollectionInfo info, long sliceMillis, long objectsMarked) {
+    //
+  }
+
   @Override
   public void garbageCollectorPaused(GarbageCollectionInfo info) {
     //
@@ -0,0 +1,151 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.dgc.impl;
+
+import com.tc.object.ObjectID;
+import com.tc.objectserver.core.api.Filter;
+import com.tc.objectserver.dgc.api.GarbageCollectionInfo;
+import com.tc.objectserver.dgc.api.GarbageCollectionInfoPublisher;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+import com.tc.util.BitSetObjectIDSet;
+import com.tc.util.ObjectIDSet;
+import com.tc.util.concurrent.LifeCycleState;
+import com.tc.util.concurrent.ThreadUtil;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tri-color mark done in bounded time slices, with a pause between slices so that transactions keep flowing while a
+ * large object graph is walked.
+ * <p>
+ * White objects are the ones still in the candidate set, grey ones are queued for a visit and black ones have been
+ * visited and dropped from both. References written while marking are fed in through the reference collector (the
+ * write barrier) and shaded grey at the start of every slice, so the final paused rescue only has to deal with what
+ * changed since the last slice.
+ */
+final class IncrementalMarker {
+
+  static final long                            SLICE_MILLIS                = TCPropertiesImpl
+                                                                               .getProperties()
+                                                                               .getLong(TCPropertiesConsts.L2_OBJECTMANAGER_DGC_INCREMENTAL_SLICE_TIME);
+  static final long                            PAUSE_BETWEEN_SLICES_MILLIS = TCPropertiesImpl
+                                                                               .getProperties()
+                                                                               .getLong(TCPropertiesConsts.L2_OBJECTMANAGER_DGC_INCREMENTAL_PAUSE_TIME);
+
+  private final GCHook                         gcHook;
+  private final Filter                         filter;
+  private final ObjectIDSet                    white;
+  private final BitSetObjectIDSet              grey                        = new BitSetObjectIDSet();
+  private final GarbageCollectionInfo          gcInfo;
+  private final GarbageCollectionInfoPublisher gcPublisher;
+  private final LifeCycleState                 gcState;
+  private final long                           sliceNanos;
+  private final long                           pauseBetweenSlicesMillis;
+
+  private int                                  sliceCount                  = 0;
+  private long                                 longestSliceMillis          = 0;
+
+  IncrementalMarker(GCHook gcHook, Filter filter, ObjectIDSet candidateIDs, GarbageCollectionInfo gcInfo,
+                    GarbageCollectionInfoPublisher gcPublisher, LifeCycleState gcState) {
+    this(gcHook, filter, candidateIDs, gcInfo, gcPublisher, gcState, SLICE_MILLIS, PAUSE_BETWEEN_SLICES_MILLIS);
+  }
+
+  IncrementalMarker(GCHook gcHook, Filter filter, ObjectIDSet candidateIDs, GarbageCollectionInfo gcInfo,
+                    GarbageCollectionInfoPublisher gcPublisher, LifeCycleState gcState, long sliceMillis,
+                    long pauseBetweenSlicesMillis) {
+    this.gcHook = gcHook;
+    this.filter = filter;
+    this.white = candidateIDs;
+    this.gcInfo = gcInfo;
+    this.gcPublisher = gcPublisher;
+    this.gcState = gcState;
+    this.sliceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, sliceMillis));
+    this.pauseBetweenSlicesMillis = pauseBetweenSlicesMillis;
+  }
+
+  /**
+   * Marks everything reachable from the given ids and returns the objects left white. Can be called again with more
+   * ids (client held references for instance) to continue the same mark.
+   */
+  ObjectIDSet mark(Collection<ObjectID> fromIDs) {
+    for (ObjectID id : fromIDs) {
+      if (white.remove(id)) {
+        grey.add(id);
+      }
+    }
+
+    while (!gcState.isStopRequested()) {
+      shadeNewReferences();
+      if (grey.isEmpty() || white.isEmpty()) {
+        break;
+      }
+      markSlice();
+      if (pauseBetweenSlicesMillis > 0) {
+        ThreadUtil.reallySleep(pauseBetweenSlicesMillis);
+      }
+    }
+    return white;
+  }
+
+  int getSliceCount() {
+    return sliceCount;
+  }
+
+  long getLongestSliceMillis() {
+    return longestSliceMillis;
+  }
+
+  private void markSlice() {
+    final long start = System.nanoTime();
+    long marked = 0;
+    while (!grey.isEmpty() && !white.isEmpty()) {
+      ObjectID id = grey.first();
+      grey.remove(id);
+      for (ObjectID ref : gcHook.getObjectReferencesFrom(id)) {
+        if (ref == null) {
+          // see CDV-765
+          MarkAndSweepGarbageCollector.logger.error("null value returned from getObjectReferences() on " + id);
+          continue;
+        }
+        if (ref.isNull() || !white.remove(ref)) continue;
+        if (filter.shouldVisit(ref)) grey.add(ref);
+      }
+      marked++;
+      if (System.nanoTime() - start >= sliceNanos || gcState.isStopRequested()) {
+        break;
+      }
+    }
+
+    final long sliceMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    sliceCount++;
+    longestSliceMillis = Math.max(longestSliceMillis, sliceMillis);
+    gcPublisher.fireGCMarkSliceEvent(gcInfo, sliceMillis, marked);
+  }
+
+  private void shadeNewReferences() {
+    Set<ObjectID> newReferences = new BitSetObjectIDSet();
+    gcHook.drainNewReferencesTo(newReferences);
+    for (ObjectID id : newReferences) {
+      if (white.remove(id) && filter.shouldVisit(id)) {
+        grey.add(id);
+      }
+    }
+  }
+}
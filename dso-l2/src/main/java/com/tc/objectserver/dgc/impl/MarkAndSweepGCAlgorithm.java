@@ -40,10 +40,20 @@ final class MarkAndSweepGCAlgorithm {
   private final GarbageCollector               collector;
   private final GarbageCollectionInfoPublisher gcPublisher;
   private final LifeCycleState                 gcState;
+  private final boolean                        incremental;
   private final String                         uuid = UUID.getUUID().toString();
 
   public MarkAndSweepGCAlgorithm(GarbageCollector collector, GCHook gcHook, GarbageCollectionInfoPublisher gcPublisher,
                                  LifeCycleState gcState, long gcIteration) {
+    this(collector, gcHook, gcPublisher, gcState, gcIteration, false);
+  }
+
+  /**
+   * @param incremental mark in time slices while tracking reference changes, see {@link IncrementalMarker}
+   */
+  public MarkAndSweepGCAlgorithm(GarbageCollector collector, GCHook gcHook, GarbageCollectionInfoPublisher gcPublisher,
+                                 LifeCycleState gcState, long gcIteration, boolean incremental) {
+    this.incremental = incremental;
     this.collector = collector;
     this.gcHook = gcHook;
     this.gcPublisher = gcPublisher;
@@ -71,14 +81,21 @@ final class MarkAndSweepGCAlgorithm {
 
     if (gcState.isStopRequested()) { return; }
 
-    ObjectIDSet gcResults = collect(gcHook.getCollectCycleFilter(candidateIDs), rootIDs, candidateIDs, gcState);
+    final Filter collectFilter = gcHook.getCollectCycleFilter(candidateIDs);
+    final IncrementalMarker marker = incremental ? new IncrementalMarker(gcHook, collectFilter, candidateIDs, gcInfo,
+                                                                         gcPublisher, gcState) : null;
+    ObjectIDSet gcResults = incremental ? marker.mark(rootIDs) : collect(collectFilter, rootIDs, candidateIDs, gcState);
     gcInfo.setPreRescueCount(gcResults.size());
     gcPublisher.fireGCMarkResultsEvent(gcInfo);
 
     if (gcState.isStopRequested()) { return; }
 
     long startRescue1 = System.currentTimeMillis();
-    gcResults = rescue(gcResults);
+    // the incremental mark carries on from the client held references, its write barrier already covers the rest
+    gcResults = incremental ? marker.mark(gcHook.getRescueIDs()) : rescue(gcResults);
+    if (incremental) {
+      logIncrementalMark(marker);
+    }
     long rescue1Time = System.currentTimeMillis() - startRescue1;
     gcInfo.setRescue1Time(rescue1Time);
     gcInfo.setRescue1Count(gcResults.size());
@@ -195,6 +212,12 @@ final class MarkAndSweepGCAlgorithm {
     return collect(rescueFilter, rescueIds, gcResults, gcState);
   }
 
+  private void logIncrementalMark(IncrementalMarker marker) {
+    if (MarkAndSweepGarbageCollector.logger.isDebugEnabled()) MarkAndSweepGarbageCollector.logger
+        .debug("incremental mark: " + marker.getSliceCount() + " slices, longest " + marker.getLongestSliceMillis()
+               + " ms.");
+  }
+
   private void logstart_collect(Collection rootIds, Set managedObjectIds) {
     if (MarkAndSweepGarbageCollector.logger.isDebugEnabled()) MarkAndSweepGarbageCollector.logger
         .debug("collect(): rootIds=" + rootIds.size() + ", managedObjectIds=" + managedObjectIds.size());
@@ -66,6 +66,7 @@ public class MarkAndSweepGarbageCollector extends AbstractGarbageCollector {
     GCHook hook = null;
     switch (type) {
       case FULL_GC:
+      case INCREMENTAL_GC:
         hook = new FullGCHook(this, this.objectManager, this.stateManager, false);
         break;
       case INLINE_CLEANUP_GC:
@@ -73,7 +74,8 @@ public class MarkAndSweepGarbageCollector extends AbstractGarbageCollector {
         break;
     }
     final MarkAndSweepGCAlgorithm gcAlgo = new MarkAndSweepGCAlgorithm(this, hook, this.gcPublisher, this.gcState,
-                                                                       this.dgcSequenceProvider.getNextId());
+                                                                       this.dgcSequenceProvider.getNextId(),
+                                                                       type == GCType.INCREMENTAL_GC);
     gcAlgo.doGC();
   }
 
@@ -107,6 +109,10 @@ public class MarkAndSweepGarbageCollector extends AbstractGarbageCollector {
     this.referenceCollector.addNewReferencesTo(rescueIds);
   }
 
+  public void drainNewReferencesTo(final Set ids) {
+    this.referenceCollector.drainNewReferencesTo(ids);
+  }
+
   /**
    * Used for Tests.
    */
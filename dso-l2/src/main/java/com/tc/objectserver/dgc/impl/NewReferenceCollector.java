@@ -36,4 +36,11 @@ public class NewReferenceCollector implements ChangeCollector {
     return set;
   }
 
+  @Override
+  public synchronized Set<ObjectID> drainNewReferencesTo(Set<ObjectID> set) {
+    set.addAll(this.newReferences);
+    this.newReferences.clear();
+    return set;
+  }
+
 }
\ No newline at end of file
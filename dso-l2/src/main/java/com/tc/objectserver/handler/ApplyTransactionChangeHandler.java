@@ -17,6 +17,7 @@
 package com.tc.objectserver.handler;
 
 import com.tc.async.api.AbstractEventHandler;
+import com.tc.async.api.BatchEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventContext;
 import com.tc.async.api.Sink;
@@ -42,9 +43,11 @@ import com.tc.objectserver.locks.LockManager;
 import com.tc.objectserver.locks.NotifiedWaiters;
 import com.tc.objectserver.locks.ServerLock;
 import com.tc.objectserver.managedobject.ApplyTransactionInfo;
+import com.tc.objectserver.persistence.GroupCommitStats;
 import com.tc.objectserver.tx.ServerTransaction;
 import com.tc.objectserver.tx.ServerTransactionManager;
 import com.tc.objectserver.tx.TransactionalObjectManager;
+import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.concurrent.TaskRunner;
 import com.tc.util.concurrent.Timer;
@@ -53,6 +56,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -60,10 +64,17 @@ import java.util.concurrent.TimeUnit;
 /**
  * Applies all the changes in a transaction then releases the objects and passes the changes off to be broadcast to the
  * interested client sessions
+ * <p>
+ * When the stage hands over a drained batch, completed transaction groupings are not committed one by one: each apply
+ * thread keeps its persistence transaction open across the batch so that the object and transaction descriptor writes
+ * of up to <code>l2.objectmanager.persistor.groupCommit.maxTransactions</code> server transactions go to disk in a
+ * single commit. A grouping is never held back longer than
+ * <code>l2.objectmanager.persistor.groupCommit.maxDelayInMillis</code>, and never past the end of the batch, so the
+ * handler never waits for more work to arrive.
  * 
  * @author steve
  */
-public class ApplyTransactionChangeHandler extends AbstractEventHandler {
+public class ApplyTransactionChangeHandler extends AbstractEventHandler implements BatchEventHandler {
 
   private static final int                 LWM_UPDATE_INTERVAL = TCPropertiesImpl.getProperties()
                                                                    .getInt("lwm.update.intervalInMillis", 10000);
@@ -79,6 +90,10 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
   private final TransactionProvider        persistenceTransactionProvider;
 
   private final ThreadLocal<CommitContext> localCommitContext  = new ThreadLocal<CommitContext>();
+  private final ThreadLocal<Boolean>       inBatch             = new ThreadLocal<Boolean>();
+  private final int                        groupCommitMaxTxns;
+  private final long                       groupCommitMaxDelayNanos;
+  private final GroupCommitStats           groupCommitStats    = new GroupCommitStats();
   private GarbageCollectionManager         garbageCollectionManager;
   private final ServerEventBuffer          eventBuffer;
   private final ClientChannelMonitor       clientChannelMonitor;
@@ -88,11 +103,25 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
                                        final TransactionProvider persistenceTransactionProvider,
                                        final TaskRunner taskRunner, final ServerEventBuffer eventBuffer,
                                        final ClientChannelMonitor clientChannelMonitor) {
+    this(instanceMonitor, gtxm, evictions, persistenceTransactionProvider, taskRunner, eventBuffer,
+         clientChannelMonitor, TCPropertiesImpl.getProperties()
+             .getInt(TCPropertiesConsts.L2_OBJECTMANAGER_PERSISTOR_GROUP_COMMIT_MAX_TXNS, 1), TCPropertiesImpl
+             .getProperties().getLong(TCPropertiesConsts.L2_OBJECTMANAGER_PERSISTOR_GROUP_COMMIT_MAX_DELAY, 0));
+  }
+
+  public ApplyTransactionChangeHandler(final ObjectInstanceMonitor instanceMonitor,
+                                       final GlobalTransactionManager gtxm, final ServerMapEvictionManager evictions,
+                                       final TransactionProvider persistenceTransactionProvider,
+                                       final TaskRunner taskRunner, final ServerEventBuffer eventBuffer,
+                                       final ClientChannelMonitor clientChannelMonitor, final int groupCommitMaxTxns,
+                                       final long groupCommitMaxDelayMillis) {
     this.instanceMonitor = instanceMonitor;
     this.serverEvictions = evictions;
     this.persistenceTransactionProvider = persistenceTransactionProvider;
     this.eventBuffer = eventBuffer;
     this.clientChannelMonitor = clientChannelMonitor;
+    this.groupCommitMaxTxns = Math.max(1, groupCommitMaxTxns);
+    this.groupCommitMaxDelayNanos = TimeUnit.MILLISECONDS.toNanos(groupCommitMaxDelayMillis);
     final Timer timer = taskRunner.newTimer("Apply Transaction Change Timer");
     timer.scheduleAtFixedRate(new Runnable() {
       @Override
@@ -100,6 +129,43 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
         lowWaterMark = gtxm.getLowGlobalTransactionIDWatermark();
       }
     }, 0, LWM_UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+    if (TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_OBJECTMANAGER_PERSISTOR_LOGGING_ENABLED,
+                                                    false)) {
+      timer.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          if (groupCommitStats.getCommitCount() > 0) {
+            getLogger().info("Group commit " + groupCommitStats.getDetails());
+            groupCommitStats.reset();
+          }
+        }
+      }, 5, 5, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Handles the drained batch with the same per event logic as {@link #handleEvent(EventContext)} but lets completed
+   * groupings share a persistence commit, flushing whatever is still pending once the batch is done.
+   */
+  @Override
+  public void handleEventBatch(final List<EventContext> contexts) {
+    inBatch.set(Boolean.TRUE);
+    try {
+      for (EventContext context : contexts) {
+        handleEvent(context);
+      }
+    } finally {
+      inBatch.remove();
+    }
+    CommitContext pending = localCommitContext.get();
+    if (pending != null && pending.isReadyToCommit()) {
+      pending.flush();
+      localCommitContext.set(null);
+    }
+  }
+
+  public GroupCommitStats getGroupCommitStats() {
+    return groupCommitStats;
   }
 
   @Override
@@ -203,16 +269,41 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
     private final Map<String, ObjectID>           newRoots         = new HashMap<String, ObjectID>();
     private final Collection<ServerTransactionID> stxIDs           = new HashSet<ServerTransactionID>();
     private final Collection<ManagedObject>       objectsToRelease = new ArrayList<ManagedObject>();
+    private long                                  readySince       = -1;
 
     boolean commit(Collection<ManagedObject> moreObjectsToRelease, boolean done) {
       objectsToRelease.addAll(moreObjectsToRelease);
-      if (done) {
-        transaction.commit();
-        transactionManager.commit(objectsToRelease, newRoots, stxIDs);
-        return true;
-      } else {
+      if (!done && !isReadyToCommit()) { return false; }
+      if (canDefer()) {
+        if (readySince < 0) {
+          readySince = System.nanoTime();
+        }
         return false;
       }
+      flush();
+      return true;
+    }
+
+    boolean isReadyToCommit() {
+      return readySince >= 0;
+    }
+
+    /**
+     * A completed grouping may wait for later ones only while the stage is feeding this thread a batch and neither
+     * the size nor the time bound of the group commit window has been reached.
+     */
+    private boolean canDefer() {
+      if (inBatch.get() == null || groupCommitMaxDelayNanos <= 0 || stxIDs.size() >= groupCommitMaxTxns) {
+        return false;
+      }
+      return readySince < 0 || System.nanoTime() - readySince < groupCommitMaxDelayNanos;
+    }
+
+    void flush() {
+      final long start = System.nanoTime();
+      transaction.commit();
+      groupCommitStats.commitCompleted(stxIDs.size(), System.nanoTime() - start);
+      transactionManager.commit(objectsToRelease, newRoots, stxIDs);
     }
 
     boolean commit(Collection<ManagedObject> objectsToReleaseParam, Map<String, ObjectID> moreRoots,
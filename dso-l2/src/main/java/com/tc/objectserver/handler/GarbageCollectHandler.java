@@ -29,6 +29,7 @@ import com.tc.objectserver.context.PeriodicGarbageCollectContext;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.dgc.api.GarbageCollector;
 import com.tc.objectserver.dgc.api.GarbageCollector.GCType;
+import com.tc.objectserver.dgc.impl.GCControllerImpl;
 import com.tc.objectserver.impl.ObjectManagerConfig;
 import com.tc.util.concurrent.LifeCycleState;
 import com.tc.util.concurrent.ThreadUtil;
@@ -43,6 +44,7 @@ public class GarbageCollectHandler extends AbstractEventHandler {
   private final Timer                          timer          = new Timer("GarbageCollectHandler Timer");
   private final boolean                        fullGCEnabled;
   private final long                           fullGCInterval;
+  private final GCType                         fullGCType;
   private final LifeCycleState                 gcState        = new GCState();
   private volatile boolean                     gcRunning      = false;
   private GarbageCollector                     collector;
@@ -52,6 +54,7 @@ public class GarbageCollectHandler extends AbstractEventHandler {
   public GarbageCollectHandler(final ObjectManagerConfig objectManagerConfig) {
     this.fullGCEnabled = objectManagerConfig.doGC();
     this.fullGCInterval = objectManagerConfig.gcThreadSleepTime();
+    this.fullGCType = GCControllerImpl.configuredFullGCType();
   }
 
   @Override
@@ -108,7 +111,7 @@ public class GarbageCollectHandler extends AbstractEventHandler {
     @Override
     public void start() {
       if (fullGCEnabled) {
-        gcSink.add(new PeriodicGarbageCollectContext(GCType.FULL_GC, fullGCInterval));
+        gcSink.add(new PeriodicGarbageCollectContext(fullGCType, fullGCInterval));
         collector.setPeriodicEnabled(true);
       }
     }
@@ -703,9 +703,12 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
                      new SyncWriteTransactionReceivedHandler(channelManager), 4, maxStageSize);
 
     int searchThreads = TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_SEDA_SEARCH_THREADS);
+    int searchDrainBatchSize = TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_SEDA_SEARCH_DRAIN_BATCH_SIZE, 1);
 
     final Stage searchEventStage = stageManager.createStage(ServerConfigurationContext.SEARCH_EVENT_STAGE,
-                                                            new SearchEventHandler(), searchThreads, 1, maxStageSize);
+                                                            new SearchEventHandler(), searchThreads, 1, maxStageSize,
+                                                            searchDrainBatchSize);
 
     int queryThreads = TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_SEDA_QUERY_THREADS);
     final Stage searchQueryRequestStage = stageManager
@@ -776,7 +779,10 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     registerForDump(new CallbackDumpAdapter(gtxm));
 
     final TransactionalStagesCoordinatorImpl txnStageCoordinator = new TransactionalStagesCoordinatorImpl(stageManager);
-    this.txnObjectManager = new TransactionalObjectManagerImpl(this.objectManager, gtxm, txnStageCoordinator);
+    // The transactional object manager routes each transaction grouping to one of the apply stage's worker queues
+    int applyStageThreads = L2Utils.getOptimalApplyStageWorkerThreads(restartable || hybrid);
+    this.txnObjectManager = new TransactionalObjectManagerImpl(this.objectManager, gtxm, txnStageCoordinator,
+                                                               applyStageThreads);
 
     final CallbackDumpAdapter txnObjMgrDumpAdapter = new CallbackDumpAdapter(this.txnObjectManager);
     this.dumpHandler.registerForDump(txnObjMgrDumpAdapter);
@@ -883,12 +889,15 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
                              new ServerMapEvictionHandler(this.serverMapEvictor), 8, TCPropertiesImpl.getProperties()
                                  .getInt(TCPropertiesConsts.L2_SEDA_EVICTION_PROCESSORSTAGE_SINK_SIZE));
     
+    // Only a restartable store pays for a commit with an fsync, so only then let apply threads group commit
+    int groupCommitMaxTxns = restartable ? tcProperties
+        .getInt(TCPropertiesConsts.L2_OBJECTMANAGER_PERSISTOR_GROUP_COMMIT_MAX_TXNS) : 1;
     // Lookup stage should never be blocked trying to add to apply stage
-    int applyStageThreads = L2Utils.getOptimalApplyStageWorkerThreads(restartable || hybrid);
     stageManager.createStage(ServerConfigurationContext.APPLY_CHANGES_STAGE,
                              new ApplyTransactionChangeHandler(instanceMonitor, this.transactionManager, this.serverMapEvictor,
-                             persistor.getPersistenceTransactionProvider(), taskRunner, serverEventbuffer, clientChannelMonitorImpl),
-                             applyStageThreads, 1, -1);
+                             persistor.getPersistenceTransactionProvider(), taskRunner, serverEventbuffer, clientChannelMonitorImpl,
+                             groupCommitMaxTxns, tcProperties.getLong(TCPropertiesConsts.L2_OBJECTMANAGER_PERSISTOR_GROUP_COMMIT_MAX_DELAY)),
+                             applyStageThreads, 1, -1, groupCommitMaxTxns);
 
     txnStageCoordinator.lookUpSinks();
     
@@ -1046,7 +1055,8 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
                                                                                   .getExpirationStatistics(),
                                                                               globalOperationCounter);
 
-    serverStats.serverMapGetSizeRequestsCounter(globalServerMapGetSizeRequestsCounter)
+    serverStats.expirationTimeCounter(serverMapEvictor.getExpirationTimeStatistics())
+        .serverMapGetSizeRequestsCounter(globalServerMapGetSizeRequestsCounter)
         .serverMapGetValueRequestsCounter(globalServerMapGetValueRequestsCounter)
         .serverMapGetSnapshotRequestsCounter(globalServerMapGetSnapshotRequestsCounter);
 
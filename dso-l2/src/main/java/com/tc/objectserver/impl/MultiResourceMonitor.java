@@ -182,7 +182,7 @@ public class MultiResourceMonitor implements ResourceEventProducer {
         } else {
           if ( warned ) {
             for (ResourceEventListener listener : listeners) {
-              listener.resourcesConstrained(rsrc);
+              listener.resourcesFreed(rsrc);
             }
             warned = false;
           }
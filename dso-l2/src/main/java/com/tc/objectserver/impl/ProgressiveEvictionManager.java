@@ -39,6 +39,7 @@ import com.tc.objectserver.core.api.ManagedObject;
 import com.tc.objectserver.core.api.ManagedObjectState;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.l1.impl.ClientObjectReferenceSet;
+import com.tc.objectserver.managedobject.ConcurrentDistributedServerMapManagedObjectState;
 import com.tc.objectserver.persistence.PersistentCollectionsUtil;
 import com.tc.operatorevent.TerracottaOperatorEvent;
 import com.tc.operatorevent.TerracottaOperatorEventFactory;
@@ -57,13 +58,16 @@ import com.tc.util.ObjectIDSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -73,6 +77,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author mscott
@@ -91,6 +96,12 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
                                                                                            .getProperties()
                                                                                            .getBoolean(TCPropertiesConsts.EHCACHE_STORAGESTRATEGY_DCV2_PERIODICEVICTION_ENABLED,
                                                                                                        true);
+  private static final int                        EMERGENCY_PARALLELISM               = TCPropertiesImpl
+                                                                                          .getProperties()
+                                                                                          .getInt(TCPropertiesConsts.L2_EVICTION_EMERGENCY_PARALLELISM,
+                                                                                                  4);
+  // emergency turns can fire on every resource poll, refreshing client references that often buys nothing
+  private static final long                       REFERENCE_REFRESH_INTERVAL          = TimeUnit.SECONDS.toNanos(1);
   private final ServerMapEvictionEngine           evictor;
   private final ResourceEventProducer             trigger; 
   private final Collection<MonitoredResource>     resources;
@@ -103,11 +114,16 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
   private ThreadGroup                             evictionGrp;
   private final Responder                         responder                           = new Responder();
   private final SampledCounter                    expirationStats;
+  private final SampledCounter                    expirationTimeStats;
   private final SampledCounter                    evictionStats;
   private final ResourceManager                   resourceManager;
   private final EvictionThreshold                 threshold;
   private final AggregateSampleRateCounter        pulse                               = new AggregateSampleRateCounter();
   private final AtomicInteger                     emergencyCount                      = new AtomicInteger();
+  private final ServerMapEvictionStatsManager     evictionStatsManager                = new ServerMapEvictionStatsManager();
+  // map sizes seen by the last eviction pass over each map, used to evict from the biggest maps first in an emergency
+  private final Map<ObjectID, Integer>            lastKnownSizes                      = new ConcurrentHashMap<ObjectID, Integer>();
+  private final AtomicLong                        lastReferenceRefresh                = new AtomicLong();
 
   private final static Future<SampledRateCounter> completedFuture                     = new Future<SampledRateCounter>() {
 
@@ -146,6 +162,11 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
     return expirationStats;
   }
 
+  @Override
+  public SampledCounter getExpirationTimeStatistics() {
+    return expirationTimeStats;
+  }
+
   @Override
   public SampledCounter getEvictionStatistics() {
     return evictionStats;
@@ -233,6 +254,7 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
 
     this.evictionStats = (SampledCounter) counterManager.createCounter(new SampledCounterConfig(1, 100, true, 0));
     this.expirationStats = (SampledCounter) counterManager.createCounter(new SampledCounterConfig(1, 100, true, 0));
+    this.expirationTimeStats = (SampledCounter) counterManager.createCounter(new SampledCounterConfig(1, 100, true, 0));
   }
   
   private static MonitoredResource getEvictionBasedResource(Collection<MonitoredResource> list, boolean hybrid) {
@@ -267,6 +289,11 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
     schedulePeriodicEvictionRun(null);
   }
   
+  // used only for tests
+  ResourceEventListener getResponder() {
+    return responder;
+  }
+
     // used only for tests
   ServerMapEvictionEngine getEngine() {
     return evictor;
@@ -359,6 +386,7 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
         if (evictor.isLogging()) {
           log("Managed object gone : " + oid);
         }
+        lastKnownSizes.remove(oid);
         isDone = true;
       } else {
         if ( evictor.markEvictionInProgress(oid) ) {
@@ -368,6 +396,7 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
         final String className = state.getClassName();
 
         EvictableMap ev = getEvictableMapFrom(mo.getID(), state);
+        lastKnownSizes.put(oid, ev.getSize());
         // ignore start eviction status
         if ( !triggerParam.startEviction(ev) ) {
           this.objectManager.releaseReadOnly(mo);
@@ -381,6 +410,11 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
           triggerParam.completeEviction(ev);
           this.objectManager.releaseReadOnly(mo);
 
+          if (triggerParam instanceof PeriodicEvictionTrigger
+              && ((PeriodicEvictionTrigger) triggerParam).isExpirationOnly()) {
+            expirationTimeStats.increment(triggerParam.getRuntimeInMillis());
+          }
+
           if (context != null) {
             int size = context.getRandomSamples().size();
             if (triggerParam instanceof PeriodicEvictionTrigger
@@ -417,37 +451,102 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
       max = Integer.MAX_VALUE;
     }
 
-    return triggerParam.collectEvictionCandidates(max, className, ev, clientObjectReferenceSet);
+    if (!(ev instanceof ConcurrentDistributedServerMapManagedObjectState)
+        || !((ConcurrentDistributedServerMapManagedObjectState) ev).isFrequencyAware()) {
+      return triggerParam.collectEvictionCandidates(max, className, ev, clientObjectReferenceSet);
+    }
+
+    final ConcurrentDistributedServerMapManagedObjectState cdsm = (ConcurrentDistributedServerMapManagedObjectState) ev;
+    final long start = System.nanoTime();
+    final ServerMapEvictionContext context = triggerParam.collectEvictionCandidates(max, className, ev,
+                                                                                    clientObjectReferenceSet);
+    evictionStatsManager.frequencyAwareSampling(triggerParam.getId(), cdsm.drainReadHits(), cdsm.drainReadMisses(),
+                                                cdsm.drainSamplesExamined(),
+                                                context == null ? 0 : context.getRandomSamples().size(),
+                                                System.nanoTime() - start);
+    return context;
   }
 
+  /**
+   * Evicts from every evictable map with at most {@link #EMERGENCY_PARALLELISM} maps in flight at once. Maps are
+   * visited biggest first, as far as sizes are known from earlier eviction passes, so that memory is released as early
+   * in the run as possible.
+   */
   Future<SampledRateCounter> emergencyEviction(final int blowout) {
     final ObjectIDSet evictableObjects = store.getAllEvictableObjectIDs();
-    List<Future<SampledRateCounter>> push = new ArrayList<Future<SampledRateCounter>>(evictableObjects.size());
-    Random r = new Random();
-    List<ObjectID> list = new ArrayList<ObjectID>(evictableObjects);
+    final Queue<ObjectID> pending = new ConcurrentLinkedQueue<ObjectID>(biggestFirst(evictableObjects));
 
-    clientObjectReferenceSet.refreshClientObjectReferencesNow();
+    refreshClientObjectReferencesIfStale();
     final AggregateSampleRateCounter rate = new AggregateSampleRateCounter();
-    while (!list.isEmpty()) {
-      final ObjectID mapID = list.remove(r.nextInt(list.size()));
+    final int workers = Math.max(1, Math.min(EMERGENCY_PARALLELISM, pending.size()));
+    List<Future<SampledRateCounter>> push = new ArrayList<Future<SampledRateCounter>>(workers);
+    for (int i = 0; i < workers; i++) {
       try {
-          push.add(agent.submit(new Callable<SampledRateCounter>() {
-            @Override
-            public SampledRateCounter call() throws Exception {
-              if ( evictor.markEvictionInProgress(mapID) ) {
+        push.add(agent.submit(new Callable<SampledRateCounter>() {
+          @Override
+          public SampledRateCounter call() throws Exception {
+            ObjectID mapID;
+            while ((mapID = pending.poll()) != null) {
+              if (evictor.markEvictionInProgress(mapID)) {
                 EvictionTrigger triggerLocal = new EmergencyEvictionTrigger(mapID, blowout);
                 doEvictionOn(triggerLocal);
                 emergencyCount.addAndGet(triggerLocal.getCount());
                 rate.increment(triggerLocal.getCount(), triggerLocal.getRuntimeInMillis());
               }
-              return rate;
             }
-          }));
-      } catch ( RejectedExecutionException rejected ) {
+            return rate;
+          }
+        }));
+      } catch (RejectedExecutionException rejected) {
+        logger.warn("emergency eviction rejected by the eviction agent, " + pending.size() + " maps not evicted");
+        break;
+      }
+    }
+    return new GroupFuture<SampledRateCounter>(push) {
+      @Override
+      public boolean cancel(boolean bln) {
+        // running workers finish the map in hand and then find nothing left to do
+        pending.clear();
+        return super.cancel(bln);
+      }
+    };
+  }
 
+  List<ObjectID> biggestFirst(final ObjectIDSet evictableObjects) {
+    lastKnownSizes.keySet().retainAll(evictableObjects);
+    final List<ObjectID> sized = new ArrayList<ObjectID>(lastKnownSizes.size());
+    final List<ObjectID> unsized = new ArrayList<ObjectID>();
+    for (ObjectID oid : evictableObjects) {
+      if (lastKnownSizes.containsKey(oid)) {
+        sized.add(oid);
+      } else {
+        unsized.add(oid);
+      }
+    }
+    Collections.sort(sized, new Comparator<ObjectID>() {
+      @Override
+      public int compare(ObjectID o1, ObjectID o2) {
+        return Integer.compare(sizeOf(o2), sizeOf(o1));
+      }
+    });
+    Collections.shuffle(unsized);
+    sized.addAll(unsized);
+    return sized;
+  }
+
+  private int sizeOf(ObjectID oid) {
+    Integer size = lastKnownSizes.get(oid);
+    return size == null ? 0 : size;
+  }
+
+  private void refreshClientObjectReferencesIfStale() {
+    long now = System.nanoTime();
+    long last = lastReferenceRefresh.get();
+    if (last == 0 || now - last > REFERENCE_REFRESH_INTERVAL) {
+      if (lastReferenceRefresh.compareAndSet(last, now)) {
+        clientObjectReferenceSet.refreshClientObjectReferencesNow();
       }
     }
-    return new GroupFuture<SampledRateCounter>(push);
   }
 
   private EvictableMap getEvictableMapFrom(final ObjectID id, final ManagedObjectState state) {
@@ -498,6 +597,7 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
                 } else {
                    log("Eviction Run:" + name + " " + rate);
                 }
+                evictionStatsManager.frequencyAwareSamplingFinished();
             }
             pulse.increment(rate.getValue());
           } catch (ExecutionException exp) {
@@ -530,6 +630,7 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
     private final Set<MonitoredResource.Type> evictions = EnumSet.noneOf(MonitoredResource.Type.class);
     private final Set<MonitoredResource.Type> throttles = EnumSet.noneOf(MonitoredResource.Type.class);
     private final Set<MonitoredResource.Type> stops = EnumSet.noneOf(MonitoredResource.Type.class);
+    private final Set<MonitoredResource.Type> constrained = EnumSet.noneOf(MonitoredResource.Type.class);
 
     Future<SampledRateCounter> currentRun  = completedFuture;
 
@@ -564,6 +665,11 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
           print("Periodic", currentRun);
         }
         throttleIfNeeded(usage);
+        // while constrained, follow the fill rate with the throttle level until the resource is freed
+        if (constrained.contains(usage.getType()) && !isStopped
+            && System.nanoTime() - throttlePoll > TimeUnit.SECONDS.toNanos(2)) {
+          controlledThrottle(usage);
+        }
     }
     
 
@@ -616,6 +722,11 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
         
         }
         );
+      // push back on writers while eviction catches up, resourcesUsed adjusts the level until resourcesFreed
+      constrained.add(usage.getType());
+      if (!isStopped) {
+        controlledThrottle(usage);
+      }
     }    
 
     @Override
@@ -665,6 +776,11 @@ public class ProgressiveEvictionManager implements ServerMapEvictionManager {
             return 0;
           }
       });
+      // release writers held back by resourcesConstrained unless another resource still needs them throttled
+      constrained.remove(usage.getType());
+      if (constrained.isEmpty() && throttles.isEmpty() && stops.isEmpty()) {
+        clear(new DetailedMemoryUsage(usage, turnCount));
+      }
     }
     
     
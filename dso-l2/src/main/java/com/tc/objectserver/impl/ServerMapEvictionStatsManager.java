@@ -40,6 +40,14 @@ public class ServerMapEvictionStatsManager {
   private final AtomicLong      segmentsWithEvictionCount   = new AtomicLong();
   private final AtomicLong      evictedEntriesCount         = new AtomicLong();
 
+  // frequency aware sampling, see ConcurrentDistributedServerMapManagedObjectState.getRandomSamples()
+  private final AtomicLong      readHitCount                = new AtomicLong();
+  private final AtomicLong      readMissCount               = new AtomicLong();
+  private final AtomicLong      frequencySamplingCount      = new AtomicLong();
+  private final AtomicLong      samplesExaminedCount        = new AtomicLong();
+  private final AtomicLong      samplesSelectedCount        = new AtomicLong();
+  private final AtomicLong      samplingTimeNanos           = new AtomicLong();
+
   private void resetCounters() {
     periodicEvictionStartTime = now();
     periodicEvictionEndTime = now();
@@ -76,6 +84,58 @@ public class ServerMapEvictionStatsManager {
     evictedEntriesCount.addAndGet(numEvictedEntries);
   }
 
+  /**
+   * Records one round of frequency aware candidate sampling on a map along with the reads the map served since the
+   * previous round.
+   */
+  public void frequencyAwareSampling(ObjectID oid, long readHits, long readMisses, long samplesExamined,
+                                     int samplesSelected, long nanos) {
+    readHitCount.addAndGet(readHits);
+    readMissCount.addAndGet(readMisses);
+    frequencySamplingCount.incrementAndGet();
+    samplesExaminedCount.addAndGet(samplesExamined);
+    samplesSelectedCount.addAndGet(samplesSelected);
+    samplingTimeNanos.addAndGet(nanos);
+  }
+
+  /**
+   * @return fraction of reads on frequency aware maps that found their key, or 0 when there were no reads
+   */
+  public double getReadHitRatio() {
+    long hits = readHitCount.get();
+    long total = hits + readMissCount.get();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  /**
+   * @return average time in microseconds spent choosing candidates per frequency aware sampling round
+   */
+  public long getAverageSamplingCostMicros() {
+    long rounds = frequencySamplingCount.get();
+    return rounds == 0 ? 0 : samplingTimeNanos.get() / rounds / 1000;
+  }
+
+  /**
+   * Logs and resets the frequency aware sampling counters, if any sampling happened since the last report.
+   */
+  public void frequencyAwareSamplingFinished() {
+    if (frequencySamplingCount.get() == 0) { return; }
+    log("Frequency aware sampling - Read hit ratio: " + String.format("%.3f", getReadHitRatio())
+        + ", Sampling rounds: " + frequencySamplingCount.get() + ", Candidates examined: "
+        + samplesExaminedCount.get() + ", Candidates selected: " + samplesSelectedCount.get()
+        + ", Average sampling cost (usecs): " + getAverageSamplingCostMicros());
+    resetFrequencyCounters();
+  }
+
+  private void resetFrequencyCounters() {
+    readHitCount.set(0);
+    readMissCount.set(0);
+    frequencySamplingCount.set(0);
+    samplesExaminedCount.set(0);
+    samplesSelectedCount.set(0);
+    samplingTimeNanos.set(0);
+  }
+
   public void periodicEvictionFinished() {
     periodicEvictionEndTime = now();
 
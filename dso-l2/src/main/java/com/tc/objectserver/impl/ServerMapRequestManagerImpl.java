@@ -229,7 +229,8 @@ public class ServerMapRequestManagerImpl implements ServerMapRequestManager {
       Set<Object> portableKeys = r.getKeys();
       for (Object portableKey : portableKeys) {
         CDSMValue wrappedValue = cdsmState.getValueForKey(portableKey);
-        
+        cdsmState.recordRead(portableKey, wrappedValue != null);
+
         if (wrappedValue == null) {
           response.put(portableKey, ObjectID.NULL_ID);
         } else {
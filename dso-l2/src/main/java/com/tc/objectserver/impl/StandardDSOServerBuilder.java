@@ -79,6 +79,9 @@ import com.tc.objectserver.persistence.HeapStorageManagerFactory;
 import com.tc.objectserver.persistence.OffheapStorageManagerFactory;
 import com.tc.objectserver.persistence.Persistor;
 import com.tc.objectserver.persistence.offheap.DataStorageConfig;
+import com.tc.objectserver.search.EmbeddedIndexHACoordinator;
+import com.tc.objectserver.search.EmbeddedMetaDataManager;
+import com.tc.objectserver.search.EmbeddedSearchRequestManager;
 import com.tc.objectserver.search.IndexHACoordinator;
 import com.tc.objectserver.search.IndexManager;
 import com.tc.objectserver.search.NullIndexHACoordinator;
@@ -125,6 +128,7 @@ public class StandardDSOServerBuilder implements DSOServerBuilder {
   protected final TCLogger          logger;
   protected final DataStorageConfig offHeapConfig;
   protected final BufferManagerFactoryProvider bufferManagerFactoryProvider;
+  private final boolean             embeddedSearch;
 
   public StandardDSOServerBuilder(final HaConfig haConfig, final TCLogger logger,
                                   final TCSecurityManager securityManager, L2DSOConfig l2Config,
@@ -142,6 +146,7 @@ public class StandardDSOServerBuilder implements DSOServerBuilder {
       offHeapConfig = new DataStorageConfig(false, "64m", true);
     }
     this.bufferManagerFactoryProvider = bufferManagerFactoryProvider;
+    this.embeddedSearch = isEmbeddedSearchEnabled(l2Config);
   }
 
   @Override
@@ -155,12 +160,17 @@ public class StandardDSOServerBuilder implements DSOServerBuilder {
 
   @Override
   public MetaDataManager createMetaDataManager(Sink sink) {
+    if (isEmbeddedSearchEnabled()) { return new EmbeddedMetaDataManager(sink); }
     return new NullMetaDataManager();
   }
 
   @Override
   public IndexHACoordinator createIndexHACoordinator(L2ConfigurationSetupManager configSetupManager, Sink sink, StorageManager storageManager)
       throws IOException {
+    if (isEmbeddedSearchEnabled()) {
+      return new EmbeddedIndexHACoordinator(TCPropertiesImpl.getProperties()
+          .getInt(TCPropertiesConsts.SEARCH_EMBEDDED_QUERY_THREADS, 4));
+    }
     return new NullIndexHACoordinator();
   }
 
@@ -188,9 +198,29 @@ public class StandardDSOServerBuilder implements DSOServerBuilder {
   @Override
   public SearchRequestManager createSearchRequestManager(DSOChannelManager channelManager,
                                                          Sink managedObjectRequestSink, TaskRunner runner) {
+    if (isEmbeddedSearchEnabled()) { return new EmbeddedSearchRequestManager(); }
     return new NullSearchRequestManager();
   }
 
+  private boolean isEmbeddedSearchEnabled() {
+    return embeddedSearch;
+  }
+
+  /**
+   * The embedded index lives on the heap only and there is no index state manager to sync it to a passive, so it is
+   * refused on restartable servers and on servers that have a mirror.
+   */
+  private boolean isEmbeddedSearchEnabled(L2DSOConfig l2Config) {
+    boolean enabled = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.SEARCH_EMBEDDED_ENABLED, false);
+    if (!enabled) { return false; }
+    if (l2Config.getRestartable().getEnabled() || haConfig.getNodesStore().getAllNodes().length > 1) {
+      logger.warn(TCPropertiesConsts.SEARCH_EMBEDDED_ENABLED
+                  + " is ignored, the embedded search index is not supported on restartable or mirrored servers");
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public ObjectRequestManager createObjectRequestManager(ObjectManager objectMgr, DSOChannelManager channelManager,
                                                          ClientStateManager clientStateMgr,
@@ -56,6 +56,13 @@ public class LockResponseContextFactory {
     }
   }
 
+  public static LockResponseContext createLockRecallResponseContext(final LockID lockID, final NodeID nodeID,
+                                                                    final ThreadID threadID,
+                                                                    final ServerLockLevel level,
+                                                                    final int leaseTimeInMs) {
+    return new LockResponseContext(lockID, nodeID, threadID, level, LockResponseContext.LOCK_RECALL, leaseTimeInMs);
+  }
+
   public static LockResponseContext createLockWaitTimeoutResponseContext(final LockID lockID, final NodeID nodeID,
                                                                          final ThreadID threadID,
                                                                          final ServerLockLevel level) {
@@ -19,106 +19,117 @@ package com.tc.objectserver.locks;
 import com.tc.object.locks.LockID;
 import com.tc.util.Assert;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Map.Entry;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * LockStore is used for storing all the locks present in the system. Access to any lock can be obtained by checking out
- * a lock and then by checking it in. Locks will be distributed into segments and the location of the lock will be
- * decided on the basis of the a hash function
+ * a lock and then by checking it in. Locks are kept in a concurrent table and every lock has a guard of its own, so
+ * checking out a lock never blocks threads working on other locks. An uncontended check out is a table lookup and a
+ * single CAS, contended requests queue up on the guard of that one lock.
+ * <p>
+ * A lock removed while checked out is marked as such, threads that were waiting for it retry on the table and get a
+ * new lock.
  * <p>
  * Apart from this getNextLock (for scanning all the locks) has been provided which takes care of the checking out/in of
  * lock.
  */
 public class LockStore {
-  private static final int                  DEFAULT_SEGMENTS = 32;
-  private final HashMap<LockID, ServerLock> segments[];
-  private final ReentrantLock[]             guards;
-  private final int                         segmentShift;
-  private final int                         segmentMask;
-  private final LockFactory                 lockFactory;
+  private static final int                             DEFAULT_SEGMENTS = 32;
+  private final ConcurrentHashMap<LockID, GuardedLock> locks;
+  private final LockFactory                            lockFactory;
+  // the guards of the locks checked out by each thread, at most a couple at a time
+  private final ThreadLocal<List<GuardedLock>>         checkedOut       = new ThreadLocal<List<GuardedLock>>();
 
   public LockStore(LockFactory factory) {
     this(DEFAULT_SEGMENTS, factory);
   }
 
+  /**
+   * @param numberOfSegments the expected number of threads updating the store concurrently
+   */
   public LockStore(int numberOfSegments, LockFactory factory) {
     if (numberOfSegments <= 0) throw new IllegalArgumentException();
 
     this.lockFactory = factory;
-    // Find power-of-two sizes best matching arguments
-    int sshift = 0;
-    int ssize = 1;
-    while (ssize < numberOfSegments) {
-      ++sshift;
-      ssize <<= 1;
-    }
-    segmentShift = 32 - sshift;
-    segmentMask = ssize - 1;
-    numberOfSegments = ssize;
-
-    segments = new HashMap[numberOfSegments];
-    guards = new ReentrantLock[numberOfSegments];
-
-    for (int i = 0; i < segments.length; i++) {
-      segments[i] = new HashMap();
-      guards[i] = new ReentrantLock();
-    }
+    this.locks = new ConcurrentHashMap<LockID, GuardedLock>(256, 0.75f, numberOfSegments);
   }
 
   public ServerLock checkOut(LockID lockID) {
-    int index = indexFor(lockID);
-    guards[index].lock();
-    ServerLock lock = segments[index].get(lockID);
-    if (lock == null) {
-      lock = lockFactory.createLock(lockID);
-      segments[index].put(lockID, lock);
+    while (true) {
+      GuardedLock guarded = locks.get(lockID);
+      if (guarded == null) {
+        GuardedLock created = new GuardedLock(lockFactory.createLock(lockID));
+        // nobody else can see it yet, so this never blocks
+        created.lock();
+        guarded = locks.putIfAbsent(lockID, created);
+        if (guarded == null) { return checkedOut(created); }
+        created.unlock();
+      }
+      guarded.lock();
+      if (!guarded.removed) { return checkedOut(guarded); }
+      guarded.unlock();
     }
-    return lock;
   }
 
   // Assumption that the lock is already held i.e. checked out
   public ServerLock remove(LockID lockID) {
-    int index = indexFor(lockID);
-    Assert.assertTrue(guards[index].isHeldByCurrentThread());
-    ServerLock lock = segments[index].remove(lockID);
-    return lock;
+    GuardedLock guarded = findCheckedOut(lockID);
+    Assert.assertNotNull(guarded);
+    if (guarded.removed) { return null; }
+    guarded.removed = true;
+    locks.remove(lockID, guarded);
+    return guarded.serverLock;
   }
 
   public void checkIn(ServerLock lock) {
-    LockID lockID = lock.getLockID();
-    int index = indexFor(lockID);
-    if (!guards[index].isHeldByCurrentThread()) { throw new AssertionError("Server Lock " + lock
-                                                                           + " was not checked out by the same thread"); }
-    guards[index].unlock();
+    List<GuardedLock> guards = checkedOutGuards();
+    for (int i = guards.size() - 1; i >= 0; i--) {
+      GuardedLock guarded = guards.get(i);
+      if (guarded.serverLock == lock) {
+        guards.remove(i);
+        guarded.unlock();
+        return;
+      }
+    }
+    throw new AssertionError("Server Lock " + lock + " was not checked out by the same thread");
   }
 
-  private final int indexFor(Object o) {
-    int hash = hash(o);
-    return ((hash >>> segmentShift) & segmentMask);
+  private ServerLock checkedOut(GuardedLock guarded) {
+    checkedOutGuards().add(guarded);
+    return guarded.serverLock;
   }
 
-  /**
-   * Currently from CHM
-   */
-  private static int hash(Object x) {
-    int h = x.hashCode();
-    h += ~(h << 9);
-    h ^= (h >>> 14);
-    h += (h << 4);
-    h ^= (h >>> 10);
-    return h;
+  private List<GuardedLock> checkedOutGuards() {
+    List<GuardedLock> guards = checkedOut.get();
+    if (guards == null) {
+      guards = new ArrayList<GuardedLock>(2);
+      checkedOut.set(guards);
+    }
+    return guards;
+  }
+
+  private GuardedLock findCheckedOut(LockID lockID) {
+    List<GuardedLock> guards = checkedOutGuards();
+    for (int i = guards.size() - 1; i >= 0; i--) {
+      GuardedLock guarded = guards.get(i);
+      if (guarded.serverLock.getLockID().equals(lockID)) { return guarded; }
+    }
+    return null;
   }
 
   public void clear() {
-    for (int i = 0; i < guards.length; i++) {
-      guards[i].lock();
+    for (Iterator<GuardedLock> i = locks.values().iterator(); i.hasNext();) {
+      GuardedLock guarded = i.next();
+      guarded.lock();
       try {
-        segments[i].clear();
+        guarded.removed = true;
+        i.remove();
       } finally {
-        guards[i].unlock();
+        guarded.unlock();
       }
     }
   }
@@ -128,36 +139,42 @@ public class LockStore {
   }
 
   public class LockIterator {
-    private Iterator<Entry<LockID, ServerLock>> currentIter;
-    private int                                 currentIndex = -1;
-    private ServerLock                          oldLock;
+    private final Iterator<GuardedLock> currentIter = locks.values().iterator();
+    private ServerLock                  oldLock;
 
     /**
      * This method basically fetches the next lock by checking it out and checks back in the oldLock (that was given
      * last by this method). This method is a replacement for iterator keeping in the check out/in logic. NOTE: If you
-     * do not complete the iteration then please check back in the lock. Otherwise it might result in a segment locked
-     * forever.
+     * do not complete the iteration then please check back in the lock. Otherwise it might result in a lock checked
+     * out forever.
      */
     public ServerLock getNextLock(ServerLock lock) {
       validateOldLock(lock);
-      while (currentIter == null || !currentIter.hasNext()) {
-        HashMap<LockID, ServerLock> nextSegment = fetchNextSegment();
-        if (nextSegment == null) { return null; }
-        currentIter = nextSegment.entrySet().iterator();
+      if (oldLock != null) {
+        LockStore.this.checkIn(oldLock);
+        oldLock = null;
+      }
+      while (currentIter.hasNext()) {
+        GuardedLock guarded = currentIter.next();
+        guarded.lock();
+        if (!guarded.removed) {
+          oldLock = checkedOut(guarded);
+          return oldLock;
+        }
+        guarded.unlock();
       }
-      Assert.assertNotNull(currentIter);
-      oldLock = currentIter.next().getValue();
-      return oldLock;
+      return null;
     }
 
     public void remove() {
-      Assert.assertNotNull(currentIter);
-      currentIter.remove();
+      Assert.assertNotNull(oldLock);
+      LockStore.this.remove(oldLock.getLockID());
     }
 
     public void checkIn(ServerLock lock) {
       Assert.assertEquals(oldLock, lock);
       LockStore.this.checkIn(lock);
+      oldLock = null;
     }
 
     private void validateOldLock(ServerLock lock) {
@@ -168,16 +185,15 @@ public class LockStore {
       }
 
     }
+  }
 
-    private HashMap<LockID, ServerLock> fetchNextSegment() {
-      if (currentIndex >= 0 && currentIndex < segments.length) {
-        guards[currentIndex].unlock();
-      }
-      currentIndex++;
-      if (currentIndex >= segments.length) { return null; }
+  private static final class GuardedLock extends ReentrantLock {
+    private final ServerLock serverLock;
+    // only changed while the guard is held
+    private volatile boolean removed;
 
-      guards[currentIndex].lock();
-      return segments[currentIndex];
+    GuardedLock(ServerLock serverLock) {
+      this.serverLock = serverLock;
     }
   }
-}
\ No newline at end of file
+}
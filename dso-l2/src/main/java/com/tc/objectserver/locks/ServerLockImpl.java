@@ -37,18 +37,42 @@ import java.util.EnumSet;
 import java.util.List;
 
 public final class ServerLockImpl extends AbstractServerLock {
-  private final static EnumSet<Type> SET_OF_GREEDY_HOLDERS = EnumSet.of(Type.GREEDY_HOLDER);
+  private final static EnumSet<Type> SET_OF_GREEDY_HOLDERS        = EnumSet.of(Type.GREEDY_HOLDER);
 
-  protected final static TCLogger    logger                = TCLogging.getLogger(ServerLockImpl.class);
-  private boolean                    isRecalled            = false;
+  /**
+   * A read lease is this fraction of the average time between write requests, so writers spend a bounded share of
+   * their time waiting on leases.
+   */
+  private final static int           WRITE_INTERVAL_TO_READ_LEASE = 8;
+  private final static int           MIN_READ_LEASE_IN_MILLIS     = 2;
+  private final static long          NO_WRITE_SEEN                = -1;
+
+  protected final static TCLogger    logger                       = TCLogging.getLogger(ServerLockImpl.class);
+  private boolean                    isRecalled                   = false;
+
+  private final int                  maxReadLeaseInMillis;
+  private long                       lastWriteRequestInMillis     = NO_WRITE_SEEN;
+  private long                       writeIntervalInMillis        = 0;
 
   public ServerLockImpl(LockID lockID) {
+    this(lockID, 0);
+  }
+
+  /**
+   * @param maxReadLeaseInMillis upper bound on the lease handed to greedy read holders when a writer recalls them, 0
+   *        recalls them straight away
+   */
+  public ServerLockImpl(LockID lockID, int maxReadLeaseInMillis) {
     super(lockID);
+    this.maxReadLeaseInMillis = maxReadLeaseInMillis;
   }
 
   @Override
   protected void requestLock(ClientID cid, ThreadID tid, ServerLockLevel level, Type type, long timeout,
                              LockHelper helper) {
+    if (level == ServerLockLevel.WRITE && maxReadLeaseInMillis > 0) {
+      recordWriteRequest(System.currentTimeMillis());
+    }
     ServerLockContext greedyHold = getGreedyHolder(cid);
     if (canAwardGreedilyOnTheClient(level, greedyHold)) {
       // Ignore if a client can fulfill request because it can
@@ -295,16 +319,50 @@ public final class ServerLockImpl extends AbstractServerLock {
     if (isRecalled) { return; }
 
     List<ServerLockContext> greedyHolders = getGreedyHolders();
+    // greedy readers are recalled on a lease sized from the write rate, a greedy writer keeps the global lease
+    final boolean readHolders = !greedyHolders.isEmpty()
+                                && greedyHolders.get(0).getState().getLockLevel() == ServerLockLevel.READ;
+    final int readLease = readHolders ? readLeaseInMillis() : 0;
     for (ServerLockContext greedyHolder : greedyHolders) {
-      LockResponseContext lrc = LockResponseContextFactory.createLockRecallResponseContext(lockID,
-                                                                                           greedyHolder.getClientID(),
-                                                                                           greedyHolder.getThreadID(),
-                                                                                           level);
+      LockResponseContext lrc;
+      if (readHolders) {
+        lrc = LockResponseContextFactory.createLockRecallResponseContext(lockID, greedyHolder.getClientID(),
+                                                                         greedyHolder.getThreadID(), level, readLease);
+      } else {
+        lrc = LockResponseContextFactory.createLockRecallResponseContext(lockID, greedyHolder.getClientID(),
+                                                                         greedyHolder.getThreadID(), level);
+      }
       helper.getLockSink().add(lrc);
       isRecalled = true;
     }
   }
 
+  /**
+   * Folds the time since the previous write request into a moving average of the gap between writes.
+   */
+  void recordWriteRequest(long now) {
+    if (lastWriteRequestInMillis != NO_WRITE_SEEN) {
+      final long interval = Math.max(0, now - lastWriteRequestInMillis);
+      if (writeIntervalInMillis == 0) {
+        writeIntervalInMillis = interval;
+      } else {
+        writeIntervalInMillis = (writeIntervalInMillis * 7 + interval) / 8;
+      }
+    }
+    lastWriteRequestInMillis = now;
+  }
+
+  /**
+   * Lease for recalled greedy readers: long for locks that are rarely written, none for write heavy ones or before
+   * the write rate is known.
+   */
+  int readLeaseInMillis() {
+    if (maxReadLeaseInMillis <= 0 || writeIntervalInMillis == 0) { return 0; }
+    final long lease = writeIntervalInMillis / WRITE_INTERVAL_TO_READ_LEASE;
+    if (lease < MIN_READ_LEASE_IN_MILLIS) { return 0; }
+    return (int) Math.min(lease, maxReadLeaseInMillis);
+  }
+
   private void awardLockGreedily(LockHelper helper, ServerLockContext request) {
     awardLockGreedily(helper, request, true);
   }
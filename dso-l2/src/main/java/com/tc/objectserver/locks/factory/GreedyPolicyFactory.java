@@ -20,10 +20,29 @@ import com.tc.object.locks.LockID;
 import com.tc.objectserver.locks.ServerLock;
 import com.tc.objectserver.locks.LockFactory;
 import com.tc.objectserver.locks.ServerLockImpl;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 
 public class GreedyPolicyFactory implements LockFactory {
+  private final int maxReadLeaseInMillis;
+
+  public GreedyPolicyFactory() {
+    this(maxReadLeaseFromProperties());
+  }
+
+  public GreedyPolicyFactory(int maxReadLeaseInMillis) {
+    this.maxReadLeaseInMillis = maxReadLeaseInMillis;
+  }
+
   @Override
   public ServerLock createLock(LockID lid) {
-    return new ServerLockImpl(lid);
+    return new ServerLockImpl(lid, maxReadLeaseInMillis);
+  }
+
+  private static int maxReadLeaseFromProperties() {
+    TCProperties props = TCPropertiesImpl.getProperties();
+    if (!props.getBoolean(TCPropertiesConsts.L2_LOCKMANAGER_GREEDY_READ_LEASE_ENABLED)) { return 0; }
+    return props.getInt(TCPropertiesConsts.L2_LOCKMANAGER_GREEDY_READ_LEASE_MAX_LEASETIME_INMILLS);
   }
 }
\ No newline at end of file
@@ -44,6 +44,8 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -52,6 +54,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ConcurrentDistributedServerMapManagedObjectState extends PartialMapManagedObjectState implements
     EvictableMap {
@@ -78,6 +81,14 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
 
   private static final double   OVERSHOOT                      = getOvershoot();
 
+  // caches whose eviction is biased toward rarely read entries, see getRandomSamples()
+  private static final Set<String> FREQUENCY_SKETCH_CACHES     = getFrequencySketchCaches();
+  private static final String   ALL_CACHES                     = "*";
+  private static final int      FREQUENCY_OVERSAMPLE           = 4;
+  private static final boolean  EXPIRATION_WHEEL_ENABLED       = TCPropertiesImpl.getProperties()
+                                                                   .getBoolean(TCPropertiesConsts.EHCACHE_STORAGESTRATEGY_DCV2_EXPIRATION_TIMER_WHEEL_ENABLED,
+                                                                               false);
+
   static {
     LOGGER.info("Eviction overshoot threshold is " + OVERSHOOT);
   }
@@ -96,6 +107,14 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
   private boolean               copyOnReadEnabled;
   private final SetMultimap<ServerEventType, ClientID> eventRegistry                  = HashMultimap.create();
 
+  // not persisted or synced, the frequencies are rebuilt from the access pattern after a restart or failover
+  private FrequencySketch       frequencySketch;
+  private final AtomicLong      readHits                       = new AtomicLong();
+  private final AtomicLong      readMisses                     = new AtomicLong();
+  private final AtomicLong      samplesExamined                = new AtomicLong();
+  // built by the first expiration pass and dropped when cache level tti/ttl change, see expiredSamples()
+  private ExpirationWheel       expirationWheel;
+
   protected ConcurrentDistributedServerMapManagedObjectState(final ObjectInput in, PersistentObjectFactory factory)
       throws IOException {
     super(in, factory);
@@ -219,8 +238,10 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
       this.dsoLockType = (Integer) action.getObject();
     } else if (MAX_TTI_SECONDS_FIELDNAME.equals(fieldName)) {
       this.maxTTISeconds = (Integer) action.getObject();
+      this.expirationWheel = null;
     } else if (MAX_TTL_SECONDS_FIELDNAME.equals(fieldName)) {
       this.maxTTLSeconds = (Integer) action.getObject();
+      this.expirationWheel = null;
     } else if (MAX_COUNT_IN_CLUSTER_FIELDNAME.equals(fieldName)) {
       this.targetMaxTotalCount = (Integer) action.getObject();
     } else if (INVALIDATE_ON_CHANGE_FIELDNAME.equals(fieldName)) {
@@ -261,8 +282,10 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
         final int intValue = (Integer) params[1];
         if (MAX_TTI_SECONDS_FIELDNAME.equals(intFieldName)) {
           this.maxTTISeconds = intValue;
+          this.expirationWheel = null;
         } else if (MAX_TTL_SECONDS_FIELDNAME.equals(intFieldName)) {
           this.maxTTLSeconds = intValue;
+          this.expirationWheel = null;
         } else if (MAX_COUNT_IN_CLUSTER_FIELDNAME.equals(intFieldName)) {
           this.targetMaxTotalCount = intValue;
         } else {
@@ -420,6 +443,8 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     references.put(key, value);
     addedReferences(applyInfo, key, value);
     removedReferences(applyInfo, old);
+    recordAccess(key);
+    scheduleExpiry(key, value);
 
     addValue(applyInfo, oid, old != null);
     startCapacityEvictionIfNeccessary(applyInfo);
@@ -477,6 +502,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     final CDSMValue valueInMap = getValueForKey(key);
     if (valueInMap != null && value.equals(valueInMap.getObjectID())) {
       references.remove(key);
+      unscheduleExpiry(key);
       removedReferences(applyInfo, value);
       final ObjectID objectId = (ObjectID) value;
 
@@ -506,6 +532,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     final CDSMValue valueInMap = getValueForKey(key);
     if (valueInMap != null && value.equals(valueInMap.getObjectID())) {
       references.remove(key);
+      unscheduleExpiry(key);
       removedReferences(applyInfo, value);
       applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.EXPIRE),
                                                          ServerEventType.EXPIRE, key, NULL_CDSM_VALUE, cacheName);
@@ -519,6 +546,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
   protected Object applyRemove(final ApplyTransactionInfo applyInfo, final Object[] params) {
     final Object key = params[0];
     final Object old = super.applyRemove(applyInfo, params);
+    unscheduleExpiry(key);
     if (old instanceof CDSMValue) {
       final CDSMValue oldValue = (CDSMValue) old;
       final ObjectID objectId = oldValue.getObjectID();
@@ -538,6 +566,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     final long version = (Long) params[1]; // ignoring for the time being
 
     final Object old = super.applyRemove(applyInfo, params);
+    unscheduleExpiry(key);
     if (old instanceof CDSMValue) {
       final ObjectID objectId = ((CDSMValue) old).getObjectID();
       applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.REMOVE),
@@ -554,6 +583,8 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     if (wrappedValue != null && value.equals(wrappedValue.getObjectID())) {
       wrappedValue.setLastAccessedTime(lastAccessedTime);
       references.put(key, wrappedValue);
+      recordAccess(key);
+      scheduleExpiry(key, wrappedValue);
     }
   }
 
@@ -572,6 +603,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
           0, 0, 0, 0, value.getVersion() + 1), cacheName);
     }
     references.clear();
+    clearExpiry();
   }
 
   /**
@@ -585,6 +617,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
                                                          ServerEventType.REMOVE, key, NULL_CDSM_VALUE, cacheName);
     }
     this.references.clear();
+    clearExpiry();
   }
 
   private void applyRegisterServerEventListener(ApplyTransactionInfo applyInfo, Object[] params) {
@@ -716,11 +749,155 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     }
   }
 
+  /**
+   * Records a client read of the key, feeding the frequency sketch when frequency aware eviction is enabled for this
+   * cache.
+   */
+  public void recordRead(final Object key, final boolean hit) {
+    final FrequencySketch sketch = getFrequencySketch();
+    if (sketch == null) { return; }
+    if (hit) {
+      readHits.incrementAndGet();
+      sketch.increment(key);
+    } else {
+      readMisses.incrementAndGet();
+    }
+  }
+
+  public boolean isFrequencyAware() {
+    return getFrequencySketch() != null;
+  }
+
+  /**
+   * @return the number of reads that found their key since the last call
+   */
+  public long drainReadHits() {
+    return readHits.getAndSet(0);
+  }
+
+  /**
+   * @return the number of reads that missed since the last call
+   */
+  public long drainReadMisses() {
+    return readMisses.getAndSet(0);
+  }
+
+  /**
+   * @return the number of eviction candidates looked at by frequency aware sampling since the last call
+   */
+  public long drainSamplesExamined() {
+    return samplesExamined.getAndSet(0);
+  }
+
+  private void recordAccess(final Object key) {
+    final FrequencySketch sketch = getFrequencySketch();
+    if (sketch != null) {
+      sketch.increment(key);
+    }
+  }
+
+  private FrequencySketch getFrequencySketch() {
+    if (frequencySketch == null && isFrequencySketchEnabledFor(cacheName)) {
+      frequencySketch = new FrequencySketch(Math.max(getSize(), targetMaxTotalCount));
+    }
+    return frequencySketch;
+  }
+
+  /**
+   * When frequency aware eviction is enabled for this cache, a few times more candidates than requested are sampled and
+   * the ones with the lowest estimated read frequency are returned, so that hot entries survive eviction.
+   */
   @Override
   public Map<Object, EvictableEntry> getRandomSamples(final int count,
                                                       final ClientObjectReferenceSet clientObjectRefSet,
                                                       final SamplingType smpType) {
     this.samplingType = smpType;
+    if (smpType == SamplingType.FOR_EXPIRATION && EXPIRATION_WHEEL_ENABLED) {
+      return expiredSamples(count, clientObjectRefSet);
+    }
+    final FrequencySketch sketch = getFrequencySketch();
+    if (sketch == null) { return sampleEntries(count, clientObjectRefSet); }
+
+    sketch.ensureCapacity(getSize());
+    final int oversampled = (int) Math.min((long) count * FREQUENCY_OVERSAMPLE, Math.max(count, getSize()));
+    final Map<Object, EvictableEntry> candidates = sampleEntries(oversampled, clientObjectRefSet);
+    samplesExamined.addAndGet(candidates.size());
+    if (candidates.size() <= count) { return candidates; }
+    return coldest(candidates, count, sketch);
+  }
+
+  /**
+   * Returns up to count entries whose expiry deadline has passed, as found by the expiration wheel. The first call
+   * after a restart or a tti/ttl change indexes every entry once; later calls only cost the entries that expire.
+   */
+  private Map<Object, EvictableEntry> expiredSamples(final int count, final ClientObjectReferenceSet clientObjectRefSet) {
+    final long now = System.currentTimeMillis() / 1000;
+    if (expirationWheel == null) {
+      expirationWheel = new ExpirationWheel(now);
+      for (Object k : references.keySet()) {
+        scheduleExpiry(k, getValueForKey(k));
+      }
+    }
+    final ExpirationWheel.Filter notReferenced = new ExpirationWheel.Filter() {
+      @Override
+      public boolean accept(final Object key) {
+        final CDSMValue value = getValueForKey(key);
+        return value == null || !clientObjectRefSet.contains(value.getObjectID());
+      }
+    };
+    final Map<Object, EvictableEntry> samples = new HashMap<Object, EvictableEntry>();
+    for (Object k : expirationWheel.expired(now, count, notReferenced)) {
+      final CDSMValue value = getValueForKey(k);
+      if (value == null) {
+        expirationWheel.remove(k);
+        continue;
+      }
+      samples.put(k, value);
+    }
+    return samples;
+  }
+
+  private void scheduleExpiry(final Object key, final CDSMValue value) {
+    if (expirationWheel == null) { return; }
+    // with now at zero expiresIn is the absolute deadline
+    final long deadline = value == null ? Long.MAX_VALUE : value.expiresIn(0, maxTTISeconds, maxTTLSeconds);
+    if (deadline == Long.MAX_VALUE) {
+      expirationWheel.remove(key);
+    } else {
+      expirationWheel.schedule(key, deadline);
+    }
+  }
+
+  private void unscheduleExpiry(final Object key) {
+    if (expirationWheel != null) {
+      expirationWheel.remove(key);
+    }
+  }
+
+  private void clearExpiry() {
+    if (expirationWheel != null) {
+      expirationWheel.clear();
+    }
+  }
+
+  private static Map<Object, EvictableEntry> coldest(final Map<Object, EvictableEntry> candidates, final int count,
+                                                     final FrequencySketch sketch) {
+    final List<Entry<Object, EvictableEntry>> entries = new ArrayList<Entry<Object, EvictableEntry>>(candidates.entrySet());
+    // frequency in the high bits, position in the low bits, so a plain sort orders by frequency
+    final long[] order = new long[entries.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = ((long) sketch.frequency(entries.get(i).getKey()) << 32) | i;
+    }
+    Arrays.sort(order);
+    final Map<Object, EvictableEntry> samples = new HashMap<Object, EvictableEntry>(count);
+    for (int i = 0; i < count; i++) {
+      final Entry<Object, EvictableEntry> e = entries.get((int) order[i]);
+      samples.put(e.getKey(), e.getValue());
+    }
+    return samples;
+  }
+
+  private Map<Object, EvictableEntry> sampleEntries(final int count, final ClientObjectReferenceSet clientObjectRefSet) {
     final Map<Object, EvictableEntry> samples = new HashMap<Object, EvictableEntry>(count);
     final Set<Object> ignored = new HashSet<Object>(count);
     final Random r = new Random();
@@ -784,6 +961,24 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     // no-op for eager loading done at server startup (init constants in particular)
   }
 
+  static boolean isFrequencySketchEnabledFor(final String cacheName) {
+    if (FREQUENCY_SKETCH_CACHES.isEmpty() || cacheName == null) { return false; }
+    return FREQUENCY_SKETCH_CACHES.contains(ALL_CACHES) || FREQUENCY_SKETCH_CACHES.contains(cacheName);
+  }
+
+  private static Set<String> getFrequencySketchCaches() {
+    final String propVal = TCPropertiesImpl.getProperties()
+        .getProperty(TCPropertiesConsts.EHCACHE_STORAGESTRATEGY_DCV2_EVICTION_FREQUENCY_SKETCH_CACHES, true);
+    if (propVal == null || propVal.trim().length() == 0) { return Collections.emptySet(); }
+    final Set<String> caches = new HashSet<String>();
+    for (String name : propVal.split(",")) {
+      if (name.trim().length() > 0) {
+        caches.add(name.trim());
+      }
+    }
+    return caches;
+  }
+
   private static double getOvershoot() {
     final float MIN = 0;
     final float MAX = 100;
@@ -0,0 +1,248 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.managedobject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hierarchical timing wheel of entry expiry deadlines, in seconds, for one server map. Four levels of 64 slots cover
+ * about 194 days ahead of the current tick, deadlines further out wait in an overflow set. Advancing the wheel jumps
+ * over empty slots and only touches the occupied ones plus the entries cascading out of them, so finding expired
+ * entries costs in proportion to the entries that expire rather than to the size of the map or the time passed.
+ * <p>
+ * Entries that are due stay in the wheel until they are removed or rescheduled, so an entry that could not be expired
+ * on one pass is offered again on a later one. Entries the caller's filter turns down go to the back of the due queue
+ * so they do not hide the entries behind them.
+ * <p>
+ * Not thread safe, callers hold the map's ManagedObject checkout.
+ */
+class ExpirationWheel {
+
+  private static final int         BITS       = 6;
+  private static final int         SLOTS      = 1 << BITS;
+  private static final int         MASK       = SLOTS - 1;
+  private static final int         LEVELS     = 4;
+  private static final long        SPAN       = 1L << (BITS * LEVELS);
+
+  private final Map<Object, Long>  deadlines  = new HashMap<Object, Long>();
+  private final Set<Object>[][]    wheel      = newWheel();
+  private final Set<Object>        overflow   = new HashSet<Object>();
+  private final Set<Object>        due        = new LinkedHashSet<Object>();
+  private long                     current;
+
+  ExpirationWheel(final long now) {
+    this.current = now;
+  }
+
+  /**
+   * Schedules the key to expire at the given second, replacing any earlier deadline.
+   */
+  void schedule(final Object key, final long deadline) {
+    final Long previous = deadlines.put(key, deadline);
+    if (previous != null) {
+      if (previous == deadline) { return; }
+      unlink(key, previous);
+    }
+    place(key, deadline);
+  }
+
+  void remove(final Object key) {
+    final Long previous = deadlines.remove(key);
+    if (previous != null) {
+      unlink(key, previous);
+    }
+  }
+
+  void clear() {
+    deadlines.clear();
+    overflow.clear();
+    due.clear();
+    for (Set<Object>[] level : wheel) {
+      for (int i = 0; i < SLOTS; i++) {
+        level[i] = null;
+      }
+    }
+  }
+
+  int size() {
+    return deadlines.size();
+  }
+
+  /**
+   * Decides whether a due key can be expired now.
+   */
+  interface Filter {
+    boolean accept(Object key);
+  }
+
+  /**
+   * Advances the wheel to now and returns at most max keys whose deadline has passed. The keys stay scheduled.
+   */
+  List<Object> expired(final long now, final int max) {
+    return expired(now, max, null);
+  }
+
+  /**
+   * Like {@link #expired(long, int)} but only returns keys the filter accepts. Keys it turns down do not count against
+   * max and are moved behind the other due keys.
+   */
+  List<Object> expired(final long now, final int max, final Filter filter) {
+    advance(now);
+    final List<Object> expired = new ArrayList<Object>(Math.min(max, due.size()));
+    List<Object> rejected = null;
+    for (Iterator<Object> i = due.iterator(); expired.size() < max && i.hasNext();) {
+      final Object key = i.next();
+      if (filter == null || filter.accept(key)) {
+        expired.add(key);
+      } else {
+        if (rejected == null) {
+          rejected = new ArrayList<Object>();
+        }
+        rejected.add(key);
+        i.remove();
+      }
+    }
+    if (rejected != null) {
+      due.addAll(rejected);
+    }
+    return expired;
+  }
+
+  private void advance(final long now) {
+    while (current <= now) {
+      cascade(current);
+      final Set<Object> slot = wheel[0][(int) (current & MASK)];
+      if (slot != null) {
+        due.addAll(slot);
+        wheel[0][(int) (current & MASK)] = null;
+      }
+      current = nextBusyTick(current + 1, now + 1);
+    }
+  }
+
+  /**
+   * The first tick from <code>from</code> on that has a level 0 slot to drain or a slot to cascade, or
+   * <code>limit</code> if there is none before it. Level 0 is scanned tick by tick to the end of its window, each level
+   * above slot by slot to the end of its own window, so at most {@link #SLOTS} ticks are looked at per level.
+   */
+  private long nextBusyTick(final long from, final long limit) {
+    long tick = from;
+    for (int level = 0; level < LEVELS; level++) {
+      final long width = 1L << (BITS * level);
+      final long windowEnd = (tick | ((width << BITS) - 1)) + 1;
+      for (; tick < windowEnd; tick += width) {
+        if (tick >= limit) { return limit; }
+        if (isBusy(tick)) { return tick; }
+      }
+    }
+    // the whole wheel is behind us, only the overflow is left
+    return overflow.isEmpty() ? limit : Math.min(tick, limit);
+  }
+
+  private boolean isBusy(final long tick) {
+    if (wheel[0][(int) (tick & MASK)] != null) { return true; }
+    for (int level = 1; level < LEVELS; level++) {
+      if ((tick & ((1L << (BITS * level)) - 1)) != 0) { return false; }
+      if (wheel[level][(int) ((tick >>> (BITS * level)) & MASK)] != null) { return true; }
+    }
+    return (tick & (SPAN - 1)) == 0 && !overflow.isEmpty();
+  }
+
+  /**
+   * Moves the entries of every upper level slot that starts at this tick down to the levels below.
+   */
+  private void cascade(final long tick) {
+    for (int level = 1; level < LEVELS; level++) {
+      if ((tick & ((1L << (BITS * level)) - 1)) != 0) { return; }
+      final int index = (int) ((tick >>> (BITS * level)) & MASK);
+      final Set<Object> slot = wheel[level][index];
+      if (slot != null) {
+        wheel[level][index] = null;
+        for (Object key : slot) {
+          place(key, deadlines.get(key));
+        }
+      }
+    }
+    if ((tick & (SPAN - 1)) == 0 && !overflow.isEmpty()) {
+      final List<Object> keys = new ArrayList<Object>(overflow);
+      overflow.clear();
+      for (Object key : keys) {
+        place(key, deadlines.get(key));
+      }
+    }
+  }
+
+  private void place(final Object key, final long deadline) {
+    if (deadline < current) {
+      due.add(key);
+      return;
+    }
+    final int level = levelOf(deadline);
+    if (level >= LEVELS) {
+      overflow.add(key);
+      return;
+    }
+    final int index = (int) ((deadline >>> (BITS * level)) & MASK);
+    Set<Object> slot = wheel[level][index];
+    if (slot == null) {
+      slot = new HashSet<Object>();
+      wheel[level][index] = slot;
+    }
+    slot.add(key);
+  }
+
+  private void unlink(final Object key, final long deadline) {
+    if (due.remove(key)) { return; }
+    final int level = levelOf(deadline);
+    if (level >= LEVELS) {
+      if (overflow.remove(key)) { return; }
+    } else {
+      final Set<Object> slot = wheel[level][(int) ((deadline >>> (BITS * level)) & MASK)];
+      if (slot != null && slot.remove(key)) { return; }
+    }
+    // not where the deadline says it should be, look everywhere rather than leave a stale entry behind
+    overflow.remove(key);
+    for (Set<Object>[] l : wheel) {
+      for (Set<Object> slot : l) {
+        if (slot != null && slot.remove(key)) { return; }
+      }
+    }
+  }
+
+  /**
+   * The level is the lowest one whose slot range still tells the deadline apart from the current tick.
+   */
+  private int levelOf(final long deadline) {
+    final long diff = deadline ^ current;
+    for (int level = 0; level < LEVELS; level++) {
+      if (diff < (1L << (BITS * (level + 1)))) { return level; }
+    }
+    return LEVELS;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<Object>[][] newWheel() {
+    return new Set[LEVELS][SLOTS];
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.managedobject;
+
+/**
+ * A compact count-min sketch of key access frequencies, used to tell hot entries of a server map from cold ones when
+ * picking eviction candidates. Each key maps to four 4-bit counters (one per row) packed into a long[] with one slot
+ * per expected entry, capped at 8MB per map. Counters saturate at 15 and every counter is halved once the number of
+ * increments reaches ten times the table width, so old popularity fades instead of pinning entries forever.
+ * <p>
+ * Updates are not synchronized. Lost increments under a race only make the estimate slightly lower, which is
+ * acceptable for an approximate frequency.
+ */
+public class FrequencySketch {
+
+  private static final long[] SEEDS      = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+      0xcbf29ce484222325L                };
+  private static final long   RESET_MASK = 0x7777777777777777L;
+  private static final int    MIN_WIDTH  = 64;
+  private static final int    MAX_WIDTH  = 1 << 20;
+
+  private volatile long[]     table;
+  private int                 sampleSize;
+  private int                 additions;
+
+  public FrequencySketch(final int expectedEntries) {
+    allocate(expectedEntries);
+  }
+
+  /**
+   * Grows the sketch if it is too narrow for the given number of entries. Growing discards the collected frequencies.
+   */
+  public void ensureCapacity(final int expectedEntries) {
+    if (widthFor(expectedEntries) > this.table.length) {
+      allocate(expectedEntries);
+    }
+  }
+
+  public void increment(final Object key) {
+    final long[] counters = this.table;
+    final int hash = spread(key.hashCode());
+    final int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(counters, indexOf(counters, hash, i), start + i);
+    }
+    if (added && ++this.additions >= this.sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * @return the estimated number of recent accesses to the key, between 0 and 15
+   */
+  public int frequency(final Object key) {
+    final long[] counters = this.table;
+    final int hash = spread(key.hashCode());
+    final int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      final int index = indexOf(counters, hash, i);
+      final int count = (int) ((counters[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  int getWidth() {
+    return this.table.length;
+  }
+
+  private static boolean incrementAt(final long[] counters, final int index, final int offset) {
+    final long mask = 0xfL << (offset << 2);
+    if ((counters[index] & mask) != mask) {
+      counters[index] += 1L << (offset << 2);
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    final long[] counters = this.table;
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = (counters[i] >>> 1) & RESET_MASK;
+    }
+    this.additions = this.additions >>> 1;
+  }
+
+  private static int indexOf(final long[] counters, final int hash, final int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return ((int) h) & (counters.length - 1);
+  }
+
+  private void allocate(final int expectedEntries) {
+    final int width = widthFor(expectedEntries);
+    this.sampleSize = 10 * width;
+    this.additions = 0;
+    this.table = new long[width];
+  }
+
+  private static int widthFor(final int expectedEntries) {
+    if (expectedEntries >= MAX_WIDTH) { return MAX_WIDTH; }
+    final int width = Integer.highestOneBit(Math.max(expectedEntries, MIN_WIDTH) - 1) << 1;
+    return Math.max(width, MIN_WIDTH);
+  }
+
+  private static int spread(final int hashCode) {
+    final int h = hashCode * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
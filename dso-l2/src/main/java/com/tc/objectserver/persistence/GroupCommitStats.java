@@ -0,0 +1,89 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the persistence commits issued by the apply stage. Bucket <code>i</code> of the batch size histogram holds
+ * the commits that covered between 2<sup>i</sup> and 2<sup>i+1</sup>-1 server transactions, bucket <code>i</code> of
+ * the latency histogram the commits that took between 2<sup>i</sup> and 2<sup>i+1</sup>-1 microseconds, fsync
+ * included. The last bucket of each histogram also takes everything larger.
+ */
+public class GroupCommitStats {
+
+  private static final int      HISTOGRAM_BUCKETS = 16;
+
+  private final AtomicLong      commits           = new AtomicLong();
+  private final AtomicLong      transactions      = new AtomicLong();
+  private final AtomicLongArray batchSizes        = new AtomicLongArray(HISTOGRAM_BUCKETS);
+  private final AtomicLongArray latencies         = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+  public void commitCompleted(int transactionCount, long commitTimeNanos) {
+    commits.incrementAndGet();
+    transactions.addAndGet(transactionCount);
+    batchSizes.incrementAndGet(bucket(transactionCount));
+    latencies.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(commitTimeNanos)));
+  }
+
+  public long getCommitCount() {
+    return commits.get();
+  }
+
+  public long getTransactionCount() {
+    return transactions.get();
+  }
+
+  public long[] getCommitBatchSizeHistogram() {
+    return snapshot(batchSizes);
+  }
+
+  public long[] getCommitLatencyHistogram() {
+    return snapshot(latencies);
+  }
+
+  public void reset() {
+    commits.set(0);
+    transactions.set(0);
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      batchSizes.set(i, 0);
+      latencies.set(i, 0);
+    }
+  }
+
+  public String getDetails() {
+    return "commits : " + commits + " transactions : " + transactions + " batch sizes : "
+           + Arrays.toString(getCommitBatchSizeHistogram()) + " latencies(us) : "
+           + Arrays.toString(getCommitLatencyHistogram());
+  }
+
+  static int bucket(long value) {
+    if (value <= 1) { return 0; }
+    return Math.min(63 - Long.numberOfLeadingZeros(value), HISTOGRAM_BUCKETS - 1);
+  }
+
+  private static long[] snapshot(AtomicLongArray histogram) {
+    long[] copy = new long[HISTOGRAM_BUCKETS];
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      copy[i] = histogram.get(i);
+    }
+    return copy;
+  }
+}
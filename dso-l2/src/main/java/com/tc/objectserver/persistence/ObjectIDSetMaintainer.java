@@ -27,6 +27,7 @@ import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.BitSetObjectIDSet;
 import com.tc.util.ExpandingBitSetObjectIDSet;
 import com.tc.util.ObjectIDSet;
+import com.tc.util.RoaringObjectIDSet;
 import com.tc.util.TCCollections;
 
 import java.util.Set;
@@ -36,17 +37,20 @@ import java.util.Set;
  */
 public class ObjectIDSetMaintainer implements KeyValueStorageMutationListener<Long, byte[]> {
   private static enum ObjectIDSetType {
-    BITSET_BASED_SET, EXPANDING_BITSET_BASED_SET
+    BITSET_BASED_SET, EXPANDING_BITSET_BASED_SET, ROARING_BASED_SET
   }
 
   private static final TCLogger logger = TCLogging.getLogger(ObjectIDSetMaintainer.class);
 
   private final ObjectIDSet evictableObjectIDSet = new BitSetObjectIDSet();
   private final ObjectIDSet noReferencesObjectIDSet;
-  private final ObjectIDSet referencesObjectIDSet = new BitSetObjectIDSet();
+  private final ObjectIDSet referencesObjectIDSet;
 
   public ObjectIDSetMaintainer() {
     noReferencesObjectIDSet = create(TCCollections.EMPTY_OBJECT_ID_SET);
+    // with both halves roaring the snapshot below merges whole containers instead of single ids
+    referencesObjectIDSet = getObjectIDSetType() == ObjectIDSetType.ROARING_BASED_SET ? new RoaringObjectIDSet()
+        : new BitSetObjectIDSet();
     logger.info("Using ObjectIDSetType " + getObjectIDSetType());
   }
 
@@ -71,6 +75,8 @@ public class ObjectIDSetMaintainer implements KeyValueStorageMutationListener<Lo
         return new BitSetObjectIDSet(clone);
       case EXPANDING_BITSET_BASED_SET:
         return new ExpandingBitSetObjectIDSet(clone);
+      case ROARING_BASED_SET:
+        return new RoaringObjectIDSet(clone);
     }
     throw new UnsupportedOperationException("Unsupported ObjectIDSet type " + getObjectIDSetType());
   }
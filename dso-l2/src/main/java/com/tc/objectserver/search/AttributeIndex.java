@@ -0,0 +1,171 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index of one attribute within a {@link SegmentIndex}. Every value is kept in a hash index for equality lookups and,
+ * when it is {@link Comparable}, in a sorted index for range lookups. Values of different classes never compare equal;
+ * in the sorted index they are ordered by class name first so a range only ever matches values of the bound's class.
+ */
+class AttributeIndex {
+
+  static final Comparator<Object>            VALUE_ORDER = new ValueOrder();
+
+  private final Map<Object, Set<String>>     byValue     = new HashMap<Object, Set<String>>();
+  private final TreeMap<Object, Set<String>> sorted      = new TreeMap<Object, Set<String>>(VALUE_ORDER);
+  private final Set<String>                  keys        = new HashSet<String>();
+
+  void add(String key, Object value) {
+    keys.add(key);
+    addTo(byValue, value, key);
+    if (value instanceof Comparable) {
+      addTo(sorted, value, key);
+    }
+  }
+
+  void remove(String key, Object value) {
+    keys.remove(key);
+    removeFrom(byValue, value, key);
+    if (value instanceof Comparable) {
+      removeFrom(sorted, value, key);
+    }
+  }
+
+  boolean isEmpty() {
+    return keys.isEmpty();
+  }
+
+  /**
+   * @return keys of all entries that have a value for this attribute
+   */
+  Set<String> keys() {
+    return Collections.unmodifiableSet(keys);
+  }
+
+  Set<String> equalTo(Object value) {
+    Set<String> matches = byValue.get(value);
+    return matches == null ? Collections.<String> emptySet() : Collections.unmodifiableSet(matches);
+  }
+
+  /**
+   * Keys whose value lies between the two bounds. A {@code null} bound leaves that side of the range open.
+   */
+  Set<String> range(Object min, boolean minInclusive, Object max, boolean maxInclusive) {
+    if (!isRangeBound(min) || !isRangeBound(max)) { return Collections.emptySet(); }
+
+    NavigableMap<Object, Set<String>> view;
+    if (min != null && max != null) {
+      if (min.getClass() != max.getClass()) { return Collections.emptySet(); }
+      int order = VALUE_ORDER.compare(min, max);
+      if (order > 0 || (order == 0 && !(minInclusive && maxInclusive))) { return Collections.emptySet(); }
+      view = sorted.subMap(min, minInclusive, max, maxInclusive);
+    } else if (min != null) {
+      view = sorted.tailMap(min, minInclusive);
+    } else if (max != null) {
+      view = sorted.headMap(max, maxInclusive);
+    } else {
+      return keys();
+    }
+
+    // an open side must not run into values of other classes
+    Class type = min != null ? min.getClass() : max.getClass();
+    Set<String> matches = new HashSet<String>();
+    for (Map.Entry<Object, Set<String>> e : view.entrySet()) {
+      if (e.getKey().getClass() != type) {
+        if (min == null) {
+          continue;
+        }
+        break;
+      }
+      matches.addAll(e.getValue());
+    }
+    return matches;
+  }
+
+  /**
+   * Case insensitive wildcard match against string values, where '*' matches any run of characters and '?' a single
+   * character.
+   */
+  Set<String> ilike(String wildcard) {
+    Pattern pattern = toPattern(wildcard);
+    Set<String> matches = new HashSet<String>();
+    for (Map.Entry<Object, Set<String>> e : byValue.entrySet()) {
+      if (e.getKey() instanceof String && pattern.matcher((String) e.getKey()).matches()) {
+        matches.addAll(e.getValue());
+      }
+    }
+    return matches;
+  }
+
+  static Pattern toPattern(String wildcard) {
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+    for (char c : wildcard.toCharArray()) {
+      if (c == '*' || c == '?') {
+        if (literal.length() > 0) {
+          regex.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+        regex.append(c == '*' ? ".*" : ".");
+      } else {
+        literal.append(c);
+      }
+    }
+    if (literal.length() > 0) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+  }
+
+  private static boolean isRangeBound(Object bound) {
+    return bound == null || bound instanceof Comparable;
+  }
+
+  private static void addTo(Map<Object, Set<String>> index, Object value, String key) {
+    Set<String> matches = index.get(value);
+    if (matches == null) {
+      matches = new HashSet<String>();
+      index.put(value, matches);
+    }
+    matches.add(key);
+  }
+
+  private static void removeFrom(Map<Object, Set<String>> index, Object value, String key) {
+    Set<String> matches = index.get(value);
+    if (matches != null && matches.remove(key) && matches.isEmpty()) {
+      index.remove(value);
+    }
+  }
+
+  private static class ValueOrder implements Comparator<Object> {
+    @Override
+    public int compare(Object o1, Object o2) {
+      if (o1.getClass() != o2.getClass()) { return o1.getClass().getName().compareTo(o2.getClass().getName()); }
+      return ((Comparable) o1).compareTo(o2);
+    }
+  }
+}
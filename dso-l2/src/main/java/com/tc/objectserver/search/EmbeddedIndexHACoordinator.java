@@ -0,0 +1,92 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import com.tc.l2.context.StateChangedEvent;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.object.ObjectID;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link EmbeddedIndexManager} that can also be brought in sync with the active. The indexes of a passive are dropped
+ * when a sync starts and every segment is replaced as soon as the last chunk of its file has arrived.
+ */
+public class EmbeddedIndexHACoordinator extends EmbeddedIndexManager implements IndexHACoordinator {
+
+  private static final TCLogger                    logger  = TCLogging.getLogger(EmbeddedIndexHACoordinator.class);
+
+  // chunks received so far, by cache name and index id
+  private final Map<String, ByteArrayOutputStream> pending = new HashMap<String, ByteArrayOutputStream>();
+
+  public EmbeddedIndexHACoordinator(int queryThreads) {
+    super(queryThreads);
+  }
+
+  @Override
+  public synchronized void doSyncPrepare() {
+    pending.clear();
+    clearAll();
+  }
+
+  @Override
+  public synchronized void applyIndexSync(String cacheName, String indexId, String fileName, byte[] fileData,
+                                          boolean isTCFile, boolean isLast) {
+    String id = cacheName + "/" + indexId;
+    ByteArrayOutputStream file = pending.get(id);
+    if (file == null) {
+      file = new ByteArrayOutputStream(fileData.length);
+      pending.put(id, file);
+    }
+    file.write(fileData, 0, fileData.length);
+    if (!isLast) { return; }
+
+    pending.remove(id);
+    try {
+      installSegment(cacheName, new ObjectID(Long.parseLong(indexId)), file.toByteArray());
+    } catch (IOException e) {
+      throw new AssertionError("Cannot apply synced index " + indexId + " of " + cacheName + ": " + e);
+    }
+  }
+
+  @Override
+  public synchronized void applyTempJournalsAndSwitch() {
+    // segments are switched as they arrive, anything left here never received its last chunk
+    if (!pending.isEmpty()) {
+      logger.warn("Discarding incomplete search index sync of " + pending.keySet());
+      pending.clear();
+    }
+  }
+
+  @Override
+  public void l2StateChanged(StateChangedEvent sce) {
+    //
+  }
+
+  /**
+   * Segments are not grouped into a fixed number of indexes, so any two servers running the embedded index agree.
+   */
+  @Override
+  public int getNumberOfIndexesPerCache() {
+    return 1;
+  }
+
+}
@@ -0,0 +1,647 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.ClientID;
+import com.tc.object.ObjectID;
+import com.tc.objectserver.metadata.MetaDataProcessingContext;
+import com.tc.search.SearchRequestID;
+import com.terracottatech.search.AbstractNVPair;
+import com.terracottatech.search.AggregatorOperations;
+import com.terracottatech.search.IndexException;
+import com.terracottatech.search.IndexFile;
+import com.terracottatech.search.IndexQueryResult;
+import com.terracottatech.search.NVPair;
+import com.terracottatech.search.NonGroupedIndexQueryResultImpl;
+import com.terracottatech.search.QueryID;
+import com.terracottatech.search.SearchResult;
+import com.terracottatech.search.SyncSnapshot;
+import com.terracottatech.search.ValueID;
+import com.terracottatech.search.ValueType;
+import com.terracottatech.search.aggregator.AbstractAggregator;
+import com.terracottatech.search.aggregator.Aggregator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Heap based {@link IndexManager} keeping one {@link SegmentIndex} per server map segment of every search-enabled cache.
+ * Equality criteria are answered from hash indexes and range criteria from sorted indexes. Queries are evaluated on
+ * all segments of a cache in parallel and aggregators are fed straight from the indexed attributes, so aggregate-only
+ * queries never build result rows.
+ * <p>
+ * The indexes live on the heap only and are lost when the server stops. They are neither recovered from a restartable
+ * store nor rebuilt by passive object sync, so the server builder only turns the embedded index on for a single
+ * non restartable server. {@link #snapshot(String)} and {@link #getIndexFile(String, String, String)} still hand out
+ * one serialized file per segment, which {@link EmbeddedIndexHACoordinator} can apply.
+ */
+public class EmbeddedIndexManager implements IndexManager {
+
+  static final String                                                       SEGMENT_FILE_NAME = "segment.idx";
+
+  private static final TCLogger                                             logger            = TCLogging
+                                                                                                  .getLogger(EmbeddedIndexManager.class);
+
+  private final ConcurrentMap<String, ConcurrentMap<ObjectID, SegmentIndex>> indexes           = new ConcurrentHashMap<String, ConcurrentMap<ObjectID, SegmentIndex>>();
+  private final ConcurrentMap<String, ConcurrentMap<String, ValueType>>      attributeTypes    = new ConcurrentHashMap<String, ConcurrentMap<String, ValueType>>();
+  private final ConcurrentMap<String, IndexSnapshot>                        snapshots         = new ConcurrentHashMap<String, IndexSnapshot>();
+  private final ExecutorService                                             queryExecutor;
+
+  public EmbeddedIndexManager(int queryThreads) {
+    this.queryExecutor = Executors.newFixedThreadPool(queryThreads, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger(1);
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "Embedded Search Query Thread - " + count.getAndIncrement());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  @Override
+  public void insert(String indexName, String key, ValueID value, List<NVPair> attributes, ObjectID segmentOid,
+                     MetaDataProcessingContext metaDataContext) {
+    update(indexName, key, value, attributes, segmentOid, metaDataContext);
+  }
+
+  @Override
+  public void update(String indexName, String key, ValueID value, List<NVPair> attributes, ObjectID segmentOid,
+                     MetaDataProcessingContext metaDataContext) {
+    Map<String, Object> values = attributeValues(indexName, attributes);
+    SegmentIndex segment = getOrCreateSegment(indexName, segmentOid);
+    synchronized (segment) {
+      segment.upsert(key, value, values);
+    }
+    metaDataContext.processed();
+  }
+
+  @Override
+  public void putIfAbsent(String indexName, String key, ValueID value, List<NVPair> attributes, ObjectID segmentOid,
+                          MetaDataProcessingContext metaDataContext) {
+    Map<String, Object> values = attributeValues(indexName, attributes);
+    SegmentIndex segment = getOrCreateSegment(indexName, segmentOid);
+    synchronized (segment) {
+      segment.putIfAbsent(key, value, values);
+    }
+    metaDataContext.processed();
+  }
+
+  @Override
+  public void replace(String indexName, String key, ValueID value, ValueID previousValue, List<NVPair> attributes,
+                      ObjectID segmentOid, MetaDataProcessingContext metaDataContext) {
+    Map<String, Object> values = attributeValues(indexName, attributes);
+    SegmentIndex segment = getOrCreateSegment(indexName, segmentOid);
+    synchronized (segment) {
+      segment.replace(key, value, previousValue, values);
+    }
+    metaDataContext.processed();
+  }
+
+  /**
+   * The whole batch is applied under one hold of the segment lock, which is what commits it for queries.
+   */
+  @Override
+  public void applyBatch(String indexName, ObjectID segmentOid, List<SearchEventContext> mutations)
+      throws IndexException {
+    SegmentIndex segment = getOrCreateSegment(indexName, segmentOid);
+    synchronized (segment) {
+      for (SearchEventContext mutation : mutations) {
+        apply(indexName, segment, mutation);
+      }
+    }
+    for (SearchEventContext mutation : mutations) {
+      ((BaseSearchEventContext) mutation).getMetaDataProcessingContext().processed();
+    }
+  }
+
+  @Override
+  public void remove(String indexName, String key, ObjectID segmentOid, MetaDataProcessingContext metaDataContext) {
+    SegmentIndex segment = getSegment(indexName, segmentOid);
+    if (segment != null) {
+      synchronized (segment) {
+        segment.remove(key);
+      }
+    }
+    metaDataContext.processed();
+  }
+
+  @Override
+  public void removeIfValueEqual(String indexName, Map<String, ValueID> toRemove, ObjectID segmentOid,
+                                 MetaDataProcessingContext metaDataContext, boolean fromEviction) {
+    SegmentIndex segment = getSegment(indexName, segmentOid);
+    if (segment != null) {
+      synchronized (segment) {
+        for (Map.Entry<String, ValueID> e : toRemove.entrySet()) {
+          segment.removeIfValueEqual(e.getKey(), e.getValue());
+        }
+      }
+    }
+    metaDataContext.processed();
+  }
+
+  @Override
+  public void clear(String indexName, ObjectID segmentOid, MetaDataProcessingContext metaDataContext) {
+    SegmentIndex segment = getSegment(indexName, segmentOid);
+    if (segment != null) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+    metaDataContext.processed();
+  }
+
+  @Override
+  public void deleteIndex(String indexName, MetaDataProcessingContext processingContext) {
+    indexes.remove(indexName);
+    attributeTypes.remove(indexName);
+    processingContext.processed();
+  }
+
+  @Override
+  public SearchResult searchIndex(String indexName, ClientID clientId, SearchRequestID reqId, List queryStack,
+                                  boolean includeKeys, boolean includeValues, Set<String> attributeSet,
+                                  Set<String> groupByAttributes, List<NVPair> sortAttributes, List<NVPair> aggregators,
+                                  int maxResults, int fetchSize) throws IndexException {
+    if (groupByAttributes != null && !groupByAttributes.isEmpty()) {
+      // do not silently hand out ungrouped rows
+      throw new IndexException("Group by queries are not supported by the embedded search index: " + indexName);
+    }
+    return search(indexName, queryStack, includeKeys, includeValues, attributeSet, sortAttributes, aggregators,
+                  maxResults, 0, -1);
+  }
+
+  @Override
+  public SearchResult getSearchResults(String indexName, ClientID clientId, SearchRequestID reqId, List queryStack,
+                                       boolean includeKeys, boolean includeValues, Set<String> attributeSet,
+                                       List<NVPair> sortAttributes, List<NVPair> aggregators, int maxResults,
+                                       int start, int pageSize) throws IndexException {
+    return search(indexName, queryStack, includeKeys, includeValues, attributeSet, sortAttributes, aggregators,
+                  maxResults, start, pageSize);
+  }
+
+  /**
+   * Queries always read the live index, so there is no per query state to pin or release.
+   */
+  @Override
+  public void snapshotForQuery(String indexName, QueryID query, MetaDataProcessingContext context) {
+    context.processed();
+  }
+
+  @Override
+  public void releaseSearchResults(String indexName, QueryID query, MetaDataProcessingContext context) {
+    context.processed();
+  }
+
+  @Override
+  public void releaseAllResultsFor(ClientID clientId) {
+    //
+  }
+
+  @Override
+  public void pruneSearchResults(Set<ClientID> filter) {
+    //
+  }
+
+  @Override
+  public SyncSnapshot snapshot(String syncId) throws IndexException {
+    IndexSnapshot snapshot = new IndexSnapshot(syncId);
+    for (Map.Entry<String, ConcurrentMap<ObjectID, SegmentIndex>> cache : indexes.entrySet()) {
+      for (Map.Entry<ObjectID, SegmentIndex> e : cache.getValue().entrySet()) {
+        try {
+          snapshot.add(cache.getKey(), String.valueOf(e.getKey().toLong()), serialize(e.getValue()));
+        } catch (IOException ioe) {
+          throw new IndexException(ioe);
+        }
+      }
+    }
+    snapshots.put(syncId, snapshot);
+    return snapshot;
+  }
+
+  @Override
+  public InputStream getIndexFile(String cacheName, String indexId, String fileName) throws IOException {
+    // file names handed out by a snapshot are prefixed with its sync id
+    int sep = fileName.lastIndexOf('/');
+    IndexSnapshot snapshot = sep < 0 ? null : snapshots.get(fileName.substring(0, sep));
+    byte[] data = snapshot == null ? null : snapshot.get(cacheName, indexId);
+    if (data == null) { throw new IOException("No snapshot holds " + fileName + " of index " + indexId + " for "
+                                              + cacheName); }
+    return new ByteArrayInputStream(data);
+  }
+
+  @Override
+  public void backup(File destDir, SyncSnapshot syncSnapshot) throws IndexException {
+    IndexSnapshot snapshot = (IndexSnapshot) syncSnapshot;
+    try {
+      for (Map.Entry<String, List<IndexFile>> cache : snapshot.getFilesToSync().entrySet()) {
+        for (IndexFile file : cache.getValue()) {
+          File dir = new File(new File(destDir, cache.getKey()), file.getIndexId());
+          if (!dir.isDirectory() && !dir.mkdirs()) { throw new IOException("Cannot create " + dir); }
+          OutputStream out = new FileOutputStream(new File(dir, SEGMENT_FILE_NAME));
+          try {
+            out.write(snapshot.get(cache.getKey(), file.getIndexId()));
+          } finally {
+            out.close();
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IndexException(e);
+    }
+  }
+
+  @Override
+  public void optimizeSearchIndex(String indexName) {
+    //
+  }
+
+  @Override
+  public String[] getSearchIndexNames() {
+    return indexes.keySet().toArray(new String[0]);
+  }
+
+  @Override
+  public void shutdown() {
+    queryExecutor.shutdownNow();
+  }
+
+  /**
+   * Replaces the index of one segment, used when applying an index synced from the active.
+   */
+  protected void installSegment(String indexName, ObjectID segmentOid, byte[] data) throws IOException {
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+    try {
+      getOrCreateSegments(indexName).put(segmentOid, SegmentIndex.readFrom(in));
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Cannot read index of segment " + segmentOid + " for " + indexName, e);
+    } finally {
+      in.close();
+    }
+  }
+
+  protected void clearAll() {
+    indexes.clear();
+    attributeTypes.clear();
+  }
+
+  private void apply(String indexName, SegmentIndex segment, SearchEventContext mutation) throws IndexException {
+    if (mutation instanceof SearchUpsertContext) {
+      SearchUpsertContext upsert = (SearchUpsertContext) mutation;
+      segment.upsert(upsert.getCacheKey(), upsert.getCacheValue(),
+                     attributeValues(indexName, upsert.getAttributes()));
+    } else if (mutation instanceof SearchPutIfAbsentContext) {
+      SearchPutIfAbsentContext put = (SearchPutIfAbsentContext) mutation;
+      segment.putIfAbsent(put.getCacheKey(), put.getCacheValue(), attributeValues(indexName, put.getAttributes()));
+    } else if (mutation instanceof SearchReplaceContext) {
+      SearchReplaceContext replace = (SearchReplaceContext) mutation;
+      segment.replace(replace.getCacheKey(), replace.getCacheValue(), replace.getPreviousValue(),
+                      attributeValues(indexName, replace.getAttributes()));
+    } else if (mutation instanceof SearchDeleteContext) {
+      segment.remove(((SearchDeleteContext) mutation).getCacheKey());
+    } else if (mutation instanceof SearchRemoveIfValueEqualsContext) {
+      for (Map.Entry<String, ValueID> e : ((SearchRemoveIfValueEqualsContext) mutation).getRemoves().entrySet()) {
+        segment.removeIfValueEqual(e.getKey(), e.getValue());
+      }
+    } else {
+      throw new IndexException("Not an index mutation: " + mutation);
+    }
+  }
+
+  private SearchResult search(String indexName, List queryStack, boolean includeKeys, boolean includeValues,
+                              Set<String> attributeSet, List<NVPair> sortAttributes, List<NVPair> aggregators,
+                              int maxResults, int start, int pageSize) throws IndexException {
+    IndexQuery query = IndexQuery.parse(queryStack);
+    Map<ObjectID, SegmentIndex> segments = indexes.get(indexName);
+    List<Map.Entry<String, SegmentIndex.Entry>> matches = segments == null ? new ArrayList<Map.Entry<String, SegmentIndex.Entry>>()
+        : match(query, segments.values());
+
+    List<Aggregator> aggregatorResults = aggregate(indexName, aggregators, matches);
+
+    List<IndexQueryResult> results = new ArrayList<IndexQueryResult>();
+    boolean aggregateOnly = !aggregators.isEmpty() && !includeKeys && !includeValues && attributeSet.isEmpty();
+    if (!aggregateOnly) {
+      if (!sortAttributes.isEmpty()) {
+        Collections.sort(matches, new ResultOrder(sortAttributes));
+      }
+      int end = maxResults >= 0 ? Math.min(maxResults, matches.size()) : matches.size();
+      if (pageSize >= 0) {
+        end = Math.min(end, start + pageSize);
+      }
+      for (int i = start; i < end; i++) {
+        Map.Entry<String, SegmentIndex.Entry> match = matches.get(i);
+        Map<String, Object> values = match.getValue().getAttributes();
+        results.add(new NonGroupedIndexQueryResultImpl(includeKeys ? match.getKey() : null,
+                                                       includeValues ? (ValueID) match.getValue().getValue() : null,
+                                                       pairs(values, attributeSet), pairs(values, names(sortAttributes))));
+      }
+    }
+    return new SearchResult(results, aggregatorResults, !matches.isEmpty());
+  }
+
+  private List<Map.Entry<String, SegmentIndex.Entry>> match(final IndexQuery query, Collection<SegmentIndex> segments)
+      throws IndexException {
+    List<Map.Entry<String, SegmentIndex.Entry>> matches = new ArrayList<Map.Entry<String, SegmentIndex.Entry>>();
+    if (segments.size() == 1) {
+      matches.addAll(match(query, segments.iterator().next()));
+      return matches;
+    }
+
+    List<Future<List<Map.Entry<String, SegmentIndex.Entry>>>> pending = new ArrayList<Future<List<Map.Entry<String, SegmentIndex.Entry>>>>();
+    for (final SegmentIndex segment : segments) {
+      pending.add(queryExecutor.submit(new Callable<List<Map.Entry<String, SegmentIndex.Entry>>>() {
+        @Override
+        public List<Map.Entry<String, SegmentIndex.Entry>> call() {
+          return match(query, segment);
+        }
+      }));
+    }
+    try {
+      for (Future<List<Map.Entry<String, SegmentIndex.Entry>>> f : pending) {
+        matches.addAll(f.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IndexException(e);
+    } catch (ExecutionException e) {
+      throw new IndexException(e.getCause());
+    } finally {
+      for (Future<List<Map.Entry<String, SegmentIndex.Entry>>> f : pending) {
+        f.cancel(true);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Entries are immutable once indexed, so the matches stay valid after the segment lock is released.
+   */
+  private static List<Map.Entry<String, SegmentIndex.Entry>> match(IndexQuery query, SegmentIndex segment) {
+    synchronized (segment) {
+      Set<String> keys = query.evaluate(segment);
+      List<Map.Entry<String, SegmentIndex.Entry>> matches = new ArrayList<Map.Entry<String, SegmentIndex.Entry>>(keys.size());
+      for (String key : keys) {
+        matches.add(new SimpleImmutableEntry<String, SegmentIndex.Entry>(key, segment.get(key)));
+      }
+      return matches;
+    }
+  }
+
+  private List<Aggregator> aggregate(String indexName, List<NVPair> aggregators,
+                                     List<Map.Entry<String, SegmentIndex.Entry>> matches) throws IndexException {
+    if (aggregators.isEmpty()) { return Collections.emptyList(); }
+
+    Map<String, ValueType> types = attributeTypes.get(indexName);
+    List<Aggregator> results = new ArrayList<Aggregator>(aggregators.size());
+    for (NVPair aggregator : aggregators) {
+      String attribute = aggregator.getName();
+      ValueType type = types == null ? null : types.get(attribute);
+      Aggregator result = AbstractAggregator.aggregator((AggregatorOperations) aggregator.getObjectValue(),
+                                                        attribute, type == null ? ValueType.NULL : type);
+      for (Map.Entry<String, SegmentIndex.Entry> match : matches) {
+        try {
+          result.accept(match.getValue().getAttributes().get(attribute));
+        } catch (IllegalArgumentException e) {
+          throw new IndexException(e);
+        }
+      }
+      results.add(result);
+    }
+    return results;
+  }
+
+  private Map<String, Object> attributeValues(String indexName, List<NVPair> attributes) {
+    ConcurrentMap<String, ValueType> types = attributeTypes.get(indexName);
+    if (types == null) {
+      types = new ConcurrentHashMap<String, ValueType>();
+      ConcurrentMap<String, ValueType> racer = attributeTypes.putIfAbsent(indexName, types);
+      if (racer != null) {
+        types = racer;
+      }
+    }
+    Map<String, Object> values = new HashMap<String, Object>(attributes.size());
+    for (NVPair pair : attributes) {
+      values.put(pair.getName(), pair.getObjectValue());
+      if (!types.containsKey(pair.getName())) {
+        types.putIfAbsent(pair.getName(), pair.getType());
+      }
+    }
+    return values;
+  }
+
+  private static List<NVPair> pairs(Map<String, Object> values, Collection<String> names) {
+    if (names.isEmpty()) { return Collections.emptyList(); }
+    List<NVPair> pairs = new ArrayList<NVPair>(names.size());
+    for (String name : names) {
+      Object value = values.get(name);
+      if (value != null) {
+        pairs.add(AbstractNVPair.createNVPair(name, value));
+      }
+    }
+    return pairs;
+  }
+
+  private static List<String> names(List<NVPair> sortAttributes) {
+    List<String> names = new ArrayList<String>(sortAttributes.size());
+    for (NVPair pair : sortAttributes) {
+      names.add(pair.getName());
+    }
+    return names;
+  }
+
+  private SegmentIndex getSegment(String indexName, ObjectID segmentOid) {
+    Map<ObjectID, SegmentIndex> segments = indexes.get(indexName);
+    return segments == null ? null : segments.get(segmentOid);
+  }
+
+  private SegmentIndex getOrCreateSegment(String indexName, ObjectID segmentOid) {
+    ConcurrentMap<ObjectID, SegmentIndex> segments = getOrCreateSegments(indexName);
+    SegmentIndex segment = segments.get(segmentOid);
+    if (segment == null) {
+      segment = new SegmentIndex();
+      SegmentIndex racer = segments.putIfAbsent(segmentOid, segment);
+      if (racer != null) {
+        segment = racer;
+      }
+    }
+    return segment;
+  }
+
+  private ConcurrentMap<ObjectID, SegmentIndex> getOrCreateSegments(String indexName) {
+    ConcurrentMap<ObjectID, SegmentIndex> segments = indexes.get(indexName);
+    if (segments == null) {
+      segments = new ConcurrentHashMap<ObjectID, SegmentIndex>();
+      ConcurrentMap<ObjectID, SegmentIndex> racer = indexes.putIfAbsent(indexName, segments);
+      if (racer != null) {
+        segments = racer;
+      }
+    }
+    return segments;
+  }
+
+  private static byte[] serialize(SegmentIndex segment) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    synchronized (segment) {
+      segment.writeTo(out);
+    }
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Orders matches by the requested sort attributes, entries without a value for an attribute sort last.
+   */
+  private static class ResultOrder implements Comparator<Map.Entry<String, SegmentIndex.Entry>> {
+    private final List<String>  names      = new ArrayList<String>();
+    private final List<Boolean> descending = new ArrayList<Boolean>();
+
+    ResultOrder(List<NVPair> sortAttributes) {
+      for (NVPair pair : sortAttributes) {
+        names.add(pair.getName());
+        descending.add("DESCENDING".equals(((Enum) pair.getObjectValue()).name()));
+      }
+    }
+
+    @Override
+    public int compare(Map.Entry<String, SegmentIndex.Entry> e1, Map.Entry<String, SegmentIndex.Entry> e2) {
+      for (int i = 0; i < names.size(); i++) {
+        Object v1 = e1.getValue().getAttributes().get(names.get(i));
+        Object v2 = e2.getValue().getAttributes().get(names.get(i));
+        int order;
+        if (v1 == null || v2 == null) {
+          order = v1 == null ? (v2 == null ? 0 : 1) : -1;
+        } else if (v1 instanceof Comparable && v2 instanceof Comparable) {
+          order = descending.get(i) ? AttributeIndex.VALUE_ORDER.compare(v2, v1) : AttributeIndex.VALUE_ORDER
+              .compare(v1, v2);
+        } else {
+          order = 0;
+        }
+        if (order != 0) { return order; }
+      }
+      return 0;
+    }
+  }
+
+  private class IndexSnapshot implements SyncSnapshot {
+    private final String                            syncId;
+    private final Map<String, Map<String, byte[]>> files = new HashMap<String, Map<String, byte[]>>();
+
+    IndexSnapshot(String syncId) {
+      this.syncId = syncId;
+    }
+
+    void add(String cacheName, String indexId, byte[] data) {
+      Map<String, byte[]> cacheFiles = files.get(cacheName);
+      if (cacheFiles == null) {
+        cacheFiles = new HashMap<String, byte[]>();
+        files.put(cacheName, cacheFiles);
+      }
+      cacheFiles.put(indexId, data);
+    }
+
+    byte[] get(String cacheName, String indexId) {
+      Map<String, byte[]> cacheFiles = files.get(cacheName);
+      return cacheFiles == null ? null : cacheFiles.get(indexId);
+    }
+
+    @Override
+    public Map<String, List<IndexFile>> getFilesToSync() {
+      Map<String, List<IndexFile>> toSync = new HashMap<String, List<IndexFile>>();
+      for (Map.Entry<String, Map<String, byte[]>> cache : files.entrySet()) {
+        List<IndexFile> cacheFiles = new ArrayList<IndexFile>();
+        for (Map.Entry<String, byte[]> e : cache.getValue().entrySet()) {
+          cacheFiles.add(new SegmentIndexFile(syncId, e.getKey(), e.getValue().length));
+        }
+        toSync.put(cache.getKey(), cacheFiles);
+      }
+      return toSync;
+    }
+
+    @Override
+    public void release() {
+      if (snapshots.remove(syncId, this)) {
+        logger.info("Released search index snapshot " + syncId);
+      }
+    }
+  }
+
+  private static class SegmentIndexFile implements IndexFile {
+    private final String syncId;
+    private final String indexId;
+    private final long   length;
+
+    SegmentIndexFile(String syncId, String indexId, long length) {
+      this.syncId = syncId;
+      this.indexId = indexId;
+      this.length = length;
+    }
+
+    @Override
+    public String getDestFilename() {
+      return SEGMENT_FILE_NAME;
+    }
+
+    @Override
+    public String getIndexId() {
+      return indexId;
+    }
+
+    @Override
+    public String getLuceneFilename() {
+      return syncId + "/" + SEGMENT_FILE_NAME;
+    }
+
+    @Override
+    public boolean isTCFile() {
+      return false;
+    }
+
+    @Override
+    public long length() {
+      return length;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import com.tc.async.api.Sink;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.object.ObjectID;
+import com.tc.object.dna.api.MetaDataReader;
+import com.tc.object.metadata.MetaDataDescriptorInternal;
+import com.tc.objectserver.managedobject.ApplyTransactionInfo;
+import com.tc.objectserver.metadata.MetaDataManager;
+import com.tc.objectserver.metadata.MetaDataProcessingContext;
+import com.tc.objectserver.tx.ServerTransaction;
+import com.tc.objectserver.tx.ServerTransactionManager;
+import com.terracottatech.search.AbstractNVPair;
+import com.terracottatech.search.NVPair;
+import com.terracottatech.search.QueryID;
+import com.terracottatech.search.SearchCommand;
+import com.terracottatech.search.SearchMetaData;
+import com.terracottatech.search.ValueID;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the search meta data that clients attach to server map changes into index mutations for the
+ * {@link EmbeddedIndexManager}. Every descriptor of the transaction becomes one context on the search event stage, and
+ * the transaction is acknowledged once the last of them has been applied to the index.
+ */
+public class EmbeddedMetaDataManager implements MetaDataManager {
+
+  static final String                       SEARCH_CATEGORY = "SEARCH";
+
+  private static final TCLogger             logger          = TCLogging.getLogger(EmbeddedMetaDataManager.class);
+  private static final String               ATTR_PREFIX     = SearchMetaData.ATTR.toString();
+
+  private final Sink                        searchEventSink;
+  private volatile ServerTransactionManager transactionManager;
+
+  public EmbeddedMetaDataManager(Sink searchEventSink) {
+    this.searchEventSink = searchEventSink;
+  }
+
+  @Override
+  public void setTransactionManager(ServerTransactionManager transactionManager) {
+    this.transactionManager = transactionManager;
+  }
+
+  @Override
+  public boolean processMetaData(ServerTransaction txn, ApplyTransactionInfo applyInfo) {
+    MetaDataReader[] readers = txn.getMetaDataReaders();
+    if (readers.length == 0) { return true; }
+
+    MetaDataProcessingContext processingContext = new MetaDataProcessingContext(txn.getServerTransactionID(),
+                                                                                transactionManager);
+    List<SearchEventContext> contexts = new ArrayList<SearchEventContext>();
+    for (MetaDataReader reader : readers) {
+      for (MetaDataDescriptorInternal descriptor : reader) {
+        SearchEventContext context = toSearchContext(descriptor, processingContext);
+        if (context != null) {
+          contexts.add(context);
+        }
+      }
+    }
+    if (contexts.isEmpty()) { return true; }
+
+    processingContext.setExpectedCount(contexts.size());
+    for (SearchEventContext context : contexts) {
+      searchEventSink.add(context);
+    }
+    return false;
+  }
+
+  /**
+   * @return the index mutation described by the given meta data, null if it does not touch the index
+   */
+  SearchEventContext toSearchContext(MetaDataDescriptorInternal descriptor, MetaDataProcessingContext processingContext) {
+    if (!SEARCH_CATEGORY.equals(descriptor.getCategory())) { return null; }
+
+    String cacheName = null;
+    SearchCommand command = SearchCommand.NOT_SET;
+    String key = null;
+    ValueID value = null;
+    ValueID previousValue = null;
+    long clientId = 0;
+    long requestId = 0;
+    List<NVPair> attributes = new ArrayList<NVPair>();
+    List<Object> unnamed = new ArrayList<Object>();
+    for (Iterator<NVPair> i = descriptor.getMetaDatas(); i.hasNext();) {
+      NVPair pair = i.next();
+      String name = pair.getName();
+      if (SearchMetaData.CACHENAME.toString().equals(name)) {
+        cacheName = String.valueOf(pair.getObjectValue());
+      } else if (SearchMetaData.COMMAND.toString().equals(name)) {
+        Object commandValue = pair.getObjectValue();
+        command = SearchCommand.valueOf(commandValue instanceof Enum ? ((Enum) commandValue).name() : String
+            .valueOf(commandValue));
+      } else if (SearchMetaData.KEY.toString().equals(name)) {
+        key = String.valueOf(pair.getObjectValue());
+      } else if (SearchMetaData.VALUE.toString().equals(name)) {
+        value = valueID(pair.getObjectValue());
+      } else if (SearchMetaData.PREV_VALUE.toString().equals(name)) {
+        previousValue = valueID(pair.getObjectValue());
+      } else if (SearchMetaData.CLIENT_ID.toString().equals(name)) {
+        clientId = ((Number) pair.getObjectValue()).longValue();
+      } else if (SearchMetaData.REQUEST_ID.toString().equals(name)) {
+        requestId = ((Number) pair.getObjectValue()).longValue();
+      } else if (name.startsWith(ATTR_PREFIX) && name.length() > ATTR_PREFIX.length()) {
+        attributes.add(AbstractNVPair.createNVPair(name.substring(ATTR_PREFIX.length()), pair.getObjectValue()));
+      } else {
+        unnamed.add(pair.getObjectValue());
+      }
+    }
+
+    ObjectID segmentOid = descriptor.getObjectId();
+    switch (command) {
+      case PUT:
+        return new SearchUpsertContext(segmentOid, cacheName, key, value, attributes, processingContext, false);
+      case PUT_IF_ABSENT:
+        return new SearchPutIfAbsentContext(segmentOid, cacheName, key, value, attributes, processingContext);
+      case REPLACE:
+        return new SearchReplaceContext(segmentOid, cacheName, key, value, previousValue, attributes,
+                                        processingContext);
+      case REMOVE:
+        return new SearchDeleteContext(segmentOid, cacheName, key, processingContext);
+      case REMOVE_IF_VALUE_EQUAL:
+        return new SearchRemoveIfValueEqualsContext(segmentOid, cacheName, removes(unnamed), processingContext, false);
+      case CLEAR:
+        return new SearchClearContext(segmentOid, cacheName, processingContext);
+      case DESTROY:
+        return new SearchDestroyContext(segmentOid, cacheName, processingContext);
+      case SNAPSHOT:
+      case RELEASE_RESULTS:
+        return new SearchIndexSnapshotContext(segmentOid, cacheName, new QueryID(clientId, requestId),
+                                              command == SearchCommand.RELEASE_RESULTS, processingContext);
+      default:
+        logger.warn("Ignoring search meta data without a command for " + cacheName + ": " + descriptor);
+        return null;
+    }
+  }
+
+  /**
+   * Conditional removes are sent as an entry count followed by that many key and value pairs.
+   */
+  private static Map<String, ValueID> removes(List<Object> unnamed) {
+    Map<String, ValueID> removes = new LinkedHashMap<String, ValueID>();
+    int count = unnamed.isEmpty() ? 0 : ((Number) unnamed.get(0)).intValue();
+    for (int i = 0; i < count; i++) {
+      removes.put(String.valueOf(unnamed.get(1 + 2 * i)), valueID(unnamed.get(2 + 2 * i)));
+    }
+    return removes;
+  }
+
+  private static ValueID valueID(Object value) {
+    if (value instanceof ValueID) { return (ValueID) value; }
+    return new ValueID(((ObjectID) value).toLong());
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import com.tc.async.api.ConfigurationContext;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.ClientID;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.msg.SearchQueryRequestMessage;
+import com.tc.object.msg.SearchQueryResponseMessage;
+import com.tc.object.msg.SearchResultsRequestMessage;
+import com.tc.object.msg.SearchResultsResponseMessage;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.terracottatech.search.IndexException;
+import com.terracottatech.search.SearchResult;
+
+/**
+ * Answers client queries from the {@link EmbeddedIndexManager} on the search query request stage. No per query state
+ * is kept between pages, a results page request runs the query again and answers with the requested page.
+ */
+public class EmbeddedSearchRequestManager implements SearchRequestManager {
+
+  private static final TCLogger logger = TCLogging.getLogger(EmbeddedSearchRequestManager.class);
+
+  private IndexManager          indexManager;
+
+  @Override
+  public void initializeContext(ConfigurationContext context) {
+    this.indexManager = ((ServerConfigurationContext) context).getIndexManager();
+  }
+
+  @Override
+  public void queryRequest(SearchQueryRequestMessage request) {
+    SearchQueryResponseMessage response = (SearchQueryResponseMessage) request.getChannel()
+        .createMessage(TCMessageType.SEARCH_QUERY_RESPONSE_MESSAGE);
+    boolean groupBy = !request.getGroupByAttributes().isEmpty();
+    try {
+      SearchResult result = indexManager.searchIndex(request.getCachename(), (ClientID) request.getSourceNodeID(),
+                                                     request.getRequestID(), request.getQueryStack(),
+                                                     request.includeKeys(), request.includeValues(),
+                                                     request.getAttributes(), request.getGroupByAttributes(),
+                                                     request.getSortAttributes(), request.getAggregators(),
+                                                     request.getMaxResults(), request.getValuePrefetchSize());
+      response.initSearchResponseMessage(request.getRequestID(), request.getGroupIDFrom(), result.getQueryResults(),
+                                         result.getAggregators(), result.isAnyCriteriaMatched(), groupBy,
+                                         result.getQueryResults().size());
+    } catch (IndexException e) {
+      logger.warn("Search query " + request.getRequestID() + " on " + request.getCachename() + " failed", e);
+      response.initSearchResponseMessage(request.getRequestID(), request.getGroupIDFrom(), e.getMessage());
+    }
+    response.send();
+  }
+
+  @Override
+  public void resultsRequest(SearchResultsRequestMessage request) {
+    SearchResultsResponseMessage response = (SearchResultsResponseMessage) request.getChannel()
+        .createMessage(TCMessageType.SEARCH_RESULTS_RESPONSE_MESSAGE);
+    try {
+      SearchResult result = indexManager.getSearchResults(request.getCachename(),
+                                                          (ClientID) request.getSourceNodeID(),
+                                                          request.getRequestID(), request.getQueryStack(),
+                                                          request.includeKeys(), request.includeValues(),
+                                                          request.getAttributes(), request.getSortAttributes(),
+                                                          request.getAggregators(), request.getMaxResults(),
+                                                          request.getStart(), request.getPageSize());
+      response.initSearchResultMessage(request.getRequestID(), request.getGroupIDFrom(), result.getQueryResults(),
+                                       result.isAnyCriteriaMatched());
+    } catch (IndexException e) {
+      logger.warn("Search results page " + request.getRequestID() + " on " + request.getCachename() + " failed", e);
+      response.initSearchResultMessage(request.getRequestID(), request.getGroupIDFrom(), e.getMessage());
+    }
+    response.send();
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import com.tc.logging.TCLogger;
+import com.tc.stats.Stats;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the batched index mutations applied by the search stage. Bucket <code>i</code> of the batch size histogram
+ * holds the batches of between 2<sup>i</sup> and 2<sup>i+1</sup>-1 search contexts, bucket <code>i</code> of the
+ * latency histogram the index commits that took between 2<sup>i</sup> and 2<sup>i+1</sup>-1 microseconds. The last
+ * bucket of each histogram also takes everything larger.
+ */
+public class IndexBatchStats implements Stats {
+
+  private static final int      HISTOGRAM_BUCKETS = 16;
+
+  private final AtomicLong      batches           = new AtomicLong();
+  private final AtomicLong      contexts          = new AtomicLong();
+  private final AtomicLongArray batchSizes        = new AtomicLongArray(HISTOGRAM_BUCKETS);
+  private final AtomicLongArray latencies         = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+  public void batchCommitted(int contextCount, long commitTimeNanos) {
+    batches.incrementAndGet();
+    contexts.addAndGet(contextCount);
+    batchSizes.incrementAndGet(bucket(contextCount));
+    latencies.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(commitTimeNanos)));
+  }
+
+  public long getBatchCount() {
+    return batches.get();
+  }
+
+  public long getContextCount() {
+    return contexts.get();
+  }
+
+  public long[] getBatchSizeHistogram() {
+    return snapshot(batchSizes);
+  }
+
+  public long[] getCommitLatencyHistogram() {
+    return snapshot(latencies);
+  }
+
+  /**
+   * Moves everything counted so far into the returned stats, leaving this instance counting from zero again.
+   */
+  public IndexBatchStats getAndReset() {
+    IndexBatchStats interval = new IndexBatchStats();
+    interval.batches.set(batches.getAndSet(0));
+    interval.contexts.set(contexts.getAndSet(0));
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      interval.batchSizes.set(i, batchSizes.getAndSet(i, 0));
+      interval.latencies.set(i, latencies.getAndSet(i, 0));
+    }
+    return interval;
+  }
+
+  public void reset() {
+    batches.set(0);
+    contexts.set(0);
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      batchSizes.set(i, 0);
+      latencies.set(i, 0);
+    }
+  }
+
+  @Override
+  public String getDetails() {
+    return "search index batches : " + batches + " contexts : " + contexts + " batch sizes : "
+           + Arrays.toString(getBatchSizeHistogram()) + " commit latencies(us) : "
+           + Arrays.toString(getCommitLatencyHistogram());
+  }
+
+  @Override
+  public void logDetails(TCLogger statsLogger) {
+    statsLogger.info(getDetails());
+  }
+
+  static int bucket(long value) {
+    if (value <= 1) { return 0; }
+    return Math.min(63 - Long.numberOfLeadingZeros(value), HISTOGRAM_BUCKETS - 1);
+  }
+
+  private static long[] snapshot(AtomicLongArray histogram) {
+    long[] copy = new long[HISTOGRAM_BUCKETS];
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      copy[i] = histogram.get(i);
+    }
+    return copy;
+  }
+}
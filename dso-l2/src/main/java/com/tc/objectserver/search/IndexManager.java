@@ -58,6 +58,12 @@ public interface IndexManager {
   void replace(String indexName, String key, ValueID value, ValueID previousValue, List<NVPair> attributes,
                ObjectID segmentOid, MetaDataProcessingContext metaDataContext) throws IndexException;
 
+  /**
+   * Applies upsert, delete, replace, putIfAbsent and removeIfValueEqual contexts of one segment in order, with a single
+   * index commit for all of them. The processing context of every mutation is completed once the batch is committed.
+   */
+  void applyBatch(String indexName, ObjectID segmentOid, List<SearchEventContext> mutations) throws IndexException;
+
   public SearchResult searchIndex(String indexName, ClientID clientId, SearchRequestID reqId, List queryStack,
                                   boolean includeKeys, boolean includeValues,
                                   Set<String> attributeSet, Set<String> groupByAttributes, List<NVPair> sortAttributes,
@@ -0,0 +1,264 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import com.terracottatech.search.IndexException;
+import com.terracottatech.search.NVPair;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Criteria of a search query, evaluated against the attribute indexes of a single {@link SegmentIndex}.
+ */
+abstract class IndexQuery {
+
+  /**
+   * @return keys of the segment entries matching this query, the returned set must not be modified
+   */
+  abstract Set<String> evaluate(SegmentIndex segment);
+
+  static IndexQuery all() {
+    return new IndexQuery() {
+      @Override
+      Set<String> evaluate(SegmentIndex segment) {
+        return segment.keys();
+      }
+    };
+  }
+
+  static IndexQuery equalTo(final String attribute, final Object value) {
+    return new AttributeQuery(attribute) {
+      @Override
+      Set<String> evaluate(AttributeIndex index) {
+        return index.equalTo(value);
+      }
+    };
+  }
+
+  static IndexQuery range(final String attribute, final Object min, final boolean minInclusive, final Object max,
+                          final boolean maxInclusive) {
+    return new AttributeQuery(attribute) {
+      @Override
+      Set<String> evaluate(AttributeIndex index) {
+        return index.range(min, minInclusive, max, maxInclusive);
+      }
+    };
+  }
+
+  static IndexQuery ilike(final String attribute, final String wildcard) {
+    return new AttributeQuery(attribute) {
+      @Override
+      Set<String> evaluate(AttributeIndex index) {
+        return index.ilike(wildcard);
+      }
+    };
+  }
+
+  static IndexQuery notNull(final String attribute) {
+    return new AttributeQuery(attribute) {
+      @Override
+      Set<String> evaluate(AttributeIndex index) {
+        return index.keys();
+      }
+    };
+  }
+
+  static IndexQuery and(final IndexQuery left, final IndexQuery right) {
+    return new IndexQuery() {
+      @Override
+      Set<String> evaluate(SegmentIndex segment) {
+        Set<String> l = left.evaluate(segment);
+        if (l.isEmpty()) { return l; }
+        Set<String> r = right.evaluate(segment);
+        Set<String> smaller = l.size() <= r.size() ? l : r;
+        Set<String> larger = smaller == l ? r : l;
+        Set<String> matches = new HashSet<String>();
+        for (String key : smaller) {
+          if (larger.contains(key)) {
+            matches.add(key);
+          }
+        }
+        return matches;
+      }
+    };
+  }
+
+  static IndexQuery or(final IndexQuery left, final IndexQuery right) {
+    return new IndexQuery() {
+      @Override
+      Set<String> evaluate(SegmentIndex segment) {
+        Set<String> l = left.evaluate(segment);
+        Set<String> r = right.evaluate(segment);
+        if (l.isEmpty()) { return r; }
+        if (r.isEmpty()) { return l; }
+        Set<String> matches = new HashSet<String>(l);
+        matches.addAll(r);
+        return matches;
+      }
+    };
+  }
+
+  /**
+   * Complement of {@code query}. When {@code within} is given the complement is taken relative to its matches rather
+   * than to the whole segment.
+   */
+  static IndexQuery not(final IndexQuery query, final IndexQuery within) {
+    return new IndexQuery() {
+      @Override
+      Set<String> evaluate(SegmentIndex segment) {
+        Set<String> excluded = query.evaluate(segment);
+        Set<String> universe = within == null ? segment.keys() : within.evaluate(segment);
+        if (excluded.isEmpty()) { return universe; }
+        Set<String> matches = new HashSet<String>();
+        for (String key : universe) {
+          if (!excluded.contains(key)) {
+            matches.add(key);
+          }
+        }
+        return matches;
+      }
+    };
+  }
+
+  /**
+   * Builds the query from a client query stack. The stack is infix the way the toolkit query builder emits it: leaf
+   * commands are followed by their {@link NVPair} operands, AND and OR sit between the criteria they combine, NOT
+   * precedes the criterion it negates and every nested And/Or criterion is wrapped in BEGIN_GROUP and END_GROUP. AND
+   * binds tighter than OR for criteria that are not grouped. An empty stack matches everything.
+   */
+  static IndexQuery parse(List queryStack) throws IndexException {
+    if (queryStack == null || queryStack.isEmpty()) { return all(); }
+
+    StackParser parser = new StackParser(queryStack);
+    IndexQuery query = parser.parseOr();
+    if (parser.hasNext()) { throw new IndexException("Unexpected " + parser.peek() + " in query stack: " + queryStack); }
+    return query;
+  }
+
+  private static final class StackParser {
+    private final List queryStack;
+    private int        next;
+
+    StackParser(List queryStack) {
+      this.queryStack = queryStack;
+    }
+
+    boolean hasNext() {
+      return next < queryStack.size();
+    }
+
+    Object peek() {
+      return queryStack.get(next);
+    }
+
+    IndexQuery parseOr() throws IndexException {
+      IndexQuery query = parseAnd();
+      while (nextIs("OR")) {
+        next++;
+        query = or(query, parseAnd());
+      }
+      return query;
+    }
+
+    IndexQuery parseAnd() throws IndexException {
+      IndexQuery query = parseCriterion();
+      while (nextIs("AND")) {
+        next++;
+        query = and(query, parseCriterion());
+      }
+      return query;
+    }
+
+    IndexQuery parseCriterion() throws IndexException {
+      String command = command();
+      if ("NOT".equals(command)) {
+        return not(parseCriterion(), null);
+      } else if ("BEGIN_GROUP".equals(command)) {
+        IndexQuery group = parseOr();
+        if (!"END_GROUP".equals(command())) { throw new IndexException("Unclosed group in query stack: " + queryStack); }
+        return group;
+      } else if ("ALL".equals(command)) {
+        return all();
+      } else if ("TERM".equals(command)) {
+        NVPair pair = operand();
+        return equalTo(pair.getName(), pair.getObjectValue());
+      } else if ("NOT_EQUALS".equals(command)) {
+        NVPair pair = operand();
+        return not(equalTo(pair.getName(), pair.getObjectValue()), notNull(pair.getName()));
+      } else if ("GREATER_THAN".equals(command) || "GREATER_THAN_EQUAL".equals(command)) {
+        NVPair pair = operand();
+        return range(pair.getName(), pair.getObjectValue(), command.endsWith("_EQUAL"), null, false);
+      } else if ("LESS_THAN".equals(command) || "LESS_THAN_EQUAL".equals(command)) {
+        NVPair pair = operand();
+        return range(pair.getName(), null, false, pair.getObjectValue(), command.endsWith("_EQUAL"));
+      } else if ("BETWEEN".equals(command)) {
+        NVPair min = operand();
+        NVPair max = operand();
+        boolean minInclusive = Boolean.TRUE.equals(operand().getObjectValue());
+        boolean maxInclusive = Boolean.TRUE.equals(operand().getObjectValue());
+        return range(min.getName(), min.getObjectValue(), minInclusive, max.getObjectValue(), maxInclusive);
+      } else if ("ILIKE".equals(command) || "NOT_ILIKE".equals(command)) {
+        NVPair pair = operand();
+        IndexQuery like = ilike(pair.getName(), String.valueOf(pair.getObjectValue()));
+        return "ILIKE".equals(command) ? like : not(like, notNull(pair.getName()));
+      } else if ("IS_NULL".equals(command) || "NOT_NULL".equals(command)) {
+        NVPair pair = operand();
+        IndexQuery present = notNull(pair.getName());
+        return "NOT_NULL".equals(command) ? present : not(present, null);
+      } else {
+        throw new IndexException("Unexpected " + command + " at " + (next - 1) + " of query stack: " + queryStack);
+      }
+    }
+
+    private boolean nextIs(String command) {
+      return hasNext() && peek() instanceof Enum && command.equals(((Enum) peek()).name());
+    }
+
+    private String command() throws IndexException {
+      if (!hasNext()) { throw new IndexException("Query stack ends early: " + queryStack); }
+      Object element = queryStack.get(next++);
+      if (!(element instanceof Enum)) { throw new IndexException("Unexpected query stack element: " + element); }
+      return ((Enum) element).name();
+    }
+
+    private NVPair operand() throws IndexException {
+      if (!hasNext() || !(peek() instanceof NVPair)) {
+        throw new IndexException("Missing operand at " + next + " of query stack: " + queryStack);
+      }
+      return (NVPair) queryStack.get(next++);
+    }
+  }
+
+  private static abstract class AttributeQuery extends IndexQuery {
+    private final String attribute;
+
+    AttributeQuery(String attribute) {
+      this.attribute = attribute;
+    }
+
+    @Override
+    final Set<String> evaluate(SegmentIndex segment) {
+      AttributeIndex index = segment.attribute(attribute);
+      return index == null ? Collections.<String> emptySet() : evaluate(index);
+    }
+
+    abstract Set<String> evaluate(AttributeIndex index);
+  }
+}
@@ -140,6 +140,11 @@ public class NullIndexManager implements IndexManager {
     //
   }
 
+  @Override
+  public void applyBatch(String indexName, ObjectID segmentOid, List<SearchEventContext> mutations) {
+    //
+  }
+
   @Override
   public void optimizeSearchIndex(String indexName) {
     //
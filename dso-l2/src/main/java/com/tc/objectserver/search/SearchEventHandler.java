@@ -17,14 +17,21 @@
 package com.tc.objectserver.search;
 
 import com.tc.async.api.AbstractEventHandler;
+import com.tc.async.api.BatchEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventContext;
 import com.tc.async.api.EventHandlerException;
 import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.async.api.ReportingEventHandler;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.stats.Stats;
 import com.terracottatech.search.IndexException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * All search request are processed through this handler. Every context should implement
@@ -32,9 +39,69 @@ import java.io.IOException;
  * 
  * @author Nabib El-Rahman
  */
-public class SearchEventHandler extends AbstractEventHandler {
+public class SearchEventHandler extends AbstractEventHandler implements BatchEventHandler, ReportingEventHandler {
 
-  private IndexManager indexManager;
+  private final IndexBatchStats batchStats = new IndexBatchStats();
+  private IndexManager          indexManager;
+
+  /**
+   * Coalesces the index mutations of each cache segment in the batch into one {@link IndexManager#applyBatch} call.
+   * Every other context first flushes the mutations queued before it and is then handled on its own.
+   */
+  @Override
+  public void handleEventBatch(List<EventContext> contexts) throws EventHandlerException {
+    Map<String, List<SearchEventContext>> pending = new LinkedHashMap<String, List<SearchEventContext>>();
+    for (EventContext context : contexts) {
+      if (!isIndexMutation(context)) {
+        flush(pending);
+        handleEvent(context);
+        continue;
+      }
+      BaseSearchEventContext mutation = (BaseSearchEventContext) context;
+      String segment = mutation.getCacheName() + "/" + mutation.getSegmentOid().toLong();
+      List<SearchEventContext> batch = pending.get(segment);
+      if (batch == null) {
+        batch = new ArrayList<SearchEventContext>();
+        pending.put(segment, batch);
+      }
+      batch.add(mutation);
+    }
+    flush(pending);
+  }
+
+  /**
+   * The batches committed since the previous call. The stage monitor asks once per interval, so every stats line it
+   * logs covers one interval.
+   */
+  @Override
+  public Stats getHandlerStats() {
+    return batchStats.getAndReset();
+  }
+
+  // used only for tests
+  IndexBatchStats getBatchStats() {
+    return batchStats;
+  }
+
+  private void flush(Map<String, List<SearchEventContext>> pending) throws EventHandlerException {
+    for (List<SearchEventContext> batch : pending.values()) {
+      BaseSearchEventContext first = (BaseSearchEventContext) batch.get(0);
+      long start = System.nanoTime();
+      try {
+        this.indexManager.applyBatch(first.getCacheName(), first.getSegmentOid(), batch);
+      } catch (IndexException e) {
+        throw new EventHandlerException(e);
+      }
+      batchStats.batchCommitted(batch.size(), System.nanoTime() - start);
+    }
+    pending.clear();
+  }
+
+  private static boolean isIndexMutation(EventContext context) {
+    return context instanceof SearchUpsertContext || context instanceof SearchDeleteContext
+           || context instanceof SearchReplaceContext || context instanceof SearchPutIfAbsentContext
+           || context instanceof SearchRemoveIfValueEqualsContext;
+  }
 
   /**
    * {@inheritDoc}
@@ -0,0 +1,158 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of the entries of one server map segment. Holds the indexed value and attributes of every key plus an
+ * {@link AttributeIndex} per attribute name.
+ * <p>
+ * Not thread safe, callers synchronize on the instance.
+ */
+class SegmentIndex {
+
+  private final Map<String, Entry>          entries    = new HashMap<String, Entry>();
+  private final Map<String, AttributeIndex> attributes = new HashMap<String, AttributeIndex>();
+
+  void upsert(String key, Object value, Map<String, Object> attributeValues) {
+    Entry previous = entries.put(key, new Entry(value, attributeValues));
+    if (previous != null) {
+      unindex(key, previous);
+    }
+    for (Map.Entry<String, Object> e : attributeValues.entrySet()) {
+      if (e.getValue() == null) {
+        continue;
+      }
+      AttributeIndex index = attributes.get(e.getKey());
+      if (index == null) {
+        index = new AttributeIndex();
+        attributes.put(e.getKey(), index);
+      }
+      index.add(key, e.getValue());
+    }
+  }
+
+  boolean putIfAbsent(String key, Object value, Map<String, Object> attributeValues) {
+    if (entries.containsKey(key)) { return false; }
+    upsert(key, value, attributeValues);
+    return true;
+  }
+
+  /**
+   * Re-indexes the key only if it is currently indexed against {@code previousValue}.
+   */
+  boolean replace(String key, Object value, Object previousValue, Map<String, Object> attributeValues) {
+    Entry current = entries.get(key);
+    if (current == null || !current.getValue().equals(previousValue)) { return false; }
+    upsert(key, value, attributeValues);
+    return true;
+  }
+
+  boolean remove(String key) {
+    Entry removed = entries.remove(key);
+    if (removed == null) { return false; }
+    unindex(key, removed);
+    return true;
+  }
+
+  boolean removeIfValueEqual(String key, Object value) {
+    Entry current = entries.get(key);
+    if (current == null || !current.getValue().equals(value)) { return false; }
+    return remove(key);
+  }
+
+  void clear() {
+    entries.clear();
+    attributes.clear();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  Entry get(String key) {
+    return entries.get(key);
+  }
+
+  Set<String> keys() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  /**
+   * @return the index of the named attribute, or {@code null} if no entry has a value for it
+   */
+  AttributeIndex attribute(String name) {
+    return attributes.get(name);
+  }
+
+  void writeTo(ObjectOutput out) throws IOException {
+    out.writeInt(entries.size());
+    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+      out.writeObject(e.getKey());
+      out.writeObject(e.getValue().getValue());
+      out.writeObject(new HashMap<String, Object>(e.getValue().getAttributes()));
+    }
+  }
+
+  static SegmentIndex readFrom(ObjectInput in) throws IOException, ClassNotFoundException {
+    SegmentIndex index = new SegmentIndex();
+    for (int i = in.readInt(); i > 0; i--) {
+      String key = (String) in.readObject();
+      Object value = in.readObject();
+      index.upsert(key, value, (Map<String, Object>) in.readObject());
+    }
+    return index;
+  }
+
+  private void unindex(String key, Entry entry) {
+    for (Map.Entry<String, Object> e : entry.getAttributes().entrySet()) {
+      AttributeIndex index = attributes.get(e.getKey());
+      if (index == null || e.getValue() == null) {
+        continue;
+      }
+      index.remove(key, e.getValue());
+      if (index.isEmpty()) {
+        attributes.remove(e.getKey());
+      }
+    }
+  }
+
+  static class Entry {
+    private final Object              value;
+    private final Map<String, Object> attributes;
+
+    Entry(Object value, Map<String, Object> attributes) {
+      this.value = value;
+      this.attributes = attributes;
+    }
+
+    Object getValue() {
+      return value;
+    }
+
+    Map<String, Object> getAttributes() {
+      return attributes;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.tx;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Spreads independent transaction groupings over the worker queues of the apply stage. The apply stage routes an
+ * {@link com.tc.objectserver.context.ApplyTransactionContext} by the hash code of its grouping, so a grouping created
+ * with {@link #nextLane()} as its hash code lands on the worker with the fewest transactions in flight.
+ * <p>
+ * The transactional object manager keeps conflicting transactions off different lanes: a transaction whose objects
+ * are all held by a live grouping joins it and is applied after the grouping's earlier transactions on the same
+ * worker, any other overlap waits until the grouping has committed. Only transactions with disjoint object sets are
+ * ever applied concurrently, which keeps the outcome identical to a serial apply.
+ */
+final class ApplyLaneScheduler {
+
+  private final AtomicIntegerArray inFlight;
+  private final AtomicLong         dispatched    = new AtomicLong();
+  private final AtomicLong         busyLanesSum  = new AtomicLong();
+  private final AtomicLongArray    busyLanesHistogram;
+
+  // only touched by the lookup stage, under the transactional object manager's lock
+  private int                      nextStart     = 0;
+
+  ApplyLaneScheduler(int lanes) {
+    if (lanes <= 0) { throw new IllegalArgumentException("lanes must be positive : " + lanes); }
+    this.inFlight = new AtomicIntegerArray(lanes);
+    this.busyLanesHistogram = new AtomicLongArray(lanes);
+  }
+
+  int getLaneCount() {
+    return inFlight.length();
+  }
+
+  /**
+   * @return the lane to route a new grouping to, the least loaded one starting the search after the lane picked last
+   */
+  int nextLane() {
+    int lanes = inFlight.length();
+    int best = nextStart;
+    int bestLoad = Integer.MAX_VALUE;
+    for (int i = 0; i < lanes; i++) {
+      int lane = (nextStart + i) % lanes;
+      int load = inFlight.get(lane);
+      if (load < bestLoad) {
+        best = lane;
+        bestLoad = load;
+        if (load == 0) {
+          break;
+        }
+      }
+    }
+    nextStart = (best + 1) % lanes;
+    return best;
+  }
+
+  int laneOf(TxnObjectGrouping grouping) {
+    return Math.abs(grouping.hashCode() % inFlight.length());
+  }
+
+  void dispatched(TxnObjectGrouping grouping) {
+    inFlight.incrementAndGet(laneOf(grouping));
+    int busy = 0;
+    for (int i = 0; i < inFlight.length(); i++) {
+      if (inFlight.get(i) > 0) {
+        busy++;
+      }
+    }
+    dispatched.incrementAndGet();
+    busyLanesSum.addAndGet(busy);
+    busyLanesHistogram.incrementAndGet(Math.max(busy, 1) - 1);
+  }
+
+  void completed(TxnObjectGrouping grouping) {
+    inFlight.decrementAndGet(laneOf(grouping));
+  }
+
+  int getTransactionsInFlight() {
+    int total = 0;
+    for (int i = 0; i < inFlight.length(); i++) {
+      total += inFlight.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * @return the average number of lanes that had transactions in flight when a transaction was dispatched
+   */
+  double getAverageParallelism() {
+    long count = dispatched.get();
+    return count == 0 ? 0 : (double) busyLanesSum.get() / count;
+  }
+
+  /**
+   * @return index <code>i</code> counts the dispatches that found <code>i + 1</code> lanes busy
+   */
+  long[] getParallelismHistogram() {
+    long[] histogram = new long[busyLanesHistogram.length()];
+    for (int i = 0; i < histogram.length; i++) {
+      histogram[i] = busyLanesHistogram.get(i);
+    }
+    return histogram;
+  }
+}
@@ -51,17 +51,19 @@ import com.tc.util.Util;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ServerTransactionManagerImpl implements ServerTransactionManager, ServerTransactionManagerMBean,
     GlobalTransactionManager, PrettyPrintable {
@@ -72,9 +74,12 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
   private static final State                            PASSIVE_MODE                 = new State("PASSIVE-MODE");
   private static final State                            ACTIVE_MODE                  = new State("ACTIVE-MODE");
 
-  // TODO::FIXME::Change this to concurrent HashMap
-  private final Map<NodeID, TransactionAccount>         transactionAccounts          = Collections
-                                                                                         .synchronizedMap(new HashMap<NodeID, TransactionAccount>());
+  // Number of cleanup epochs a dead node is remembered for, see addWaitingForAcknowledgement()
+  private static final long                             DEAD_NODE_EPOCHS             = 16;
+
+  private final ConcurrentMap<NodeID, TransactionAccount> transactionAccounts        = new ConcurrentHashMap<NodeID, TransactionAccount>();
+  private final ConcurrentMap<NodeID, Long>             deadNodes                    = new ConcurrentHashMap<NodeID, Long>();
+  private final AtomicLong                              cleanupEpoch                 = new AtomicLong(0);
   private final ClientStateManager                      stateManager;
   private final ObjectManager                           objectManager;
   private final ResentTransactionSequencer              resentTxnSequencer;
@@ -94,15 +99,14 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
 
   private volatile State                                state                        = PASSIVE_MODE;
   private final AtomicInteger                           totalPendingTransactions     = new AtomicInteger(0);
-  private final AtomicInteger                           txnsCommitted                = new AtomicInteger(0);
-  private final AtomicInteger                           objectsCommitted             = new AtomicInteger(0);
-  private final AtomicInteger                           noOfCommits                  = new AtomicInteger(0);
-  private final AtomicLong                              totalNumOfActiveTransactions = new AtomicLong(0);
+  private final LongAdder                               txnsCommitted                = new LongAdder();
+  private final LongAdder                               objectsCommitted             = new LongAdder();
+  private final LongAdder                               noOfCommits                  = new LongAdder();
+  private final LongAdder                               totalNumOfActiveTransactions = new LongAdder();
   private final boolean                                 commitLoggingEnabled;
   private final boolean                                 broadcastStatsLoggingEnabled;
 
-  private volatile long                                 lastStatsTime                = 0;
-  private final Object                                  statsLock                    = new Object();
+  private final AtomicLong                              lastStatsTime                = new AtomicLong(0);
 
   private final ObjectStatsRecorder                     objectStatsRecorder;
 
@@ -169,12 +173,11 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
   @Override
   public PrettyPrinter prettyPrint(final PrettyPrinter out) {
     out.print(this.getClass().getName()).flush();
-    synchronized (this.transactionAccounts) {
-      out.indent().print("transactionAccounts: ").visit(this.transactionAccounts).flush();
-      for (final Entry<NodeID, TransactionAccount> entry : this.transactionAccounts.entrySet()) {
-        out.duplicateAndIndent().indent().print(entry.getValue()).flush();
-      }
+    out.indent().print("transactionAccounts: ").visit(this.transactionAccounts).flush();
+    for (final Entry<NodeID, TransactionAccount> entry : this.transactionAccounts.entrySet()) {
+      out.duplicateAndIndent().indent().print(entry.getValue()).flush();
     }
+    out.indent().print("deadNodes: ").visit(this.deadNodes).flush();
     out.indent().print("totalPendingTransactions: ").visit(this.totalPendingTransactions).flush();
     out.indent().print("txnsCommitted: ").visit(this.txnsCommitted).flush();
     out.indent().print("objectsCommitted: ").visit(this.objectsCommitted).flush();
@@ -184,44 +187,53 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
     return out;
   }
 
+  /**
+   * Each node death opens a new cleanup epoch. The dead node is recorded with that epoch before the other accounts are
+   * swept for acknowledgements it still owes, so an acknowledgement registered concurrently with the sweep is resolved
+   * by {@link #addWaitingForAcknowledgement} instead of by a lock held across all accounts.
+   */
   private synchronized boolean cleanupTransactionAccount(final NodeID deadNodeID) {
-       // acknowledgement can invoke backup callback which requires instance-level sync
+    // acknowledgement can invoke backup callback which requires instance-level sync
+    final long epoch = this.cleanupEpoch.incrementAndGet();
+    this.deadNodes.put(deadNodeID, epoch);
+    retireDeadNodes(epoch);
+
     boolean callBackAdded = false;
-    synchronized (this.transactionAccounts) {
-
-      final TransactionAccount deadClientTA = this.transactionAccounts.get(deadNodeID);
-      if (deadClientTA != null) {
-        deadClientTA.nodeDead(new TransactionAccount.CallBackOnComplete() {
-          @Override
-          public void onComplete(final NodeID dead) {
-            synchronized (ServerTransactionManagerImpl.this) {
-              synchronized (ServerTransactionManagerImpl.this.transactionAccounts) {
-                ServerTransactionManagerImpl.this.transactionAccounts.remove(deadNodeID);
-              }
-            }
-            ServerTransactionManagerImpl.this.stateManager.shutdownNode(deadNodeID);
-            if (deadNodeID instanceof ClientID) {
-              ServerTransactionManagerImpl.this.lockManager.clearAllLocksFor((ClientID) deadNodeID);
-            }
-            ServerTransactionManagerImpl.this.gtxm.shutdownNode(deadNodeID);
-            fireClientDisconnectedEvent(deadNodeID);
+    final TransactionAccount deadClientTA = this.transactionAccounts.get(deadNodeID);
+    if (deadClientTA != null) {
+      deadClientTA.nodeDead(new TransactionAccount.CallBackOnComplete() {
+        @Override
+        public void onComplete(final NodeID dead) {
+          // only remove the account that died, the node might have come back as a passive or active account since
+          ServerTransactionManagerImpl.this.transactionAccounts.remove(deadNodeID, deadClientTA);
+          ServerTransactionManagerImpl.this.stateManager.shutdownNode(deadNodeID);
+          if (deadNodeID instanceof ClientID) {
+            ServerTransactionManagerImpl.this.lockManager.clearAllLocksFor((ClientID) deadNodeID);
           }
-        });
-        callBackAdded = true;
-      }
-
-      final TransactionAccount tas[] = this.transactionAccounts.values()
-          .toArray(new TransactionAccount[this.transactionAccounts.size()]);
-      for (final TransactionAccount client : tas) {
-        for (Object element : client.requestersWaitingFor(deadNodeID)) {
-          final TransactionID reqID = (TransactionID) element;
-          acknowledgement(client.getNodeID(), reqID, deadNodeID);
+          ServerTransactionManagerImpl.this.gtxm.shutdownNode(deadNodeID);
+          fireClientDisconnectedEvent(deadNodeID);
         }
+      });
+      callBackAdded = true;
+    }
+
+    for (final TransactionAccount client : this.transactionAccounts.values()) {
+      for (Object element : client.requestersWaitingFor(deadNodeID)) {
+        final TransactionID reqID = (TransactionID) element;
+        acknowledgement(client.getNodeID(), reqID, deadNodeID);
       }
     }
     return callBackAdded;
   }
 
+  private void retireDeadNodes(final long currentEpoch) {
+    for (final Iterator<Long> i = this.deadNodes.values().iterator(); i.hasNext();) {
+      if (i.next() <= currentEpoch - DEAD_NODE_EPOCHS) {
+        i.remove();
+      }
+    }
+  }
+
   /**
    * Shutdown clients are not cleared immediately. Only on completing of all txns this is processed.
    */
@@ -244,13 +256,11 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
 
   @Override
   public void start(final Set cids) {
-    synchronized (this.transactionAccounts) {
-      for (final Iterator<NodeID> i = this.transactionAccounts.keySet().iterator(); i.hasNext();) {
-        final NodeID node = i.next();
-        if (!cids.contains(node)) {
-          logger.warn("Cleaning up transaction account for " + node + " : " + this.transactionAccounts.get(node));
-          i.remove();
-        }
+    for (final Iterator<NodeID> i = this.transactionAccounts.keySet().iterator(); i.hasNext();) {
+      final NodeID node = i.next();
+      if (!cids.contains(node)) {
+        logger.warn("Cleaning up transaction account for " + node + " : " + this.transactionAccounts.get(node));
+        i.remove();
       }
     }
     // XXX:: The server could have crashed right after a client crash/disconnect before it had a chance to remove
@@ -298,6 +308,10 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
     final TransactionAccount ci = getTransactionAccount(waiter);
     if (ci != null) {
       ci.addWaitee(waitee, txnID);
+      if (this.deadNodes.containsKey(waitee)) {
+        // the waitee died and its cleanup may already have swept this account, a duplicate ack is ignored
+        acknowledgement(waiter, txnID, waitee);
+      }
     } else {
       logger.warn("Not adding to Waiting for Ack since Waiter not found in the states map: " + waiter);
     }
@@ -309,7 +323,7 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
   // This method is called when objects are sent to sync, this is done to maintain correct booking since things like DGC
   // relies on this to decide when to send the results
   @Override
-  public synchronized void objectsSynched(final NodeID to, final ServerTransactionID stid) {
+  public void objectsSynched(final NodeID to, final ServerTransactionID stid) {
     final TransactionAccount ci = getOrCreateTransactionAccount(stid.getSourceID()); // Local Node ID
     this.totalPendingTransactions.incrementAndGet();
     ci.addObjectsSyncedTo(to, stid.getClientTransactionID());
@@ -443,19 +457,16 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
   }
 
   private void updateCommittedStats(final int noOfTxns, final int noOfObjects) {
-    this.txnsCommitted.addAndGet(noOfTxns);
-    this.objectsCommitted.addAndGet(noOfObjects);
-    this.noOfCommits.incrementAndGet();
+    this.txnsCommitted.add(noOfTxns);
+    this.objectsCommitted.add(noOfObjects);
+    this.noOfCommits.increment();
     final long now = System.currentTimeMillis();
-    if (now - this.lastStatsTime > 5000) {
-      synchronized (this.statsLock) {
-        if (now - this.lastStatsTime > 5000) {
-          this.lastStatsTime = now;
-          logger.info("Last 5 secs : No Of Txns committed : " + this.txnsCommitted.getAndSet(0)
-                      + " No of Objects Commited : " + this.objectsCommitted.getAndSet(0) + " No of commits : "
-                      + this.noOfCommits.getAndSet(0));
-        }
-      }
+    final long last = this.lastStatsTime.get();
+    // only the committer that wins the race logs, everybody else just keeps counting
+    if (now - last > 5000 && this.lastStatsTime.compareAndSet(last, now)) {
+      logger.info("Last 5 secs : No Of Txns committed : " + this.txnsCommitted.sumThenReset()
+                  + " No of Objects Commited : " + this.objectsCommitted.sumThenReset() + " No of commits : "
+                  + this.noOfCommits.sumThenReset());
     }
   }
 
@@ -472,6 +483,7 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
   @Override
   public synchronized void incomingTransactions(final NodeID source,
                                                 final Map<ServerTransactionID, ServerTransaction> txns) {
+    // Only pauseTransactions() competes for this monitor, the accounting below takes no global lock
     final boolean active = isActive();
     final TransactionAccount ci = getOrCreateTransactionAccount(source);
 
@@ -490,7 +502,7 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
     ci.incomingTransactions(txns.keySet());
     this.totalPendingTransactions.addAndGet(txns.size());
     if (isActive()) {
-      this.totalNumOfActiveTransactions.addAndGet(txns.size());
+      this.totalNumOfActiveTransactions.add(txns.size());
     }
     for (ServerTransaction txn : txns.values()) {
       final ServerTransactionID stxnID = txn.getServerTransactionID();
@@ -511,7 +523,7 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
 
   @Override
   public long getTotalNumOfActiveTransactions() {
-    return this.totalNumOfActiveTransactions.get();
+    return this.totalNumOfActiveTransactions.sum();
   }
 
   @Override
@@ -569,25 +581,22 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
   }
 
   private TransactionAccount getOrCreateTransactionAccount(final NodeID source) {
-    synchronized (this.transactionAccounts) {
-      TransactionAccount ta = this.transactionAccounts.get(source);
-      if (this.state == ACTIVE_MODE) {
-        if ((ta == null) || (ta instanceof PassiveTransactionAccount)) {
-          final Object old = this.transactionAccounts.put(source, (ta = new TransactionAccountImpl(source)));
-          if (old != null) {
-            logger.info("Transaction Account changed from : " + old + " to " + ta);
-          }
-        }
-      } else {
-        if ((ta == null) || (ta instanceof TransactionAccountImpl)) {
-          final Object old = this.transactionAccounts.put(source, (ta = new PassiveTransactionAccount(source)));
-          if (old != null) {
-            logger.info("Transaction Account changed from : " + old + " to " + ta);
-          }
-        }
+    final boolean active = this.state == ACTIVE_MODE;
+    final TransactionAccount current = this.transactionAccounts.get(source);
+    if (current != null && isAccountFor(current, active)) { return current; }
+    // compute() only locks the bin of this node, other clients keep creating and reading their accounts
+    return this.transactionAccounts.compute(source, (node, old) -> {
+      if (old != null && isAccountFor(old, active)) { return old; }
+      final TransactionAccount ta = active ? new TransactionAccountImpl(node) : new PassiveTransactionAccount(node);
+      if (old != null) {
+        logger.info("Transaction Account changed from : " + old + " to " + ta);
       }
       return ta;
-    }
+    });
+  }
+
+  private static boolean isAccountFor(final TransactionAccount ta, final boolean active) {
+    return active ? !(ta instanceof PassiveTransactionAccount) : !(ta instanceof TransactionAccountImpl);
   }
 
   private TransactionAccount getTransactionAccount(final NodeID node) {
@@ -628,15 +637,13 @@ public class ServerTransactionManagerImpl implements ServerTransactionManager, S
   }
 
   @Override
-  public synchronized void callBackOnTxnsInSystemCompletion(final TxnsInSystemCompletionListener l) {
+  public void callBackOnTxnsInSystemCompletion(final TxnsInSystemCompletionListener l) {
     final TxnsInSystemCompletionListenerCallback callBack = new TxnsInSystemCompletionListenerCallback(l);
     final Set<ServerTransactionID> txnsInSystem = callBack.getTxnsInSystem();
-    synchronized (this.transactionAccounts) {
-      // DEV-1874, MNK-683 :: Register before adding pending server transaction ids to avoid race.
-      addTransactionListener(callBack);
-      for (final Entry<NodeID, TransactionAccount> entry : this.transactionAccounts.entrySet()) {
-        entry.getValue().addAllPendingServerTransactionIDsTo(txnsInSystem);
-      }
+    // DEV-1874, MNK-683 :: Register before adding pending server transaction ids to avoid race.
+    addTransactionListener(callBack);
+    for (final Entry<NodeID, TransactionAccount> entry : this.transactionAccounts.entrySet()) {
+      entry.getValue().addAllPendingServerTransactionIDsTo(txnsInSystem);
     }
     callBack.initializationComplete();
   }
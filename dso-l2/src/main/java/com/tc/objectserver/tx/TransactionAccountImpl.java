@@ -21,12 +21,11 @@ import com.tc.object.tx.ServerTransactionID;
 import com.tc.object.tx.TransactionID;
 import com.tc.util.Assert;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import java.util.ArrayList;
@@ -39,8 +38,8 @@ import java.util.Collection;
  */
 public class TransactionAccountImpl implements TransactionAccount {
   final NodeID                                        sourceID;
-  private final Map<TransactionID, TransactionRecord> waitees = Collections
-                                                                  .synchronizedMap(new HashMap<TransactionID, TransactionRecord>());
+  // Reads go straight to the map, compound updates still synchronize on it
+  private final Map<TransactionID, TransactionRecord> waitees = new ConcurrentHashMap<TransactionID, TransactionRecord>();
   private volatile boolean                            dead    = false;
   private CallBackOnComplete                          callBack;
 
@@ -62,8 +61,11 @@ public class TransactionAccountImpl implements TransactionAccount {
   }
 
   private void createRecord(final TransactionID txnID, final TransactionRecord transactionRecord) {
-    final Object old = this.waitees.put(txnID, transactionRecord);
-    Assert.assertNull(old);
+    // same lock as the check-then-create in addObjectsSyncedTo and the emptiness check in nodeDead
+    synchronized (this.waitees) {
+      final Object old = this.waitees.put(txnID, transactionRecord);
+      Assert.assertNull(old);
+    }
   }
 
   @Override
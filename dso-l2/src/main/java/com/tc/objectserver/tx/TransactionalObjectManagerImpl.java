@@ -18,6 +18,7 @@ package com.tc.objectserver.tx;
 
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
+import com.tc.net.utils.L2Utils;
 import com.tc.object.ObjectID;
 import com.tc.object.tx.ServerTransactionID;
 import com.tc.objectserver.api.ObjectManager;
@@ -36,6 +37,7 @@ import com.tc.util.BitSetObjectIDSet;
 import com.tc.util.ObjectIDSet;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,6 +54,10 @@ import java.util.concurrent.ConcurrentMap;
 /**
  * This class keeps track of locally checked out objects for applies and maintain the objects to txnid mapping in the
  * server. It wraps calls going to object manager from lookup, apply, commit stages
+ * <p>
+ * Checked out objects double as the conflict graph of the transactions in flight: a transaction either joins the
+ * live grouping holding all of its objects, waits for the groupings it overlaps with to commit, or starts a grouping
+ * of its own on the least busy apply lane, see {@link ApplyLaneScheduler}.
  */
 public class TransactionalObjectManagerImpl implements TransactionalObjectManager, PrettyPrintable {
   private static final TCLogger                                       logger                  = TCLogging
@@ -70,13 +76,24 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
   private final Queue<LookupContext>                                  processedPendingLookups = new ConcurrentLinkedQueue<LookupContext>();
 
   private final TransactionalStageCoordinator                         txnStageCoordinator;
+  private final ApplyLaneScheduler                                    applyLanes;
 
   public TransactionalObjectManagerImpl(ObjectManager objectManager,
                                         ServerGlobalTransactionManager gtxm,
                                         TransactionalStageCoordinator txnStageCoordinator) {
+    this(objectManager, gtxm, txnStageCoordinator, L2Utils.getOptimalApplyStageWorkerThreads(true));
+  }
+
+  /**
+   * @param applyLanes number of worker queues of the apply stage
+   */
+  public TransactionalObjectManagerImpl(ObjectManager objectManager,
+                                        ServerGlobalTransactionManager gtxm,
+                                        TransactionalStageCoordinator txnStageCoordinator, int applyLanes) {
     this.objectManager = objectManager;
     this.gtxm = gtxm;
     this.txnStageCoordinator = txnStageCoordinator;
+    this.applyLanes = new ApplyLaneScheduler(applyLanes);
   }
 
   // ProcessTransactionHandler Method
@@ -125,7 +142,8 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
 
   // LookupHandler Method
   @Override
-  public void lookupObjectsForTransactions() {
+  public synchronized void lookupObjectsForTransactions() {
+    // One lock acquisition per wakeup of the lookup stage rather than one per transaction
     processPendingIfNecessary();
     while (true) {
       TransactionLookupContext lookupContext = this.sequencer.getNextTxnLookupContextToProcess();
@@ -209,12 +227,13 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
       ServerTransactionID txnID = txn.getServerTransactionID();
       Collection<ObjectID> missingObjects;
       if (grouping == null) {
-        grouping = new TxnObjectGrouping(txnID);
+        grouping = new TxnObjectGrouping(txnID, applyLanes.nextLane());
         missingObjects = addObjectsToGrouping(txn.getObjectIDs(), grouping, transactionLookupContext.initiateApply());
       } else {
         missingObjects = addObjectsToGrouping(txn.getNewObjectIDs(), grouping, transactionLookupContext.initiateApply());
       }
       applyPendingTxns.put(txnID, grouping);
+      applyLanes.dispatched(grouping);
       txnStageCoordinator.addToApplyStage(new ApplyTransactionContext(txn, grouping, needsApply, missingObjects));
       makeUnpending(txn);
 //      log("lookupObjectsForApplyAndAddToSink(): Success: " + txn.getServerTransactionID());
@@ -224,7 +243,21 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
   public String shortDescription() {
     return "TxnObjectManager : checked Out count = " + this.checkedOutObjects.size() + " pending txns = "
            + this.pendingTxnList.size() + " pending object requests = " + this.pendingObjectRequest.size()
-           + " live object checkouts = " + liveObjectGroupings.size();
+           + " live object checkouts = " + liveObjectGroupings.size() + " apply lanes = "
+           + applyLanes.getLaneCount() + " txns in flight = " + applyLanes.getTransactionsInFlight()
+           + " average apply parallelism = " + String.format("%.2f", applyLanes.getAverageParallelism())
+           + " busy lanes histogram = " + Arrays.toString(applyLanes.getParallelismHistogram());
+  }
+
+  /**
+   * @return the average number of apply lanes busy with non-conflicting transactions when a transaction was dispatched
+   */
+  public double getAverageApplyParallelism() {
+    return applyLanes.getAverageParallelism();
+  }
+
+  public long[] getApplyParallelismHistogram() {
+    return applyLanes.getParallelismHistogram();
   }
 
   private Set<ObjectID> addObjectsToGrouping(Collection<ObjectID> oids, TxnObjectGrouping txnObjectGrouping, final boolean initiateApply) {
@@ -300,6 +333,7 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
   public void applyTransactionComplete(final ApplyTransactionInfo applyInfo) {
     TxnObjectGrouping grouping = applyPendingTxns.remove(applyInfo.getServerTransactionID());
     Assert.assertNotNull(grouping);
+    applyLanes.completed(grouping);
     if (grouping.transactionComplete(applyInfo.getServerTransactionID())) {
       applyInfo.addObjectsToBeReleased(grouping.getObjects());
       for (ManagedObject mo : grouping.getObjects()) {
@@ -43,9 +43,17 @@ public final class TxnObjectGrouping implements PrettyPrintable {
   private boolean closed;
   private final Set<ServerTransactionID>  txns = new HashSet<ServerTransactionID>();
   private final Map<ObjectID, ManagedObject> objects = new HashMap<ObjectID, ManagedObject>();
-  private final int hashCode = nextHash++;
+  private final int hashCode;
 
   public TxnObjectGrouping(ServerTransactionID stxID) {
+    this(stxID, nextHash++);
+  }
+
+  /**
+   * @param lane the apply stage queue this grouping is routed to, doubles as its hash code
+   */
+  public TxnObjectGrouping(ServerTransactionID stxID, int lane) {
+    this.hashCode = lane;
     addServerTransactionID(stxID);
   }
 
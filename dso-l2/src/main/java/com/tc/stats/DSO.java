@@ -837,6 +837,11 @@ public class DSO extends AbstractNotifyingMBean implements DSOMBean {
     return getStats().getExpirationRate();
   }
 
+  @Override
+  public long getExpirationTime() {
+    return getStats().getExpirationTime();
+  }
+
   @Override
   public Map<String, Map<String, Long>> getStorageStats() {
     return storageStats.getStorageStats();
@@ -27,6 +27,9 @@ import com.tc.management.beans.TerracottaOperatorEventsMBean;
 import com.tc.management.beans.l1.L1InfoMBean;
 import com.tc.net.ClientID;
 import com.tc.net.TCSocketAddress;
+import com.tc.net.protocol.NetworkLayer;
+import com.tc.net.protocol.delivery.OnceAndOnlyOnceProtocolNetworkLayer;
+import com.tc.net.protocol.tcm.AbstractMessageChannel;
 import com.tc.net.protocol.tcm.ChannelID;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.object.ObjectID;
@@ -309,6 +312,27 @@ public class DSOClient extends AbstractTerracottaMBean implements DSOClientMBean
     return serverMapGetValueRequestsCounter.getMostRecentSample().getCounterValue();
   }
 
+  @Override
+  public long getSendWindowStallCount() {
+    final OnceAndOnlyOnceProtocolNetworkLayer ooo = getOOOLayer();
+    return ooo != null ? ooo.getSendWindowStallCount() : 0;
+  }
+
+  @Override
+  public long getSendWindowStallMillis() {
+    final OnceAndOnlyOnceProtocolNetworkLayer ooo = getOOOLayer();
+    return ooo != null ? ooo.getSendWindowStallMillis() : 0;
+  }
+
+  /**
+   * The once and only once layer under the client's channel, null if the stack has none.
+   */
+  private OnceAndOnlyOnceProtocolNetworkLayer getOOOLayer() {
+    if (!(channel instanceof AbstractMessageChannel)) { return null; }
+    final NetworkLayer layer = ((AbstractMessageChannel) channel).getSendLayer();
+    return layer instanceof OnceAndOnlyOnceProtocolNetworkLayer ? (OnceAndOnlyOnceProtocolNetworkLayer) layer : null;
+  }
+
   @Override
   public Number[] getStatistics(final String[] names) {
     int count = names.length;
@@ -69,6 +69,11 @@ public class DSOStatsImpl implements DSOStats {
     return serverStats.getExpirationRateCounter().getMostRecentSample().getCounterValue();
   }
 
+  @Override
+  public long getExpirationTime() {
+    return serverStats.getExpirationTimeCounter().getMostRecentSample().getCounterValue();
+  }
+
   @Override
   public long getGlobalLockRecallRate() {
     return globalLockRecallRate.getMostRecentSample().getCounterValue();
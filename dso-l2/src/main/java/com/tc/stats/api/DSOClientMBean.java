@@ -72,4 +72,8 @@ public interface DSOClientMBean extends TerracottaMBean {
   long getServerMapGetSizeRequestsRate();
 
   long getServerMapGetValueRequestsRate();
+
+  long getSendWindowStallCount();
+
+  long getSendWindowStallMillis();
 }
@@ -28,6 +28,11 @@ public interface DSOStats {
 
   long getExpirationRate();
 
+  /**
+   * Milliseconds spent on expiration only eviction passes in the most recent sample.
+   */
+  long getExpirationTime();
+
   long getGlobalLockRecallRate();
 
   long getTransactionSizeRate();
@@ -0,0 +1,76 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.l2.context;
+
+import com.tc.async.api.AbstractEventHandler;
+import com.tc.async.api.EventContext;
+import com.tc.async.api.Stage;
+import com.tc.async.impl.ConfigurationContextImpl;
+import com.tc.async.impl.StageManagerImpl;
+import com.tc.lang.TCThreadGroup;
+import com.tc.lang.ThrowableHandlerImpl;
+import com.tc.logging.TCLogging;
+import com.tc.net.ServerID;
+import com.tc.util.concurrent.QueueFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class SyncObjectsRequestTest extends TestCase {
+
+  public void testStreamsAreDehydratedOnDifferentThreads() throws Exception {
+    final StageManagerImpl stageManager = new StageManagerImpl(new TCThreadGroup(new ThrowableHandlerImpl(TCLogging
+        .getLogger(StageManagerImpl.class))), new QueueFactory());
+    // each request waits until the other stream's request is being handled too, which can only happen in parallel
+    final CyclicBarrier bothStreams = new CyclicBarrier(2);
+    final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+    final Set<Integer> handled = Collections.synchronizedSet(new HashSet<Integer>());
+    Stage stage = stageManager.createStage("sync-request", new AbstractEventHandler() {
+      @Override
+      public void handleEvent(EventContext context) {
+        try {
+          bothStreams.await(30, TimeUnit.SECONDS);
+          threads.add(Thread.currentThread());
+          handled.add(((SyncObjectsRequest) context).getStreamIndex());
+        } catch (Exception e) {
+          throw new AssertionError(e);
+        }
+      }
+    }, 2, 100);
+    try {
+      stage.start(new ConfigurationContextImpl(null));
+      ServerID passive = new ServerID("passive", new byte[] { 1 });
+      stage.getSink().add(new SyncObjectsRequest(passive, 0));
+      stage.getSink().add(new SyncObjectsRequest(passive, 1));
+
+      long deadline = System.currentTimeMillis() + 30000;
+      while (handled.size() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(2, handled.size());
+      assertEquals(2, threads.size());
+    } finally {
+      stageManager.stopAll();
+    }
+  }
+
+}
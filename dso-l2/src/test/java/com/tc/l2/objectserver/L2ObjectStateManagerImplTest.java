@@ -0,0 +1,163 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.l2.objectserver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.l2.context.ManagedObjectSyncContext;
+import com.tc.net.NodeID;
+import com.tc.net.ServerID;
+import com.tc.object.ObjectID;
+import com.tc.object.dna.impl.ObjectStringSerializer;
+import com.tc.objectserver.api.ObjectManager;
+import com.tc.objectserver.tx.ServerTransactionManager;
+import com.tc.objectserver.tx.TxnsInSystemCompletionListener;
+import com.tc.util.BitSetObjectIDSet;
+import com.tc.util.ObjectIDSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class L2ObjectStateManagerImplTest {
+
+  private final NodeID          passive = new ServerID("passive", new byte[] { 1, 2, 3 });
+
+  private ObjectManager         objectManager;
+  private L2ObjectStateListener listener;
+
+  @Before
+  public void setUp() throws Exception {
+    objectManager = mock(ObjectManager.class);
+    when(objectManager.getRootNamesToIDsMap()).thenReturn(Collections.emptyMap());
+    listener = mock(L2ObjectStateListener.class);
+  }
+
+  @Test
+  public void testStreamsSyncDisjointBatchesInParallel() {
+    L2ObjectStateManagerImpl manager = createManagerSyncing(1000, 3);
+
+    List<ManagedObjectSyncContext> batches = new ArrayList<ManagedObjectSyncContext>();
+    for (int i = 0; i < 3; i++) {
+      batches.add(manager.getSomeObjectsToSyncContext(passive, 100));
+    }
+    assertNull("every stream is busy", manager.getSomeObjectsToSyncContext(passive, 100));
+
+    ObjectIDSet synced = new BitSetObjectIDSet();
+    while (!batches.isEmpty()) {
+      ManagedObjectSyncContext batch = batches.remove(0);
+      assertNotNull(batch);
+      for (ObjectID id : batch.getRequestedObjectIDs()) {
+        assertTrue("synced twice " + id, synced.add(id));
+      }
+      closeAllSynced(manager, batch);
+      ManagedObjectSyncContext next = manager.getSomeObjectsToSyncContext(passive, 100);
+      if (next != null) {
+        batches.add(next);
+      }
+    }
+
+    assertEquals(1000, synced.size());
+    verify(listener).objectSyncCompleteFor(passive);
+    assertEquals(0, manager.getEstimatedTimeToSyncCompletion(passive));
+  }
+
+  @Test
+  public void testIdleStreamTakesOverHalfOfBusyStream() {
+    L2ObjectStateManagerImpl manager = createManagerSyncing(100, 2);
+
+    ManagedObjectSyncContext first = manager.getSomeObjectsToSyncContext(passive, 50);
+    ManagedObjectSyncContext second = manager.getSomeObjectsToSyncContext(passive, 10);
+    assertEquals(50, first.getRequestedObjectIDs().size());
+    assertEquals(new ObjectID(50), second.getRequestedObjectIDs().first());
+    closeAllSynced(manager, first);
+
+    // the first stream has run dry and takes the upper 20 of the 40 ids the second stream has left
+    ManagedObjectSyncContext stolen = manager.getSomeObjectsToSyncContext(passive, 100);
+    assertEquals(20, stolen.getRequestedObjectIDs().size());
+    assertEquals(new ObjectID(80), stolen.getRequestedObjectIDs().first());
+  }
+
+  @Test
+  public void testEstimateFollowsSyncRate() {
+    L2ObjectStateManagerImpl manager = createManagerSyncing(100, 1);
+    assertEquals(-1, manager.getEstimatedTimeToSyncCompletion(passive));
+
+    closeAllSynced(manager, manager.getSomeObjectsToSyncContext(passive, 50));
+    assertTrue(manager.getEstimatedTimeToSyncCompletion(passive) >= 0);
+    assertEquals(-1, manager.getEstimatedTimeToSyncCompletion(new ServerID("other", new byte[] { 4 })));
+  }
+
+  private L2ObjectStateManagerImpl createManagerSyncing(int objects, int streams) {
+    ObjectIDSet oids = new BitSetObjectIDSet();
+    for (int i = 0; i < objects; i++) {
+      oids.add(new ObjectID(i));
+    }
+    when(objectManager.getAllObjectIDs()).thenReturn(oids);
+
+    L2ObjectStateManagerImpl manager = new L2ObjectStateManagerImpl(objectManager, immediateTransactionManager(),
+                                                                    streams);
+    manager.registerForL2ObjectStateChangeEvents(listener);
+    assertTrue(manager.addL2(passive));
+    verify(listener).missingObjectsFor(passive, objects);
+    return manager;
+  }
+
+  private static void closeAllSynced(L2ObjectStateManagerImpl manager, ManagedObjectSyncContext batch) {
+    ObjectIDSet requested = batch.getRequestedObjectIDs();
+    batch.setDehydratedBytes(requested, new BitSetObjectIDSet(), new TCByteBuffer[0], requested.size(),
+                             mock(ObjectStringSerializer.class), new BitSetObjectIDSet());
+    manager.close(batch);
+  }
+
+  private static ServerTransactionManager immediateTransactionManager() {
+    ServerTransactionManager transactionManager = mock(ServerTransactionManager.class);
+    Answer<Void> completeListener = new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        ((TxnsInSystemCompletionListener) invocation.getArguments()[0]).onCompletion();
+        return null;
+      }
+    };
+    doAnswer(completeListener).when(transactionManager)
+        .callBackOnResentTxnsInSystemCompletion(any(TxnsInSystemCompletionListener.class));
+    doAnswer(completeListener).when(transactionManager)
+        .callBackOnTxnsInSystemCompletion(any(TxnsInSystemCompletionListener.class));
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        ((Runnable) invocation.getArguments()[0]).run();
+        return null;
+      }
+    }).when(transactionManager).callbackOnLowWaterMarkInSystemCompletion(any(Runnable.class));
+    return transactionManager;
+  }
+}
@@ -243,6 +243,11 @@ public class GCStatsEventPublisherTest extends TestCase {
       this.markResultsList.add(info);
     }
 
+    @Override
+    public void garbageCollectorMarkSlice(GarbageCollectionInfo info, long sliceMillis, long objectsMarked) {
+      //
+    }
+
     @Override
     public void garbageCollectorRescue1Complete(GarbageCollectionInfo info) {
       this.rescue1CompleteList.add(info);
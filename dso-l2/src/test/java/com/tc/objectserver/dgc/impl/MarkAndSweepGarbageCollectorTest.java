@@ -22,6 +22,7 @@ import com.tc.objectserver.api.TransactionProvider;
 import com.tc.objectserver.core.api.Filter;
 import com.tc.objectserver.core.impl.GCTestObjectManager;
 import com.tc.objectserver.core.impl.TestManagedObject;
+import com.tc.objectserver.dgc.api.GarbageCollectionInfo;
 import com.tc.objectserver.dgc.api.GarbageCollectionInfoPublisher;
 import com.tc.objectserver.impl.NullTransactionProvider;
 import com.tc.objectserver.impl.ObjectManagerConfig;
@@ -33,6 +34,7 @@ import com.tc.util.sequence.DGCSequenceProvider;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import junit.framework.TestCase;
 
@@ -194,6 +196,56 @@ public class MarkAndSweepGarbageCollectorTest extends TestCase {
     assertTrue(this.lookedUp.equals(this.released));
   }
 
+  public void testIncrementalMark() {
+    TestManagedObject tmo1 = createObject(3);
+    TestManagedObject tmo2 = createObject(3);
+    createObject(3);
+
+    tmo1.setReference(0, tmo2.getID());
+    tmo2.setReference(0, tmo1.getID());
+    this.root1.setReference(0, tmo1.getID());
+
+    final AtomicLong markedInSlices = new AtomicLong();
+    GarbageCollectionInfoPublisherImpl publisher = new GarbageCollectionInfoPublisherImpl();
+    publisher.addListener(new GarbageCollectorEventListenerAdapter() {
+      @Override
+      public void garbageCollectorMarkSlice(GarbageCollectionInfo info, long sliceMillis, long objectsMarked) {
+        markedInSlices.addAndGet(objectsMarked);
+      }
+    });
+
+    IncrementalMarker marker = new IncrementalMarker(new FullGCHook(this.collector, this.objectManager,
+                                                                    this.stateManager, false), this.filter,
+                                                     this.objectManager.getAllObjectIDs(), null, publisher,
+                                                     MarkAndSweepGarbageCollector.NULL_LIFECYCLE_STATE, 1, 0);
+    Set toDelete = marker.mark(this.objectManager.getRootIDs());
+    assertEquals(1, toDelete.size());
+    assertTrue(marker.getSliceCount() > 0);
+    assertEquals(4, markedInSlices.get());
+    assertTrue(this.lookedUp.equals(this.released));
+  }
+
+  public void testIncrementalMarkShadesNewReferences() {
+    TestManagedObject tmo1 = createObject(3);
+    TestManagedObject tmo2 = createObject(3);
+    this.root1.setReference(0, tmo1.getID());
+
+    this.collector.startMonitoringReferenceChanges();
+    try {
+      IncrementalMarker marker = new IncrementalMarker(new FullGCHook(this.collector, this.objectManager,
+                                                                      this.stateManager, false), this.filter,
+                                                       this.objectManager.getAllObjectIDs(), null,
+                                                       new GarbageCollectionInfoPublisherImpl(),
+                                                       MarkAndSweepGarbageCollector.NULL_LIFECYCLE_STATE, 1, 0);
+      // tmo2 is only reachable through a reference written while the mark is underway
+      this.collector.changed(tmo1.getID(), ObjectID.NULL_ID, tmo2.getID());
+      Set toDelete = marker.mark(this.objectManager.getRootIDs());
+      assertEquals(0, toDelete.size());
+    } finally {
+      this.collector.stopMonitoringReferenceChanges();
+    }
+  }
+
   public void testIsInGCPause() throws Exception {
     assertFalse(this.collector.isPausingOrPaused());
     this.collector.requestGCPause();
@@ -17,9 +17,12 @@
 package com.tc.objectserver.handler;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -38,6 +41,7 @@ import com.tc.object.locks.Notify;
 import com.tc.object.locks.NotifyImpl;
 import com.tc.object.locks.StringLockID;
 import com.tc.object.locks.ThreadID;
+import com.tc.object.tx.ServerTransactionID;
 import com.tc.object.tx.TransactionID;
 import com.tc.object.tx.TxnBatchID;
 import com.tc.object.tx.TxnType;
@@ -56,6 +60,8 @@ import com.tc.objectserver.impl.ObjectInstanceMonitorImpl;
 import com.tc.objectserver.locks.LockManager;
 import com.tc.objectserver.locks.NotifiedWaiters;
 import com.tc.objectserver.locks.ServerLock;
+import com.tc.objectserver.managedobject.ApplyTransactionInfo;
+import com.tc.objectserver.persistence.GroupCommitStats;
 import com.tc.objectserver.tx.ServerTransaction;
 import com.tc.objectserver.tx.ServerTransactionImpl;
 import com.tc.objectserver.tx.ServerTransactionManager;
@@ -65,6 +71,7 @@ import com.tc.util.SequenceID;
 import com.tc.util.concurrent.Runners;
 
 import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -80,6 +87,9 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
   private ArgumentCaptor<NotifiedWaiters> notifiedWaitersArgumentCaptor;
   private ServerEventBuffer               serverEventBuffer;
   private ClientChannelMonitor            clientChannelMonitor;
+  private TransactionProvider             persistenceTransactionProvider;
+  private Transaction                     persistenceTransaction;
+  private TestServerConfigurationContext  context;
 
   @Override
   public void setUp() throws Exception {
@@ -87,8 +97,8 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
     this.serverEventBuffer = mock(ServerEventBuffer.class);
     this.clientChannelMonitor = mock(ClientChannelMonitor.class);
     this.notifiedWaitersArgumentCaptor = ArgumentCaptor.forClass(NotifiedWaiters.class);
-    TransactionProvider persistenceTransactionProvider = mock(TransactionProvider.class);
-    Transaction persistenceTransaction = mock(Transaction.class);
+    this.persistenceTransactionProvider = mock(TransactionProvider.class);
+    this.persistenceTransaction = mock(Transaction.class);
     when(persistenceTransactionProvider.newTransaction()).thenReturn(persistenceTransaction);
 
     this.handler = new ApplyTransactionChangeHandler(new ObjectInstanceMonitorImpl(),
@@ -99,7 +109,7 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
     this.broadcastSink = mock(Sink.class);
     Stage broadcastStage = mock(Stage.class);
     when(broadcastStage.getSink()).thenReturn(broadcastSink);
-    TestServerConfigurationContext context = new TestServerConfigurationContext();
+    this.context = new TestServerConfigurationContext();
     context.transactionManager = mock(ServerTransactionManager.class);
     context.txnObjectManager = mock(TransactionalObjectManager.class);
     context.addStage(ServerConfigurationContext.BROADCAST_CHANGES_STAGE, broadcastStage);
@@ -124,6 +134,80 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
     verifyNotifies(tx);
   }
 
+  public void testBatchSharesOnePersistenceCommit() throws Exception {
+    ApplyTransactionChangeHandler groupCommitHandler = createGroupCommitHandler(64, 60 * 1000);
+    groupCommitHandler.handleEventBatch(createCompletedGroupings(3));
+
+    verify(persistenceTransaction).commit();
+    verify(context.transactionManager).commit(anyCollection(), anyMap(),
+                                              argThat(new SizeMatcher<ServerTransactionID>(3)));
+    assertEquals(1, groupCommitHandler.getGroupCommitStats().getCommitCount());
+    assertEquals(3, groupCommitHandler.getGroupCommitStats().getTransactionCount());
+  }
+
+  public void testGroupCommitBoundedBySize() throws Exception {
+    ApplyTransactionChangeHandler groupCommitHandler = createGroupCommitHandler(2, 60 * 1000);
+    groupCommitHandler.handleEventBatch(createCompletedGroupings(5));
+
+    verify(persistenceTransaction, times(3)).commit();
+    GroupCommitStats stats = groupCommitHandler.getGroupCommitStats();
+    assertEquals(5, stats.getTransactionCount());
+    assertEquals(1, stats.getCommitBatchSizeHistogram()[0]);
+    assertEquals(2, stats.getCommitBatchSizeHistogram()[1]);
+  }
+
+  public void testGroupCommitBoundedByTime() throws Exception {
+    ApplyTransactionChangeHandler groupCommitHandler = createGroupCommitHandler(64, 0);
+    groupCommitHandler.handleEventBatch(createCompletedGroupings(4));
+
+    verify(persistenceTransaction, times(4)).commit();
+  }
+
+  public void testSingleEventsAreNotHeldBack() throws Exception {
+    ApplyTransactionChangeHandler groupCommitHandler = createGroupCommitHandler(64, 60 * 1000);
+    for (EventContext ctxt : createCompletedGroupings(2)) {
+      groupCommitHandler.handleEvent(ctxt);
+    }
+
+    verify(persistenceTransaction, times(2)).commit();
+  }
+
+  private ApplyTransactionChangeHandler createGroupCommitHandler(int maxTxns, long maxDelayMillis) {
+    doAnswer(invocation -> {
+      ((ApplyTransactionInfo) invocation.getArgument(0)).setCommitNow(true);
+      return null;
+    }).when(context.txnObjectManager).applyTransactionComplete(any(ApplyTransactionInfo.class));
+    ApplyTransactionChangeHandler groupCommitHandler = new ApplyTransactionChangeHandler(
+        new ObjectInstanceMonitorImpl(), mock(ServerGlobalTransactionManager.class),
+        mock(ServerMapEvictionManager.class), persistenceTransactionProvider,
+        Runners.newSingleThreadScheduledTaskRunner(), serverEventBuffer, clientChannelMonitor, maxTxns, maxDelayMillis);
+    groupCommitHandler.initializeContext(context);
+    return groupCommitHandler;
+  }
+
+  private static List<EventContext> createCompletedGroupings(int count) throws Exception {
+    List<EventContext> contexts = new ArrayList<EventContext>();
+    for (int i = 1; i <= count; i++) {
+      ServerTransaction tx = createServerTransaction(i);
+      contexts.add(new ApplyTransactionContext(tx, new TxnObjectGrouping(tx.getServerTransactionID()), true,
+                                               Collections.EMPTY_SET));
+    }
+    return contexts;
+  }
+
+  private static class SizeMatcher<T> implements ArgumentMatcher<Collection<T>> {
+    private final int size;
+
+    private SizeMatcher(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public boolean matches(Collection<T> collection) {
+      return collection != null && collection.size() == size;
+    }
+  }
+
   private void verifyNotifies(ServerTransaction tx) {
     verify(lockManager, times(tx.getNumApplicationTxn())).notify(any(LockID.class), any(ClientID.class), any(ThreadID.class),
         any(ServerLock.NotifyAction.class), any(NotifiedWaiters.class));
@@ -155,6 +239,10 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
   }
 
   private static ServerTransaction createServerTransaction() throws Exception {
+    return createServerTransaction(1);
+  }
+
+  private static ServerTransaction createServerTransaction(int txnID) throws Exception {
     final ClientID cid = new ClientID(1);
     LockID[] lockIDs = { new StringLockID("1") };
 
@@ -163,7 +251,7 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
       notifies.add(new NotifyImpl(new StringLockID("" + i), new ThreadID(i), i % 2 == 0));
     }
 
-    ServerTransaction txn = new ServerTransactionImpl(new TxnBatchID(1), new TransactionID(1), new SequenceID(1),
+    ServerTransaction txn = new ServerTransactionImpl(new TxnBatchID(1), new TransactionID(txnID), new SequenceID(txnID),
         lockIDs, cid, Collections.emptyList(), null,
                                                       Collections.emptyMap(), TxnType.NORMAL, notifies,
         new MetaDataReader[0], 1, new long[0]);
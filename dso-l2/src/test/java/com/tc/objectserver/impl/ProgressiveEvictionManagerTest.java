@@ -40,6 +40,7 @@ import com.tc.stats.counter.sampled.derived.SampledRateCounter;
 import com.tc.util.BitSetObjectIDSet;
 import com.tc.util.ObjectIDSet;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 import org.junit.After;
@@ -51,11 +52,14 @@ import org.junit.Test;
 import org.terracotta.corestorage.monitoring.MonitoredResource;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyFloat;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -69,6 +73,7 @@ public class ProgressiveEvictionManagerTest {
   ProgressiveEvictionManager mgr;
   EvictableMapState map;
   ObjectManager objectMgr;
+  ResourceManager resourceManager;
   
   public ProgressiveEvictionManagerTest() {
   }
@@ -100,11 +105,12 @@ public class ProgressiveEvictionManagerTest {
     when(map.getClassName()).thenReturn("TESTMAPCLASS");
     when(objectMgr.getObjectByIDReadOnly(any(ObjectID.class))).thenReturn(mo);
     
+    resourceManager = mock(ResourceManager.class);
     CounterManager counter = mock(CounterManager.class);
     when(counter.createCounter(any(CounterConfig.class))).thenReturn(mock(SampledRateCounter.class));
     mgr = new ProgressiveEvictionManager(objectMgr, Collections.singletonList(mock(MonitoredResource.class)), store, 
             mock(ClientObjectReferenceSet.class), mock(ServerTransactionFactory.class), new TCThreadGroup(mock(ThrowableHandler.class)), 
-            mock(ResourceManager.class), counter, mock(EvictionTransactionPersistor.class), false, false);
+            resourceManager, counter, mock(EvictionTransactionPersistor.class), false, false);
     
     ServerConfigurationContext cxt = mock(ServerConfigurationContext.class);
     Stage stage = mock(Stage.class);
@@ -131,6 +137,62 @@ public class ProgressiveEvictionManagerTest {
     Assert.assertTrue(mgr.getCurrentlyEvicting().isEmpty());
   }
   
+  @Test
+  public void testEmergencyEvictionVisitsBiggestMapsFirst() throws Throwable {
+    ManagedObject smallMo = mock(ManagedObject.class);
+    EvictableMapState small = mock(EvictableMapState.class);
+    when(smallMo.getManagedObjectState()).thenReturn(small);
+    when(small.getSize()).thenReturn(10);
+    when(small.getType()).thenReturn(ManagedObjectStateStaticConfig.SERVER_MAP.getStateObjectType());
+    when(objectMgr.getObjectByIDReadOnly(new ObjectID(1))).thenReturn(smallMo);
+    ManagedObject bigMo = mock(ManagedObject.class);
+    EvictableMapState big = mock(EvictableMapState.class);
+    when(bigMo.getManagedObjectState()).thenReturn(big);
+    when(big.getSize()).thenReturn(1000);
+    when(big.getType()).thenReturn(ManagedObjectStateStaticConfig.SERVER_MAP.getStateObjectType());
+    when(objectMgr.getObjectByIDReadOnly(new ObjectID(2))).thenReturn(bigMo);
+
+    // sizes are learned from earlier eviction passes over the maps
+    mgr.scheduleCapacityEviction(new ObjectID(1));
+    mgr.scheduleCapacityEviction(new ObjectID(2));
+    mgr.shutdownEvictor();
+
+    ObjectIDSet evictable = new BitSetObjectIDSet();
+    for (int x=0;x<100;x++) {
+      evictable.add(new ObjectID((long)x));
+    }
+    List<ObjectID> order = mgr.biggestFirst(evictable);
+    Assert.assertEquals(100, order.size());
+    Assert.assertEquals(new ObjectID(2), order.get(0));
+    Assert.assertEquals(new ObjectID(1), order.get(1));
+  }
+
+  @Test
+  public void testConstrainedThrottleFollowsUsageUntilFreed() throws Throwable {
+    long mb = 1024L * 1024;
+    MonitoredResource usage = mock(MonitoredResource.class);
+    when(usage.getType()).thenReturn(MonitoredResource.Type.OFFHEAP);
+    when(usage.getTotal()).thenReturn(1000 * mb);
+    when(usage.getVital()).thenReturn(600 * mb);
+    when(usage.getReserved()).thenReturn(600 * mb);
+
+    ResourceEventListener responder = mgr.getResponder();
+    responder.resourcesConstrained(usage);
+    verify(resourceManager).setThrottle(anyFloat());
+    verify(resourceManager, never()).resetState();
+
+    // still filling fast while constrained, the throttle is evaluated again
+    when(usage.getVital()).thenReturn(700 * mb);
+    when(usage.getReserved()).thenReturn(700 * mb);
+    Thread.sleep(2100);
+    responder.resourcesUsed(usage);
+    verify(resourceManager, times(2)).setThrottle(anyFloat());
+
+    responder.resourcesFreed(usage);
+    verify(resourceManager).resetState();
+    mgr.shutdownEvictor();
+  }
+
   @Test
   public void testCapacityEviction() throws Throwable {
     when(map.startEviction()).thenReturn(true);
@@ -0,0 +1,144 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.locks;
+
+import com.tc.object.locks.StringLockID;
+import com.tc.objectserver.locks.LockStore.LockIterator;
+import com.tc.objectserver.locks.factory.ServerLockFactoryImpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+public class LockStoreTest extends TestCase {
+
+  private LockStore store;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    store = new LockStore(new ServerLockFactoryImpl());
+  }
+
+  public void testCheckedOutLockDoesNotBlockOtherLocks() throws Exception {
+    ServerLock lockA = store.checkOut(new StringLockID("a"));
+
+    CheckOutThread other = new CheckOutThread("b");
+    other.start();
+    assertTrue(other.checkedOut.await(10, TimeUnit.SECONDS));
+    other.checkIn.countDown();
+    other.join();
+
+    CheckOutThread same = new CheckOutThread("a");
+    same.start();
+    assertFalse(same.checkedOut.await(200, TimeUnit.MILLISECONDS));
+    store.checkIn(lockA);
+    assertTrue(same.checkedOut.await(10, TimeUnit.SECONDS));
+    assertSame(lockA, same.lock.get());
+    same.checkIn.countDown();
+    same.join();
+  }
+
+  public void testWaiterGetsNewLockAfterRemove() throws Exception {
+    ServerLock lockA = store.checkOut(new StringLockID("a"));
+    CheckOutThread waiter = new CheckOutThread("a");
+    waiter.start();
+    assertFalse(waiter.checkedOut.await(200, TimeUnit.MILLISECONDS));
+
+    assertSame(lockA, store.remove(new StringLockID("a")));
+    store.checkIn(lockA);
+
+    assertTrue(waiter.checkedOut.await(10, TimeUnit.SECONDS));
+    assertNotSame(lockA, waiter.lock.get());
+    assertEquals(new StringLockID("a"), waiter.lock.get().getLockID());
+    waiter.checkIn.countDown();
+    waiter.join();
+  }
+
+  public void testReentrantCheckOut() {
+    ServerLock lock = store.checkOut(new StringLockID("a"));
+    assertSame(lock, store.checkOut(new StringLockID("a")));
+    store.checkIn(lock);
+    store.checkIn(lock);
+    try {
+      store.checkIn(lock);
+      fail();
+    } catch (AssertionError e) {
+      // expected
+    }
+  }
+
+  public void testIteratorRemove() {
+    for (int i = 0; i < 100; i++) {
+      store.checkIn(store.checkOut(new StringLockID("lock-" + i)));
+    }
+
+    int seen = 0;
+    LockIterator iter = store.iterator();
+    ServerLock lock = iter.getNextLock(null);
+    while (lock != null) {
+      seen++;
+      if (seen % 2 == 0) {
+        iter.remove();
+      }
+      lock = iter.getNextLock(lock);
+    }
+    assertEquals(100, seen);
+    assertEquals(50, count());
+
+    store.clear();
+    assertEquals(0, count());
+  }
+
+  private int count() {
+    int count = 0;
+    LockIterator iter = store.iterator();
+    ServerLock lock = iter.getNextLock(null);
+    while (lock != null) {
+      count++;
+      lock = iter.getNextLock(lock);
+    }
+    return count;
+  }
+
+  private class CheckOutThread extends Thread {
+    private final String                      name;
+    private final CountDownLatch              checkedOut = new CountDownLatch(1);
+    private final CountDownLatch              checkIn    = new CountDownLatch(1);
+    private final AtomicReference<ServerLock> lock       = new AtomicReference<ServerLock>();
+
+    CheckOutThread(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void run() {
+      ServerLock serverLock = store.checkOut(new StringLockID(name));
+      lock.set(serverLock);
+      checkedOut.countDown();
+      try {
+        checkIn.await();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      } finally {
+        store.checkIn(serverLock);
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.locks;
+
+import com.tc.async.impl.MockSink;
+import com.tc.net.ClientID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.StringLockID;
+import com.tc.object.locks.ThreadID;
+import com.tc.objectserver.locks.factory.GreedyPolicyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ServerLockImplTest extends TestCase {
+
+  public void testReadLeaseFollowsWriteRate() {
+    ServerLockImpl lock = new ServerLockImpl(new StringLockID("lease"), 200);
+    assertEquals(0, lock.readLeaseInMillis());
+
+    lock.recordWriteRequest(0);
+    assertEquals(0, lock.readLeaseInMillis());
+    lock.recordWriteRequest(800);
+    assertEquals(100, lock.readLeaseInMillis());
+
+    // rarely written locks are capped at the configured maximum
+    lock.recordWriteRequest(800 + 3600 * 1000);
+    assertEquals(200, lock.readLeaseInMillis());
+
+    // a burst of writes shrinks the lease to nothing
+    long now = 800 + 3600 * 1000;
+    for (int i = 0; i < 100; i++) {
+      lock.recordWriteRequest(++now);
+    }
+    assertEquals(0, lock.readLeaseInMillis());
+  }
+
+  public void testNoReadLeaseWhenDisabled() {
+    ServerLockImpl lock = new ServerLockImpl(new StringLockID("lease"));
+    lock.recordWriteRequest(0);
+    lock.recordWriteRequest(800);
+    assertEquals(0, lock.readLeaseInMillis());
+  }
+
+  public void testWriterRecallsGreedyReadersWithLease() {
+    MockSink sink = new MockSink();
+    LockManagerImpl lockMgr = new LockManagerImpl(sink, new NullChannelManager(), new GreedyPolicyFactory(200));
+    LockHelper helper = lockMgr.getHelper();
+    ClientID reader1 = new ClientID(1);
+    ClientID reader2 = new ClientID(2);
+    ClientID writer = new ClientID(3);
+
+    ServerLockImpl lock = (ServerLockImpl) helper.getLockStore().checkOut(new StringLockID("hot"));
+    lock.lock(reader1, new ThreadID(1), ServerLockLevel.READ, helper);
+    lock.lock(reader2, new ThreadID(1), ServerLockLevel.READ, helper);
+    // previous writes arrived 800ms apart
+    long now = System.currentTimeMillis();
+    lock.recordWriteRequest(now - 1600);
+    lock.recordWriteRequest(now - 800);
+    sink.queue.clear();
+
+    lock.lock(writer, new ThreadID(1), ServerLockLevel.WRITE, helper);
+
+    List<LockResponseContext> recalls = new ArrayList<LockResponseContext>();
+    while (!sink.queue.isEmpty()) {
+      LockResponseContext lrc = (LockResponseContext) sink.take();
+      if (lrc.isLockRecall()) {
+        recalls.add(lrc);
+      }
+    }
+    assertEquals(2, recalls.size());
+    for (LockResponseContext recall : recalls) {
+      assertEquals(ServerLockLevel.WRITE, recall.getLockLevel());
+      assertTrue(String.valueOf(recall.getAwardLeaseTime()), recall.getAwardLeaseTime() >= 100
+                                                             && recall.getAwardLeaseTime() <= 110);
+    }
+    assertEquals(1, lock.getNoOfPendingRequests());
+  }
+}
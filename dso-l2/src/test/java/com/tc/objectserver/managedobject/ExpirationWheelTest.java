@@ -0,0 +1,180 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.managedobject;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class ExpirationWheelTest extends TestCase {
+
+  public void testNothingDueBeforeDeadline() {
+    ExpirationWheel wheel = new ExpirationWheel(1000);
+    wheel.schedule("a", 1010);
+    assertTrue(wheel.expired(1009, 10).isEmpty());
+    assertEquals(Arrays.<Object> asList("a"), wheel.expired(1010, 10));
+  }
+
+  public void testDueEntriesStayUntilRemoved() {
+    ExpirationWheel wheel = new ExpirationWheel(1000);
+    wheel.schedule("a", 1001);
+    assertEquals(1, wheel.expired(1005, 10).size());
+    assertEquals(1, wheel.expired(1006, 10).size());
+    wheel.remove("a");
+    assertTrue(wheel.expired(1007, 10).isEmpty());
+    assertEquals(0, wheel.size());
+  }
+
+  public void testRescheduleMovesDeadline() {
+    ExpirationWheel wheel = new ExpirationWheel(1000);
+    wheel.schedule("a", 1001);
+    wheel.schedule("a", 5000);
+    assertTrue(wheel.expired(4999, 10).isEmpty());
+    assertEquals(1, wheel.expired(5000, 10).size());
+  }
+
+  public void testExpiredIsBounded() {
+    ExpirationWheel wheel = new ExpirationWheel(0);
+    for (int i = 0; i < 100; i++) {
+      wheel.schedule(Integer.valueOf(i), i);
+    }
+    assertEquals(10, wheel.expired(200, 10).size());
+  }
+
+  public void testRejectedKeysDoNotHideLaterKeys() {
+    ExpirationWheel wheel = new ExpirationWheel(0);
+    final Set<Object> referenced = new HashSet<Object>();
+    for (int i = 0; i < 100; i++) {
+      wheel.schedule(Integer.valueOf(i), 1);
+      if (i < 50) {
+        referenced.add(Integer.valueOf(i));
+      }
+    }
+    ExpirationWheel.Filter filter = new ExpirationWheel.Filter() {
+      @Override
+      public boolean accept(Object key) {
+        return !referenced.contains(key);
+      }
+    };
+    List<Object> expired = wheel.expired(10, 10, filter);
+    assertEquals(10, expired.size());
+    for (Object key : expired) {
+      assertFalse(referenced.contains(key));
+      wheel.remove(key);
+    }
+    // the referenced keys went to the back, so the next pass starts with the rest
+    expired = wheel.expired(11, 10);
+    assertEquals(10, expired.size());
+    for (Object key : expired) {
+      assertFalse(referenced.contains(key));
+    }
+    // once released they are offered again
+    referenced.clear();
+    assertEquals(90, wheel.expired(12, Integer.MAX_VALUE, filter).size());
+  }
+
+  public void testFarDeadlinesCascade() {
+    ExpirationWheel wheel = new ExpirationWheel(0);
+    wheel.schedule("month", 30L * 24 * 3600);
+    wheel.schedule("year", 365L * 24 * 3600);
+    assertTrue(wheel.expired(30L * 24 * 3600 - 1, 10).isEmpty());
+    assertEquals(Arrays.<Object> asList("month"), wheel.expired(30L * 24 * 3600, 10));
+    wheel.remove("month");
+    assertTrue(wheel.expired(365L * 24 * 3600 - 1, 10).isEmpty());
+    assertEquals(Arrays.<Object> asList("year"), wheel.expired(365L * 24 * 3600, 10));
+  }
+
+  public void testLongGapsSkipEmptyTicks() {
+    ExpirationWheel wheel = new ExpirationWheel(0);
+    wheel.schedule("soon", 10);
+    wheel.schedule("hour", 3600);
+    wheel.schedule("far", 400L * 24 * 3600);
+    // a gap of several hours, then one of more than the wheel's span
+    assertEquals(new HashSet<Object>(Arrays.<Object> asList("soon", "hour")),
+                 new HashSet<Object>(wheel.expired(5L * 3600, 10)));
+    wheel.remove("soon");
+    wheel.remove("hour");
+    assertTrue(wheel.expired(400L * 24 * 3600 - 1, 10).isEmpty());
+    assertEquals(Arrays.<Object> asList("far"), wheel.expired(1000L * 24 * 3600, 10));
+    wheel.remove("far");
+    wheel.schedule("next", 1000L * 24 * 3600 + 5);
+    assertTrue(wheel.expired(1000L * 24 * 3600 + 4, 10).isEmpty());
+    assertEquals(Arrays.<Object> asList("next"), wheel.expired(1000L * 24 * 3600 + 5, 10));
+  }
+
+  public void testMatchesFullScanOverLongGaps() {
+    Random r = new Random(7);
+    long now = 1000000;
+    ExpirationWheel wheel = new ExpirationWheel(now);
+    Map<Object, Long> deadlines = new HashMap<Object, Long>();
+    for (int step = 0; step < 5000; step++) {
+      Integer key = Integer.valueOf(r.nextInt(200));
+      int op = r.nextInt(10);
+      if (op < 5) {
+        long deadline = now - 10 + (r.nextInt(2) == 0 ? r.nextInt(1 << 28) : r.nextInt(1 << 14));
+        wheel.schedule(key, deadline);
+        deadlines.put(key, deadline);
+      } else if (op < 6) {
+        wheel.remove(key);
+        deadlines.remove(key);
+      } else {
+        now += r.nextInt(1 << 24);
+        Set<Object> expected = new HashSet<Object>();
+        for (Map.Entry<Object, Long> e : deadlines.entrySet()) {
+          if (e.getValue() <= now) {
+            expected.add(e.getKey());
+          }
+        }
+        assertEquals(expected, new HashSet<Object>(wheel.expired(now, Integer.MAX_VALUE)));
+      }
+    }
+  }
+
+  public void testMatchesFullScan() {
+    Random r = new Random(42);
+    long now = 1000000;
+    ExpirationWheel wheel = new ExpirationWheel(now);
+    Map<Object, Long> deadlines = new HashMap<Object, Long>();
+    for (int step = 0; step < 20000; step++) {
+      Integer key = Integer.valueOf(r.nextInt(500));
+      int op = r.nextInt(10);
+      if (op < 5) {
+        long deadline = now - 10 + (r.nextInt(4) == 0 ? r.nextInt(1 << 26) : r.nextInt(5000));
+        wheel.schedule(key, deadline);
+        deadlines.put(key, deadline);
+      } else if (op < 6) {
+        wheel.remove(key);
+        deadlines.remove(key);
+      } else {
+        now += r.nextInt(3) == 0 ? r.nextInt(20000) : r.nextInt(100);
+        Set<Object> expected = new HashSet<Object>();
+        for (Map.Entry<Object, Long> e : deadlines.entrySet()) {
+          if (e.getValue() <= now) {
+            expected.add(e.getKey());
+          }
+        }
+        assertEquals(expected, new HashSet<Object>(wheel.expired(now, Integer.MAX_VALUE)));
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.managedobject;
+
+import junit.framework.TestCase;
+
+public class FrequencySketchTest extends TestCase {
+
+  public void testUnseenKeyHasNoFrequency() {
+    FrequencySketch sketch = new FrequencySketch(1000);
+    assertEquals(0, sketch.frequency("missing"));
+  }
+
+  public void testFrequencyTracksIncrements() {
+    FrequencySketch sketch = new FrequencySketch(1000);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("hot");
+    }
+    sketch.increment("cold");
+    assertTrue(sketch.frequency("hot") >= 5);
+    assertTrue(sketch.frequency("hot") > sketch.frequency("cold"));
+  }
+
+  public void testCountersSaturate() {
+    FrequencySketch sketch = new FrequencySketch(1000);
+    for (int i = 0; i < 100; i++) {
+      sketch.increment("key");
+    }
+    assertEquals(15, sketch.frequency("key"));
+  }
+
+  public void testFrequenciesAgeOut() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    for (int i = 0; i < 15; i++) {
+      sketch.increment("old");
+    }
+    // enough distinct additions to trigger at least one halving
+    for (int i = 0; i < 10 * sketch.getWidth(); i++) {
+      sketch.increment(Integer.valueOf(i));
+    }
+    assertTrue(sketch.frequency("old") < 15);
+  }
+
+  public void testEnsureCapacityGrows() {
+    FrequencySketch sketch = new FrequencySketch(10);
+    assertEquals(64, sketch.getWidth());
+    sketch.ensureCapacity(50);
+    assertEquals(64, sketch.getWidth());
+    sketch.ensureCapacity(1000);
+    assertEquals(1024, sketch.getWidth());
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.tc.net.ClientID;
+import com.tc.object.ObjectID;
+import com.tc.object.metadata.MetaDataDescriptorInternal;
+import com.tc.objectserver.metadata.MetaDataProcessingContext;
+import com.tc.search.SearchRequestID;
+import com.terracottatech.search.AbstractNVPair;
+import com.terracottatech.search.AggregatorOperations;
+import com.terracottatech.search.IndexFile;
+import com.terracottatech.search.IndexQueryResult;
+import com.terracottatech.search.NVPair;
+import com.terracottatech.search.SearchCommand;
+import com.terracottatech.search.SearchMetaData;
+import com.terracottatech.search.SearchResult;
+import com.terracottatech.search.StackOperations;
+import com.terracottatech.search.SyncSnapshot;
+import com.terracottatech.search.ValueID;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Feeds the embedded index through its {@link IndexManager} adapter, from client meta data to query results.
+ */
+public class EmbeddedIndexManagerTest extends TestCase {
+
+  private static final ObjectID   SEGMENT_1 = new ObjectID(1);
+  private static final ObjectID   SEGMENT_2 = new ObjectID(2);
+
+  private EmbeddedIndexManager    indexManager;
+  private EmbeddedMetaDataManager metaDataManager;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    indexManager = new EmbeddedIndexManager(2);
+    metaDataManager = new EmbeddedMetaDataManager(null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    indexManager.shutdown();
+    super.tearDown();
+  }
+
+  public void testClientMetaDataIsIndexedAndQueried() throws Exception {
+    MetaDataProcessingContext processingContext = mock(MetaDataProcessingContext.class);
+    List<SearchEventContext> segment1 = new ArrayList<SearchEventContext>();
+    segment1.add(put(SEGMENT_1, "alice", 1, 30, "Alice", processingContext));
+    segment1.add(put(SEGMENT_1, "bob", 2, 45, "Bob", processingContext));
+    indexManager.applyBatch("cache", SEGMENT_1, segment1);
+    indexManager.applyBatch("cache", SEGMENT_2,
+                            Collections.singletonList(put(SEGMENT_2, "carol", 3, 30, "carol", processingContext)));
+    verify(processingContext, times(3)).processed();
+
+    // new And(age == 30, name ilike "c*"), the way the toolkit query builder stacks it
+    LinkedList stack = new LinkedList();
+    stack.add(StackOperations.BEGIN_GROUP);
+    stack.add(StackOperations.TERM);
+    stack.add(AbstractNVPair.createNVPair("age", 30));
+    stack.add(StackOperations.AND);
+    stack.add(StackOperations.ILIKE);
+    stack.add(AbstractNVPair.createNVPair("name", "c*"));
+    stack.add(StackOperations.END_GROUP);
+
+    SearchResult result = search(stack, Collections.<NVPair> emptyList());
+    assertEquals(keys("carol"), keysOf(result));
+    assertTrue(result.isAnyCriteriaMatched());
+
+    stack.clear();
+    stack.add(StackOperations.TERM);
+    stack.add(AbstractNVPair.createNVPair("age", 30));
+    result = search(stack, Collections.<NVPair> emptyList());
+    assertEquals(keys("alice", "carol"), keysOf(result));
+
+    result = search(new LinkedList(), Arrays.asList(AbstractNVPair.createNVPair("age", AggregatorOperations.COUNT)));
+    assertEquals(1, result.getAggregators().size());
+    assertEquals(3, ((Number) result.getAggregators().get(0).getResult()).intValue());
+  }
+
+  public void testRemovesReachTheIndex() throws Exception {
+    MetaDataProcessingContext processingContext = mock(MetaDataProcessingContext.class);
+    indexManager.applyBatch("cache", SEGMENT_1,
+                            Arrays.asList(put(SEGMENT_1, "alice", 1, 30, "Alice", processingContext),
+                                          put(SEGMENT_1, "bob", 2, 45, "Bob", processingContext)));
+
+    MetaDataDescriptorInternal remove = descriptor(SEGMENT_1, SearchCommand.REMOVE,
+                                                   AbstractNVPair.createNVPair(SearchMetaData.KEY.toString(), "bob"));
+    SearchEventContext context = metaDataManager.toSearchContext(remove, processingContext);
+    assertTrue(context instanceof SearchDeleteContext);
+    indexManager.applyBatch("cache", SEGMENT_1, Collections.singletonList(context));
+
+    assertEquals(keys("alice"), keysOf(search(new LinkedList(), Collections.<NVPair> emptyList())));
+  }
+
+  public void testIndexFilesAreReadFromTheirOwnSnapshot() throws Exception {
+    MetaDataProcessingContext processingContext = mock(MetaDataProcessingContext.class);
+    indexManager.applyBatch("cache", SEGMENT_1,
+                            Collections.singletonList(put(SEGMENT_1, "alice", 1, 30, "Alice", processingContext)));
+    SyncSnapshot first = indexManager.snapshot("sync-1");
+    indexManager.applyBatch("cache", SEGMENT_1,
+                            Collections.singletonList(put(SEGMENT_1, "bob", 2, 45, "Bob", processingContext)));
+    SyncSnapshot second = indexManager.snapshot("sync-2");
+
+    IndexFile firstFile = first.getFilesToSync().get("cache").get(0);
+    IndexFile secondFile = second.getFilesToSync().get("cache").get(0);
+    assertTrue(firstFile.length() < secondFile.length());
+    assertEquals(firstFile.length(), readIndexFile(firstFile).length);
+    assertEquals(secondFile.length(), readIndexFile(secondFile).length);
+
+    first.release();
+    try {
+      readIndexFile(firstFile);
+      fail("released snapshot still hands out its files");
+    } catch (IOException e) {
+      // expected
+    }
+    assertEquals(secondFile.length(), readIndexFile(secondFile).length);
+  }
+
+  public void testPassiveSyncedFromSnapshotAnswersLikeTheActive() throws Exception {
+    EmbeddedIndexHACoordinator active = new EmbeddedIndexHACoordinator(2);
+    EmbeddedIndexHACoordinator passive = new EmbeddedIndexHACoordinator(2);
+    try {
+      MetaDataProcessingContext processingContext = mock(MetaDataProcessingContext.class);
+      active.applyBatch("cache", SEGMENT_1, Arrays.asList(put(SEGMENT_1, "alice", 1, 30, "Alice", processingContext),
+                                                          put(SEGMENT_1, "bob", 2, 45, "Bob", processingContext)));
+      active.applyBatch("cache", SEGMENT_2,
+                        Collections.singletonList(put(SEGMENT_2, "carol", 3, 30, "carol", processingContext)));
+      // stale entry that the sync has to drop
+      passive.applyBatch("cache", SEGMENT_2,
+                         Collections.singletonList(put(SEGMENT_2, "dave", 4, 30, "Dave", processingContext)));
+
+      SyncSnapshot snapshot = active.snapshot("sync-1");
+      passive.doSyncPrepare();
+      for (Map.Entry<String, List<IndexFile>> cache : snapshot.getFilesToSync().entrySet()) {
+        for (IndexFile file : cache.getValue()) {
+          // send each file in small chunks, the way the index sync request handler does
+          InputStream in = active.getIndexFile(cache.getKey(), file.getIndexId(), file.getLuceneFilename());
+          try {
+            long remaining = file.length();
+            byte[] chunk = new byte[64];
+            while (remaining > 0) {
+              int read = in.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+              remaining -= read;
+              passive.applyIndexSync(cache.getKey(), file.getIndexId(), file.getDestFilename(),
+                                     Arrays.copyOf(chunk, read), file.isTCFile(), remaining == 0);
+            }
+          } finally {
+            in.close();
+          }
+        }
+      }
+      passive.applyTempJournalsAndSwitch();
+      snapshot.release();
+
+      LinkedList stack = new LinkedList();
+      stack.add(StackOperations.TERM);
+      stack.add(AbstractNVPair.createNVPair("age", 30));
+      assertEquals(keys("alice", "carol"), keysOf(search(passive, stack, Collections.<NVPair> emptyList())));
+      assertEquals(keysOf(search(active, new LinkedList(), Collections.<NVPair> emptyList())),
+                   keysOf(search(passive, new LinkedList(), Collections.<NVPair> emptyList())));
+    } finally {
+      active.shutdown();
+      passive.shutdown();
+    }
+  }
+
+  public void testOtherMetaDataIsIgnored() {
+    MetaDataDescriptorInternal descriptor = mock(MetaDataDescriptorInternal.class);
+    when(descriptor.getCategory()).thenReturn("OTHER");
+    assertNull(metaDataManager.toSearchContext(descriptor, mock(MetaDataProcessingContext.class)));
+  }
+
+  private SearchEventContext put(ObjectID segment, String key, long value, int age, String name,
+                                 MetaDataProcessingContext processingContext) {
+    MetaDataDescriptorInternal descriptor = descriptor(segment, SearchCommand.PUT,
+                                                       AbstractNVPair.createNVPair(SearchMetaData.KEY.toString(), key),
+                                                       AbstractNVPair.createNVPair(SearchMetaData.ATTR + "age", age),
+                                                       AbstractNVPair.createNVPair(SearchMetaData.ATTR + "name", name),
+                                                       AbstractNVPair.createNVPair(SearchMetaData.VALUE.toString(),
+                                                                                   new ValueID(value)));
+    SearchEventContext context = metaDataManager.toSearchContext(descriptor, processingContext);
+    assertTrue(context instanceof SearchUpsertContext);
+    return context;
+  }
+
+  /**
+   * Meta data laid out the way the toolkit ServerMap builds it: cache name and command first, then the command
+   * specific pairs.
+   */
+  private static MetaDataDescriptorInternal descriptor(ObjectID segment, SearchCommand command, NVPair... pairs) {
+    List<NVPair> metaDatas = new ArrayList<NVPair>();
+    metaDatas.add(AbstractNVPair.createNVPair(SearchMetaData.CACHENAME.toString(), "cache"));
+    metaDatas.add(AbstractNVPair.createNVPair(SearchMetaData.COMMAND.toString(), command));
+    metaDatas.addAll(Arrays.asList(pairs));
+    MetaDataDescriptorInternal descriptor = mock(MetaDataDescriptorInternal.class);
+    when(descriptor.getCategory()).thenReturn(EmbeddedMetaDataManager.SEARCH_CATEGORY);
+    when(descriptor.getObjectId()).thenReturn(segment);
+    when(descriptor.getMetaDatas()).thenReturn(metaDatas.iterator());
+    return descriptor;
+  }
+
+  private SearchResult search(LinkedList stack, List<NVPair> aggregators) throws Exception {
+    return search(indexManager, stack, aggregators);
+  }
+
+  private static SearchResult search(IndexManager indexManager, LinkedList stack, List<NVPair> aggregators)
+      throws Exception {
+    return indexManager.searchIndex("cache", new ClientID(1), new SearchRequestID(1), stack, true, false,
+                                    Collections.<String> emptySet(), Collections.<String> emptySet(),
+                                    Collections.<NVPair> emptyList(), aggregators, -1, 100);
+  }
+
+  private byte[] readIndexFile(IndexFile file) throws IOException {
+    InputStream in = indexManager.getIndexFile("cache", file.getIndexId(), file.getLuceneFilename());
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[256];
+      for (int read; (read = in.read(buffer)) != -1;) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  private static Set<String> keysOf(SearchResult result) {
+    Set<String> keys = new HashSet<String>();
+    for (Object row : result.getQueryResults()) {
+      keys.add(((IndexQueryResult) row).getKey());
+    }
+    return keys;
+  }
+
+  private static Set<String> keys(String... keys) {
+    return new HashSet<String>(Arrays.asList(keys));
+  }
+}
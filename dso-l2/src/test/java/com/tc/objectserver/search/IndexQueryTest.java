@@ -0,0 +1,171 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import com.terracottatech.search.AbstractNVPair;
+import com.terracottatech.search.IndexException;
+import com.terracottatech.search.StackOperations;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class IndexQueryTest extends TestCase {
+
+  private SegmentIndex index;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    index = new SegmentIndex();
+    index.upsert("a", 1L, attributes("age", 30, "name", "Alice"));
+    index.upsert("b", 2L, attributes("age", 45, "name", "Bob"));
+    index.upsert("c", 3L, attributes("age", 30, "name", "carol"));
+    index.upsert("d", 4L, attributes("name", "Dave"));
+  }
+
+  public void testSingleCriterion() throws Exception {
+    assertEquals(keys("a", "c"), evaluate(new Stack().term("age", 30)));
+    assertEquals(keys("a", "b", "c", "d"), evaluate(new Stack()));
+    assertEquals(keys("a", "b", "c", "d"), evaluate(new Stack().all()));
+  }
+
+  public void testOperatorsSitBetweenCriteria() throws Exception {
+    // new And(age == 30, name ilike "?a*")
+    assertEquals(keys("c"), evaluate(new Stack().beginGroup().term("age", 30).and().ilike("name", "?a*").endGroup()));
+    // new Or(age == 45, name == "Dave", age == 30)
+    assertEquals(keys("a", "b", "c", "d"), evaluate(new Stack().beginGroup().term("age", 45).or().term("name", "Dave")
+                                                        .or().term("age", 30).endGroup()));
+  }
+
+  public void testNestedGroupsAndNot() throws Exception {
+    // new And(new Not(age == 30), new Or(name == "Bob", name == "Dave"))
+    Stack stack = new Stack().beginGroup().not().beginGroup().term("age", 30).endGroup().and().beginGroup()
+        .term("name", "Bob").or().term("name", "Dave").endGroup().endGroup();
+    assertEquals(keys("b", "d"), evaluate(stack));
+    // new Or(new And(age == 30, name == "Alice"), age > 40)
+    stack = new Stack().beginGroup().beginGroup().term("age", 30).and().term("name", "Alice").endGroup().or()
+        .greaterThan("age", 40).endGroup();
+    assertEquals(keys("a", "b"), evaluate(stack));
+  }
+
+  public void testAndBindsTighterThanOr() throws Exception {
+    Stack stack = new Stack().term("name", "Dave").or().term("age", 30).and().term("name", "carol");
+    assertEquals(keys("c", "d"), evaluate(stack));
+  }
+
+  public void testMalformedStacksAreRejected() {
+    assertRejected(new Stack().term("age", 30).and());
+    assertRejected(new Stack().beginGroup().term("age", 30));
+    assertRejected(new Stack().term("age", 30).term("age", 45));
+    assertRejected(new Stack().and().term("age", 30));
+    LinkedList missingOperand = new LinkedList();
+    missingOperand.add(StackOperations.TERM);
+    try {
+      IndexQuery.parse(missingOperand);
+      fail();
+    } catch (IndexException expected) {
+      // expected
+    }
+  }
+
+  private void assertRejected(Stack stack) {
+    try {
+      IndexQuery.parse(stack.ops);
+      fail("parsed " + stack.ops);
+    } catch (IndexException expected) {
+      // expected
+    }
+  }
+
+  private Set<String> evaluate(Stack stack) throws IndexException {
+    return IndexQuery.parse(stack.ops).evaluate(index);
+  }
+
+  /**
+   * Builds query stacks the way the toolkit query builder does: criteria are pushed in order with their operators in
+   * between, and every nested And/Or criterion is wrapped in a group.
+   */
+  private static class Stack {
+    private final LinkedList ops = new LinkedList();
+
+    Stack all() {
+      ops.add(StackOperations.ALL);
+      return this;
+    }
+
+    Stack term(String name, Object value) {
+      ops.add(StackOperations.TERM);
+      ops.add(AbstractNVPair.createNVPair(name, value));
+      return this;
+    }
+
+    Stack greaterThan(String name, Object value) {
+      ops.add(StackOperations.GREATER_THAN);
+      ops.add(AbstractNVPair.createNVPair(name, value));
+      return this;
+    }
+
+    Stack ilike(String name, String pattern) {
+      ops.add(StackOperations.ILIKE);
+      ops.add(AbstractNVPair.createNVPair(name, pattern));
+      return this;
+    }
+
+    Stack and() {
+      ops.add(StackOperations.AND);
+      return this;
+    }
+
+    Stack or() {
+      ops.add(StackOperations.OR);
+      return this;
+    }
+
+    Stack not() {
+      ops.add(StackOperations.NOT);
+      return this;
+    }
+
+    Stack beginGroup() {
+      ops.add(StackOperations.BEGIN_GROUP);
+      return this;
+    }
+
+    Stack endGroup() {
+      ops.add(StackOperations.END_GROUP);
+      return this;
+    }
+  }
+
+  private static Map<String, Object> attributes(Object... namesAndValues) {
+    Map<String, Object> attributes = new HashMap<String, Object>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      attributes.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return attributes;
+  }
+
+  private static Set<String> keys(String... keys) {
+    return new HashSet<String>(Arrays.asList(keys));
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mockito.InOrder;
+
+import com.tc.async.api.EventContext;
+import com.tc.net.ClientID;
+import com.tc.object.ObjectID;
+import com.tc.object.tx.ServerTransactionID;
+import com.tc.object.tx.TransactionID;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.metadata.MetaDataProcessingContext;
+import com.tc.objectserver.tx.ServerTransactionManager;
+import com.terracottatech.search.NVPair;
+import com.terracottatech.search.ValueID;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+public class SearchEventHandlerTest extends TestCase {
+
+  private static final ObjectID SEGMENT_1 = new ObjectID(1);
+  private static final ObjectID SEGMENT_2 = new ObjectID(2);
+
+  private IndexManager          indexManager;
+  private SearchEventHandler    handler;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    indexManager = mock(IndexManager.class);
+    ServerConfigurationContext context = mock(ServerConfigurationContext.class);
+    when(context.getIndexManager()).thenReturn(indexManager);
+    handler = new SearchEventHandler();
+    handler.initializeContext(context);
+  }
+
+  public void testMutationsAreBatchedPerSegment() throws Exception {
+    SearchEventContext put1 = upsert(SEGMENT_1, "k1");
+    SearchEventContext put2 = upsert(SEGMENT_2, "k2");
+    SearchEventContext remove1 = new SearchDeleteContext(SEGMENT_1, "cache", "k1", processingContext());
+    SearchEventContext put3 = upsert(SEGMENT_1, "k3");
+
+    handler.handleEventBatch(Arrays.<EventContext> asList(put1, put2, remove1, put3));
+
+    InOrder inOrder = inOrder(indexManager);
+    inOrder.verify(indexManager).applyBatch("cache", SEGMENT_1, Arrays.asList(put1, remove1, put3));
+    inOrder.verify(indexManager).applyBatch("cache", SEGMENT_2, Arrays.asList(put2));
+    inOrder.verifyNoMoreInteractions();
+
+    IndexBatchStats stats = handler.getBatchStats();
+    assertEquals(2, stats.getBatchCount());
+    assertEquals(4, stats.getContextCount());
+  }
+
+  public void testHandlerStatsCoverOneInterval() throws Exception {
+    handler.handleEventBatch(Arrays.<EventContext> asList(upsert(SEGMENT_1, "k1"), upsert(SEGMENT_2, "k2")));
+    IndexBatchStats interval = (IndexBatchStats) handler.getHandlerStats();
+    assertEquals(2, interval.getBatchCount());
+    assertEquals(2, interval.getContextCount());
+
+    handler.handleEventBatch(Arrays.<EventContext> asList(upsert(SEGMENT_1, "k3")));
+    interval = (IndexBatchStats) handler.getHandlerStats();
+    assertEquals(1, interval.getBatchCount());
+    assertEquals(1, interval.getContextCount());
+    assertEquals(0, ((IndexBatchStats) handler.getHandlerStats()).getBatchCount());
+  }
+
+  public void testTransactionSpanningSegmentsAndBatchesCompletesOnce() throws Exception {
+    EmbeddedIndexManager embedded = new EmbeddedIndexManager(1);
+    try {
+      ServerConfigurationContext context = mock(ServerConfigurationContext.class);
+      when(context.getIndexManager()).thenReturn(embedded);
+      SearchEventHandler searchHandler = new SearchEventHandler();
+      searchHandler.initializeContext(context);
+
+      ServerTransactionManager txnManager = mock(ServerTransactionManager.class);
+      ClientID client = new ClientID(1);
+      TransactionID txnID = new TransactionID(7);
+      MetaDataProcessingContext processingContext = new MetaDataProcessingContext(new ServerTransactionID(client,
+                                                                                                          txnID),
+                                                                                  txnManager);
+      processingContext.setExpectedCount(3);
+
+      // two segments in the first drained batch, the last context only in the next one
+      searchHandler.handleEventBatch(Arrays.<EventContext> asList(upsert(SEGMENT_1, "k1", 1, processingContext),
+                                                                  upsert(SEGMENT_2, "k2", 2, processingContext)));
+      verify(txnManager, never()).processingMetaDataCompleted(client, txnID);
+
+      searchHandler.handleEventBatch(Arrays.<EventContext> asList(upsert(SEGMENT_1, "k3", 3, processingContext)));
+      verify(txnManager).processingMetaDataCompleted(client, txnID);
+    } finally {
+      embedded.shutdown();
+    }
+  }
+
+  public void testOtherContextsFlushPendingMutations() throws Exception {
+    SearchEventContext put1 = upsert(SEGMENT_1, "k1");
+    MetaDataProcessingContext clearContext = processingContext();
+    SearchEventContext clear = new SearchClearContext(SEGMENT_1, "cache", clearContext);
+    SearchEventContext put2 = upsert(SEGMENT_1, "k2");
+
+    handler.handleEventBatch(Arrays.<EventContext> asList(put1, clear, put2));
+
+    InOrder inOrder = inOrder(indexManager);
+    inOrder.verify(indexManager).applyBatch("cache", SEGMENT_1, Arrays.asList(put1));
+    inOrder.verify(indexManager).clear("cache", SEGMENT_1, clearContext);
+    inOrder.verify(indexManager).applyBatch("cache", SEGMENT_1, Arrays.asList(put2));
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  private static SearchEventContext upsert(ObjectID segment, String key) {
+    return new SearchUpsertContext(segment, "cache", key, null, Collections.<NVPair> emptyList(),
+                                   processingContext(), false);
+  }
+
+  private static SearchEventContext upsert(ObjectID segment, String key, long value,
+                                           MetaDataProcessingContext processingContext) {
+    return new SearchUpsertContext(segment, "cache", key, new ValueID(value), Collections.<NVPair> emptyList(),
+                                   processingContext, true);
+  }
+
+  private static MetaDataProcessingContext processingContext() {
+    return mock(MetaDataProcessingContext.class);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class SegmentIndexTest extends TestCase {
+
+  private SegmentIndex index;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    index = new SegmentIndex();
+    index.upsert("a", 1L, attributes("age", 30, "name", "Alice"));
+    index.upsert("b", 2L, attributes("age", 45, "name", "Bob"));
+    index.upsert("c", 3L, attributes("age", 30, "name", "carol"));
+    index.upsert("d", 4L, attributes("name", "Dave"));
+  }
+
+  public void testEqualityAndRange() {
+    assertEquals(keys("a", "c"), IndexQuery.equalTo("age", 30).evaluate(index));
+    assertEquals(keys("b"), IndexQuery.range("age", 30, false, null, false).evaluate(index));
+    assertEquals(keys("a", "b", "c"), IndexQuery.range("age", 30, true, 45, true).evaluate(index));
+    assertEquals(keys(), IndexQuery.range("age", 45, false, 30, false).evaluate(index));
+    assertEquals(keys(), IndexQuery.equalTo("age", 30L).evaluate(index));
+    // a range never crosses into values of another type
+    assertEquals(keys("a", "b", "c"), IndexQuery.range("age", null, false, 100, false).evaluate(index));
+    assertEquals(keys(), IndexQuery.range("name", null, false, 100, false).evaluate(index));
+  }
+
+  public void testLogicalOperators() {
+    IndexQuery thirty = IndexQuery.equalTo("age", 30);
+    IndexQuery named = IndexQuery.ilike("name", "?a*");
+    assertEquals(keys("c", "d"), named.evaluate(index));
+    assertEquals(keys("c"), IndexQuery.and(thirty, named).evaluate(index));
+    assertEquals(keys("a", "c", "d"), IndexQuery.or(thirty, named).evaluate(index));
+    assertEquals(keys("b", "d"), IndexQuery.not(thirty, null).evaluate(index));
+    assertEquals(keys("b"), IndexQuery.not(thirty, IndexQuery.notNull("age")).evaluate(index));
+  }
+
+  public void testUpdatesMaintainIndexes() {
+    index.upsert("a", 5L, attributes("age", 46));
+    assertEquals(keys("c"), IndexQuery.equalTo("age", 30).evaluate(index));
+    assertEquals(keys("a", "b"), IndexQuery.range("age", 40, true, null, false).evaluate(index));
+    assertEquals(keys(), IndexQuery.equalTo("name", "Alice").evaluate(index));
+
+    assertFalse(index.putIfAbsent("a", 6L, attributes("age", 1)));
+    assertFalse(index.replace("b", 7L, 1L, attributes("age", 1)));
+    assertTrue(index.replace("b", 7L, 2L, attributes("age", 1)));
+    assertEquals(keys("b"), IndexQuery.equalTo("age", 1).evaluate(index));
+
+    assertFalse(index.removeIfValueEqual("c", 4L));
+    assertTrue(index.removeIfValueEqual("c", 3L));
+    assertTrue(index.remove("d"));
+    assertNull(index.attribute("name"));
+    assertEquals(keys("a", "b"), IndexQuery.all().evaluate(index));
+
+    index.clear();
+    assertEquals(0, index.size());
+    assertEquals(keys(), IndexQuery.notNull("age").evaluate(index));
+  }
+
+  public void testSerializationRoundTrip() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    index.writeTo(out);
+    out.close();
+
+    SegmentIndex copy = SegmentIndex.readFrom(new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(index.size(), copy.size());
+    assertEquals(3L, copy.get("c").getValue());
+    assertEquals(keys("a", "c"), IndexQuery.equalTo("age", 30).evaluate(copy));
+    assertEquals(keys("a"), IndexQuery.ilike("name", "ALI*").evaluate(copy));
+  }
+
+  private static Map<String, Object> attributes(Object... namesAndValues) {
+    Map<String, Object> attributes = new HashMap<String, Object>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      attributes.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return attributes;
+  }
+
+  private static Set<String> keys(String... keys) {
+    return new HashSet<String>(Arrays.asList(keys));
+  }
+}
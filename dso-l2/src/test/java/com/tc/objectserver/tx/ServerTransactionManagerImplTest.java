@@ -349,6 +349,29 @@ public class ServerTransactionManagerImplTest extends TestCase {
 
 
 
+  }
+
+  public void testWaitingForAlreadyDeadNodeIsAcknowledged() throws Exception {
+    ClientID cid1 = new ClientID(1);
+    ClientID cid2 = new ClientID(2);
+    ClientID cid3 = new ClientID(3);
+    TransactionID tid1 = new TransactionID(1);
+
+    ServerTransaction tx1 = newServerTransactionImpl(new TxnBatchID(1), tid1, new SequenceID(1), new LockID[0], cid1,
+                                                     Collections.emptyList(), null, Collections.emptyMap(),
+                                                     TxnType.NORMAL, new LinkedList(), 1);
+    Map<ServerTransactionID, ServerTransaction> txns = new HashMap<ServerTransactionID, ServerTransaction>();
+    txns.put(tx1.getServerTransactionID(), tx1);
+    this.transactionManager.incomingTransactions(cid1, txns);
+
+    // Client 2 dies before the broadcast to it is registered, the cleanup sweep has nothing to acknowledge yet
+    this.transactionManager.shutdownNode(cid2);
+    this.transactionManager.addWaitingForAcknowledgement(cid1, tid1, cid2);
+    this.transactionManager.addWaitingForAcknowledgement(cid1, tid1, cid3);
+    assertTrue(this.transactionManager.isWaiting(cid1, tid1));
+
+    this.transactionManager.acknowledgement(cid1, tid1, cid3);
+    assertFalse(this.transactionManager.isWaiting(cid1, tid1));
   }
 
   public void test1ClientDisconnectWithWaiteeAsSameClient() throws Exception {
@@ -23,11 +23,13 @@ import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.AdditionalMatchers.and;
 import static org.mockito.AdditionalMatchers.not;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.InOrder;
 
@@ -51,6 +53,8 @@ import com.tc.util.ObjectIDSet;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class TransactionalObjectManagerTest extends TCTestCase {
@@ -236,6 +240,40 @@ public class TransactionalObjectManagerTest extends TCTestCase {
     verify(coordinator).addToApplyStage((EventContext) and(argThat(hasTransactionID(0)), argThat(hasIgnorableObject(new ObjectID(1L)))));
   }
 
+  public void testDisjointTransactionsSpreadOverApplyLanes() throws Exception {
+    txObjectManager = new TransactionalObjectManagerImpl(this.objectManager, gtxMgr, this.coordinator, 4);
+    objectManager.addExistingObjectIDs(asCollectionOfObjectIDs(1L, 2L, 3L));
+    txObjectManager.addTransactions(asList(createTransaction(1, Collections.EMPTY_SET, asList(1L)),
+        createTransaction(2, Collections.EMPTY_SET, asList(2L)), createTransaction(3, Collections.EMPTY_SET, asList(3L)),
+        createTransaction(4, Collections.EMPTY_SET, asList(1L))));
+    txObjectManager.lookupObjectsForTransactions();
+
+    ArgumentCaptor<EventContext> captor = ArgumentCaptor.forClass(EventContext.class);
+    verify(coordinator, times(4)).addToApplyStage(captor.capture());
+    List<EventContext> contexts = captor.getAllValues();
+    int lane1 = ((ApplyTransactionContext) contexts.get(0)).getKey().hashCode();
+    int lane2 = ((ApplyTransactionContext) contexts.get(1)).getKey().hashCode();
+    int lane3 = ((ApplyTransactionContext) contexts.get(2)).getKey().hashCode();
+    int lane4 = ((ApplyTransactionContext) contexts.get(3)).getKey().hashCode();
+
+    // disjoint transactions run on separate lanes, the one sharing object 1 queues up behind transaction 1
+    assertEquals(3, new HashSet<Integer>(asList(lane1, lane2, lane3)).size());
+    assertEquals(lane1, lane4);
+    assertEquals((1 + 2 + 3 + 3) / 4.0, txObjectManager.getAverageApplyParallelism(), 0.001);
+
+    for (long txnID = 1; txnID <= 4; txnID++) {
+      ApplyTransactionInfo applyTransactionInfo = applyInfoWithTransactionID(txnID);
+      txObjectManager.applyTransactionComplete(applyTransactionInfo);
+      objectManager.releaseAll(applyTransactionInfo.getObjectsToRelease());
+    }
+
+    // with every lane idle again the next grouping starts on a free lane
+    txObjectManager.addTransactions(asList(createTransaction(5, Collections.EMPTY_SET, asList(1L, 2L))));
+    txObjectManager.lookupObjectsForTransactions();
+    verify(coordinator).addToApplyStage(argThat(hasTransactionID(5)));
+    assertEquals(2, txObjectManager.getApplyParallelismHistogram()[0]);
+  }
+
   private static Collection<ObjectID> asCollectionOfObjectIDs(Long ... longs) {
     Set<ObjectID> oids = new BitSetObjectIDSet();
     for (long l : longs) {
@@ -69,9 +69,11 @@ import com.tc.object.TCObjectServerMap;
 import com.tc.object.search.SearchRequestIDGenerator;
 import com.tc.object.servermap.localcache.L1ServerMapLocalCacheStore;
 import com.tc.object.servermap.localcache.PinnedEntryFaultCallback;
+import com.tc.object.servermap.localcache.impl.OffHeapL1ServerMapLocalCacheStore;
 import com.tc.object.tx.TransactionCompleteListener;
 import com.tc.object.tx.TransactionID;
 import com.tc.platform.PlatformService;
+import com.tc.properties.TCPropertiesConsts;
 import com.tc.search.SearchRequestID;
 import com.tc.server.CustomLifespanVersionedServerEvent;
 import com.tc.server.ServerEvent;
@@ -121,6 +123,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -143,7 +146,10 @@ public class AggregateServerMap<K, V> implements DistributedToolkitType<Internal
   public static final int                                                  DEFAULT_MAX_SIZEOF_DEPTH           = 1000;
 
   private static final String                                              EHCACHE_GETALL_BATCH_SIZE_PROPERTY = "ehcache.getAll.batchSize";
+  private static final int                                                 DEFAULT_OFFHEAP_SEGMENTS           = 16;
   private static final int                                                 DEFAULT_GETALL_BATCH_SIZE          = 1000;
+  // key locks putAll and removeAll hold at a time
+  private static final int                                                 KEY_LOCK_BATCH_SIZE                = 1000;
   private final static String                                              SNAPSHOT_TXN_LOCK_ID               = "snapshot_txn_lock";
   private final static List<ToolkitObjectType>                             VALID_TYPES                        = Arrays
                                                                                                                   .asList(ToolkitObjectType.STORE,
@@ -310,11 +316,29 @@ public class AggregateServerMap<K, V> implements DistributedToolkitType<Internal
   }
 
   protected L1ServerMapLocalCacheStore<K, V> createLocalCacheStore() {
+    ServerMapLocalStoreConfig localStoreConfig = getLocalStoreConfig();
+    if (useBuiltInOffHeapStore(localStoreConfig)) {
+      int segments = getTerracottaProperty(TCPropertiesConsts.L1_SERVERMAP_LOCALCACHE_OFFHEAP_SEGMENTS,
+                                           DEFAULT_OFFHEAP_SEGMENTS);
+      return new OffHeapL1ServerMapLocalCacheStore<K, V>(localStoreConfig.getMaxBytesLocalOffheap(), segments);
+    }
     ServerMapLocalStore<K, V> smLocalStore = serverMapLocalStoreFactory
-        .getOrCreateServerMapLocalStore(getLocalStoreConfig());
+        .getOrCreateServerMapLocalStore(localStoreConfig);
     return new L1ServerMapLocalCacheStoreImpl<K, V>(smLocalStore);
   }
 
+  private boolean useBuiltInOffHeapStore(ServerMapLocalStoreConfig localStoreConfig) {
+    if (!localStoreConfig.isOverflowToOffheap() || localStoreConfig.getMaxBytesLocalOffheap() <= 0
+        || localStoreConfig.isPinnedInLocalMemory()) { return false; }
+    try {
+      return platformService.getTCProperties()
+          .getBoolean(TCPropertiesConsts.L1_SERVERMAP_LOCALCACHE_OFFHEAP_BUILTIN_ENABLED, false);
+    } catch (UnsupportedOperationException e) {
+      // for unit-tests
+      return false;
+    }
+  }
+
   private ServerMapLocalStoreConfig getLocalStoreConfig() {
     return new ServerMapLocalStoreConfigParameters().populateFrom(config, this.name).buildConfig();
   }
@@ -685,8 +709,22 @@ public class AggregateServerMap<K, V> implements DistributedToolkitType<Internal
 
       }
     } else {
-      for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
-        putNoReturn(entry.getKey(), entry.getValue());
+      List<Map.Entry<? extends K, ? extends V>> entries = new ArrayList<Map.Entry<? extends K, ? extends V>>(map.entrySet());
+      for (int start = 0; start < entries.size(); start += KEY_LOCK_BATCH_SIZE) {
+        List<Map.Entry<? extends K, ? extends V>> batch = entries.subList(start, Math.min(entries.size(), start
+                                                                                                          + KEY_LOCK_BATCH_SIZE));
+        List<Object> keys = new ArrayList<Object>(batch.size());
+        for (Map.Entry<? extends K, ? extends V> entry : batch) {
+          keys.add(entry.getKey());
+        }
+        KeyLocks locks = lockKeys(keys);
+        try {
+          for (Map.Entry<? extends K, ? extends V> entry : batch) {
+            putNoReturn(entry.getKey(), entry.getValue());
+          }
+        } finally {
+          locks.unlock();
+        }
       }
     }
   }
@@ -694,9 +732,46 @@ public class AggregateServerMap<K, V> implements DistributedToolkitType<Internal
   @Override
   public void removeAll(Set<K> keys) {
     if (keys == null || keys.isEmpty()) { return; }
-    for (K key : keys) {
-      removeNoReturn(key);
+    if (getAnyServerMap().isEventual()) {
+      for (K key : keys) {
+        removeNoReturn(key);
+      }
+      return;
     }
+    List<K> ordered = new ArrayList<K>(keys);
+    for (int start = 0; start < ordered.size(); start += KEY_LOCK_BATCH_SIZE) {
+      List<K> batch = ordered.subList(start, Math.min(ordered.size(), start + KEY_LOCK_BATCH_SIZE));
+      KeyLocks locks = lockKeys(batch);
+      try {
+        for (K key : batch) {
+          removeNoReturn(key);
+        }
+      } finally {
+        locks.unlock();
+      }
+    }
+  }
+
+  /**
+   * Takes the key locks of a batch of keys with a single batched acquisition. The per key operations then find their
+   * locks already held by the thread and do not go to the server one key at a time. Maps that do not expose their key
+   * locks are left to lock per key. The lock type is the one the per key operations use once the batch makes the thread
+   * explicitly locked.
+   */
+  private KeyLocks lockKeys(Collection<?> keys) {
+    Set<Object> lockIds = new LinkedHashSet<Object>();
+    ToolkitLockTypeInternal lockType = null;
+    for (Object key : keys) {
+      InternalToolkitMap<K, V> map = getServerMapForKey(key);
+      if (!(map instanceof ServerMap)) { return KeyLocks.NONE; }
+      Object lockId = ((ServerMap) map).getLockIdForKey(key);
+      if (lockId == null) { return KeyLocks.NONE; }
+      lockIds.add(lockId);
+      lockType = ServerMap.explicitLockType(map.getLockType());
+    }
+    if (lockIds.isEmpty()) { return KeyLocks.NONE; }
+    ToolkitLockingApi.lockAll(lockIds, lockType, platformService);
+    return new KeyLocks(lockIds, lockType, platformService);
   }
 
   @Override
@@ -1338,4 +1413,26 @@ public class AggregateServerMap<K, V> implements DistributedToolkitType<Internal
                                                       final int customMaxTTISeconds, final int customMaxTTLSeconds) {
     return getServerMapForKey(key).createBufferedOperation(type, key, value, version, createTimeInSecs, customMaxTTISeconds, customMaxTTLSeconds);
   }
+
+  /**
+   * Key locks taken by {@link AggregateServerMap#lockKeys(Collection)}.
+   */
+  private static final class KeyLocks {
+    private static final KeyLocks         NONE = new KeyLocks(Collections.<Object> emptySet(), null, null);
+
+    private final Collection<Object>      lockIds;
+    private final ToolkitLockTypeInternal lockType;
+    private final PlatformService         platformService;
+
+    private KeyLocks(Collection<Object> lockIds, ToolkitLockTypeInternal lockType, PlatformService platformService) {
+      this.lockIds = lockIds;
+      this.lockType = lockType;
+      this.platformService = platformService;
+    }
+
+    void unlock() {
+      if (lockIds.isEmpty()) { return; }
+      ToolkitLockingApi.unlockAll(lockIds, lockType, platformService);
+    }
+  }
 }
@@ -72,6 +72,7 @@ import com.terracotta.toolkit.object.AbstractTCToolkitObject;
 import com.terracotta.toolkit.object.serialization.CustomLifespanSerializedMapValue;
 import com.terracotta.toolkit.object.serialization.SerializedMapValue;
 import com.terracotta.toolkit.object.serialization.SerializedMapValueParameters;
+import com.terracotta.toolkit.object.serialization.ValueCodecRegistry;
 import com.terracotta.toolkit.util.ExplicitLockingTCObjectServerMapImpl;
 import com.terracottatech.search.SearchCommand;
 import com.terracottatech.search.SearchMetaData;
@@ -115,6 +116,7 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
   private volatile TimeSource                               timeSource;
   private final String                                      name;
   private final Consistency                                 consistency;
+  private final String                                      valueCodec;
   private final ToolkitCacheMetaDataCallback                metaDataCallback;
   private final AtomicReference<ToolkitMap<String, String>> attributeSchema     = new AtomicReference<ToolkitMap<String, String>>();
   private volatile ToolkitAttributeExtractor                attrExtractor       = ToolkitAttributeExtractor.NULL_EXTRACTOR;
@@ -157,6 +159,11 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
         .getExistingValueOrException(config);
     this.copyOnReadEnabled = (Boolean) InternalCacheConfigurationType.COPY_ON_READ_ENABLED
         .getExistingValueOrException(config);
+    this.valueCodec = (String) InternalCacheConfigurationType.VALUE_CODEC.getValueIfExistsOrDefault(config);
+    if (!ValueCodecRegistry.JAVA_SERIALIZATION.equals(valueCodec)
+        && !serStrategy.getValueCodecRegistry().isKnownCodec(valueCodec)) {
+      throw new IllegalArgumentException("Unknown value codec '" + valueCodec + "' for " + name);
+    }
     this.metaDataCallback = new ToolkitCacheMetaDataCallback() {
 
       @Override
@@ -222,11 +229,15 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
   }
 
   private ToolkitLockTypeInternal getEffectiveLockType() {
-    if (this.lockType == ToolkitLockTypeInternal.CONCURRENT && platformService.isExplicitlyLocked()) {
-      return ToolkitLockTypeInternal.WRITE;
-    } else {
-      return lockType;
-    }
+    return platformService.isExplicitlyLocked() ? explicitLockType(lockType) : lockType;
+  }
+
+  /**
+   * Lock type the locked mutations of a map with the given lock type take their key locks with while the thread holds
+   * explicit locks, as it does once the key locks of a batch are taken.
+   */
+  static ToolkitLockTypeInternal explicitLockType(final ToolkitLockTypeInternal lockType) {
+    return lockType == ToolkitLockTypeInternal.CONCURRENT ? ToolkitLockTypeInternal.WRITE : lockType;
   }
 
   @Override
@@ -245,6 +256,14 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
     return lockStrategy.generateLockIdForKey(key);
   }
 
+  /**
+   * Lock id guarding the key in the locked mutations of this map, so that callers can take the locks of many keys in
+   * one batch up front.
+   */
+  public Object getLockIdForKey(final Object key) {
+    return generateLockIdForKey(key);
+  }
+
   private String getInstanceDsoLockName() {
     if (this.instanceDsoLockName != null) { return this.instanceDsoLockName; }
 
@@ -633,7 +652,7 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
     params.createTime(createTimeInSecs).deserialized(value).lastAccessedTime(createTimeInSecs);
     params.setCustomTTI(customMaxTTISeconds).setCustomTTL(customMaxTTLSeconds);
 
-    params.serialized(serStrategy.serialize(value, compressionEnabled));
+    params.serialized(serStrategy.serialize(value, compressionEnabled, valueCodec));
     return params;
   }
 
@@ -25,6 +25,7 @@ import com.tc.platform.PlatformService;
 import com.tc.util.Assert;
 import com.terracotta.toolkit.abortable.ToolkitAbortableOperationException;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 public class ToolkitLockingApi {
@@ -181,6 +182,28 @@ public class ToolkitLockingApi {
     }
   }
   
+  /**
+   * Takes all the locks in one batch, see {@link PlatformService#beginLocks}.
+   */
+  public static void lockAll(Collection<?> lockIds, ToolkitLockTypeInternal lockType, PlatformService service) {
+    for (Object lockId : lockIds) {
+      assertLockIdType(lockId);
+    }
+    try {
+      service.beginLocks(lockIds, LockingUtils.translate(lockType));
+    } catch (AbortedOperationException e) {
+      throw new ToolkitAbortableOperationException(e);
+    }
+  }
+
+  public static void unlockAll(Collection<?> lockIds, ToolkitLockTypeInternal lockType, PlatformService service) {
+    try {
+      service.commitLocks(lockIds, LockingUtils.translate(lockType));
+    } catch (AbortedOperationException e) {
+      throw new ToolkitAbortableOperationException(e);
+    }
+  }
+
   private static void lock(Long lockId, ToolkitLockTypeInternal lockType, PlatformService service) {
     doBeginLock(lockId, lockType, service);
   }
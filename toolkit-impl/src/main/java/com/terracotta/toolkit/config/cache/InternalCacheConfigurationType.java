@@ -69,6 +69,8 @@ import static org.terracotta.toolkit.store.ToolkitConfigFields.MAX_TTI_SECONDS_F
 import static org.terracotta.toolkit.store.ToolkitConfigFields.MAX_TTL_SECONDS_FIELD_NAME;
 import static org.terracotta.toolkit.store.ToolkitConfigFields.OFFHEAP_ENABLED_FIELD_NAME;
 import static org.terracotta.toolkit.store.ToolkitConfigFields.PINNED_IN_LOCAL_MEMORY_FIELD_NAME;
+import static com.terracotta.toolkit.object.serialization.ValueCodecRegistry.DEFAULT_VALUE_CODEC;
+import static com.terracotta.toolkit.object.serialization.ValueCodecRegistry.VALUE_CODEC_FIELD_NAME;
 
 public enum InternalCacheConfigurationType {
   MAX_BYTES_LOCAL_HEAP(LONG, MAX_BYTES_LOCAL_HEAP_FIELD_NAME, DEFAULT_MAX_BYTES_LOCAL_HEAP) {
@@ -485,6 +487,33 @@ public enum InternalCacheConfigurationType {
       bool(value);
     }
 
+    @Override
+    public boolean isSupportedBy(final ToolkitObjectType objectType) {
+      return objectType == ToolkitObjectType.STORE || objectType == ToolkitObjectType.CACHE;
+    }
+  },
+  VALUE_CODEC(STRING, VALUE_CODEC_FIELD_NAME, DEFAULT_VALUE_CODEC) {
+    @Override
+    public boolean isClusterWideConfig() {
+      // encoded values name their codec, nodes can differ as long as they all know the codecs in use
+      return false;
+    }
+
+    @Override
+    public boolean isDynamicClusterWideChangeAllowed() {
+      return false;
+    }
+
+    @Override
+    public boolean isDynamicLocalChangeAllowed() {
+      return false;
+    }
+
+    @Override
+    public void validateLegalValue(Object value) {
+      notNull(value);
+    }
+
     @Override
     public boolean isSupportedBy(final ToolkitObjectType objectType) {
       return objectType == ToolkitObjectType.STORE || objectType == ToolkitObjectType.CACHE;
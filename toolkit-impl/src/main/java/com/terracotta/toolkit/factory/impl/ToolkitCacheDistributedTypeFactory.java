@@ -27,6 +27,7 @@ import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreFacto
 import com.terracotta.toolkit.config.ConfigUtil;
 import com.terracotta.toolkit.config.UnclusteredConfiguration;
 import com.terracotta.toolkit.config.cache.InternalCacheConfigurationType;
+import com.terracotta.toolkit.object.serialization.ValueCodecRegistry;
 import com.terracotta.toolkit.search.SearchFactory;
 import com.terracotta.toolkit.type.DistributedToolkitTypeFactory;
 
@@ -77,6 +78,7 @@ public class ToolkitCacheDistributedTypeFactory<K extends Serializable, V extend
     builder.pinnedInLocalMemory(ToolkitConfigFields.DEFAULT_PINNED_IN_LOCAL_MEMORY);
     builder.configField(ConfigFieldsInternal.LOCAL_STORE_MANAGER_NAME_NAME,
         ConfigFieldsInternal.DEFAULT_LOCAL_STORE_MANAGER_NAME);
+    builder.configField(ValueCodecRegistry.VALUE_CODEC_FIELD_NAME, ValueCodecRegistry.DEFAULT_VALUE_CODEC);
     return builder.build();
   }
 
@@ -25,6 +25,7 @@ import org.terracotta.toolkit.store.ToolkitConfigFields;
 import com.google.common.base.Preconditions;
 import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreFactory;
 import com.terracotta.toolkit.config.cache.InternalCacheConfigurationType;
+import com.terracotta.toolkit.object.serialization.ValueCodecRegistry;
 import com.terracotta.toolkit.search.SearchFactory;
 
 import java.io.Serializable;
@@ -75,6 +76,7 @@ public class ToolkitStoreDistributedTypeFactory<K extends Serializable, V extend
     builder.pinnedInLocalMemory(ToolkitConfigFields.DEFAULT_PINNED_IN_LOCAL_MEMORY);
     builder.configField(ConfigFieldsInternal.LOCAL_STORE_MANAGER_NAME_NAME,
         ConfigFieldsInternal.DEFAULT_LOCAL_STORE_MANAGER_NAME);
+    builder.configField(ValueCodecRegistry.VALUE_CODEC_FIELD_NAME, ValueCodecRegistry.DEFAULT_VALUE_CODEC);
     return builder.build();
   }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.object.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codecs for the value types caches store most often, selected by the exact class of the value.
+ */
+public enum BuiltInValueCodec implements ValueCodec<Object> {
+
+  STRING(1, String.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      final byte[] bytes = ((String) value).getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      final byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new String(bytes, UTF8);
+    }
+  },
+  LONG(2, Long.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeLong((Long) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readLong();
+    }
+  },
+  INTEGER(3, Integer.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeInt((Integer) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readInt();
+    }
+  },
+  SHORT(4, Short.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeShort((Short) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readShort();
+    }
+  },
+  BYTE(5, Byte.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeByte((Byte) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readByte();
+    }
+  },
+  CHARACTER(6, Character.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeChar((Character) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readChar();
+    }
+  },
+  DOUBLE(7, Double.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeDouble((Double) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readDouble();
+    }
+  },
+  FLOAT(8, Float.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeFloat((Float) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readFloat();
+    }
+  },
+  BOOLEAN(9, Boolean.class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      out.writeBoolean((Boolean) value);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      return in.readBoolean();
+    }
+  },
+  BYTE_ARRAY(10, byte[].class) {
+    @Override
+    public void encode(Object value, DataOutput out) throws IOException {
+      final byte[] bytes = (byte[]) value;
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    @Override
+    public Object decode(DataInput in) throws IOException {
+      final byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+  };
+
+  /**
+   * Ids up to this one are reserved for the built-in codecs.
+   */
+  public static final int                               MAX_BUILT_IN_ID = 31;
+
+  private static final Charset                          UTF8            = Charset.forName("UTF-8");
+  private static final Map<Class<?>, BuiltInValueCodec> BY_CLASS        = new HashMap<Class<?>, BuiltInValueCodec>();
+
+  static {
+    for (BuiltInValueCodec codec : values()) {
+      BY_CLASS.put(codec.type, codec);
+    }
+  }
+
+  private final int                                     id;
+  private final Class<?>                                type;
+
+  BuiltInValueCodec(int id, Class<?> type) {
+    this.id = id;
+    this.type = type;
+  }
+
+  /**
+   * @return the codec for the value, or null if none of the built-in codecs handles it
+   */
+  public static BuiltInValueCodec forValue(Object value) {
+    return value == null ? null : BY_CLASS.get(value.getClass());
+  }
+
+  @Override
+  public int getId() {
+    return id;
+  }
+
+  @Override
+  public String getName() {
+    return "builtin-" + type.getSimpleName();
+  }
+
+  @Override
+  public boolean canEncode(Object value) {
+    return value != null && value.getClass() == type;
+  }
+
+}
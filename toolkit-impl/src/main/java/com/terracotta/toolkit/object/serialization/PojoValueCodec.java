@@ -0,0 +1,174 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.object.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Codec for plain objects of one class, writing the non static, non transient fields in name order without any class
+ * descriptors. Primitive fields are written directly, reference fields through the codecs of the registry. A schema
+ * hash of the field names and types goes in front of the fields so that a node with a different version of the class
+ * fails to decode instead of reading garbage.
+ * <p>
+ * The class needs a no-arg constructor, it does not have to be {@link java.io.Serializable}.
+ */
+public class PojoValueCodec<T> implements ValueCodec<T> {
+
+  private final int                id;
+  private final Class<T>           type;
+  private final ValueCodecRegistry registry;
+  private final Constructor<T>     constructor;
+  private final Field[]            fields;
+  private final int                schemaHash;
+
+  public PojoValueCodec(int id, Class<T> type, ValueCodecRegistry registry) {
+    this.id = id;
+    this.type = type;
+    this.registry = registry;
+    try {
+      this.constructor = type.getDeclaredConstructor();
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(type.getName() + " has no no-arg constructor", e);
+    }
+    this.constructor.setAccessible(true);
+    this.fields = fieldsOf(type);
+
+    int hash = type.getName().hashCode();
+    for (Field field : fields) {
+      hash = 31 * hash + field.getName().hashCode();
+      hash = 31 * hash + field.getType().getName().hashCode();
+    }
+    this.schemaHash = hash;
+  }
+
+  private static Field[] fieldsOf(Class<?> type) {
+    final List<Field> rv = new ArrayList<Field>();
+    for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        final int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+          field.setAccessible(true);
+          rv.add(field);
+        }
+      }
+    }
+    Collections.sort(rv, new Comparator<Field>() {
+      @Override
+      public int compare(Field f1, Field f2) {
+        final int rv = f1.getName().compareTo(f2.getName());
+        return rv != 0 ? rv : f1.getDeclaringClass().getName().compareTo(f2.getDeclaringClass().getName());
+      }
+    });
+    return rv.toArray(new Field[rv.size()]);
+  }
+
+  @Override
+  public int getId() {
+    return id;
+  }
+
+  @Override
+  public String getName() {
+    return type.getName();
+  }
+
+  @Override
+  public boolean canEncode(Object value) {
+    return value != null && value.getClass() == type;
+  }
+
+  @Override
+  public void encode(T value, DataOutput out) throws IOException {
+    out.writeInt(schemaHash);
+    try {
+      for (Field field : fields) {
+        final Class<?> fieldType = field.getType();
+        if (!fieldType.isPrimitive()) {
+          registry.writeNested(field.get(value), out);
+        } else if (fieldType == Integer.TYPE) {
+          out.writeInt(field.getInt(value));
+        } else if (fieldType == Long.TYPE) {
+          out.writeLong(field.getLong(value));
+        } else if (fieldType == Boolean.TYPE) {
+          out.writeBoolean(field.getBoolean(value));
+        } else if (fieldType == Double.TYPE) {
+          out.writeDouble(field.getDouble(value));
+        } else if (fieldType == Float.TYPE) {
+          out.writeFloat(field.getFloat(value));
+        } else if (fieldType == Short.TYPE) {
+          out.writeShort(field.getShort(value));
+        } else if (fieldType == Byte.TYPE) {
+          out.writeByte(field.getByte(value));
+        } else {
+          out.writeChar(field.getChar(value));
+        }
+      }
+    } catch (IllegalAccessException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public T decode(DataInput in) throws IOException, ClassNotFoundException {
+    if (in.readInt() != schemaHash) { throw new InvalidClassException(type.getName(),
+                                                                      "fields differ from the ones the value was written with"); }
+    try {
+      final T value = constructor.newInstance();
+      for (Field field : fields) {
+        final Class<?> fieldType = field.getType();
+        if (!fieldType.isPrimitive()) {
+          field.set(value, registry.readNested(in));
+        } else if (fieldType == Integer.TYPE) {
+          field.setInt(value, in.readInt());
+        } else if (fieldType == Long.TYPE) {
+          field.setLong(value, in.readLong());
+        } else if (fieldType == Boolean.TYPE) {
+          field.setBoolean(value, in.readBoolean());
+        } else if (fieldType == Double.TYPE) {
+          field.setDouble(value, in.readDouble());
+        } else if (fieldType == Float.TYPE) {
+          field.setFloat(value, in.readFloat());
+        } else if (fieldType == Short.TYPE) {
+          field.setShort(value, in.readShort());
+        } else if (fieldType == Byte.TYPE) {
+          field.setByte(value, in.readByte());
+        } else {
+          field.setChar(value, in.readChar());
+        }
+      }
+      return value;
+    } catch (InstantiationException e) {
+      throw new IOException(e);
+    } catch (IllegalAccessException e) {
+      throw new IOException(e);
+    } catch (InvocationTargetException e) {
+      throw new IOException(e.getCause());
+    }
+  }
+
+}
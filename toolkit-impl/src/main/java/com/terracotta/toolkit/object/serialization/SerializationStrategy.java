@@ -32,6 +32,18 @@ public interface SerializationStrategy {
    */
   public byte[] serialize(Object serializable, boolean compress) throws NotSerializableRuntimeException;
 
+  /**
+   * Serialize the given value into byte array, using the named {@link ValueCodec} when it handles the value.
+   * 
+   * @param serializable value to serialize
+   * @param compress
+   * @param codecName name of the codec configured for the cache, see {@link ValueCodecRegistry}
+   * @return serialized form
+   * @throws NotSerializableRuntimeException if serialization fails
+   */
+  public byte[] serialize(Object serializable, boolean compress, String codecName)
+      throws NotSerializableRuntimeException;
+
   /**
    * Deserialize the serialized value returning a new representation.
    * 
@@ -67,4 +79,9 @@ public interface SerializationStrategy {
    */
   public Object deserializeFromString(final String key, boolean localOnly) throws IOException, ClassNotFoundException;
 
+  /**
+   * @return the codecs values can be serialized with
+   */
+  public ValueCodecRegistry getValueCodecRegistry();
+
 }
@@ -28,6 +28,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
@@ -44,20 +45,43 @@ public class SerializationStrategyImpl implements SerializationStrategy {
   private static final byte              HIGH_BIT = (byte) 0x80;
   private final ObjectStreamClassMapping serializer;
   private final ClassLoader              tccl;
+  private final ValueCodecRegistry       codecs;
 
   public SerializationStrategyImpl(PlatformService platformService, SerializerMap serializerMap, ClassLoader loader) {
     this.serializer = new ObjectStreamClassMapping(platformService, serializerMap);
     this.tccl = loader;
+    this.codecs = new ValueCodecRegistry();
+  }
+
+  @Override
+  public ValueCodecRegistry getValueCodecRegistry() {
+    return codecs;
   }
 
   @Override
   public Object deserialize(final byte[] data, boolean compression, boolean local) throws IOException,
       ClassNotFoundException {
-    InputStream in = new ByteArrayInputStream(data);
-    if (compression) {
-      in = new GZIPInputStream(in);
+    if (!compression) {
+      if (data.length > 0 && (data[0] & 0xFF) == ValueCodecRegistry.CODEC_MARKER) {
+        return codecs.decode(new ByteArrayInputStream(data, 1, data.length - 1));
+      }
+      return deserializeJava(new ByteArrayInputStream(data), local);
     }
-    return getObjectFromStream(in, local);
+    // the codec marker is only visible after decompression
+    PushbackInputStream in = new PushbackInputStream(new GZIPInputStream(new ByteArrayInputStream(data)));
+    int first = in.read();
+    if (first == ValueCodecRegistry.CODEC_MARKER) { return codecs.decode(in); }
+    if (first != -1) {
+      in.unread(first);
+    }
+    return deserializeJava(in, local);
+  }
+
+  private Object deserializeJava(InputStream in, boolean local) throws IOException, ClassNotFoundException {
+    final long start = System.nanoTime();
+    Object value = getObjectFromStream(in, local);
+    codecs.javaDeserialized(System.nanoTime() - start);
+    return value;
   }
 
   private Object getObjectFromStream(InputStream in, boolean local) throws IOException,
@@ -74,6 +98,20 @@ public class SerializationStrategyImpl implements SerializationStrategy {
 
   @Override
   public byte[] serialize(final Object value, boolean compression) throws NotSerializableRuntimeException {
+    return serialize(value, compression, ValueCodecRegistry.JAVA_SERIALIZATION);
+  }
+
+  @Override
+  public byte[] serialize(final Object value, boolean compression, String codecName)
+      throws NotSerializableRuntimeException {
+    try {
+      byte[] encoded = codecs.encode(value, codecName, compression);
+      if (encoded != null) { return encoded; }
+    } catch (IOException ioe) {
+      throw new NotSerializableRuntimeException(ioe);
+    }
+
+    final long start = System.nanoTime();
     final ByteArrayOutputStream baos = new ByteArrayOutputStream();
     SerializerObjectOutputStream oos = null;
     try {
@@ -94,7 +132,9 @@ public class SerializationStrategyImpl implements SerializationStrategy {
         throw new NotSerializableRuntimeException(e);
       }
     }
-    return baos.toByteArray();
+    byte[] serialized = baos.toByteArray();
+    codecs.javaSerialized(System.nanoTime() - start, serialized.length);
+    return serialized;
   }
 
   @Override
@@ -0,0 +1,53 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.object.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Turns toolkit values into their clustered form without going through Java serialization. The codec id is written
+ * in front of every encoded value, so a codec has to be registered under the same id on every node reading the
+ * values.
+ */
+public interface ValueCodec<T> {
+
+  /**
+   * @return the id written with every encoded value, between 1 and 255
+   */
+  public int getId();
+
+  /**
+   * @return the name a cache configuration refers to this codec with
+   */
+  public String getName();
+
+  /**
+   * @return true if this codec is able to encode the given value
+   */
+  public boolean canEncode(Object value);
+
+  /**
+   * Writes the value. A codec that finds out it cannot handle some part of the value should throw
+   * {@link java.io.NotSerializableException}, the value is then stored with Java serialization.
+   */
+  public void encode(T value, DataOutput out) throws IOException;
+
+  public T decode(DataInput in) throws IOException, ClassNotFoundException;
+
+}
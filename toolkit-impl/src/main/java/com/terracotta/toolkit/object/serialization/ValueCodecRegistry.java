@@ -0,0 +1,275 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.object.serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Known {@link ValueCodec}s and the framing of codec encoded values: <code>[CODEC_MARKER][codec id][payload]</code>.
+ * The marker never starts a Java serialization or GZIP stream, so both forms can be told apart when reading and caches
+ * can switch codecs without touching the values already stored.
+ * <p>
+ * The codec of a cache is picked by name in its configuration ({@link #VALUE_CODEC_FIELD_NAME}). Values the
+ * configured codec does not handle are tried with the built-in codecs and otherwise fall back to Java serialization.
+ */
+public class ValueCodecRegistry {
+
+  public static final String                               VALUE_CODEC_FIELD_NAME   = "valueCodec";
+  /**
+   * Codec name for Java serialization only, the default.
+   */
+  public static final String                               JAVA_SERIALIZATION       = "java";
+  /**
+   * Codec name for the built-in codecs, with Java serialization for anything they do not cover.
+   */
+  public static final String                               BUILT_IN                 = "builtin";
+  public static final String                               DEFAULT_VALUE_CODEC      = JAVA_SERIALIZATION;
+
+  // Java serialization streams start with 0xAC, GZIP streams with 0x1F
+  static final int                                         CODEC_MARKER             = 0xC0;
+
+  private static final int                                 NULL_ID                  = 0;
+  private static final int                                 MAX_CODECS               = 256;
+  private static final int                                 MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+  private static final int                                 MAX_NESTING_DEPTH        = 256;
+
+  private final AtomicReferenceArray<ValueCodec>           codecs                   = new AtomicReferenceArray<ValueCodec>(MAX_CODECS);
+  private final AtomicReferenceArray<ValueCodecStatistics> statistics               = new AtomicReferenceArray<ValueCodecStatistics>(MAX_CODECS);
+  private final ConcurrentMap<String, ValueCodec>          codecsByName             = new ConcurrentHashMap<String, ValueCodec>();
+  private final List<ValueCodec>                           userCodecs               = new CopyOnWriteArrayList<ValueCodec>();
+  private final ValueCodecStatistics                       javaStatistics           = new ValueCodecStatistics(JAVA_SERIALIZATION);
+  private final ThreadLocal<EncodeBuffer>                  buffers                  = new ThreadLocal<EncodeBuffer>();
+  // values being encoded by this thread, from the top level value down to the nested one currently written
+  private final ThreadLocal<Map<Object, Boolean>>          encodingPath             = new ThreadLocal<Map<Object, Boolean>>() {
+                                                                                      @Override
+                                                                                      protected Map<Object, Boolean> initialValue() {
+                                                                                        return new IdentityHashMap<Object, Boolean>();
+                                                                                      }
+                                                                                    };
+
+  public ValueCodecRegistry() {
+    for (BuiltInValueCodec codec : BuiltInValueCodec.values()) {
+      add(codec);
+    }
+  }
+
+  /**
+   * Makes the codec available to caches and to the decoding of values. Ids up to
+   * {@link BuiltInValueCodec#MAX_BUILT_IN_ID} are reserved.
+   */
+  public synchronized void register(ValueCodec<?> codec) {
+    if (codec.getId() <= BuiltInValueCodec.MAX_BUILT_IN_ID || codec.getId() >= MAX_CODECS) {
+      throw new IllegalArgumentException("Codec id has to be between " + (BuiltInValueCodec.MAX_BUILT_IN_ID + 1)
+                                         + " and " + (MAX_CODECS - 1) + ": " + codec.getId());
+    }
+    add(codec);
+    userCodecs.add(codec);
+  }
+
+  private void add(ValueCodec<?> codec) {
+    final String name = codec.getName();
+    if (JAVA_SERIALIZATION.equals(name) || BUILT_IN.equals(name) || codecsByName.containsKey(name)) {
+      throw new IllegalArgumentException("Codec name already in use: " + name);
+    }
+    if (codecs.get(codec.getId()) != null) { throw new IllegalArgumentException("Codec id " + codec.getId()
+                                                                               + " already used by "
+                                                                               + codecs.get(codec.getId()).getName()); }
+    statistics.set(codec.getId(), new ValueCodecStatistics(name));
+    codecs.set(codec.getId(), codec);
+    codecsByName.put(name, codec);
+  }
+
+  public ValueCodec<?> getCodec(String name) {
+    return codecsByName.get(name);
+  }
+
+  /**
+   * @return true if a cache can be configured with this codec name
+   */
+  public boolean isKnownCodec(String name) {
+    return JAVA_SERIALIZATION.equals(name) || BUILT_IN.equals(name) || codecsByName.containsKey(name);
+  }
+
+  /**
+   * @return encode and decode statistics by codec name
+   */
+  public Map<String, ValueCodecStatistics> getStatistics() {
+    final Map<String, ValueCodecStatistics> rv = new LinkedHashMap<String, ValueCodecStatistics>();
+    rv.put(JAVA_SERIALIZATION, javaStatistics);
+    for (int i = 0; i < statistics.length(); i++) {
+      final ValueCodecStatistics codecStatistics = statistics.get(i);
+      if (codecStatistics != null) {
+        rv.put(codecStatistics.getCodecName(), codecStatistics);
+      }
+    }
+    return Collections.unmodifiableMap(rv);
+  }
+
+  /**
+   * Encodes the value with the codec configured by name, or one of the built-in ones.
+   * 
+   * @return the encoded form or null if the value has to be stored with Java serialization
+   */
+  byte[] encode(Object value, String codecName, boolean compress) throws IOException {
+    final ValueCodec codec = selectCodec(value, codecName);
+    if (codec == null) { return null; }
+
+    final long start = System.nanoTime();
+    final EncodeBuffer buffer = buffer();
+    try {
+      buffer.data.writeByte(CODEC_MARKER);
+      buffer.data.writeByte(codec.getId());
+      encodeOnPath(codec, value, buffer.data);
+    } catch (NotSerializableException e) {
+      return null;
+    }
+
+    final byte[] encoded;
+    if (compress) {
+      final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      final GZIPOutputStream out = new GZIPOutputStream(compressed);
+      buffer.writeTo(out);
+      out.close();
+      encoded = compressed.toByteArray();
+    } else {
+      encoded = buffer.toByteArray();
+    }
+    if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+      buffers.remove();
+    }
+    statistics.get(codec.getId()).encoded(System.nanoTime() - start, encoded.length);
+    return encoded;
+  }
+
+  /**
+   * Decodes a value written by {@link #encode}, the marker byte has already been consumed from the stream.
+   */
+  Object decode(InputStream in) throws IOException, ClassNotFoundException {
+    final long start = System.nanoTime();
+    final DataInputStream data = new DataInputStream(in);
+    final ValueCodec codec = codecFor(data.readUnsignedByte());
+    final Object value = codec.decode(data);
+    statistics.get(codec.getId()).decoded(System.nanoTime() - start);
+    return value;
+  }
+
+  /**
+   * Writes a value nested in another encoded value, like a field of a POJO.
+   * 
+   * @throws NotSerializableException if no codec handles the value
+   */
+  public void writeNested(Object value, DataOutput out) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL_ID);
+      return;
+    }
+    ValueCodec codec = BuiltInValueCodec.forValue(value);
+    if (codec == null) {
+      for (ValueCodec userCodec : userCodecs) {
+        if (userCodec.canEncode(value)) {
+          codec = userCodec;
+          break;
+        }
+      }
+    }
+    if (codec == null) { throw new NotSerializableException(value.getClass().getName()); }
+    out.writeByte(codec.getId());
+    encodeOnPath(codec, value, out);
+  }
+
+  /**
+   * Encodes the value unless it is already being encoded further up, or too deep down, the same value graph. Codecs
+   * write values as trees, so a cycle would otherwise recurse until the stack overflows.
+   */
+  private void encodeOnPath(ValueCodec codec, Object value, DataOutput out) throws IOException {
+    final Map<Object, Boolean> path = encodingPath.get();
+    if (path.containsKey(value)) { throw new NotSerializableException(value.getClass().getName()
+                                                                      + " is referenced from its own fields"); }
+    if (path.size() >= MAX_NESTING_DEPTH) { throw new NotSerializableException(value.getClass().getName()
+                                                                               + " is nested more than "
+                                                                               + MAX_NESTING_DEPTH + " levels deep"); }
+    path.put(value, Boolean.TRUE);
+    try {
+      codec.encode(value, out);
+    } finally {
+      path.remove(value);
+    }
+  }
+
+  public Object readNested(DataInput in) throws IOException, ClassNotFoundException {
+    final int id = in.readUnsignedByte();
+    if (id == NULL_ID) { return null; }
+    return codecFor(id).decode(in);
+  }
+
+  void javaSerialized(long nanos, int bytes) {
+    javaStatistics.encoded(nanos, bytes);
+  }
+
+  void javaDeserialized(long nanos) {
+    javaStatistics.decoded(nanos);
+  }
+
+  private ValueCodec selectCodec(Object value, String codecName) {
+    if (codecName == null || JAVA_SERIALIZATION.equals(codecName)) { return null; }
+    final ValueCodec codec = codecsByName.get(codecName);
+    if (codec != null && codec.canEncode(value)) { return codec; }
+    return BuiltInValueCodec.forValue(value);
+  }
+
+  private EncodeBuffer buffer() {
+    EncodeBuffer buffer = buffers.get();
+    if (buffer == null) {
+      buffer = new EncodeBuffer();
+      buffers.set(buffer);
+    } else {
+      buffer.reset();
+    }
+    return buffer;
+  }
+
+  private ValueCodec codecFor(int id) throws IOException {
+    final ValueCodec codec = codecs.get(id);
+    if (codec == null) { throw new IOException("No codec registered with id " + id); }
+    return codec;
+  }
+
+  private static final class EncodeBuffer extends ByteArrayOutputStream {
+    private final DataOutputStream data = new DataOutputStream(this);
+
+    int capacity() {
+      return buf.length;
+    }
+  }
+}
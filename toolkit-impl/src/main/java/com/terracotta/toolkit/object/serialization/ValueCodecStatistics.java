@@ -0,0 +1,79 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.object.serialization;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encode and decode counts and times of one codec, Java serialization included.
+ */
+public class ValueCodecStatistics {
+
+  private final String     codecName;
+  private final AtomicLong encodeCount  = new AtomicLong();
+  private final AtomicLong encodeNanos  = new AtomicLong();
+  private final AtomicLong encodedBytes = new AtomicLong();
+  private final AtomicLong decodeCount  = new AtomicLong();
+  private final AtomicLong decodeNanos  = new AtomicLong();
+
+  ValueCodecStatistics(String codecName) {
+    this.codecName = codecName;
+  }
+
+  void encoded(long nanos, int bytes) {
+    encodeCount.incrementAndGet();
+    encodeNanos.addAndGet(nanos);
+    encodedBytes.addAndGet(bytes);
+  }
+
+  void decoded(long nanos) {
+    decodeCount.incrementAndGet();
+    decodeNanos.addAndGet(nanos);
+  }
+
+  public String getCodecName() {
+    return codecName;
+  }
+
+  public long getEncodeCount() {
+    return encodeCount.get();
+  }
+
+  public long getEncodeTime(TimeUnit unit) {
+    return unit.convert(encodeNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  public long getEncodedBytes() {
+    return encodedBytes.get();
+  }
+
+  public long getDecodeCount() {
+    return decodeCount.get();
+  }
+
+  public long getDecodeTime(TimeUnit unit) {
+    return unit.convert(decodeNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "ValueCodecStatistics [codec=" + codecName + ", encodeCount=" + getEncodeCount() + ", encodeMicros="
+           + getEncodeTime(TimeUnit.MICROSECONDS) + ", encodedBytes=" + getEncodedBytes() + ", decodeCount="
+           + getDecodeCount() + ", decodeMicros=" + getDecodeTime(TimeUnit.MICROSECONDS) + "]";
+  }
+}
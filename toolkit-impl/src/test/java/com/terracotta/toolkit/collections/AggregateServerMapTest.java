@@ -29,12 +29,16 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.terracotta.toolkit.ToolkitObjectType;
 import org.terracotta.toolkit.builder.ToolkitCacheConfigBuilder;
 import org.terracotta.toolkit.cache.ToolkitCacheListener;
 import org.terracotta.toolkit.concurrent.locks.ToolkitLock;
 import org.terracotta.toolkit.config.Configuration;
 import org.terracotta.toolkit.internal.cache.VersionedValue;
+import org.terracotta.toolkit.internal.concurrent.locks.ToolkitLockTypeInternal;
 import org.terracotta.toolkit.rejoin.RejoinException;
 import org.terracotta.toolkit.search.ToolkitSearchQuery;
 import org.terracotta.toolkit.store.ToolkitConfigFields;
@@ -45,6 +49,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.tc.object.ObjectID;
 import com.tc.object.TCObjectServerMap;
+import com.tc.object.locks.LockLevel;
 import com.tc.platform.PlatformService;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.concurrent.TaskRunner;
@@ -66,8 +71,10 @@ import com.terracotta.toolkit.util.ImmediateTimer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -77,10 +84,15 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyMap;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -234,6 +246,71 @@ public class AggregateServerMapTest {
     return serverMap;
   }
 
+  @Test
+  public void testStrongPutAllAndRemoveAllBatchTheirKeyLocks() throws Exception {
+    final List<ServerMap> serverMapList = mockServerMaps(2);
+    AggregateServerMap<String, String> asm = createKeyLockingMap(serverMapList, ToolkitLockTypeInternal.WRITE);
+
+    Map<String, String> entries = new HashMap<String, String>();
+    entries.put("foo", "1");
+    entries.put("bar", "2");
+    entries.put("baz", "3");
+    asm.putAll(entries);
+
+    InOrder inOrder = inOrder(platformService, serverMapList.get(0), serverMapList.get(1));
+    ArgumentCaptor<Collection> locked = ArgumentCaptor.forClass(Collection.class);
+    inOrder.verify(platformService).beginLocks(locked.capture(), eq(LockLevel.WRITE));
+    inOrder.verify(serverMapList.get(0)).putNoReturn(eq("foo"), eq("1"), anyInt(), anyInt(), anyInt());
+    inOrder.verify(platformService).commitLocks(locked.capture(), eq(LockLevel.WRITE));
+    assertThat(new HashSet<Object>(locked.getAllValues().get(0)),
+               is(new HashSet<Object>(Arrays.asList("lock-foo", "lock-bar", "lock-baz"))));
+    assertThat(locked.getAllValues().get(1), is(locked.getAllValues().get(0)));
+    verify(serverMapList.get(1)).putNoReturn(eq("bar"), eq("2"), anyInt(), anyInt(), anyInt());
+
+    asm.removeAll(new HashSet<String>(Arrays.asList("foo", "bar")));
+    verify(platformService, times(2)).beginLocks(locked.capture(), eq(LockLevel.WRITE));
+    assertThat(new HashSet<Object>(locked.getAllValues().get(3)),
+               is(new HashSet<Object>(Arrays.asList("lock-foo", "lock-bar"))));
+    verify(serverMapList.get(0)).removeNoReturn("foo");
+    verify(serverMapList.get(1)).removeNoReturn("bar");
+    verify(platformService, times(2)).commitLocks(any(Collection.class), eq(LockLevel.WRITE));
+  }
+
+  @Test
+  public void testConcurrentLockTypeBatchTakesTheLocksThePerKeyOpsUse() throws Exception {
+    final List<ServerMap> serverMapList = mockServerMaps(2);
+    AggregateServerMap<String, String> asm = createKeyLockingMap(serverMapList, ToolkitLockTypeInternal.CONCURRENT);
+
+    Map<String, String> entries = new HashMap<String, String>();
+    entries.put("foo", "1");
+    entries.put("bar", "2");
+    asm.putAll(entries);
+    asm.removeAll(new HashSet<String>(Arrays.asList("foo", "bar")));
+
+    // holding the batch makes the thread explicitly locked, so the per key ops of a concurrent map look for write locks
+    verify(platformService, times(2)).beginLocks(any(Collection.class), eq(LockLevel.WRITE));
+    verify(platformService, times(2)).commitLocks(any(Collection.class), eq(LockLevel.WRITE));
+    verify(platformService, never()).beginLocks(any(Collection.class), eq(LockLevel.CONCURRENT));
+  }
+
+  private AggregateServerMap<String, String> createKeyLockingMap(List<ServerMap> serverMapList,
+                                                                 ToolkitLockTypeInternal lockType) {
+    configuration = new ToolkitCacheConfigBuilder().consistency(ToolkitConfigFields.Consistency.STRONG).build();
+    for (ServerMap serverMap : serverMapList) {
+      when(serverMap.getLockIdForKey(any())).thenAnswer(new Answer<Object>() {
+        @Override
+        public Object answer(InvocationOnMock invocation) {
+          return "lock-" + invocation.getArguments()[0];
+        }
+      });
+      when(serverMap.getLockType()).thenReturn(lockType);
+    }
+    ToolkitObjectStripe[] stripeObjects = createObjectStripes(configuration, serverMapList, 1);
+    return new AggregateServerMap<String, String>(ToolkitObjectType.CACHE, mock(SearchFactory.class),
+        mock(DistributedClusteredObjectLookup.class), "foo", stripeObjects, configuration,
+        mock(Callable.class), serverMapLocalStoreFactory, platformService, mock(ToolkitLock.class));
+  }
+
   @Test
   public void testDoHandleEvictionsTCNotRunningExceptionLogging() {
     final List<ServerMap> serverMapList = mockServerMaps(256);
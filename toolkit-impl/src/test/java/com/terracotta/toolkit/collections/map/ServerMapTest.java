@@ -119,6 +119,7 @@ public class ServerMapTest {
     when(platformService.getTCProperties()).thenReturn(tcProperties);
     serializationStrategy = mock(SerializationStrategy.class);
     when(serializationStrategy.serialize(any(), anyBoolean())).thenReturn(new byte[1]);
+    when(serializationStrategy.serialize(any(), anyBoolean(), anyString())).thenReturn(new byte[1]);
     when(platformService.lookupRegisteredObjectByName(TerracottaToolkit.TOOLKIT_SERIALIZER_REGISTRATION_NAME, SerializationStrategy.class))
         .thenReturn(serializationStrategy);
     when(platformService.createMetaDataDescriptor(anyString())).then(new Answer<Object>() {
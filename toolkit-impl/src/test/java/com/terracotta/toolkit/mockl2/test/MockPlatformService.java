@@ -56,6 +56,7 @@ import com.terracotta.toolkit.roots.impl.ToolkitTypeConstants;
 import com.terracotta.toolkit.roots.impl.ToolkitTypeRootImpl;
 import com.terracottatech.search.NVPair;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -339,6 +340,16 @@ public class MockPlatformService implements PlatformService {
     MockUtil.logInfo("begin lock lock id " + lockID + " - " + level);
   }
 
+  @Override
+  public void beginLocks(Collection<?> lockIDs, LockLevel level) {
+    MockUtil.logInfo("begin locks lock ids " + lockIDs + " - " + level);
+  }
+
+  @Override
+  public void commitLocks(Collection<?> lockIDs, LockLevel level) {
+    MockUtil.logInfo("commit locks lock ids " + lockIDs + " - " + level);
+  }
+
   @Override
   public void beginAtomicTransaction(LockID lockID, LockLevel level) {
     throw new ImplementMe();
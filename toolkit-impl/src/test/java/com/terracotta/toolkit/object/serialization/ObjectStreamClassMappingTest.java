@@ -51,6 +51,7 @@ import com.terracottatech.search.NVPair;
 
 import java.io.IOException;
 import java.io.ObjectStreamClass;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
@@ -177,6 +178,16 @@ public class ObjectStreamClassMappingTest {
 
     }
 
+    @Override
+    public void beginLocks(Collection<?> lockIDs, LockLevel level) {
+      checkThreadAccess(level);
+    }
+
+    @Override
+    public void commitLocks(Collection<?> lockIDs, LockLevel level) {
+      checkThreadAccess(level);
+    }
+
     @Override
     public boolean tryBeginLock(Object lockID, LockLevel level) {
       checkThreadAccess(level);
@@ -0,0 +1,210 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.object.serialization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tc.platform.PlatformService;
+
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+public class ValueCodecRegistryTest {
+
+  private SerializationStrategyImpl strategy;
+  private ValueCodecRegistry        registry;
+
+  @Before
+  public void init() {
+    strategy = new SerializationStrategyImpl(mock(PlatformService.class), new LocalSerializerMap(), null);
+    registry = strategy.getValueCodecRegistry();
+  }
+
+  @Test
+  public void testBuiltInCodecs() throws Exception {
+    Object[] values = { "a string \u00e9\u4e2d", Long.MAX_VALUE, 42, (short) 7, (byte) -3, 'x', 1.5d, 2.5f, true };
+    for (Object value : values) {
+      for (boolean compress : new boolean[] { false, true }) {
+        byte[] encoded = strategy.serialize(value, compress, ValueCodecRegistry.BUILT_IN);
+        if (!compress) {
+          assertEquals(ValueCodecRegistry.CODEC_MARKER, encoded[0] & 0xFF);
+        }
+        assertEquals(value, strategy.deserialize(encoded, compress, false));
+      }
+    }
+
+    byte[] bytes = { 1, 2, 3 };
+    assertArrayEquals(bytes, (byte[]) strategy.deserialize(strategy.serialize(bytes, false, ValueCodecRegistry.BUILT_IN),
+                                                           false, false));
+  }
+
+  @Test
+  public void testJavaSerializationSkipsCodecs() throws Exception {
+    assertNull(registry.encode("value", ValueCodecRegistry.JAVA_SERIALIZATION, false));
+    assertNull(registry.encode(new ArrayList<String>(), ValueCodecRegistry.BUILT_IN, false));
+  }
+
+  @Test
+  public void testPojoCodec() throws Exception {
+    registry.register(new PojoValueCodec<Address>(40, Address.class, registry));
+    registry.register(new PojoValueCodec<Person>(41, Person.class, registry));
+    assertTrue(registry.isKnownCodec(Person.class.getName()));
+
+    Person person = new Person("joe", 42, new Address("main street", 7));
+    person.cached = "not written";
+    for (boolean compress : new boolean[] { false, true }) {
+      byte[] encoded = strategy.serialize(person, compress, Person.class.getName());
+      Person decoded = (Person) strategy.deserialize(encoded, compress, false);
+      assertEquals("joe", decoded.name);
+      assertEquals(42, decoded.age);
+      assertEquals("main street", decoded.address.street);
+      assertEquals(7, decoded.address.number);
+      assertNull(decoded.cached);
+    }
+
+    person.address = null;
+    Person decoded = (Person) strategy.deserialize(strategy.serialize(person, false, Person.class.getName()), false,
+                                                   false);
+    assertNull(decoded.address);
+
+    ValueCodecStatistics statistics = registry.getStatistics().get(Person.class.getName());
+    assertEquals(3, statistics.getEncodeCount());
+    assertEquals(3, statistics.getDecodeCount());
+    assertTrue(statistics.getEncodedBytes() > 0);
+  }
+
+  @Test
+  public void testPojoWithUnsupportedFieldFallsBack() throws Exception {
+    registry.register(new PojoValueCodec<Holder>(40, Holder.class, registry));
+    Holder holder = new Holder();
+    assertTrue(registry.encode(holder, Holder.class.getName(), false) != null);
+    holder.value = new ArrayList<String>();
+    assertNull(registry.encode(holder, Holder.class.getName(), false));
+  }
+
+  @Test
+  public void testCyclicPojoFallsBack() throws Exception {
+    registry.register(new PojoValueCodec<Holder>(40, Holder.class, registry));
+    Holder self = new Holder();
+    self.value = self;
+    assertNull(registry.encode(self, Holder.class.getName(), false));
+
+    Holder first = new Holder();
+    Holder second = new Holder();
+    first.value = second;
+    second.value = first;
+    assertNull(registry.encode(first, Holder.class.getName(), false));
+
+    // a failed encode leaves nothing behind for the next one
+    second.value = "end";
+    assertTrue(registry.encode(first, Holder.class.getName(), false) != null);
+  }
+
+  @Test
+  public void testDeeplyNestedPojoFallsBack() throws Exception {
+    registry.register(new PojoValueCodec<Holder>(40, Holder.class, registry));
+    Holder head = new Holder();
+    for (int i = 0; i < 1000; i++) {
+      Holder next = new Holder();
+      next.value = head;
+      head = next;
+    }
+    assertNull(registry.encode(head, Holder.class.getName(), false));
+  }
+
+  @Test
+  public void testChangedSchemaIsRejected() throws Exception {
+    registry.register(new PojoValueCodec<Holder>(40, Holder.class, registry));
+    byte[] encoded = registry.encode(new Holder(), Holder.class.getName(), false);
+
+    SerializationStrategyImpl other = new SerializationStrategyImpl(mock(PlatformService.class),
+                                                                    new LocalSerializerMap(), null);
+    other.getValueCodecRegistry().register(new PojoValueCodec<Address>(40, Address.class,
+                                                                       other.getValueCodecRegistry()));
+    try {
+      other.deserialize(encoded, false, false);
+      fail();
+    } catch (InvalidClassException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRegistration() {
+    try {
+      registry.register(new PojoValueCodec<Holder>(BuiltInValueCodec.MAX_BUILT_IN_ID, Holder.class, registry));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    registry.register(new PojoValueCodec<Holder>(40, Holder.class, registry));
+    try {
+      registry.register(new PojoValueCodec<Address>(40, Address.class, registry));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertFalse(registry.isKnownCodec(Address.class.getName()));
+    assertTrue(registry.isKnownCodec(ValueCodecRegistry.JAVA_SERIALIZATION));
+    assertTrue(registry.isKnownCodec(ValueCodecRegistry.BUILT_IN));
+  }
+
+  static class Person {
+    private String           name;
+    private int              age;
+    private Address          address;
+    private transient String cached;
+
+    Person() {
+      //
+    }
+
+    Person(String name, int age, Address address) {
+      this.name = name;
+      this.age = age;
+      this.address = address;
+    }
+  }
+
+  static class Address implements Serializable {
+    private final String street;
+    private final int    number;
+
+    private Address() {
+      this(null, 0);
+    }
+
+    Address(String street, int number) {
+      this.street = street;
+      this.number = number;
+    }
+  }
+
+  static class Holder {
+    private Object value;
+  }
+}